@@ -14,6 +14,9 @@
  Date: 27/10/2025 18:48:15
 */
 
+-- Schema baseline (Flyway V1) plus sample data. Later schema changes (V1_1 and up) live in
+-- src/main/resources/db/migration and are applied on startup; do not add them here.
+
 SET NAMES utf8mb4;
 SET FOREIGN_KEY_CHECKS = 0;
 
@@ -27,7 +30,7 @@ CREATE TABLE `administrator`  (
   `password` varchar(128) CHARACTER SET utf8mb4 COLLATE utf8mb4_general_ci NOT NULL,
   `login_log` text CHARACTER SET utf8mb4 COLLATE utf8mb4_general_ci NULL,
   PRIMARY KEY (`administrator_id`) USING BTREE,
-  UNIQUE INDEX `email`(`email` ASC) USING BTREE
+  UNIQUE INDEX `uk_administrator_email`(`email` ASC) USING BTREE
 ) ENGINE = InnoDB AUTO_INCREMENT = 4 CHARACTER SET = utf8mb4 COLLATE = utf8mb4_general_ci ROW_FORMAT = DYNAMIC;
 
 -- ----------------------------
@@ -52,7 +55,7 @@ CREATE TABLE `book`  (
   `label_id` int NOT NULL,
   `avatar` varchar(255) CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci NULL DEFAULT NULL,
   PRIMARY KEY (`book_id`) USING BTREE,
-  INDEX `label_id`(`label_id` ASC) USING BTREE,
+  INDEX `idx_book_label`(`label_id` ASC) USING BTREE,
   CONSTRAINT `book_ibfk_1` FOREIGN KEY (`label_id`) REFERENCES `label` (`label_id`) ON DELETE RESTRICT ON UPDATE RESTRICT
 ) ENGINE = InnoDB AUTO_INCREMENT = 18 CHARACTER SET = utf8mb4 COLLATE = utf8mb4_0900_ai_ci ROW_FORMAT = DYNAMIC;
 
@@ -89,7 +92,7 @@ CREATE TABLE `comment`  (
   `author_type` tinyint NOT NULL,
   `status` tinyint NOT NULL,
   PRIMARY KEY (`comment_id`) USING BTREE,
-  INDEX `book_id`(`book_id` ASC) USING BTREE,
+  INDEX `idx_comment_book`(`book_id` ASC) USING BTREE,
   CONSTRAINT `comment_ibfk_1` FOREIGN KEY (`book_id`) REFERENCES `book` (`book_id`) ON DELETE RESTRICT ON UPDATE RESTRICT
 ) ENGINE = InnoDB AUTO_INCREMENT = 36 CHARACTER SET = utf8mb4 COLLATE = utf8mb4_0900_ai_ci ROW_FORMAT = DYNAMIC;
 
@@ -141,7 +144,7 @@ CREATE TABLE `favorite`  (
   `user_id` int NOT NULL,
   `create_time` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP,
   PRIMARY KEY (`book_id`, `user_id`) USING BTREE,
-  INDEX `user_id`(`user_id` ASC) USING BTREE,
+  INDEX `idx_favorite_user`(`user_id` ASC) USING BTREE,
   CONSTRAINT `favorite_ibfk_1` FOREIGN KEY (`book_id`) REFERENCES `book` (`book_id`) ON DELETE RESTRICT ON UPDATE RESTRICT,
   CONSTRAINT `favorite_ibfk_2` FOREIGN KEY (`user_id`) REFERENCES `user` (`user_id`) ON DELETE RESTRICT ON UPDATE RESTRICT
 ) ENGINE = InnoDB CHARACTER SET = utf8mb4 COLLATE = utf8mb4_0900_ai_ci ROW_FORMAT = DYNAMIC;
@@ -169,7 +172,7 @@ CREATE TABLE `label`  (
   `label_name` varchar(100) CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci NOT NULL,
   `create_date` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP,
   PRIMARY KEY (`label_id`) USING BTREE,
-  UNIQUE INDEX `label_name`(`label_name` ASC) USING BTREE
+  UNIQUE INDEX `uk_label_name`(`label_name` ASC) USING BTREE
 ) ENGINE = InnoDB AUTO_INCREMENT = 7 CHARACTER SET = utf8mb4 COLLATE = utf8mb4_0900_ai_ci ROW_FORMAT = DYNAMIC;
 
 -- ----------------------------
@@ -194,8 +197,8 @@ CREATE TABLE `reservation`  (
   `take_date` date NULL DEFAULT NULL,
   `return_date` date NULL DEFAULT NULL,
   PRIMARY KEY (`reservation_id`) USING BTREE,
-  INDEX `user_id`(`user_id` ASC) USING BTREE,
-  INDEX `book_id`(`book_id` ASC) USING BTREE,
+  INDEX `idx_reservation_user`(`user_id` ASC) USING BTREE,
+  INDEX `idx_reservation_book`(`book_id` ASC) USING BTREE,
   CONSTRAINT `reservation_ibfk_1` FOREIGN KEY (`user_id`) REFERENCES `user` (`user_id`) ON DELETE RESTRICT ON UPDATE RESTRICT,
   CONSTRAINT `reservation_ibfk_2` FOREIGN KEY (`book_id`) REFERENCES `book` (`book_id`) ON DELETE RESTRICT ON UPDATE RESTRICT
 ) ENGINE = InnoDB AUTO_INCREMENT = 11 CHARACTER SET = utf8mb4 COLLATE = utf8mb4_0900_ai_ci ROW_FORMAT = DYNAMIC;
@@ -226,8 +229,8 @@ CREATE TABLE `user`  (
   `password` varchar(128) CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci NOT NULL,
   `is_active` bit(1) NOT NULL DEFAULT b'1',
   PRIMARY KEY (`user_id`) USING BTREE,
-  UNIQUE INDEX `telephone`(`telephone` ASC) USING BTREE,
-  UNIQUE INDEX `email`(`email` ASC) USING BTREE
+  UNIQUE INDEX `uk_user_telephone`(`telephone` ASC) USING BTREE,
+  UNIQUE INDEX `uk_user_email`(`email` ASC) USING BTREE
 ) ENGINE = InnoDB AUTO_INCREMENT = 7 CHARACTER SET = utf8mb4 COLLATE = utf8mb4_0900_ai_ci ROW_FORMAT = DYNAMIC;
 
 -- ----------------------------
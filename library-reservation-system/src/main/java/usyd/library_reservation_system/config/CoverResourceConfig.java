@@ -0,0 +1,110 @@
+package usyd.library_reservation_system.library_reservation_system.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import usyd.library_reservation_system.library_reservation_system.service.CoverStorageService;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Serves /img/covers/** straight from the cover directory.
+ * Spring's resource handler streams files as resource regions, so Range requests (206) work out of the box.
+ * Content-addressed covers (sha256 names, also under the variant directories) never change under their
+ * name, so they are cached for a year as immutable. Every other name (seeded covers such as
+ * python1.jpg, pre-hash uploads) can be overwritten in place, so those get a short max-age and must
+ * be revalidated by ETag.
+ */
+@Configuration
+public class CoverResourceConfig implements WebMvcConfigurer {
+
+    private static final Pattern CONTENT_HASH = Pattern.compile("([0-9a-f]{64})\\.[a-z0-9]{1,5}");
+
+    // Optional so MVC slice tests (which pick up every WebMvcConfigurer) don't need the storage bean
+    private final ObjectProvider<CoverStorageService> coverStorageProvider;
+    private CoverStorageService coverStorage;
+
+    @Value("${app.covers.legacy-max-age-seconds:600}")
+    private long legacyMaxAgeSeconds = 600;
+
+    public CoverResourceConfig(ObjectProvider<CoverStorageService> coverStorageProvider) {
+        this.coverStorageProvider = coverStorageProvider;
+    }
+
+    @Override
+    public void addResourceHandlers(ResourceHandlerRegistry registry) {
+        coverStorage = coverStorageProvider.getIfAvailable();
+        if (coverStorage == null) {
+            return;
+        }
+        // No handler-wide Cache-Control: it depends on the file name, see cacheControlFor
+        registry.addResourceHandler(CoverStorageService.PUBLIC_PREFIX + "**")
+                .addResourceLocations(coverStorage.getCoversDir().toUri().toString())
+                .setUseLastModified(false)
+                .setEtagGenerator(this::etagFor);
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new HandlerInterceptor() {
+            @Override
+            public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+                CacheControl cc = cacheControlFor(request.getRequestURI().substring(request.getContextPath().length()));
+                if (cc != null) {
+                    response.setHeader(HttpHeaders.CACHE_CONTROL, cc.getHeaderValue());
+                }
+                return true;
+            }
+        }).addPathPatterns(CoverStorageService.PUBLIC_PREFIX + "**");
+    }
+
+    /** Cache policy for a request path under /img/covers/, or null if no such file exists (so a 404 is never cached). */
+    CacheControl cacheControlFor(String requestPath) {
+        CoverStorageService storage = coverStorage != null ? coverStorage : coverStorageProvider.getIfAvailable();
+        if (storage == null || !requestPath.startsWith(CoverStorageService.PUBLIC_PREFIX)) {
+            return null;
+        }
+        Path dir = storage.getCoversDir();
+        Path file = dir.resolve(requestPath.substring(CoverStorageService.PUBLIC_PREFIX.length())).normalize();
+        if (!file.startsWith(dir) || !Files.isRegularFile(file)) {
+            return null;
+        }
+        if (CONTENT_HASH.matcher(file.getFileName().toString()).matches()) {
+            return CacheControl.maxAge(Duration.ofDays(365)).cachePublic().immutable();
+        }
+        return CacheControl.maxAge(Duration.ofSeconds(legacyMaxAgeSeconds)).cachePublic().mustRevalidate();
+    }
+
+    /**
+     * Content-addressed files use their hash (prefixed with the variant directory for thumbnails);
+     * older covers fall back to size + modification time. Spring adds the quotes.
+     */
+    String etagFor(Resource resource) {
+        try {
+            Path file = resource.getFile().toPath();
+            Matcher m = CONTENT_HASH.matcher(file.getFileName().toString());
+            if (m.matches()) {
+                Path dir = file.getParent();
+                boolean variant = dir != null && !dir.equals(coverStorage.getCoversDir());
+                return (variant ? dir.getFileName() + "-" : "") + m.group(1);
+            }
+            return Long.toHexString(resource.contentLength()) + "-" + Long.toHexString(resource.lastModified());
+        } catch (IOException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package usyd.library_reservation_system.library_reservation_system.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Configuration
+public class ExecutorConfig {
+
+    // Bounded pool for CPU-heavy BCrypt work in admin batch operations (0 = one thread per core)
+    @Bean(destroyMethod = "shutdown")
+    public ForkJoinPool passwordHashPool(@Value("${app.admin.batch.hash-parallelism:0}") int parallelism) {
+        int p = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        return new ForkJoinPool(p);
+    }
+
+    // Fixed-size pool with a bounded queue for cover thumbnails; when full, new jobs are rejected (caller logs)
+    @Bean(destroyMethod = "shutdown")
+    public ThreadPoolExecutor coverThumbnailExecutor(
+            @Value("${app.covers.thumbnail-threads:2}") int threads,
+            @Value("${app.covers.thumbnail-queue:200}") int queueCapacity) {
+        int n = Math.max(1, threads);
+        return new ThreadPoolExecutor(n, n, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+                namedDaemonThreads("cover-thumb-"),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    // Single sender for overdue notices; a full queue rejects the batch and OverdueLoanJob retries it next run
+    @Bean(destroyMethod = "shutdown")
+    public ThreadPoolExecutor overdueNoticeExecutor(
+            @Value("${app.reservations.overdue.notify-threads:1}") int threads,
+            @Value("${app.reservations.overdue.notify-queue:100}") int queueCapacity) {
+        int n = Math.max(1, threads);
+        return new ThreadPoolExecutor(n, n, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+                namedDaemonThreads("overdue-notice-"),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    static ThreadFactory namedDaemonThreads(String prefix) {
+        AtomicInteger seq = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, prefix + seq.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+}
@@ -4,6 +4,7 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.*;
+import usyd.library_reservation_system.library_reservation_system.service.BookBusyException;
 import usyd.library_reservation_system.library_reservation_system.service.EmailOrPhoneAlreadyUsedException;
 import usyd.library_reservation_system.library_reservation_system.service.InvalidCredentialsException;
 
@@ -31,6 +32,13 @@ public class GlobalExceptionHandler {
         return Map.of("error", "ACCOUNT_CONFLICT", "message", ex.getMessage());
     }
 
+    // Per-book lock wait timed out: the client may retry
+    @ExceptionHandler(BookBusyException.class)
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    public Map<String, Object> handleBookBusy(BookBusyException ex) {
+        return Map.of("error", "BOOK_BUSY", "message", ex.getMessage());
+    }
+
     @ExceptionHandler(Exception.class)
     @ResponseStatus(HttpStatus.INTERNAL_SERVER_ERROR)
     public Map<String, Object> handleGeneric(Exception ex) {
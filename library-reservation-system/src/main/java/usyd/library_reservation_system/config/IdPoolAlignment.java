@@ -0,0 +1,46 @@
+package usyd.library_reservation_system.library_reservation_system.config;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Moves each id_pool row of the pooled-ids profile up to the table's current MAX(id) at startup.
+ * Without the profile those tables keep inserting through AUTO_INCREMENT and id_pool (seeded once by
+ * V1_2) falls behind, so switching the profile on later would hand out ids that already exist.
+ * GREATEST keeps the pool where it is when it is already ahead (blocks reserved by earlier runs).
+ *
+ * Runs after Flyway (JdbcTemplate waits for database initialization) and before any request. It does
+ * not cover nodes still inserting through IDENTITY alongside pooled ones: switch all nodes together.
+ */
+@Slf4j
+@Component
+@Profile("pooled-ids")
+public class IdPoolAlignment {
+
+    // seq_name in id_pool -> table and id column it hands out ids for (see META-INF/orm-pooled-ids.xml)
+    static final Map<String, String[]> POOLED_TABLES = Map.of(
+            "comment", new String[]{"comment", "comment_id"},
+            "label", new String[]{"label", "label_id"});
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public IdPoolAlignment(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    public void align() {
+        POOLED_TABLES.forEach((seqName, target) -> {
+            int matched = jdbcTemplate.update("UPDATE id_pool SET last_val = GREATEST(last_val, " +
+                    "(SELECT COALESCE(MAX(" + target[1] + "), 0) FROM " + target[0] + ")) WHERE seq_name = ?", seqName);
+            if (matched == 0) {
+                log.warn("id_pool has no row for {}; pooled ids for it cannot start", seqName);
+            }
+        });
+    }
+}
@@ -0,0 +1,24 @@
+package usyd.library_reservation_system.library_reservation_system.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import usyd.library_reservation_system.library_reservation_system.service.IdempotencyStore;
+
+import java.util.List;
+
+@Configuration
+public class IdempotencyConfig {
+
+    // Servlet URL patterns cannot express /api/books/*/favorite, so the filter sees /api/* and matches paths itself
+    @Bean
+    public FilterRegistrationBean<IdempotencyFilter> idempotencyFilter(
+            IdempotencyStore store,
+            @Value("${app.idempotency.paths:/api/reservations/reserve,/api/reservations/reserve/batch,/api/books/*/favorite}")
+            List<String> paths) {
+        FilterRegistrationBean<IdempotencyFilter> registration = new FilterRegistrationBean<>(new IdempotencyFilter(store, paths));
+        registration.addUrlPatterns("/api/*");
+        return registration;
+    }
+}
@@ -0,0 +1,213 @@
+package usyd.library_reservation_system.library_reservation_system.config;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.MediaType;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+import usyd.library_reservation_system.library_reservation_system.service.IdempotencyStore;
+import usyd.library_reservation_system.library_reservation_system.service.IdempotencyStore.Claim;
+import usyd.library_reservation_system.library_reservation_system.service.IdempotencyStore.StoredResponse;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * Makes client retries of write endpoints safe. A POST to one of the configured paths that carries an
+ * Idempotency-Key header runs once; a repeat with the same key (same user, path and body) gets the
+ * first response replayed without reaching the controller. A repeat while the first is still running
+ * answers 409, and reusing a key for a different body answers 422. Responses of 5xx are not kept,
+ * so a retry after a server error runs again.
+ */
+public class IdempotencyFilter extends OncePerRequestFilter {
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+    private static final int MAX_KEY_LENGTH = 255;
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    private final IdempotencyStore store;
+    private final List<String> paths;
+    private final AntPathMatcher matcher = new AntPathMatcher();
+
+    public IdempotencyFilter(IdempotencyStore store, List<String> paths) {
+        this.store = store;
+        this.paths = paths;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        if (!"POST".equals(request.getMethod()) || request.getHeader(HEADER) == null) {
+            return true;
+        }
+        String path = pathOf(request);
+        return paths.stream().noneMatch(p -> matcher.match(p, path));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String clientKey = request.getHeader(HEADER).trim();
+        if (clientKey.isEmpty() || clientKey.length() > MAX_KEY_LENGTH) {
+            error(response, HttpServletResponse.SC_BAD_REQUEST, "INVALID_IDEMPOTENCY_KEY",
+                    "Idempotency-Key must be 1-" + MAX_KEY_LENGTH + " characters");
+            return;
+        }
+        byte[] body = StreamUtils.copyToByteArray(request.getInputStream());
+        HttpServletRequest replayable = new CachedBodyRequest(request, body);
+
+        // Scoped per user and endpoint, so two clients picking the same key never see each other's response.
+        // The reserve endpoints carry the user in the body rather than in X-USER-ID, so both count.
+        String userId = request.getHeader("X-USER-ID");
+        String key = sha256((userId == null ? "" : userId) + '\n' + bodyUserId(body) + '\n'
+                + pathOf(request) + '\n' + clientKey);
+        Claim claim = store.claim(key, sha256(body));
+
+        switch (claim.state()) {
+            case REPLAY -> replay(response, claim.response());
+            case IN_PROGRESS -> error(response, HttpServletResponse.SC_CONFLICT, "IDEMPOTENCY_KEY_IN_PROGRESS",
+                    "A request with this Idempotency-Key is still being processed");
+            case MISMATCH -> error(response, 422, "IDEMPOTENCY_KEY_REUSED",
+                    "This Idempotency-Key was already used for a different request");
+            case UNTRACKED -> chain.doFilter(replayable, response);
+            case NEW -> runOnce(replayable, response, chain, key);
+        }
+    }
+
+    private void runOnce(HttpServletRequest request, HttpServletResponse response, FilterChain chain, String key)
+            throws ServletException, IOException {
+        ContentCachingResponseWrapper recorded = new ContentCachingResponseWrapper(response);
+        boolean kept = false;
+        try {
+            chain.doFilter(request, recorded);
+            if (recorded.getStatus() < 500) {
+                store.complete(key, new StoredResponse(recorded.getStatus(), recorded.getContentType(),
+                        recorded.getContentAsByteArray()));
+                kept = true;
+            }
+        } finally {
+            if (!kept) {
+                store.release(key);
+            }
+            recorded.copyBodyToResponse();
+        }
+    }
+
+    private static void replay(HttpServletResponse response, StoredResponse stored) throws IOException {
+        response.setStatus(stored.status());
+        if (stored.contentType() != null) {
+            response.setContentType(stored.contentType());
+        }
+        response.setHeader(REPLAYED_HEADER, "true");
+        if (stored.body() != null) {
+            response.getOutputStream().write(stored.body());
+        }
+    }
+
+    private static void error(HttpServletResponse response, int status, String code, String message) throws IOException {
+        response.setStatus(status);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.getWriter().write("{\"error\":\"" + code + "\",\"message\":\"" + message + "\"}");
+    }
+
+    // Top-level "userId" of a JSON body, or "" if there is none
+    static String bodyUserId(byte[] body) {
+        if (body.length == 0) {
+            return "";
+        }
+        try {
+            JsonNode userId = JSON.readTree(body).path("userId");
+            return userId.isValueNode() ? userId.asText() : "";
+        } catch (IOException e) {
+            return "";
+        }
+    }
+
+    private static String pathOf(HttpServletRequest request) {
+        return request.getRequestURI().substring(request.getContextPath().length());
+    }
+
+    private static String sha256(String s) {
+        return sha256(s.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String sha256(byte[] bytes) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // The body has to be read for its fingerprint before the controller reads it again
+    static final class CachedBodyRequest extends HttpServletRequestWrapper {
+        private final byte[] body;
+
+        CachedBodyRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream in = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public boolean isFinished() {
+                    return in.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener listener) {
+                    // The whole body is already in memory, so it is available (and then finished) at once
+                    try {
+                        listener.onDataAvailable();
+                        listener.onAllDataRead();
+                    } catch (IOException e) {
+                        listener.onError(e);
+                    }
+                }
+
+                @Override
+                public int read() {
+                    return in.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    return in.read(b, off, len);
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            String encoding = getCharacterEncoding();
+            return new BufferedReader(new InputStreamReader(new ByteArrayInputStream(body),
+                    encoding == null ? StandardCharsets.UTF_8 : Charset.forName(encoding)));
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package usyd.library_reservation_system.library_reservation_system.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+// Turns on @Scheduled background jobs (reservation archival, ...)
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
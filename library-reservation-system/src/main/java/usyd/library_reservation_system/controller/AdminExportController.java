@@ -0,0 +1,56 @@
+package usyd.library_reservation_system.library_reservation_system.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import usyd.library_reservation_system.library_reservation_system.service.ExportService;
+
+import java.time.LocalDate;
+
+@RestController
+@RequestMapping("/api/admin/export")
+@CrossOrigin(origins = "*")
+@RequiredArgsConstructor
+public class AdminExportController {
+
+    private final ExportService exportService;
+
+    // 导出图书目录（流式，不在内存中堆积整张表）
+    // GET /api/admin/export/books?format=csv|ndjson&labelId=1
+    @GetMapping("/books")
+    public ResponseEntity<StreamingResponseBody> exportBooks(
+            @RequestParam(value = "format", required = false) String format,
+            @RequestParam(value = "labelId", required = false) Integer labelId) {
+        ExportService.Format f = ExportService.Format.parse(format);
+        return attachment("books", f, out -> exportService.exportBooks(labelId, f, out));
+    }
+
+    // 导出预约记录，可按状态/用户/图书/创建日期区间过滤
+    // GET /api/admin/export/reservations?format=csv&status=0&from=2025-01-01&to=2025-12-31
+    @GetMapping("/reservations")
+    public ResponseEntity<StreamingResponseBody> exportReservations(
+            @RequestParam(value = "format", required = false) String format,
+            @RequestParam(value = "status", required = false) Byte status,
+            @RequestParam(value = "userId", required = false) Integer userId,
+            @RequestParam(value = "bookId", required = false) Integer bookId,
+            @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        ExportService.Format f = ExportService.Format.parse(format);
+        ExportService.ReservationFilter filter = new ExportService.ReservationFilter(status, userId, bookId, from, to);
+        return attachment("reservations", f, out -> exportService.exportReservations(filter, f, out));
+    }
+
+    private static ResponseEntity<StreamingResponseBody> attachment(String name, ExportService.Format f,
+                                                                     StreamingResponseBody body) {
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename(name + "." + f.getExtension()).build().toString())
+                .contentType(MediaType.parseMediaType(f.getContentType() + ";charset=UTF-8"))
+                .body(body);
+    }
+}
@@ -1,10 +1,14 @@
 package usyd.library_reservation_system.library_reservation_system.controller;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import usyd.library_reservation_system.library_reservation_system.dto.AdminActionResponse;
+import usyd.library_reservation_system.library_reservation_system.dto.AdminBatchResult;
+import usyd.library_reservation_system.library_reservation_system.dto.AdminBatchUserRequest;
 import usyd.library_reservation_system.library_reservation_system.dto.AdminUserSummaryDTO;
+import usyd.library_reservation_system.library_reservation_system.dto.PageResponse;
 import usyd.library_reservation_system.library_reservation_system.service.AdminUserManagementService;
 
 import java.util.List;
@@ -17,6 +21,9 @@ public class AdminUserManagementController {
 
     private final AdminUserManagementService service;
 
+    @Value("${app.admin.reset-default-password:123456789}")
+    private String defaultPassword = "123456789";
+
     // 1) 搜索（按 username=nickname 模糊查询）
     // GET /api/admin/users/search?username=xxx
     @GetMapping("/search")
@@ -24,11 +31,27 @@ public class AdminUserManagementController {
         return ResponseEntity.ok(service.searchByNickname(username));
     }
 
+    // 1a) 按邮箱模糊查询（与昵称搜索分开）
+    // GET /api/admin/users/search/email?q=xxx
+    @GetMapping("/search/email")
+    public ResponseEntity<List<AdminUserSummaryDTO>> searchByEmail(@RequestParam("q") String q) {
+        return ResponseEntity.ok(service.searchByEmail(q));
+    }
+
+    // 1b) 分页搜索（按昵称，按匹配度排序：完全匹配 > 前缀 > 包含）
+    // GET /api/admin/users/search/page?q=xxx&page=0&size=20
+    @GetMapping("/search/page")
+    public ResponseEntity<PageResponse<AdminUserSummaryDTO>> searchPage(
+            @RequestParam(value = "q", defaultValue = "") String q,
+            @RequestParam(value = "page", defaultValue = "0") int page,
+            @RequestParam(value = "size", defaultValue = "20") int size) {
+        return ResponseEntity.ok(service.searchUsers(q, page, size));
+    }
+
     // 2) 重置密码为默认值（哈希后存）
     // POST /api/admin/users/{userId}/reset-password
     @PostMapping("/{userId}/reset-password")
     public ResponseEntity<AdminActionResponse> resetPassword(@PathVariable Integer userId) {
-        String defaultPassword = "123456789"; // 你可改为从配置读取：@Value("${app.admin.default-password:123456789}")
         return ResponseEntity.ok(service.resetPasswordToDefault(userId, defaultPassword));
     }
 
@@ -45,4 +68,24 @@ public class AdminUserManagementController {
         service.unbanUser(id);
         return ResponseEntity.noContent().build();
     }
+
+    // 批量操作：body 为 {"userIds":[1,2,3]} 或 {"nickname":"xxx"}，返回每个用户的结果
+    // nickname 为精确匹配（忽略大小写），不做子串/通配符匹配，避免误伤大量用户
+    // POST /api/admin/users/batch/ban
+    @PostMapping("/batch/ban")
+    public ResponseEntity<List<AdminBatchResult>> batchBan(@RequestBody AdminBatchUserRequest req) {
+        return ResponseEntity.ok(service.banUsers(req));
+    }
+
+    // POST /api/admin/users/batch/unban
+    @PostMapping("/batch/unban")
+    public ResponseEntity<List<AdminBatchResult>> batchUnban(@RequestBody AdminBatchUserRequest req) {
+        return ResponseEntity.ok(service.unbanUsers(req));
+    }
+
+    // POST /api/admin/users/batch/reset-password
+    @PostMapping("/batch/reset-password")
+    public ResponseEntity<List<AdminBatchResult>> batchResetPassword(@RequestBody AdminBatchUserRequest req) {
+        return ResponseEntity.ok(service.resetPasswordsToDefault(req, defaultPassword));
+    }
 }
@@ -4,6 +4,8 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import usyd.library_reservation_system.library_reservation_system.dto.AdminPwdLoginReq;
+import usyd.library_reservation_system.library_reservation_system.dto.PageResponse;
+import usyd.library_reservation_system.library_reservation_system.dto.adminlogin.AdminLoginEventDTO;
 import usyd.library_reservation_system.library_reservation_system.dto.adminlogin.AdminLoginResp;
 import usyd.library_reservation_system.library_reservation_system.service.AuthService_AdminLogin;
 
@@ -21,4 +23,14 @@ public class AuthController_AdminLogin {
     public ResponseEntity<AdminLoginResp> login(@Valid @RequestBody AdminPwdLoginReq req) {
         return ResponseEntity.ok(service.pwdLogin(req));
     }
+
+    // 登录审计记录（分页，最新在前）
+    // GET /api/admin/auth/login-events?adminId=1&page=0&size=20
+    @GetMapping("/login-events")
+    public ResponseEntity<PageResponse<AdminLoginEventDTO>> loginEvents(
+            @RequestParam(required = false) Integer adminId,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(service.listLoginEvents(adminId, page, size));
+    }
 }
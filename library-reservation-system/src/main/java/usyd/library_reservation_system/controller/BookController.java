@@ -1,38 +1,55 @@
 package usyd.library_reservation_system.library_reservation_system.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import usyd.library_reservation_system.library_reservation_system.dto.BookImportSummary;
 import usyd.library_reservation_system.library_reservation_system.model.Book;
+import usyd.library_reservation_system.library_reservation_system.service.BookImportService;
 import usyd.library_reservation_system.library_reservation_system.service.BookService;
+import usyd.library_reservation_system.library_reservation_system.service.CoverStorageService;
+import usyd.library_reservation_system.library_reservation_system.service.CoverThumbnailService;
 
-import java.io.File;
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.io.Reader;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.UUID;
 
 @RestController
 @RequestMapping("/api/books")
 @CrossOrigin(origins = "*",
         allowedHeaders = {"*", "X-USER-ID"},
-        exposedHeaders = {"X-USER-ID"},
+        exposedHeaders = {"X-USER-ID", "Idempotent-Replayed"},
         methods = {RequestMethod.GET, RequestMethod.POST, RequestMethod.PATCH, RequestMethod.DELETE, RequestMethod.OPTIONS}
 )
+@Slf4j
 public class BookController {
 
     @Autowired
     private BookService bookService;
     @Autowired
     private usyd.library_reservation_system.library_reservation_system.service.FavoriteService favoriteService;
+    @Autowired
+    private CoverStorageService coverStorageService;
+    @Autowired
+    private CoverThumbnailService coverThumbnailService;
+    @Autowired
+    private BookImportService bookImportService;
+    @Autowired
+    private ObjectMapper objectMapper;
 
 
     @GetMapping
@@ -269,6 +286,55 @@ public class BookController {
 //        return ResponseEntity.ok().build();
 //    }
 
+    /**
+     * Bulk import. Body is raw CSV (Content-Type: text/csv, header row required) or NDJSON
+     * (application/x-ndjson). The response is NDJSON streamed while the import runs:
+     * {"type":"error",...} per rejected row, {"type":"progress",...} per committed chunk, then {"type":"summary",...}.
+     */
+    @PostMapping(value = "/import", consumes = {"text/csv", "application/x-ndjson"})
+    public void importBooks(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        boolean csv = request.getContentType() != null && request.getContentType().startsWith("text/csv");
+        response.setContentType("application/x-ndjson");
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        PrintWriter out = response.getWriter();
+
+        BookImportService.Listener listener = new BookImportService.Listener() {
+            @Override
+            public void onRowError(long row, String message) {
+                writeLine(out, Map.of("type", "error", "row", row, "message", message));
+            }
+
+            @Override
+            public void onProgress(BookImportSummary soFar) {
+                writeLine(out, progressLine("progress", soFar));
+                out.flush();
+            }
+        };
+
+        try (Reader body = new InputStreamReader(request.getInputStream(), StandardCharsets.UTF_8)) {
+            BookImportSummary summary = csv
+                    ? bookImportService.importCsv(body, listener)
+                    : bookImportService.importNdjson(body, listener);
+            writeLine(out, progressLine("summary", summary));
+        } catch (IOException e) {
+            log.warn("Book import aborted: {}", e.getMessage());
+            writeLine(out, Map.of("type", "fatal", "message", String.valueOf(e.getMessage())));
+        }
+        out.flush();
+    }
+
+    private static Map<String, Object> progressLine(String type, BookImportSummary s) {
+        return Map.of("type", type, "processed", s.processed(), "imported", s.imported(), "failed", s.failed());
+    }
+
+    private void writeLine(PrintWriter out, Map<String, Object> line) {
+        try {
+            out.println(objectMapper.writeValueAsString(line));
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
     /**
      * Upload book cover image
      */
@@ -285,75 +351,16 @@ public class BookController {
         }
         
         try {
-            // Generate unique filename
-            String originalFilename = file.getOriginalFilename();
-            if (originalFilename == null) {
-                originalFilename = "unknown";
-            }
-            System.out.println("📝 Original filename: " + originalFilename);
-            
-            String extension = "";
-            if (originalFilename.contains(".")) {
-                extension = originalFilename.substring(originalFilename.lastIndexOf("."));
-            }
-            String filename = UUID.randomUUID().toString() + extension;
-            System.out.println("📝 Generated filename: " + filename);
-            
-            // Try multiple possible paths
-            String webappPath = null;
-            String userDir = System.getProperty("user.dir");
-            System.out.println("🔍 Current working directory: " + userDir);
-            
-            String[] possiblePaths = {
-                userDir + File.separator + "src" + File.separator + "main" + File.separator + "webapp",
-                userDir + File.separator + "library-reservation-system" + File.separator + "src" + File.separator + "main" + File.separator + "webapp",
-                "src/main/webapp",
-                "library-reservation-system/src/main/webapp"
-            };
-            
-            for (String path : possiblePaths) {
-                File testPath = new File(path);
-                System.out.println("🔍 Testing path: " + path + " -> " + (testPath.exists() ? "EXISTS" : "NOT FOUND"));
-                if (testPath.exists()) {
-                    webappPath = path;
-                    break;
-                }
-            }
-            
-            if (webappPath == null) {
-                webappPath = userDir;
-                System.out.println("⚠️ No webapp path found, using: " + webappPath);
-            }
-            
-            System.out.println("📂 Using webapp path: " + webappPath);
-            
-            // Define upload directory - direct path to covers
-            String uploadDir = webappPath + File.separator + "resource" + File.separator + 
-                             "img" + File.separator + "covers" + File.separator;
-            
-            System.out.println("📂 Upload directory: " + uploadDir);
-            
-            File uploadPath = new File(uploadDir);
-            
-            // Create directory if it doesn't exist
-            if (!uploadPath.exists()) {
-                boolean created = uploadPath.mkdirs();
-                System.out.println("📁 Directory created: " + created);
-            }
-            
-            // Save file
-            Path filePath = Paths.get(uploadDir + filename);
-            System.out.println("💾 Saving file to: " + filePath.toAbsolutePath());
-            
-            Files.copy(file.getInputStream(), filePath, StandardCopyOption.REPLACE_EXISTING);
-            
-            // Return the path in the same format as existing books: /img/covers/filename.jpg
-            String avatarPath = "/img/covers/" + filename;
-            response.put("filename", avatarPath);
+            // Content-addressed: identical covers map to the same file and path
+            CoverStorageService.StoredCover stored = coverStorageService.store(file);
+            response.put("filename", stored.path());
             response.put("success", "true");
-            
-            System.out.println("✅ Cover uploaded successfully: " + avatarPath);
-            
+
+            // grid/detail/retina variants are produced in the background
+            coverThumbnailService.generateAsync(stored.path());
+
+            log.debug("Cover uploaded: {}{}", stored.path(), stored.deduplicated() ? " (already stored)" : "");
+
             return ResponseEntity.ok(response);
             
         } catch (IOException e) {
@@ -369,4 +376,25 @@ public class BookController {
         }
     }
 
+    /**
+     * Redirect to a resized cover variant, usable directly as an img src:
+     * /api/books/cover/variant?path=/img/covers/abc.jpg&size=grid (or size=300 for "at least 300px wide").
+     * Falls back to the original until the variant has been generated.
+     */
+    @GetMapping("/cover/variant")
+    public ResponseEntity<Void> coverVariant(@RequestParam("path") String path,
+                                            @RequestParam(value = "size", defaultValue = "grid") String size) {
+        Optional<CoverThumbnailService.Variant> variant = CoverThumbnailService.Variant.parse(size);
+        if (variant.isEmpty()) {
+            return ResponseEntity.badRequest().build();
+        }
+        return coverThumbnailService.variantPath(path, variant.get())
+                .map(target -> ResponseEntity.status(HttpStatus.FOUND)
+                        .location(URI.create(target))
+                        // Revalidate each time: the target switches from original to variant once generated
+                        .cacheControl(CacheControl.noCache())
+                        .<Void>build())
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
 }
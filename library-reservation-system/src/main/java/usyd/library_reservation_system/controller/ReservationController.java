@@ -3,9 +3,18 @@ package usyd.library_reservation_system.library_reservation_system.controller;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import usyd.library_reservation_system.library_reservation_system.dto.AdminReservationDTO;
+import usyd.library_reservation_system.library_reservation_system.dto.BatchReserveRequest;
+import usyd.library_reservation_system.library_reservation_system.dto.BatchReserveResult;
+import usyd.library_reservation_system.library_reservation_system.dto.BatchReturnRequest;
+import usyd.library_reservation_system.library_reservation_system.dto.BatchReturnResult;
 import usyd.library_reservation_system.library_reservation_system.dto.CancelReservationDTO;
+import usyd.library_reservation_system.library_reservation_system.dto.QueuePositionDTO;
 import usyd.library_reservation_system.library_reservation_system.dto.ReservationDTO;
 import usyd.library_reservation_system.library_reservation_system.dto.ReservationResponseDTO;
+import usyd.library_reservation_system.library_reservation_system.dto.RestockResultDTO;
+import usyd.library_reservation_system.library_reservation_system.service.BookLockManager;
+import usyd.library_reservation_system.library_reservation_system.service.OverdueLoanJob;
+import usyd.library_reservation_system.library_reservation_system.service.ReservationEventDispatcher;
 import usyd.library_reservation_system.library_reservation_system.service.ReservationService;
 
 import java.util.List;
@@ -20,15 +29,20 @@ import java.util.List;
 @RequestMapping("/api/reservations")
 @CrossOrigin(origins = "*",
         allowedHeaders = {"*", "X-USER-ID"},
-        exposedHeaders = {"X-USER-ID"},
+        exposedHeaders = {"X-USER-ID", "Idempotent-Replayed"},
         methods = {RequestMethod.GET, RequestMethod.POST, RequestMethod.PATCH, RequestMethod.DELETE, RequestMethod.OPTIONS}
 )
 public class ReservationController {
 
     private final ReservationService reservationService;
+    private final OverdueLoanJob overdueLoanJob;
+    private final ReservationEventDispatcher eventDispatcher;
 
-    public ReservationController(ReservationService reservationService) {
+    public ReservationController(ReservationService reservationService, OverdueLoanJob overdueLoanJob,
+                                 ReservationEventDispatcher eventDispatcher) {
         this.reservationService = reservationService;
+        this.overdueLoanJob = overdueLoanJob;
+        this.eventDispatcher = eventDispatcher;
     }
 
     /**
@@ -40,6 +54,14 @@ public class ReservationController {
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * 用户批量预定书单：body 为 {"userId":1,"bookIds":[...],"mode":"ALL_OR_NOTHING"|"BEST_EFFORT"}，返回每本书的结果
+     */
+    @PostMapping("/reserve/batch")
+    public ResponseEntity<List<BatchReserveResult>> reserveBooks(@RequestBody BatchReserveRequest request) {
+        return ResponseEntity.ok(reservationService.reserveBooks(request.getUserId(), request.getBookIds(), request.getMode()));
+    }
+
     /**
      * 管理员确认用户取书（从状态1改为4）
      */
@@ -67,6 +89,21 @@ public class ReservationController {
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * 管理员补货：新到的副本先分配给排队用户，剩余的计入库存
+     */
+    @PostMapping("/admin/restock/{bookId}")
+    public ResponseEntity<RestockResultDTO> restock(@PathVariable Integer bookId, @RequestParam int copies) {
+        if (copies <= 0) {
+            return ResponseEntity.badRequest().build();
+        }
+        RestockResultDTO result = reservationService.restock(bookId, copies);
+        if (result == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(result);
+    }
+
     /**
      * 用户还书
      */
@@ -76,6 +113,14 @@ public class ReservationController {
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * 批量还书（借还台一次扫描一车书）：body 为 {"reservationIds":[1,2,3]}，返回每条预定的处理结果
+     */
+    @PostMapping("/return/batch")
+    public ResponseEntity<List<BatchReturnResult>> returnBooks(@RequestBody BatchReturnRequest request) {
+        return ResponseEntity.ok(reservationService.returnBooks(request.getReservationIds()));
+    }
+
     /**
      * 管理员查看所有预定订单详情
      */
@@ -85,6 +130,30 @@ public class ReservationController {
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * 管理员查看按书加锁的争用统计
+     */
+    @GetMapping("/admin/lock-stats")
+    public ResponseEntity<BookLockManager.Stats> getLockStats() {
+        return ResponseEntity.ok(reservationService.getLockStats());
+    }
+
+    /**
+     * 管理员查看逾期扫描任务的吞吐与通知统计
+     */
+    @GetMapping("/admin/overdue-stats")
+    public ResponseEntity<OverdueLoanJob.Stats> getOverdueStats() {
+        return ResponseEntity.ok(overdueLoanJob.stats());
+    }
+
+    /**
+     * 管理员查看预定状态事件（outbox）的分发统计
+     */
+    @GetMapping("/admin/event-stats")
+    public ResponseEntity<ReservationEventDispatcher.Stats> getEventStats() {
+        return ResponseEntity.ok(eventDispatcher.stats());
+    }
+
     /**
      * 管理员同意用户取书
      */
@@ -95,17 +164,34 @@ public class ReservationController {
     }
 
     /**
-     * 获取用户的订阅列表
+     * 获取用户的订阅列表（history=true 时包含已归档的历史记录）
      */
     @GetMapping
-    public ResponseEntity<List<AdminReservationDTO>> getUserReservations(@RequestHeader(value = "X-USER-ID", required = false) Integer userId) {
+    public ResponseEntity<List<AdminReservationDTO>> getUserReservations(@RequestHeader(value = "X-USER-ID", required = false) Integer userId,
+                                                                         @RequestParam(defaultValue = "false") boolean history) {
         if (userId == null) {
             return ResponseEntity.badRequest().build();
         }
-        List<AdminReservationDTO> reservations = reservationService.getUserReservations(userId);
+        List<AdminReservationDTO> reservations = reservationService.getUserReservations(userId, history);
         return ResponseEntity.ok(reservations);
     }
 
+    /**
+     * 查看排队位置与预计等待时间（仅限本人的预定）
+     */
+    @GetMapping("/{reservationId}/queue")
+    public ResponseEntity<QueuePositionDTO> getQueuePosition(@PathVariable Integer reservationId,
+                                                             @RequestHeader(value = "X-USER-ID", required = false) Integer userId) {
+        if (userId == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        QueuePositionDTO position = reservationService.getQueuePosition(userId, reservationId);
+        if (position == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(position);
+    }
+
     /**
      * 删除/取消订阅
      */
@@ -0,0 +1,10 @@
+package usyd.library_reservation_system.library_reservation_system.dto;
+
+import lombok.*;
+
+@Getter @Setter @NoArgsConstructor @AllArgsConstructor @Builder
+public class AdminBatchResult {
+    private Integer userId;
+    private boolean success;
+    private String message;   // eg. "banned", "user not found"
+}
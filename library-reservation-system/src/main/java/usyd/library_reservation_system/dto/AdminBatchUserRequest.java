@@ -0,0 +1,12 @@
+package usyd.library_reservation_system.library_reservation_system.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+// Either userIds or nickname (exact, case-insensitive; no substring or wildcard matching) selects the target users
+@Getter @Setter @NoArgsConstructor @AllArgsConstructor @Builder
+public class AdminBatchUserRequest {
+    private List<Integer> userIds;
+    private String nickname;
+}
@@ -0,0 +1,18 @@
+package usyd.library_reservation_system.library_reservation_system.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+@Getter @Setter @NoArgsConstructor @AllArgsConstructor @Builder
+public class BatchReserveRequest {
+
+    public enum Mode {
+        ALL_OR_NOTHING, // any book that cannot be reserved rejects the whole cart
+        BEST_EFFORT     // reserve what can be reserved, report the rest
+    }
+
+    private Integer userId;
+    private List<Integer> bookIds;
+    private Mode mode;              // null = ALL_OR_NOTHING
+}
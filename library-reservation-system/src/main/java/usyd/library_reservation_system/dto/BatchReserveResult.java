@@ -0,0 +1,12 @@
+package usyd.library_reservation_system.library_reservation_system.dto;
+
+import lombok.*;
+
+@Getter @Setter @NoArgsConstructor @AllArgsConstructor @Builder
+public class BatchReserveResult {
+    private Integer bookId;
+    private Integer reservationId; // null unless success
+    private boolean success;
+    private Byte status;           // 1 = assigned, 0 = queuing, -1 = not reserved
+    private String message;
+}
@@ -0,0 +1,10 @@
+package usyd.library_reservation_system.library_reservation_system.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+@Getter @Setter @NoArgsConstructor @AllArgsConstructor @Builder
+public class BatchReturnRequest {
+    private List<Integer> reservationIds;
+}
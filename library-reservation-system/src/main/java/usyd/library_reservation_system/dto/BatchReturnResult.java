@@ -0,0 +1,12 @@
+package usyd.library_reservation_system.library_reservation_system.dto;
+
+import lombok.*;
+
+@Getter @Setter @NoArgsConstructor @AllArgsConstructor @Builder
+public class BatchReturnResult {
+    private Integer reservationId;
+    private Integer bookId;    // null if the reservation does not exist
+    private boolean success;
+    private Byte status;       // reservation status after the batch
+    private String message;    // eg. "Return successful", "Reservation not found"
+}
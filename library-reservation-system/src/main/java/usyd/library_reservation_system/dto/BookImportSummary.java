@@ -0,0 +1,3 @@
+package usyd.library_reservation_system.library_reservation_system.dto;
+
+public record BookImportSummary(long processed, long imported, long failed) {}
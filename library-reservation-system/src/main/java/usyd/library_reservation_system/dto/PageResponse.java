@@ -0,0 +1,13 @@
+package usyd.library_reservation_system.library_reservation_system.dto;
+
+import java.util.List;
+
+/**
+ * Stable JSON shape for paginated endpoints (page is 0-based).
+ */
+public record PageResponse<T>(
+        List<T> items,
+        int page,
+        int size,
+        long total
+) {}
@@ -0,0 +1,22 @@
+package usyd.library_reservation_system.library_reservation_system.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.LocalDate;
+
+/**
+ * Queue standing of one reservation. position / queueLength / estimates are null unless status=0.
+ */
+@Data
+@AllArgsConstructor
+public class QueuePositionDTO {
+    private Integer reservationId;
+    private Integer bookId;
+    private Byte status;
+    private Integer position;       // 1 = next in line
+    private Integer queueLength;
+    private Double averageLoanDays; // rolling mean of recent loans of this book
+    private Integer estimatedWaitDays;
+    private LocalDate estimatedAvailableDate;
+}
@@ -0,0 +1,18 @@
+package usyd.library_reservation_system.library_reservation_system.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Outcome of a restock: which waiters got one of the new copies and what is left on the shelf.
+ */
+@Data
+@AllArgsConstructor
+public class RestockResultDTO {
+    private Integer bookId;
+    private Integer copiesAdded;
+    private List<Integer> assignedReservationIds; // in queue order
+    private Integer quantity;                     // stock after assignment
+}
@@ -0,0 +1,11 @@
+package usyd.library_reservation_system.library_reservation_system.dto.adminlogin;
+
+import java.time.LocalDateTime;
+
+public record AdminLoginEventDTO(
+        Long eventId,
+        Integer adminId,
+        String email,
+        boolean success,
+        LocalDateTime eventTime
+) {}
@@ -20,6 +20,7 @@ public class AdminEntity {
     @Column(name = "password", nullable = false, length = 128)
     private String password;
 
+    // Legacy single-line log; login history now lives in admin_login_event
     @Lob
     @Column(name = "login_log", columnDefinition = "TEXT")
     private String loginLog;
@@ -0,0 +1,34 @@
+package usyd.library_reservation_system.library_reservation_system.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * One row per admin login attempt (append-only, never updated).
+ * Replaces overwriting administrator.login_log on every attempt.
+ */
+@Entity
+@Table(name = "admin_login_event")
+@Getter @Setter @NoArgsConstructor @AllArgsConstructor @Builder
+public class AdminLoginEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "event_id")
+    private Long eventId;
+
+    // null when the email did not match any administrator
+    @Column(name = "administrator_id")
+    private Integer administratorId;
+
+    @Column(name = "email", nullable = false, length = 100)
+    private String email;
+
+    @Column(name = "success", nullable = false)
+    private Boolean success;
+
+    @Column(name = "event_time", nullable = false)
+    private LocalDateTime eventTime;
+}
@@ -26,4 +26,10 @@ import java.time.LocalDateTime;
         private LocalDate takeDate;
 
         private LocalDate returnDate;
+
+        private LocalDateTime assignDate; // 进入 status=1（待取书）的时间，取书期限从此起算
+
+        private LocalDate dueDate; // 应还日期：取书日 + app.reservations.loan-days
+
+        private LocalDateTime overdueNotifiedAt; // 逾期提醒已发出的时间（OverdueLoanJob）
 }
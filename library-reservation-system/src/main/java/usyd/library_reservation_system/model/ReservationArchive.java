@@ -0,0 +1,54 @@
+package usyd.library_reservation_system.library_reservation_system.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Returned (2) / cancelled (3) reservations moved out of the hot reservation table by ReservationArchiver.
+ * Same columns and ids as reservation, plus when the row was archived. Read-only from the application.
+ */
+@Data
+@Entity
+@Table(name = "reservation_archive")
+public class ReservationArchive {
+    @Id
+    private Integer reservationId;
+
+    private LocalDateTime createDate;
+
+    private Byte status;
+
+    private Integer userId;
+
+    private Integer bookId;
+
+    private LocalDate takeDate;
+
+    private LocalDate returnDate;
+
+    private LocalDateTime assignDate;
+
+    private LocalDate dueDate;
+
+    private LocalDateTime overdueNotifiedAt;
+
+    private LocalDateTime archivedAt;
+
+    public Reservation toReservation() {
+        Reservation r = new Reservation();
+        r.setReservationId(reservationId);
+        r.setCreateDate(createDate);
+        r.setStatus(status);
+        r.setUserId(userId);
+        r.setBookId(bookId);
+        r.setTakeDate(takeDate);
+        r.setReturnDate(returnDate);
+        r.setAssignDate(assignDate);
+        r.setDueDate(dueDate);
+        r.setOverdueNotifiedAt(overdueNotifiedAt);
+        return r;
+    }
+}
@@ -2,8 +2,10 @@ package usyd.library_reservation_system.library_reservation_system.model;
 
 import jakarta.persistence.*;
 import lombok.*;
+import usyd.library_reservation_system.library_reservation_system.service.UserEntityListener;
 
 @Entity
+@EntityListeners(UserEntityListener.class)
 @Table(name = "`user`") // 反引号防止与 MySQL 关键字冲突
 @Getter @Setter @NoArgsConstructor @AllArgsConstructor @Builder
 public class UserEntity {
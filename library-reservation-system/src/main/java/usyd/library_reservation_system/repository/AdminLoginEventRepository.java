@@ -0,0 +1,12 @@
+package usyd.library_reservation_system.library_reservation_system.repository;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import usyd.library_reservation_system.library_reservation_system.model.AdminLoginEvent;
+
+public interface AdminLoginEventRepository extends JpaRepository<AdminLoginEvent, Long> {
+    // Newest first; both are served by the (administrator_id, event_time) / (event_time) indexes
+    Page<AdminLoginEvent> findByAdministratorIdOrderByEventTimeDesc(Integer administratorId, Pageable pageable);
+    Page<AdminLoginEvent> findAllByOrderByEventTimeDesc(Pageable pageable);
+}
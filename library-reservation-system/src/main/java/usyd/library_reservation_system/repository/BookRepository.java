@@ -1,11 +1,13 @@
 package usyd.library_reservation_system.library_reservation_system.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import usyd.library_reservation_system.library_reservation_system.model.Book;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -49,4 +51,44 @@ public interface BookRepository extends JpaRepository<Book, Integer> {
     List<usyd.library_reservation_system.library_reservation_system.repository.BookSimpleProjection>
     searchBooksByLabelNameWithPriority(@Param("q") String q);
 
+    // Stock changes are single conditional UPDATEs so concurrent requests (on any node) serialize on the
+    // book row instead of overwriting each other's read-modify-write. They flush pending entity changes
+    // first and clear the persistence context after, so no stale Book instance is written back later.
+
+    // Takes one copy if any is left; returns 1 on success, 0 when out of stock
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "UPDATE book SET quantity = quantity - 1 WHERE book_id = :bookId AND quantity > 0", nativeQuery = true)
+    int tryTakeCopy(@Param("bookId") Integer bookId);
+
+    // Puts one copy back (return, or cancellation of an assigned reservation)
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "UPDATE book SET quantity = quantity + 1 WHERE book_id = :bookId", nativeQuery = true)
+    int releaseCopy(@Param("bookId") Integer bookId);
+
+    // Current stock, read with a row lock so it is the latest committed value and stays put until commit;
+    // null if the book does not exist
+    @Query(value = "SELECT quantity FROM book WHERE book_id = :bookId FOR UPDATE", nativeQuery = true)
+    Integer lockQuantity(@Param("bookId") Integer bookId);
+
+    // Reads a set of books and row-locks them in book_id order, the same order for every caller,
+    // so two multi-book transactions cannot deadlock on each other
+    @Query(value = "SELECT * FROM book WHERE book_id IN (:bookIds) ORDER BY book_id FOR UPDATE", nativeQuery = true)
+    List<Book> lockAllById(@Param("bookIds") Collection<Integer> bookIds);
+
+    // One new reservation on each book: takes a copy where one is left and counts the reservation
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "UPDATE book SET quantity = CASE WHEN quantity > 0 THEN quantity - 1 ELSE quantity END, " +
+            "num_reservation = num_reservation + 1 WHERE book_id IN (:bookIds)", nativeQuery = true)
+    int reserveOneEach(@Param("bookIds") Collection<Integer> bookIds);
+
+    // Adds (or with a negative delta removes) several copies at once
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "UPDATE book SET quantity = quantity + :delta WHERE book_id = :bookId", nativeQuery = true)
+    int addCopies(@Param("bookId") Integer bookId, @Param("delta") int delta);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "UPDATE book SET num_reservation = GREATEST(0, num_reservation + :delta) WHERE book_id = :bookId",
+            nativeQuery = true)
+    int adjustNumReservation(@Param("bookId") Integer bookId, @Param("delta") int delta);
+
 }
\ No newline at end of file
@@ -0,0 +1,11 @@
+package usyd.library_reservation_system.library_reservation_system.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import usyd.library_reservation_system.library_reservation_system.model.ReservationArchive;
+
+import java.util.List;
+
+public interface ReservationArchiveRepository extends JpaRepository<ReservationArchive, Integer> {
+    // User history view; served by the (user_id, create_date) index
+    List<ReservationArchive> findByUserIdOrderByCreateDateDesc(Integer userId);
+}
@@ -1,15 +1,84 @@
 package usyd.library_reservation_system.library_reservation_system.repository;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 import usyd.library_reservation_system.library_reservation_system.model.Reservation;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 public interface ReservationRepository extends JpaRepository<Reservation, Integer> {
     // Find queued users for a book (status=0), sorted by time
     List<Reservation> findByBookIdAndStatusOrderByCreateDateAsc(Integer bookId, Byte status);
+    // Locks the head of a book's queue for the current transaction. Rows already locked by another
+    // transaction (another node assigning the same book) are skipped, so each waiter is claimed once.
+    @Query(value = "SELECT * FROM reservation WHERE book_id = :bookId AND status = 0 " +
+            "ORDER BY create_date, reservation_id LIMIT 1 FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    Optional<Reservation> claimNextQueued(@Param("bookId") Integer bookId);
+    // Same claim for the first `limit` waiters at once (restock hands out several copies in one go)
+    @Query(value = "SELECT * FROM reservation WHERE book_id = :bookId AND status = 0 " +
+            "ORDER BY create_date, reservation_id LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<Reservation> claimQueued(@Param("bookId") Integer bookId, @Param("limit") int limit);
+    // Moves claimed waiters to assigned in one statement; returns how many were still queuing
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "UPDATE reservation SET status = 1, assign_date = :now " +
+            "WHERE reservation_id IN (:reservationIds) AND status = 0", nativeQuery = true)
+    int assignQueued(@Param("reservationIds") Collection<Integer> reservationIds, @Param("now") LocalDateTime now);
+    // Scalar read: does not load the entity into the persistence context
+    @Query("SELECT r.bookId FROM Reservation r WHERE r.reservationId = :reservationId")
+    Integer findBookIdByReservationId(@Param("reservationId") Integer reservationId);
+    // Lock keys for a batch: the distinct books behind a set of reservations
+    @Query("SELECT DISTINCT r.bookId FROM Reservation r WHERE r.reservationId IN :reservationIds")
+    List<Integer> findBookIdsByReservationIds(@Param("reservationIds") Collection<Integer> reservationIds);
+    // Reads a set of reservations and row-locks them until commit, so their status cannot change under a batch
+    @Query(value = "SELECT * FROM reservation WHERE reservation_id IN (:reservationIds) FOR UPDATE", nativeQuery = true)
+    List<Reservation> lockAllById(@Param("reservationIds") Collection<Integer> reservationIds);
+    // Marks a set of loans returned in one statement; returns how many were still on loan
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "UPDATE reservation SET status = 2, return_date = :today " +
+            "WHERE reservation_id IN (:reservationIds) AND status = 4", nativeQuery = true)
+    int returnLoans(@Param("reservationIds") Collection<Integer> reservationIds, @Param("today") LocalDate today);
     List<Reservation> findByStatus(Byte status);
     // Find user's subscription list
     List<Reservation> findByUserIdOrderByCreateDateDesc(Integer userId);
+    // Most recent completed loans of a book, for the rolling loan-duration average
+    @Query("SELECT r FROM Reservation r WHERE r.bookId = :bookId AND r.status = 2 " +
+            "AND r.takeDate IS NOT NULL AND r.returnDate IS NOT NULL ORDER BY r.returnDate DESC")
+    List<Reservation> findRecentLoans(@Param("bookId") Integer bookId, Pageable pageable);
+    // Active (queued, held or on loan) reservations, for the duplicate guard's startup rebuild
+    @Query("SELECT r.reservationId AS reservationId, r.userId AS userId, r.bookId AS bookId " +
+            "FROM Reservation r WHERE r.status IN (0, 1, 4)")
+    List<ActiveReservationProjection> findActivePairs();
+    // The same for one user, when the quota check needs the authoritative count (idx_reservation_user_create)
+    @Query("SELECT r.reservationId AS reservationId, r.userId AS userId, r.bookId AS bookId " +
+            "FROM Reservation r WHERE r.userId = :userId AND r.status IN (0, 1, 4)")
+    List<ActiveReservationProjection> findActivePairsByUserId(@Param("userId") Integer userId);
+    // Confirms a duplicate reported by the in-memory index (uk_reservation_active_user_book)
+    boolean existsByUserIdAndBookIdAndStatusIn(Integer userId, Integer bookId, Collection<Byte> statuses);
+    // Copies of a book currently out (assigned or picked up)
+    long countByBookIdAndStatusIn(Integer bookId, Collection<Byte> statuses);
+    // Cancels a hold assigned at or before cutoff; 0 if it was picked up, cancelled or expired meanwhile
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "UPDATE reservation SET status = 3 WHERE reservation_id = :reservationId " +
+            "AND status = 1 AND assign_date <= :cutoff", nativeQuery = true)
+    int expireHold(@Param("reservationId") Integer reservationId, @Param("cutoff") LocalDateTime cutoff);
+    // Picks up a hold; 0 if it was expired, cancelled or picked up meanwhile
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "UPDATE reservation SET status = 4, take_date = :takeDate, due_date = :dueDate " +
+            "WHERE reservation_id = :reservationId AND status = 1", nativeQuery = true)
+    int pickUpHold(@Param("reservationId") Integer reservationId, @Param("takeDate") LocalDate takeDate,
+                   @Param("dueDate") LocalDate dueDate);
+    // Holds from before assign_date existed start their pickup window now
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE reservation SET assign_date = :now WHERE status = 1 AND assign_date IS NULL", nativeQuery = true)
+    int stampMissingAssignDates(@Param("now") LocalDateTime now);
 }
 
@@ -0,0 +1,6 @@
+package usyd.library_reservation_system.library_reservation_system.repository;
+
+public interface UserContactProjection {
+    String getEmail();
+    String getTelephone();
+}
@@ -1,11 +1,16 @@
 package usyd.library_reservation_system.library_reservation_system.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import usyd.library_reservation_system.library_reservation_system.model.UserEntity;
 
 import java.util.List;
+import java.util.Collection;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface UserRepository extends JpaRepository<UserEntity, Integer> {
@@ -14,8 +19,34 @@ public interface UserRepository extends JpaRepository<UserEntity, Integer> {
 
     List<UserEntity> findByNicknameContainingIgnoreCaseAndIsActiveTrue(String nickname);
     List<UserEntity> findByNicknameContainingIgnoreCase(String nickname);
+    List<UserEntity> findByEmailContainingIgnoreCase(String email);
 
     boolean existsByEmailIgnoreCase(String email);
     boolean existsByTelephone(String telephone);
 
-}
\ No newline at end of file
+    // Plain equality so MySQL can use the unique index (column collation is already case-insensitive);
+    // callers pass the normalized (trimmed, lower-case) email
+    boolean existsByEmail(String email);
+
+    // Used to warm the registration Bloom filter at startup
+    @Query("SELECT u.email AS email, u.telephone AS telephone FROM UserEntity u")
+    Stream<UserContactProjection> streamAllContacts();
+
+    // Used to warm the admin user search index at startup
+    @Query("SELECT u.userId AS userId, u.nickname AS nickname, u.email AS email FROM UserEntity u")
+    Stream<UserSearchProjection> streamAllSearchFields();
+
+    // ---- admin batch operations ----
+    @Query("SELECT u.userId FROM UserEntity u WHERE u.userId IN :ids")
+    List<Integer> findExistingIds(@Param("ids") Collection<Integer> ids);
+
+    // Exact (case-insensitive) match: a batch ban/reset must not fan out over a substring or LIKE wildcards
+    @Query("SELECT u.userId FROM UserEntity u WHERE LOWER(u.nickname) = LOWER(:nickname) ORDER BY u.userId")
+    List<Integer> findIdsByNicknameIgnoreCase(@Param("nickname") String nickname);
+
+    // One set-based UPDATE instead of a load + save per user
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE UserEntity u SET u.isActive = :active WHERE u.userId IN :ids")
+    int updateActiveByIds(@Param("ids") Collection<Integer> ids, @Param("active") boolean active);
+
+}
@@ -0,0 +1,7 @@
+package usyd.library_reservation_system.library_reservation_system.repository;
+
+public interface UserSearchProjection {
+    Integer getUserId();
+    String getNickname();
+    String getEmail();
+}
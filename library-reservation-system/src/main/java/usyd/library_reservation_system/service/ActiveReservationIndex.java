@@ -0,0 +1,300 @@
+package usyd.library_reservation_system.library_reservation_system.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import usyd.library_reservation_system.library_reservation_system.model.Reservation;
+import usyd.library_reservation_system.library_reservation_system.repository.ActiveReservationProjection;
+import usyd.library_reservation_system.library_reservation_system.repository.ReservationRepository;
+import usyd.library_reservation_system.library_reservation_system.utils.AfterCommit;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Active reservations (status 0, 1 or 4) by (user, book) and by user, so ReservationService can refuse
+ * a second reservation of the same book, or one past the user's quota, without a query. Loaded at
+ * startup, then kept current by ReservationService after each commit.
+ *
+ * A hit is a hint, not proof: the service confirms duplicates and refreshes a user's entries before
+ * refusing on quota, so stale entries never lock anyone out. Reservations made on other nodes are
+ * caught by uk_reservation_active_user_book (duplicates) or counted after the next refresh (quota).
+ * The whole index is also re-read every resync-ms in the background, so the quota holds across nodes
+ * except for reservations another node took since the last resync; claims themselves never query.
+ *
+ * Everything about one user is guarded by that user's lock stripe, so different users never contend.
+ */
+@Slf4j
+@Component
+public class ActiveReservationIndex {
+
+    // Mutated only under the owning user's stripe
+    private static final class UserSlots {
+        final Set<Integer> reservations = new HashSet<>();
+        int pending; // quota slots claimed by transactions that have not completed yet
+    }
+
+    private final ReservationRepository reservationRepository;
+    private final ReentrantLock[] stripes;
+    private final ConcurrentHashMap<Long, Integer> byPair = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Integer, Long> byReservation = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Integer, UserSlots> byUser = new ConcurrentHashMap<>();
+
+    public ActiveReservationIndex(ReservationRepository reservationRepository,
+                                  @Value("${app.reservations.quota.stripes:64}") int stripes) {
+        this.reservationRepository = reservationRepository;
+        int n = stripes <= 1 ? 1 : Integer.highestOneBit(stripes - 1) << 1;
+        this.stripes = new ReentrantLock[n];
+        for (int i = 0; i < n; i++) {
+            this.stripes[i] = new ReentrantLock();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        log.info("Active reservation index loaded: {} reservations", reload());
+    }
+
+    /**
+     * Reconciles with reservations made or closed on other nodes. A transition committed while the
+     * rows are being read can be missed until the next run; a missed close only costs a refresh on
+     * refusal, a missed reservation is caught by uk_reservation_active_user_book or the next run.
+     */
+    @Scheduled(initialDelayString = "${app.reservations.quota.resync-ms:30000}",
+            fixedDelayString = "${app.reservations.quota.resync-ms:30000}")
+    public void resync() {
+        log.debug("Active reservation index re-synced: {} reservations", reload());
+    }
+
+    private int reload() {
+        List<ActiveReservationProjection> rows = reservationRepository.findActivePairs();
+        for (ReentrantLock stripe : stripes) {
+            stripe.lock();
+        }
+        try {
+            byPair.clear();
+            byReservation.clear();
+            byUser.values().forEach(slots -> slots.reservations.clear());
+            byUser.values().removeIf(slots -> slots.pending == 0);
+            for (ActiveReservationProjection row : rows) {
+                put(row.getReservationId(), row.getUserId(), row.getBookId());
+            }
+        } finally {
+            for (ReentrantLock stripe : stripes) {
+                stripe.unlock();
+            }
+        }
+        return rows.size();
+    }
+
+    public boolean contains(Integer userId, Integer bookId) {
+        return byPair.containsKey(pair(userId, bookId));
+    }
+
+    public int size() {
+        return byPair.size();
+    }
+
+    /** Active reservations of the user known to this node. */
+    public int activeCount(Integer userId) {
+        ReentrantLock stripe = stripeOf(userId);
+        stripe.lock();
+        try {
+            UserSlots slots = byUser.get(userId);
+            return slots == null ? 0 : slots.reservations.size();
+        } finally {
+            stripe.unlock();
+        }
+    }
+
+    /**
+     * Claims up to wanted quota slots for the user, counting active reservations plus slots other
+     * requests hold right now, and returns how many were granted. Claimed slots are held until the
+     * current transaction completes (or returned at once outside one); by then a committed reservation
+     * is counted as active instead.
+     */
+    public int claimSlots(Integer userId, int wanted, int limit) {
+        ReentrantLock stripe = stripeOf(userId);
+        int granted;
+        stripe.lock();
+        try {
+            UserSlots slots = byUser.computeIfAbsent(userId, k -> new UserSlots());
+            granted = Math.max(0, Math.min(wanted, limit - slots.reservations.size() - slots.pending));
+            slots.pending += granted;
+            dropIfEmpty(userId, slots);
+        } finally {
+            stripe.unlock();
+        }
+        if (granted > 0) {
+            int claimed = granted;
+            if (TransactionSynchronizationManager.isSynchronizationActive()) {
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCompletion(int status) {
+                        releaseSlots(userId, claimed);
+                    }
+                });
+            } else {
+                releaseSlots(userId, claimed);
+            }
+        }
+        return granted;
+    }
+
+    /** Replaces what this node knows about the user's active reservations with rows read from the database. */
+    public void refreshUser(Integer userId, List<ActiveReservationProjection> rows) {
+        ReentrantLock stripe = stripeOf(userId);
+        stripe.lock();
+        try {
+            UserSlots slots = byUser.get(userId);
+            if (slots != null) {
+                for (Integer id : new ArrayList<>(slots.reservations)) {
+                    Long key = byReservation.remove(id);
+                    if (key != null) {
+                        byPair.remove(key, id);
+                    }
+                }
+                slots.reservations.clear();
+            }
+            for (ActiveReservationProjection row : rows) {
+                put(row.getReservationId(), row.getUserId(), row.getBookId());
+            }
+            UserSlots current = byUser.get(userId);
+            if (current != null) {
+                dropIfEmpty(userId, current);
+            }
+        } finally {
+            stripe.unlock();
+        }
+    }
+
+    /** Adds or removes r once the current transaction commits, by its status at the time of the call. */
+    public void recordTransition(Reservation r) {
+        Integer id = r.getReservationId();
+        if (id == null) {
+            return;
+        }
+        Byte status = r.getStatus();
+        if (status != null && (status == 0 || status == 1 || status == 4)) {
+            Integer userId = r.getUserId();
+            Integer bookId = r.getBookId();
+            AfterCommit.run(() -> add(id, userId, bookId));
+        } else {
+            AfterCommit.run(() -> remove(id));
+        }
+    }
+
+    /** Removes a reservation closed by a bulk UPDATE (no entity at hand) once the transaction commits. */
+    public void recordClosed(Integer reservationId) {
+        AfterCommit.run(() -> remove(reservationId));
+    }
+
+    /** Drops an entry the database says is no longer active. */
+    public void forget(Integer userId, Integer bookId) {
+        ReentrantLock stripe = stripeOf(userId);
+        stripe.lock();
+        try {
+            Integer id = byPair.remove(pair(userId, bookId));
+            if (id != null) {
+                byReservation.remove(id);
+                UserSlots slots = byUser.get(userId);
+                if (slots != null) {
+                    slots.reservations.remove(id);
+                    dropIfEmpty(userId, slots);
+                }
+            }
+        } finally {
+            stripe.unlock();
+        }
+    }
+
+    void add(Integer reservationId, Integer userId, Integer bookId) {
+        ReentrantLock stripe = stripeOf(userId);
+        stripe.lock();
+        try {
+            put(reservationId, userId, bookId);
+        } finally {
+            stripe.unlock();
+        }
+    }
+
+    void remove(Integer reservationId) {
+        Long key = byReservation.get(reservationId);
+        if (key == null) {
+            return;
+        }
+        Integer userId = (int) (key >>> 32);
+        ReentrantLock stripe = stripeOf(userId);
+        stripe.lock();
+        try {
+            if (byReservation.remove(reservationId, key)) {
+                byPair.remove(key, reservationId);
+                UserSlots slots = byUser.get(userId);
+                if (slots != null) {
+                    slots.reservations.remove(reservationId);
+                    dropIfEmpty(userId, slots);
+                }
+            }
+        } finally {
+            stripe.unlock();
+        }
+    }
+
+    // Caller holds the user's stripe
+    private void put(Integer reservationId, Integer userId, Integer bookId) {
+        long key = pair(userId, bookId);
+        Integer previous = byPair.put(key, reservationId);
+        UserSlots slots = byUser.computeIfAbsent(userId, k -> new UserSlots());
+        if (previous != null && !previous.equals(reservationId)) {
+            byReservation.remove(previous);
+            slots.reservations.remove(previous);
+        }
+        byReservation.put(reservationId, key);
+        slots.reservations.add(reservationId);
+    }
+
+    private void releaseSlots(Integer userId, int count) {
+        ReentrantLock stripe = stripeOf(userId);
+        stripe.lock();
+        try {
+            UserSlots slots = byUser.get(userId);
+            if (slots != null) {
+                slots.pending = Math.max(0, slots.pending - count);
+                dropIfEmpty(userId, slots);
+            }
+        } finally {
+            stripe.unlock();
+        }
+    }
+
+    // Caller holds the user's stripe
+    private void dropIfEmpty(Integer userId, UserSlots slots) {
+        if (slots.reservations.isEmpty() && slots.pending == 0) {
+            byUser.remove(userId, slots);
+        }
+    }
+
+    private ReentrantLock stripeOf(Integer userId) {
+        // Spread sequential ids across stripes (Murmur3 finalizer), as in BookLockManager
+        int h = userId == null ? 0 : userId;
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return stripes[h & (stripes.length - 1)];
+    }
+
+    private static long pair(int userId, int bookId) {
+        return ((long) userId << 32) | (bookId & 0xffffffffL);
+    }
+}
@@ -0,0 +1,173 @@
+package usyd.library_reservation_system.library_reservation_system.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import usyd.library_reservation_system.library_reservation_system.model.AdminLoginEvent;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Buffers admin login events and writes them in batches on a background thread.
+ * A batch is flushed when it reaches batch-size or flush-interval-ms has passed since its first event,
+ * so the login request itself never waits on the INSERT.
+ *
+ * A batch is one JDBC batch in its own transaction, as in BookImportService: saveAll would still be one
+ * INSERT round trip per event, since the ids come from AUTO_INCREMENT. Nothing reads the ids back.
+ */
+@Slf4j
+@Component
+public class AdminLoginAuditWriter {
+
+    // admin_login_event.email is varchar(100); the login form does not bound what is typed
+    static final int EMAIL_MAX_LENGTH = 100;
+
+    static final String INSERT_SQL =
+            "INSERT INTO admin_login_event (administrator_id, email, success, event_time) VALUES (?, ?, ?, ?)";
+
+    private static final ParameterizedPreparedStatementSetter<AdminLoginEvent> BIND = (ps, e) -> {
+        if (e.getAdministratorId() == null) ps.setNull(1, Types.INTEGER); else ps.setInt(1, e.getAdministratorId());
+        ps.setString(2, e.getEmail());
+        ps.setBoolean(3, Boolean.TRUE.equals(e.getSuccess()));
+        ps.setTimestamp(4, Timestamp.valueOf(e.getEventTime()));
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final BlockingQueue<AdminLoginEvent> queue;
+    private final int batchSize;
+    private final long flushIntervalMs;
+
+    private volatile boolean running;
+    private Thread worker;
+
+    public AdminLoginAuditWriter(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                                 @Value("${app.admin.login-audit.queue-capacity:10000}") int queueCapacity,
+                                 @Value("${app.admin.login-audit.batch-size:100}") int batchSize,
+                                 @Value("${app.admin.login-audit.flush-interval-ms:1000}") long flushIntervalMs) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = Math.max(1, batchSize);
+        this.flushIntervalMs = Math.max(1, flushIntervalMs);
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        worker = new Thread(this::drainLoop, "admin-login-audit");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (worker != null) {
+            worker.interrupt();
+            worker.join(TimeUnit.SECONDS.toMillis(5));
+        }
+        // Whatever is still queued gets written synchronously on shutdown
+        flushRemaining();
+    }
+
+    /**
+     * Non-blocking; returns false (and logs) if the buffer is full. The email is trimmed and cut to
+     * the column width first, so one oversized attempt cannot fail the batch it lands in.
+     */
+    public boolean append(AdminLoginEvent event) {
+        event.setEmail(normalizeEmail(event.getEmail()));
+        boolean accepted = queue.offer(event);
+        if (!accepted) {
+            log.warn("Admin login audit buffer full, dropping event for {}", event.getEmail());
+        }
+        return accepted;
+    }
+
+    public int pending() {
+        return queue.size();
+    }
+
+    private void drainLoop() {
+        List<AdminLoginEvent> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                AdminLoginEvent first = queue.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+                while (batch.size() < batchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) break;
+                    AdminLoginEvent next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) break;
+                    batch.add(next);
+                }
+                write(batch);
+            } catch (InterruptedException e) {
+                // stop() interrupts us; keep the partial batch for flushRemaining()
+                batch.forEach(queue::offer);
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    void flushRemaining() {
+        List<AdminLoginEvent> rest = new ArrayList<>();
+        queue.drainTo(rest);
+        for (int i = 0; i < rest.size(); i += batchSize) {
+            write(rest.subList(i, Math.min(rest.size(), i + batchSize)));
+        }
+    }
+
+    static String normalizeEmail(String email) {
+        if (email == null) return "";
+        String trimmed = email.trim();
+        return trimmed.length() > EMAIL_MAX_LENGTH ? trimmed.substring(0, EMAIL_MAX_LENGTH) : trimmed;
+    }
+
+    private void write(List<AdminLoginEvent> batch) {
+        if (batch.isEmpty()) return;
+        List<AdminLoginEvent> rows = List.copyOf(batch);
+        try {
+            transactionTemplate.executeWithoutResult(status ->
+                    jdbcTemplate.batchUpdate(INSERT_SQL, rows, rows.size(), BIND));
+        } catch (Exception e) {
+            // The whole batch rolled back, so nothing is written twice: retry row by row and drop only what still fails
+            log.warn("Batch write of {} admin login events failed, retrying one by one: {}", rows.size(), e.getMessage());
+            writeOneByOne(rows);
+        }
+    }
+
+    private void writeOneByOne(List<AdminLoginEvent> batch) {
+        int failed = 0;
+        for (AdminLoginEvent event : batch) {
+            try {
+                jdbcTemplate.update(INSERT_SQL, ps -> BIND.setValues(ps, event));
+            } catch (Exception e) {
+                // Audit is best-effort: a DB hiccup must not take down the writer thread
+                failed++;
+                log.error("Failed to write admin login event for {}", event.getEmail(), e);
+            }
+        }
+        if (failed > 0) {
+            log.error("Dropped {} of {} admin login events", failed, batch.size());
+        }
+    }
+}
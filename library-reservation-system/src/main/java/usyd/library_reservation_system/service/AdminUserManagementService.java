@@ -1,16 +1,27 @@
 package usyd.library_reservation_system.library_reservation_system.service;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import usyd.library_reservation_system.library_reservation_system.dto.AdminActionResponse;
+import usyd.library_reservation_system.library_reservation_system.dto.AdminBatchResult;
+import usyd.library_reservation_system.library_reservation_system.dto.AdminBatchUserRequest;
 import usyd.library_reservation_system.library_reservation_system.dto.AdminUserSummaryDTO;
+import usyd.library_reservation_system.library_reservation_system.dto.PageResponse;
 import usyd.library_reservation_system.library_reservation_system.model.UserEntity;
 import usyd.library_reservation_system.library_reservation_system.repository.UserRepository;
+import usyd.library_reservation_system.library_reservation_system.utils.TrigramIndex;
 
 import java.time.LocalDateTime;
-import java.util.List;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -19,20 +30,90 @@ public class AdminUserManagementService {
 
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
+    private final UserSearchIndex searchIndex;
+    private final ForkJoinPool passwordHashPool;
+    private final TransactionTemplate transactionTemplate;
 
-    // 1) Fuzzy search by nickname
+    @Value("${app.admin.batch.max-users:1000}")
+    private int maxBatchUsers = 1000;
+
+    private static final int MAX_PAGE_SIZE = 200;
+
+    // 1) Fuzzy search by nickname only, in userId order; the index just answers it without a table scan
+    @Transactional(readOnly = true)
     public List<AdminUserSummaryDTO> searchByNickname(String nickname) {
-        return userRepository.findByNicknameContainingIgnoreCase(nickname).stream()
-                .map(u -> AdminUserSummaryDTO.builder()
-                        .userId(u.getUserId())
-                        .nickname(u.getNickname())
-                        .email(u.getEmail())
-                        .telephone(u.getTelephone())
-                        .isActive(u.getIsActive())
-                        .build())
+        if (!searchIndex.isReady()) {
+            return userRepository.findByNicknameContainingIgnoreCase(nickname).stream()
+                    .map(AdminUserManagementService::toSummary)
+                    .toList();
+        }
+        return loadInOrder(searchIndex.searchNickname(nickname));
+    }
+
+    // 1a) Fuzzy search by email only, same order
+    @Transactional(readOnly = true)
+    public List<AdminUserSummaryDTO> searchByEmail(String email) {
+        if (!searchIndex.isReady()) {
+            return userRepository.findByEmailContainingIgnoreCase(email).stream()
+                    .map(AdminUserManagementService::toSummary)
+                    .toList();
+        }
+        return loadInOrder(searchIndex.searchEmail(email));
+    }
+
+    // Paged nickname search for the admin console, best match first: only the requested page is read from the database
+    @Transactional(readOnly = true)
+    public PageResponse<AdminUserSummaryDTO> searchUsers(String query, int page, int size) {
+        int p = Math.max(page, 0);
+        int s = Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+        if (!searchIndex.isReady()) {
+            // Same ranking as the index, applied to the rows the fallback already read
+            Map<Integer, UserEntity> byId = userRepository.findByNicknameContainingIgnoreCase(query == null ? "" : query)
+                    .stream()
+                    .collect(Collectors.toMap(UserEntity::getUserId, Function.identity()));
+            Map<Integer, String> nicknames = new HashMap<>();
+            byId.forEach((id, u) -> nicknames.put(id, u.getNickname()));
+            List<Integer> ranked = TrigramIndex.rank(query, nicknames);
+            List<AdminUserSummaryDTO> items = slice(ranked, p, s).stream()
+                    .map(byId::get)
+                    .map(AdminUserManagementService::toSummary)
+                    .toList();
+            return new PageResponse<>(items, p, s, ranked.size());
+        }
+        List<Integer> ids = searchIndex.rankNickname(query);
+        return new PageResponse<>(loadInOrder(slice(ids, p, s)), p, s, ids.size());
+    }
+
+    private static <T> List<T> slice(List<T> list, int page, int size) {
+        int from = (int) Math.min((long) page * size, list.size());
+        int to = (int) Math.min((long) from + size, list.size());
+        return list.subList(from, to);
+    }
+
+    // Index gives ids only; the rows (notably isActive) always come from the database
+    private List<AdminUserSummaryDTO> loadInOrder(List<Integer> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Integer, UserEntity> byId = userRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(UserEntity::getUserId, Function.identity()));
+        return ids.stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
+                .map(AdminUserManagementService::toSummary)
                 .toList();
     }
 
+    private static AdminUserSummaryDTO toSummary(UserEntity u) {
+        return AdminUserSummaryDTO.builder()
+                .userId(u.getUserId())
+                .nickname(u.getNickname())
+                .email(u.getEmail())
+                .telephone(u.getTelephone())
+                .isActive(u.getIsActive())
+                .build();
+    }
+
     // 2) Reset to default password (stored as hash)
     public AdminActionResponse resetPasswordToDefault(Integer userId, String defaultRawPassword) {
         UserEntity u = userRepository.findById(userId)
@@ -61,4 +142,82 @@ public class AdminUserManagementService {
         u.setIsActive(true);
         userRepository.save(u);
     }
+
+    // ---------------- batch operations ----------------
+
+    public List<AdminBatchResult> banUsers(AdminBatchUserRequest req) {
+        return setActive(req, false, "banned");
+    }
+
+    public List<AdminBatchResult> unbanUsers(AdminBatchUserRequest req) {
+        return setActive(req, true, "unbanned");
+    }
+
+    private List<AdminBatchResult> setActive(AdminBatchUserRequest req, boolean active, String message) {
+        List<Integer> targets = resolveTargets(req);
+        Set<Integer> existing = targets.isEmpty() ? Set.of() : new HashSet<>(userRepository.findExistingIds(targets));
+        if (!existing.isEmpty()) {
+            userRepository.updateActiveByIds(existing, active);
+        }
+        return targets.stream()
+                .map(id -> existing.contains(id) ? ok(id, message) : notFound(id))
+                .toList();
+    }
+
+    /**
+     * BCrypt is deliberately slow, so hashes are computed in parallel on the bounded passwordHashPool
+     * and outside any transaction; only the final UPDATEs run in one short transaction.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<AdminBatchResult> resetPasswordsToDefault(AdminBatchUserRequest req, String defaultRawPassword) {
+        List<Integer> targets = resolveTargets(req);
+        Set<Integer> existing = targets.isEmpty() ? Set.of() : new HashSet<>(userRepository.findExistingIds(targets));
+
+        Map<Integer, ForkJoinTask<String>> pending = new LinkedHashMap<>();
+        for (Integer id : existing) {
+            pending.put(id, passwordHashPool.submit(() -> passwordEncoder.encode(defaultRawPassword)));
+        }
+        Map<Integer, String> hashes = new HashMap<>();
+        pending.forEach((id, task) -> hashes.put(id, task.join()));
+
+        Set<Integer> updated = new HashSet<>();
+        if (!hashes.isEmpty()) {
+            transactionTemplate.executeWithoutResult(status -> {
+                for (UserEntity u : userRepository.findAllById(hashes.keySet())) {
+                    u.setPasswordHash(hashes.get(u.getUserId()));
+                    updated.add(u.getUserId());
+                }
+            });
+        }
+        return targets.stream()
+                .map(id -> updated.contains(id) ? ok(id, "password reset to default") : notFound(id))
+                .toList();
+    }
+
+    // Exactly one of userIds / nickname (exact match, never a substring); duplicates dropped, order kept
+    private List<Integer> resolveTargets(AdminBatchUserRequest req) {
+        if (req == null) {
+            throw new IllegalArgumentException("request body is required");
+        }
+        boolean byIds = req.getUserIds() != null && !req.getUserIds().isEmpty();
+        boolean byNickname = req.getNickname() != null && !req.getNickname().isBlank();
+        if (byIds == byNickname) {
+            throw new IllegalArgumentException("provide either userIds or nickname");
+        }
+        List<Integer> ids = byIds
+                ? req.getUserIds().stream().filter(Objects::nonNull).distinct().toList()
+                : userRepository.findIdsByNicknameIgnoreCase(req.getNickname().trim());
+        if (ids.size() > maxBatchUsers) {
+            throw new IllegalArgumentException("too many users in one batch: " + ids.size() + " > " + maxBatchUsers);
+        }
+        return ids;
+    }
+
+    private static AdminBatchResult ok(Integer userId, String message) {
+        return AdminBatchResult.builder().userId(userId).success(true).message(message).build();
+    }
+
+    private static AdminBatchResult notFound(Integer userId) {
+        return AdminBatchResult.builder().userId(userId).success(false).message("user not found").build();
+    }
 }
@@ -16,17 +16,19 @@ public class AuthService {
 
     private final UserRepository userRepo;
     private final PasswordEncoder passwordEncoder;
+    private final UserUniquenessFilter uniquenessFilter;
 
     @Transactional
     public RegisterResponse register(RegisterRequest req) {
         final String email = req.email().trim().toLowerCase();
         final String tel = req.telephone().trim();
 
-        // 1) Check duplicates in advance (DB has unique index, fallback below)
-        if (userRepo.existsByEmailIgnoreCase(email)) {
+        // 1) Check duplicates in advance (DB has unique index, fallback below).
+        //    The Bloom filter answers most "not taken" cases; only probable hits go to MySQL.
+        if (uniquenessFilter.mightHaveEmail(email) && userRepo.existsByEmail(email)) {
             throw new EmailOrPhoneAlreadyUsedException("Email already used: " + email);
         }
-        if (userRepo.existsByTelephone(tel)) {
+        if (uniquenessFilter.mightHaveTelephone(tel) && userRepo.existsByTelephone(tel)) {
             throw new EmailOrPhoneAlreadyUsedException("Telephone already used: " + tel);
         }
 
@@ -1,52 +1,89 @@
 package usyd.library_reservation_system.library_reservation_system.service;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import usyd.library_reservation_system.library_reservation_system.dto.AdminPwdLoginReq;
+import usyd.library_reservation_system.library_reservation_system.dto.PageResponse;
+import usyd.library_reservation_system.library_reservation_system.dto.adminlogin.AdminLoginEventDTO;
 import usyd.library_reservation_system.library_reservation_system.dto.adminlogin.AdminLoginResp;
 import usyd.library_reservation_system.library_reservation_system.model.AdminEntity;
+import usyd.library_reservation_system.library_reservation_system.model.AdminLoginEvent;
+import usyd.library_reservation_system.library_reservation_system.repository.AdminLoginEventRepository;
 import usyd.library_reservation_system.library_reservation_system.repository.AdminRepository;
 
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
-import java.util.Locale;
 
 @Service
 @RequiredArgsConstructor
 public class AuthService_AdminLogin {
 
     private final AdminRepository adminRepository;
+    private final AdminLoginEventRepository loginEventRepository;
+    private final AdminLoginAuditWriter auditWriter;
 
-    // Keep the same time format as before (used elsewhere)
-    private static final DateTimeFormatter TS_FMT =
-            DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss", Locale.ENGLISH);
+    private static final int MAX_PAGE_SIZE = 200;
 
     /**
      * Admin single-step login: email + plaintext password match to pass.
      * No hashing, no verification code.
+     * Every attempt is appended to admin_login_event asynchronously; the admin row is never written here.
      */
-    @Transactional
+    @Transactional(readOnly = true)
     public AdminLoginResp pwdLogin(AdminPwdLoginReq req) {
         String email = req.getEmail() == null ? "" : req.getEmail().trim().toLowerCase();
 
-        AdminEntity admin = adminRepository.findByEmailIgnoreCase(email)
-                .orElseThrow(() -> new IllegalArgumentException("Admin not found"));
+        AdminEntity admin = adminRepository.findByEmailIgnoreCase(email).orElse(null);
+        if (admin == null) {
+            audit(null, email, false);
+            throw new IllegalArgumentException("Admin not found");
+        }
 
         // Direct plaintext comparison (as per your latest requirement)
         if (!admin.getPassword().equals(req.getPassword())) {
-            String now = LocalDateTime.now().format(TS_FMT);
-            admin.setLoginLog(now + " login failed");
-            adminRepository.save(admin);
+            audit(admin.getAdministratorId(), email, false);
             throw new IllegalArgumentException("Invalid email or password");
         }
 
-        // Write success log
-        String now = LocalDateTime.now().format(TS_FMT);
-        admin.setLoginLog(now + " login successful");
-        adminRepository.save(admin);
+        audit(admin.getAdministratorId(), email, true);
 
         // Reuse existing response body
         return new AdminLoginResp(admin.getAdministratorId(), "successfully login!");
     }
+
+    /**
+     * Login history, newest first. adminId == null returns all administrators.
+     */
+    @Transactional(readOnly = true)
+    public PageResponse<AdminLoginEventDTO> listLoginEvents(Integer adminId, int page, int size) {
+        PageRequest pageable = PageRequest.of(Math.max(0, page), Math.min(Math.max(1, size), MAX_PAGE_SIZE));
+        Page<AdminLoginEvent> result = adminId == null
+                ? loginEventRepository.findAllByOrderByEventTimeDesc(pageable)
+                : loginEventRepository.findByAdministratorIdOrderByEventTimeDesc(adminId, pageable);
+
+        return new PageResponse<>(
+                result.getContent().stream()
+                        .map(e -> new AdminLoginEventDTO(
+                                e.getEventId(),
+                                e.getAdministratorId(),
+                                e.getEmail(),
+                                Boolean.TRUE.equals(e.getSuccess()),
+                                e.getEventTime()))
+                        .toList(),
+                pageable.getPageNumber(),
+                pageable.getPageSize(),
+                result.getTotalElements()
+        );
+    }
+
+    private void audit(Integer adminId, String email, boolean success) {
+        auditWriter.append(AdminLoginEvent.builder()
+                .administratorId(adminId)
+                .email(email)
+                .success(success)
+                .eventTime(LocalDateTime.now())
+                .build());
+    }
 }
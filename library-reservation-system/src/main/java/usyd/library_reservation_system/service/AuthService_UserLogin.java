@@ -10,7 +10,9 @@ import usyd.library_reservation_system.library_reservation_system.dto.LoginSucce
 import usyd.library_reservation_system.library_reservation_system.dto.LoginVerifyRequest;
 import usyd.library_reservation_system.library_reservation_system.repository.UserRepository;
 
+import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
@@ -22,6 +24,18 @@ import java.util.Map;
 @RequiredArgsConstructor
 public class AuthService_UserLogin {
 
+    // SecureRandom is thread-safe; seeding a new one per request is the expensive part
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    // MessageDigest is not thread-safe, so keep one per thread and reset it on each use
+    private static final ThreadLocal<MessageDigest> SHA256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
     private final UserRepository userRepo;
     private final PasswordEncoder passwordEncoder;
     private final EmailService emailService;
@@ -126,19 +140,15 @@ public class AuthService_UserLogin {
     // ======== helpers ========
 
     private String generateNumericCode(int len) {
-        var rnd = new SecureRandom();
         var sb = new StringBuilder(len);
-        for (int i = 0; i < len; i++) sb.append(rnd.nextInt(10));
+        for (int i = 0; i < len; i++) sb.append(RANDOM.nextInt(10));
         return sb.toString();
     }
 
     private String sha256Hex(String s) {
-        try {
-            var md = MessageDigest.getInstance("SHA-256");
-            return HexFormat.of().formatHex(md.digest(s.getBytes()));
-        } catch (Exception e) {
-            throw new RuntimeException(e);
-        }
+        var md = SHA256.get();
+        md.reset();
+        return HexFormat.of().formatHex(md.digest(s.getBytes(StandardCharsets.UTF_8)));
     }
 
 }
@@ -0,0 +1,5 @@
+package usyd.library_reservation_system.library_reservation_system.service;
+
+public class BookBusyException extends RuntimeException {
+    public BookBusyException(String msg) { super(msg); }
+}
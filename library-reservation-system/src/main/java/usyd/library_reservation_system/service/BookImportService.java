@@ -0,0 +1,269 @@
+package usyd.library_reservation_system.library_reservation_system.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import usyd.library_reservation_system.library_reservation_system.dto.BookImportSummary;
+import usyd.library_reservation_system.library_reservation_system.model.Label;
+import usyd.library_reservation_system.library_reservation_system.repository.LabelRepository;
+import usyd.library_reservation_system.library_reservation_system.utils.CsvReader;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.sql.Types;
+import java.util.*;
+
+/**
+ * Bulk catalog import from CSV (header row required) or NDJSON (one JSON object per line).
+ * Rows are parsed one at a time, validated against the label dictionary, and inserted with JDBC
+ * batches; every chunk of rows commits in its own transaction, so a bad chunk never rolls back
+ * what was already imported and memory stays bounded by the chunk size. A chunk the database
+ * rejects is retried one row at a time, so the good rows still go in and the report names the bad ones.
+ */
+@Slf4j
+@Service
+public class BookImportService {
+
+    static final String INSERT_SQL =
+            "INSERT INTO book (book_name, quantity, author, description, num_favorite, num_reservation, label_id, avatar) " +
+            "VALUES (?, ?, ?, ?, 0, 0, ?, ?)";
+
+    /** Receives per-row errors and per-chunk progress while an import runs. */
+    public interface Listener {
+        void onRowError(long row, String message);
+
+        void onProgress(BookImportSummary soFar);
+    }
+
+    record BookRow(String bookName, int quantity, String author, String description, int labelId, String avatar) {}
+
+    private static final ParameterizedPreparedStatementSetter<BookRow> BIND = (ps, b) -> {
+        ps.setString(1, b.bookName());
+        ps.setInt(2, b.quantity());
+        ps.setString(3, b.author());
+        if (b.description() == null) ps.setNull(4, Types.VARCHAR); else ps.setString(4, b.description());
+        ps.setInt(5, b.labelId());
+        if (b.avatar() == null) ps.setNull(6, Types.VARCHAR); else ps.setString(6, b.avatar());
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final LabelRepository labelRepository;
+    private final ObjectMapper objectMapper;
+
+    @Value("${app.books.import.batch-size:500}")
+    private int batchSize = 500;
+
+    @Value("${app.books.import.chunk-size:5000}")
+    private int chunkSize = 5000;
+
+    public BookImportService(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                             LabelRepository labelRepository, ObjectMapper objectMapper) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.labelRepository = labelRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    public BookImportSummary importCsv(Reader reader, Listener listener) throws IOException {
+        try (CsvReader csv = new CsvReader(reader)) {
+            List<String> header = csv.next();
+            if (header == null) {
+                return new BookImportSummary(0, 0, 0);
+            }
+            Map<String, Integer> columns = new HashMap<>();
+            for (int i = 0; i < header.size(); i++) {
+                columns.putIfAbsent(canonical(header.get(i)), i);
+            }
+            Run run = new Run(listener);
+            List<String> record;
+            while ((record = csv.next()) != null) {
+                Map<String, String> values = new HashMap<>();
+                for (Map.Entry<String, Integer> col : columns.entrySet()) {
+                    if (col.getValue() < record.size()) values.put(col.getKey(), record.get(col.getValue()));
+                }
+                run.accept(csv.getRecordLine(), values);
+            }
+            return run.finish();
+        }
+    }
+
+    public BookImportSummary importNdjson(Reader reader, Listener listener) throws IOException {
+        try (BufferedReader lines = new BufferedReader(reader)) {
+            Run run = new Run(listener);
+            String line;
+            long lineNo = 0;
+            while ((line = lines.readLine()) != null) {
+                lineNo++;
+                if (line.isBlank()) continue;
+                JsonNode node;
+                try {
+                    node = objectMapper.readTree(line);
+                } catch (IOException e) {
+                    run.reject(lineNo, "invalid JSON");
+                    continue;
+                }
+                if (node == null || !node.isObject()) {
+                    run.reject(lineNo, "expected a JSON object");
+                    continue;
+                }
+                Map<String, String> values = new HashMap<>();
+                node.properties().forEach(f -> {
+                    if (!f.getValue().isNull()) values.put(canonical(f.getKey()), f.getValue().asText());
+                });
+                run.accept(lineNo, values);
+            }
+            return run.finish();
+        }
+    }
+
+    // bookName / book_name / Book Name -> bookname
+    private static String canonical(String column) {
+        return column == null ? "" : column.replaceAll("[^A-Za-z0-9]", "").toLowerCase(Locale.ROOT);
+    }
+
+    /** State of one import: label dictionary, pending chunk, counters. */
+    private final class Run {
+        private final Listener listener;
+        private final Set<Integer> labelIds = new HashSet<>();
+        private final Map<String, Integer> labelsByName = new HashMap<>();
+        private final List<BookRow> pending = new ArrayList<>();
+        private final List<Long> pendingLines = new ArrayList<>();
+        private long processed;
+        private long imported;
+        private long failed;
+
+        Run(Listener listener) {
+            this.listener = listener;
+            // The dictionary is tiny compared to the import; load it once instead of per row
+            for (Label l : labelRepository.findAll()) {
+                labelIds.add(l.getLabelId());
+                labelsByName.put(l.getLabelName().trim().toLowerCase(Locale.ROOT), l.getLabelId());
+            }
+        }
+
+        void accept(long row, Map<String, String> v) {
+            BookRow book;
+            try {
+                book = toRow(v);
+            } catch (IllegalArgumentException e) {
+                reject(row, e.getMessage());
+                return;
+            }
+            processed++;
+            pending.add(book);
+            pendingLines.add(row);
+            if (pending.size() >= Math.max(1, chunkSize)) {
+                flush();
+            }
+        }
+
+        void reject(long row, String message) {
+            processed++;
+            failed++;
+            listener.onRowError(row, message);
+        }
+
+        BookImportSummary finish() {
+            flush();
+            BookImportSummary summary = new BookImportSummary(processed, imported, failed);
+            log.info("Book import finished: {} rows, {} imported, {} failed", processed, imported, failed);
+            return summary;
+        }
+
+        private void flush() {
+            if (pending.isEmpty()) return;
+            List<BookRow> chunk = List.copyOf(pending);
+            try {
+                transactionTemplate.executeWithoutResult(status ->
+                        jdbcTemplate.batchUpdate(INSERT_SQL, chunk, Math.max(1, batchSize), BIND));
+                imported += chunk.size();
+            } catch (DataAccessException e) {
+                // The whole chunk rolled back; find the offending rows by inserting one at a time
+                log.warn("Book import chunk of {} rows (rows {}-{}) failed, retrying row by row: {}", chunk.size(),
+                        pendingLines.get(0), pendingLines.get(pendingLines.size() - 1), e.getMostSpecificCause().getMessage());
+                insertOneByOne(chunk);
+            }
+            pending.clear();
+            pendingLines.clear();
+            listener.onProgress(new BookImportSummary(processed, imported, failed));
+        }
+
+        private void insertOneByOne(List<BookRow> chunk) {
+            for (int i = 0; i < chunk.size(); i++) {
+                BookRow row = chunk.get(i);
+                try {
+                    jdbcTemplate.update(INSERT_SQL, ps -> BIND.setValues(ps, row));
+                    imported++;
+                } catch (DataAccessException e) {
+                    failed++;
+                    listener.onRowError(pendingLines.get(i), "rejected by the database: " + e.getMostSpecificCause().getMessage());
+                }
+            }
+        }
+
+        private BookRow toRow(Map<String, String> v) {
+            String name = required(v, "bookname", "bookName", 200);
+            String author = required(v, "author", "author", 100);
+            String description = optional(v, "description", "description", 65_535);
+            String avatar = optional(v, "avatar", "avatar", 255);
+
+            int quantity = 0;
+            String q = trimmed(v.get("quantity"));
+            if (q != null) {
+                try {
+                    quantity = Integer.parseInt(q);
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("quantity is not a number: " + q);
+                }
+                if (quantity < 0) throw new IllegalArgumentException("quantity must be >= 0");
+            }
+            return new BookRow(name, quantity, author, description, resolveLabel(v), avatar);
+        }
+
+        private int resolveLabel(Map<String, String> v) {
+            String id = trimmed(v.get("labelid"));
+            if (id != null) {
+                try {
+                    int labelId = Integer.parseInt(id);
+                    if (labelIds.contains(labelId)) return labelId;
+                } catch (NumberFormatException ignored) {
+                    // fall through to the error below
+                }
+                throw new IllegalArgumentException("unknown labelId: " + id);
+            }
+            String name = trimmed(v.getOrDefault("label", v.get("labelname")));
+            if (name == null) throw new IllegalArgumentException("labelId or label is required");
+            Integer found = labelsByName.get(name.toLowerCase(Locale.ROOT));
+            if (found == null) throw new IllegalArgumentException("unknown label: " + name);
+            return found;
+        }
+    }
+
+    private static String required(Map<String, String> v, String key, String field, int maxLength) {
+        String s = optional(v, key, field, maxLength);
+        if (s == null) throw new IllegalArgumentException(field + " is required");
+        return s;
+    }
+
+    private static String optional(Map<String, String> v, String key, String field, int maxLength) {
+        String s = trimmed(v.get(key));
+        if (s != null && s.length() > maxLength) {
+            throw new IllegalArgumentException(field + " longer than " + maxLength + " characters");
+        }
+        return s;
+    }
+
+    private static String trimmed(String s) {
+        if (s == null) return null;
+        String t = s.trim();
+        return t.isEmpty() ? null : t;
+    }
+}
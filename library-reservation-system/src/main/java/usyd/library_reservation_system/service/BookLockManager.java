@@ -0,0 +1,142 @@
+package usyd.library_reservation_system.library_reservation_system.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * In-process lock striping for reservation mutations, keyed by bookId.
+ * Requests for the same book queue up here instead of on MySQL row locks (where they deadlock
+ * and time out); different books map to different stripes and run in parallel.
+ * Only serializes within this JVM: cross-node safety still comes from the DB (see ReservationRepository.claimNextQueued).
+ */
+@Component
+public class BookLockManager {
+
+    /** Contention counters since startup. */
+    public record Stats(int stripes, long acquisitions, long contended, long timeouts,
+                        double avgWaitMs, double maxWaitMs) {}
+
+    private final ReentrantLock[] stripes;
+    private final int mask;
+    private final long timeoutMs;
+
+    private final LongAdder acquisitions = new LongAdder();
+    private final LongAdder contended = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+    private final LongAccumulator maxWaitNanos = new LongAccumulator(Math::max, 0);
+
+    public BookLockManager(@Value("${app.reservations.lock.stripes:256}") int stripes,
+                           @Value("${app.reservations.lock.timeout-ms:5000}") long timeoutMs) {
+        // Round up to a power of two so the stripe is a mask, not a modulo
+        int n = stripes <= 1 ? 1 : Integer.highestOneBit(stripes - 1) << 1;
+        this.stripes = new ReentrantLock[n];
+        for (int i = 0; i < n; i++) {
+            this.stripes[i] = new ReentrantLock();
+        }
+        this.mask = n - 1;
+        this.timeoutMs = Math.max(1, timeoutMs);
+    }
+
+    /**
+     * Runs action while holding the stripe of bookId. When called inside a transaction the lock is
+     * kept until that transaction completes, so the next holder never reads uncommitted-then-rolled-back
+     * or not-yet-committed state; otherwise it is released as soon as action returns.
+     */
+    public <T> T withLock(Integer bookId, Supplier<T> action) {
+        return withStripes(new int[]{stripeOf(bookId)}, action);
+    }
+
+    /**
+     * Same as withLock for several books at once. Stripes are taken in ascending order,
+     * so two multi-book calls can never wait on each other in a cycle.
+     */
+    public <T> T withLocks(Collection<Integer> bookIds, Supplier<T> action) {
+        int[] idx = bookIds.stream().mapToInt(this::stripeOf).distinct().sorted().toArray();
+        return withStripes(idx, action);
+    }
+
+    public Stats stats() {
+        long n = acquisitions.sum();
+        return new Stats(stripes.length, n, contended.sum(), timeouts.sum(),
+                n == 0 ? 0 : waitNanos.sum() / 1e6 / n, maxWaitNanos.get() / 1e6);
+    }
+
+    int stripeOf(Integer bookId) {
+        // Spread sequential ids across stripes (Murmur3 finalizer)
+        int h = bookId == null ? 0 : bookId;
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h & mask;
+    }
+
+    private <T> T withStripes(int[] idx, Supplier<T> action) {
+        int locked = 0;
+        try {
+            for (int i : idx) {
+                acquire(stripes[i]);
+                locked++;
+            }
+        } catch (RuntimeException e) {
+            unlock(idx, locked);
+            throw e;
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // Released by afterCompletion, which runs on this thread after commit or rollback
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    unlock(idx, idx.length);
+                }
+            });
+            return action.get();
+        }
+        try {
+            return action.get();
+        } finally {
+            unlock(idx, idx.length);
+        }
+    }
+
+    private void acquire(ReentrantLock lock) {
+        acquisitions.increment();
+        if (lock.tryLock()) {
+            return;
+        }
+        contended.increment();
+        long start = System.nanoTime();
+        boolean ok;
+        try {
+            ok = lock.tryLock(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BookBusyException("Interrupted while waiting for the book lock");
+        }
+        long waited = System.nanoTime() - start;
+        waitNanos.add(waited);
+        maxWaitNanos.accumulate(waited);
+        if (!ok) {
+            timeouts.increment();
+            throw new BookBusyException("Book is busy, please try again");
+        }
+    }
+
+    private void unlock(int[] idx, int count) {
+        for (int i = count - 1; i >= 0; i--) {
+            stripes[idx[i]].unlock();
+        }
+    }
+}
@@ -2,7 +2,9 @@ package usyd.library_reservation_system.library_reservation_system.service;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import usyd.library_reservation_system.library_reservation_system.dto.RestockResultDTO;
 import usyd.library_reservation_system.library_reservation_system.model.Book;
 import usyd.library_reservation_system.library_reservation_system.repository.BookRepository;
 
@@ -16,6 +18,9 @@ public class BookService {
     @Autowired
     private BookRepository bookRepository;
 
+    @Autowired
+    private ReservationService reservationService;
+
 
     public List<Book> getAllBooks() {
         return bookRepository.findAll();
@@ -101,14 +106,18 @@ public class BookService {
     }
 
 
+    // Not transactional itself: the stock is read and changed under the book's reservation lock, in
+    // ReservationService's own transaction; raising it is a restock, so waiters get the new copies first
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public Book updateBookQuantity(Integer id, Integer quantity) {
-        Optional<Book> optionalBook = bookRepository.findById(id);
-        if (optionalBook.isPresent()) {
-            Book book = optionalBook.get();
-            book.setQuantity(quantity);
-            return bookRepository.save(book);
+        if (quantity == null) {
+            throw new IllegalArgumentException("quantity is required");
         }
-        return null;
+        RestockResultDTO result = reservationService.restockTo(id, quantity);
+        if (result == null) {
+            return null;
+        }
+        return bookRepository.findById(id).orElse(null);
     }
 
 
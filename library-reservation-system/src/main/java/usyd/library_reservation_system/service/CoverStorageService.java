@@ -0,0 +1,153 @@
+package usyd.library_reservation_system.library_reservation_system.service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.*;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+/**
+ * Stores uploaded book covers under their SHA-256, so identical uploads share one file.
+ * The upload is hashed while it streams to a temp file in the same directory,
+ * then renamed into place, so a half-written cover is never visible under its final name.
+ */
+@Slf4j
+@Service
+public class CoverStorageService {
+
+    public static final String PUBLIC_PREFIX = "/img/covers/";
+
+    private static final Pattern SAFE_EXTENSION = Pattern.compile("\\.[a-z0-9]{1,5}");
+    private static final Pattern SAFE_FILENAME = Pattern.compile("[A-Za-z0-9_-][A-Za-z0-9._-]{0,127}");
+
+    // Blank = probe the usual webapp locations once at startup (old per-request behaviour)
+    @Value("${app.covers.dir:}")
+    private String configuredDir = "";
+
+    private Path coversDir;
+
+    public record StoredCover(String path, String sha256, long size, boolean deduplicated) {}
+
+    @PostConstruct
+    void init() throws IOException {
+        coversDir = resolveDir().toAbsolutePath().normalize();
+        Files.createDirectories(coversDir);
+        log.info("Cover images stored in {}", coversDir);
+    }
+
+    public Path getCoversDir() {
+        return coversDir;
+    }
+
+    /**
+     * Maps "/img/covers/x.jpg" (or just "x.jpg") to the stored file, if it exists.
+     * Anything that is not a plain file name directly under the covers directory is rejected.
+     */
+    public Optional<Path> resolve(String publicPath) {
+        String name = fileNameOf(publicPath);
+        if (name == null) return Optional.empty();
+        Path p = coversDir.resolve(name);
+        return Files.isRegularFile(p) ? Optional.of(p) : Optional.empty();
+    }
+
+    static String fileNameOf(String publicPath) {
+        if (publicPath == null) return null;
+        String name = publicPath.startsWith(PUBLIC_PREFIX) ? publicPath.substring(PUBLIC_PREFIX.length()) : publicPath;
+        return SAFE_FILENAME.matcher(name).matches() ? name : null;
+    }
+
+    public StoredCover store(MultipartFile file) throws IOException {
+        try (InputStream in = file.getInputStream()) {
+            return store(in, file.getOriginalFilename());
+        }
+    }
+
+    public StoredCover store(InputStream content, String originalFilename) throws IOException {
+        MessageDigest sha256 = newSha256();
+        Path tmp = Files.createTempFile(coversDir, ".upload-", ".tmp");
+        try {
+            long size;
+            try (InputStream in = new DigestInputStream(content, sha256);
+                 OutputStream out = Files.newOutputStream(tmp)) {
+                size = in.transferTo(out);
+            }
+            String hash = HexFormat.of().formatHex(sha256.digest());
+            String filename = hash + extensionOf(originalFilename);
+            Path target = coversDir.resolve(filename);
+
+            boolean existed = Files.exists(target);
+            if (!existed) {
+                makeReadable(tmp);
+                try {
+                    Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE);
+                } catch (FileAlreadyExistsException e) {
+                    // Same content uploaded concurrently; the other copy is identical
+                    existed = true;
+                }
+            }
+            return new StoredCover(PUBLIC_PREFIX + filename, hash, size, existed);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    // createTempFile is owner-only (0600); published covers must be readable by whatever serves them
+    static void makeReadable(Path file) throws IOException {
+        if (Files.getFileStore(file).supportsFileAttributeView(PosixFileAttributeView.class)) {
+            Files.setPosixFilePermissions(file, PosixFilePermissions.fromString("rw-r--r--"));
+        }
+    }
+
+    private Path resolveDir() {
+        if (configuredDir != null && !configuredDir.isBlank()) {
+            return Paths.get(configuredDir);
+        }
+        String userDir = System.getProperty("user.dir");
+        String[] webappCandidates = {
+                Paths.get(userDir, "src", "main", "webapp").toString(),
+                Paths.get(userDir, "library-reservation-system", "src", "main", "webapp").toString(),
+                "src/main/webapp",
+                "library-reservation-system/src/main/webapp"
+        };
+        String webapp = userDir;
+        for (String candidate : webappCandidates) {
+            if (Files.isDirectory(Paths.get(candidate))) {
+                webapp = candidate;
+                break;
+            }
+        }
+        return Paths.get(webapp, "resource", "img", "covers");
+    }
+
+    // Keep only short alphanumeric extensions; anything odd is dropped rather than trusted
+    static String extensionOf(String originalFilename) {
+        if (originalFilename == null) return "";
+        int dot = originalFilename.lastIndexOf('.');
+        if (dot < 0) return "";
+        String ext = originalFilename.substring(dot).toLowerCase(Locale.ROOT);
+        if (ext.equals(".jpeg")) ext = ".jpg";
+        return SAFE_EXTENSION.matcher(ext).matches() ? ext : "";
+    }
+
+    private static MessageDigest newSha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
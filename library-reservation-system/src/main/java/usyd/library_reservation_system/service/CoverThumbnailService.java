@@ -0,0 +1,276 @@
+package usyd.library_reservation_system.library_reservation_system.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Produces downscaled JPEG variants of stored covers on a small bounded pool.
+ * Variants live next to the originals as /img/covers/{variant}/{name}.jpg; until a variant exists,
+ * callers get the original path back, so a slow or failed resize never breaks an image.
+ * Covers that cannot be thumbnailed (not an image, over max-pixels, decode error) are remembered, so
+ * later requests serve the original without queuing, logging and decoding them again.
+ */
+@Slf4j
+@Service
+public class CoverThumbnailService {
+
+    public enum Variant {
+        GRID(240), DETAIL(480), RETINA(960);
+
+        private final int width;
+
+        Variant(int width) {
+            this.width = width;
+        }
+
+        public int getWidth() {
+            return width;
+        }
+
+        public String dirName() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+
+        /** Accepts a variant name ("grid") or a pixel width ("300" -> smallest variant at least that wide). */
+        public static Optional<Variant> parse(String size) {
+            if (size == null || size.isBlank()) return Optional.empty();
+            String s = size.trim();
+            if (s.chars().allMatch(Character::isDigit)) {
+                int px = Integer.parseInt(s.length() > 6 ? "999999" : s);
+                for (Variant v : values()) {
+                    if (v.width >= px) return Optional.of(v);
+                }
+                return Optional.of(RETINA);
+            }
+            for (Variant v : values()) {
+                if (v.dirName().equals(s.toLowerCase(Locale.ROOT))) return Optional.of(v);
+            }
+            return Optional.empty();
+        }
+    }
+
+    private static final float JPEG_QUALITY = 0.85f;
+
+    // Bound on remembered failures; the oldest is forgotten first and simply retried on its next request
+    static final int MAX_FAILED_NAMES = 1000;
+
+    private final CoverStorageService storage;
+    private final ExecutorService executor;
+
+    // Originals above this many pixels are not decoded: a small, highly compressed file can declare
+    // huge dimensions and would otherwise allocate width x height x 4 bytes on a thumbnail thread
+    @Value("${app.covers.max-pixels:25000000}")
+    private long maxPixels = 25_000_000L;
+
+    // Covers with a job queued or running, so repeated uploads/requests don't stack duplicate work
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+
+    // Covers whose generation failed; names are content hashes, so the file behind one does not change
+    private final Set<String> failed = Collections.newSetFromMap(Collections.synchronizedMap(
+            new LinkedHashMap<>(16, 0.75f, false) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                    return size() > MAX_FAILED_NAMES;
+                }
+            }));
+
+    public CoverThumbnailService(CoverStorageService storage,
+                                 @Qualifier("coverThumbnailExecutor") ExecutorService executor) {
+        this.storage = storage;
+        this.executor = executor;
+    }
+
+    /**
+     * Queues generation of all missing variants for a stored cover. Returns null if nothing was queued,
+     * including for a cover that already failed.
+     */
+    public Future<?> generateAsync(String publicPath) {
+        String name = CoverStorageService.fileNameOf(publicPath);
+        if (name == null || failed.contains(name) || allVariantsExist(name) || !inFlight.add(name)) {
+            return null;
+        }
+        try {
+            return executor.submit(() -> {
+                try {
+                    if (!generate(name)) {
+                        failed.add(name);
+                    }
+                } finally {
+                    inFlight.remove(name);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(name);
+            log.warn("Thumbnail queue full, skipping {} (variants will be retried on next request)", name);
+            return null;
+        }
+    }
+
+    /**
+     * Public path of the requested variant if it has been generated, otherwise the original path
+     * (and generation is queued). Empty if the original cover does not exist.
+     */
+    public Optional<String> variantPath(String publicPath, Variant variant) {
+        String name = CoverStorageService.fileNameOf(publicPath);
+        if (name == null || storage.resolve(name).isEmpty()) {
+            return Optional.empty();
+        }
+        if (Files.isRegularFile(variantFile(name, variant))) {
+            return Optional.of(CoverStorageService.PUBLIC_PREFIX + variant.dirName() + "/" + variantName(name));
+        }
+        generateAsync(name);
+        return Optional.of(CoverStorageService.PUBLIC_PREFIX + name);
+    }
+
+    // False if the cover cannot be thumbnailed; a missing original is not a failure (nothing to remember)
+    boolean generate(String name) {
+        Optional<Path> original = storage.resolve(name);
+        if (original.isEmpty()) return true;
+        try {
+            BufferedImage src = readWithinPixelCap(name, original.get());
+            if (src == null) {
+                return false;
+            }
+            for (Variant v : Variant.values()) {
+                Path target = variantFile(name, v);
+                if (!Files.exists(target)) {
+                    writeJpeg(scaleToWidth(src, v.getWidth()), target);
+                }
+            }
+            return true;
+        } catch (IOException | RuntimeException e) {
+            log.error("Thumbnail generation failed for {}", name, e);
+            return false;
+        }
+    }
+
+    // Reads the dimensions from the header first and decodes only if they are within maxPixels
+    private BufferedImage readWithinPixelCap(String name, Path file) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(file.toFile())) {
+            Iterator<ImageReader> readers = in == null ? null : ImageIO.getImageReaders(in);
+            if (readers == null || !readers.hasNext()) {
+                log.warn("Cover {} is not a readable image, no thumbnails generated", name);
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                long pixels = (long) reader.getWidth(0) * reader.getHeight(0);
+                if (pixels > maxPixels) {
+                    log.warn("Cover {} is {}x{}, over the {} pixel limit, no thumbnails generated",
+                            name, reader.getWidth(0), reader.getHeight(0), maxPixels);
+                    return null;
+                }
+                return reader.read(0);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private boolean allVariantsExist(String name) {
+        for (Variant v : Variant.values()) {
+            if (!Files.exists(variantFile(name, v))) return false;
+        }
+        return true;
+    }
+
+    private Path variantFile(String name, Variant v) {
+        return storage.getCoversDir().resolve(v.dirName()).resolve(variantName(name));
+    }
+
+    // Variants are always JPEG: abc.png -> abc.jpg
+    static String variantName(String name) {
+        int dot = name.lastIndexOf('.');
+        return (dot > 0 ? name.substring(0, dot) : name) + ".jpg";
+    }
+
+    /**
+     * Downscale in halving steps, then one bilinear pass to the exact width; a single big bilinear
+     * step skips most source pixels and looks aliased. Never upscales. Output is opaque RGB for JPEG.
+     */
+    static BufferedImage scaleToWidth(BufferedImage src, int targetWidth) {
+        int w = src.getWidth();
+        int h = src.getHeight();
+        int tw = Math.min(targetWidth, w);
+        int th = Math.max(1, (int) Math.round((double) h * tw / w));
+
+        BufferedImage current = toRgb(src);
+        while (w / 2 >= tw) {
+            w /= 2;
+            h = Math.max(1, h / 2);
+            current = draw(current, w, h);
+        }
+        return (w == tw && h == th) ? current : draw(current, tw, th);
+    }
+
+    private static BufferedImage toRgb(BufferedImage src) {
+        if (src.getType() == BufferedImage.TYPE_INT_RGB) return src;
+        return draw(src, src.getWidth(), src.getHeight());
+    }
+
+    private static BufferedImage draw(BufferedImage src, int w, int h) {
+        BufferedImage out = new BufferedImage(w, h, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = out.createGraphics();
+        try {
+            g.setColor(Color.WHITE); // transparent PNG areas become white instead of black
+            g.fillRect(0, 0, w, h);
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.drawImage(src, 0, 0, w, h, null);
+        } finally {
+            g.dispose();
+        }
+        return out;
+    }
+
+    private static void writeJpeg(BufferedImage img, Path target) throws IOException {
+        Files.createDirectories(target.getParent());
+        Path tmp = Files.createTempFile(target.getParent(), ".thumb-", ".tmp");
+        try {
+            ImageWriter writer = ImageIO.getImageWritersByFormatName("jpg").next();
+            try (OutputStream os = Files.newOutputStream(tmp);
+                 ImageOutputStream ios = ImageIO.createImageOutputStream(os)) {
+                writer.setOutput(ios);
+                ImageWriteParam param = writer.getDefaultWriteParam();
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                param.setCompressionQuality(JPEG_QUALITY);
+                writer.write(null, new IIOImage(img, null, null), param);
+            } finally {
+                writer.dispose();
+            }
+            CoverStorageService.makeReadable(tmp);
+            Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+}
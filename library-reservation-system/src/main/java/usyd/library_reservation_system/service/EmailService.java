@@ -6,6 +6,8 @@ import org.springframework.mail.SimpleMailMessage;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDate;
+
 @Service
 @RequiredArgsConstructor
 public class EmailService {
@@ -42,4 +44,18 @@ public class EmailService {
         mailSender.send(msg);
     }
 
+    public void sendOverdueNotice(String to, String bookName, LocalDate dueDate) {
+        var subject = "Overdue: " + bookName;
+        var text = """
+        Your loan of "%s" was due on %s and has not been returned yet.
+        Please return it to the library as soon as possible.
+        """.formatted(bookName, dueDate);
+        var msg = new SimpleMailMessage();
+        msg.setFrom(from);
+        msg.setTo(to);
+        msg.setSubject(subject);
+        msg.setText(text);
+        mailSender.send(msg);
+    }
+
 }
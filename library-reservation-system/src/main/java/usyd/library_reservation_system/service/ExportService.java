@@ -0,0 +1,211 @@
+package usyd.library_reservation_system.library_reservation_system.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.stereotype.Service;
+import usyd.library_reservation_system.library_reservation_system.utils.CsvWriter;
+
+import javax.sql.DataSource;
+import java.io.*;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Streams catalog and reservation exports straight from a forward-only JDBC cursor into the response.
+ * With MySQL Connector/J a fetch size of Integer.MIN_VALUE makes the driver stream row by row instead of
+ * buffering the whole result, so memory use does not depend on the number of rows.
+ */
+@Service
+public class ExportService {
+
+    public enum Format {
+        CSV("text/csv", "csv"), NDJSON("application/x-ndjson", "ndjson");
+
+        private final String contentType;
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        public static Format parse(String s) {
+            if (s == null || s.isBlank()) return NDJSON;
+            try {
+                return valueOf(s.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("unsupported export format: " + s);
+            }
+        }
+    }
+
+    public record ReservationFilter(Byte status, Integer userId, Integer bookId, LocalDate from, LocalDate to) {}
+
+    private static final String BOOK_SQL =
+            "SELECT b.book_id AS bookId, b.book_name AS bookName, b.author AS author, b.quantity AS quantity, " +
+            "b.label_id AS labelId, l.label_name AS labelName, b.num_favorite AS numFavorite, " +
+            "b.num_reservation AS numReservation, b.avatar AS avatar, b.description AS description " +
+            "FROM book b LEFT JOIN label l ON l.label_id = b.label_id";
+
+    private static final String RESERVATION_SQL =
+            "SELECT r.reservation_id AS reservationId, r.status AS status, r.create_date AS createDate, " +
+            "r.take_date AS takeDate, r.return_date AS returnDate, r.user_id AS userId, u.nickname AS userNickname, " +
+            "r.book_id AS bookId, b.book_name AS bookName " +
+            "FROM reservation r LEFT JOIN `user` u ON u.user_id = r.user_id LEFT JOIN book b ON b.book_id = r.book_id";
+
+    private final JdbcTemplate streamingJdbc;
+    private final ObjectMapper objectMapper;
+
+    @Autowired
+    public ExportService(DataSource dataSource, ObjectMapper objectMapper,
+                         @Value("${app.export.fetch-size:-2147483648}") int fetchSize) {
+        this(streamingTemplate(dataSource, fetchSize), objectMapper);
+    }
+
+    ExportService(JdbcTemplate streamingJdbc, ObjectMapper objectMapper) {
+        this.streamingJdbc = streamingJdbc;
+        this.objectMapper = objectMapper;
+    }
+
+    // Separate template so the streaming fetch size never leaks into the shared JdbcTemplate bean
+    private static JdbcTemplate streamingTemplate(DataSource dataSource, int fetchSize) {
+        JdbcTemplate t = new JdbcTemplate(dataSource);
+        t.setFetchSize(fetchSize);
+        return t;
+    }
+
+    public void exportBooks(Integer labelId, Format format, OutputStream out) {
+        List<Object> args = new ArrayList<>();
+        StringBuilder sql = new StringBuilder(BOOK_SQL);
+        if (labelId != null) {
+            sql.append(" WHERE b.label_id = ?");
+            args.add(labelId);
+        }
+        sql.append(" ORDER BY b.book_id");
+        streamingJdbc.query(sql.toString(), rowWriter(format, out), args.toArray());
+    }
+
+    public void exportReservations(ReservationFilter filter, Format format, OutputStream out) {
+        List<String> where = new ArrayList<>();
+        List<Object> args = new ArrayList<>();
+        if (filter.status() != null) {
+            where.add("r.status = ?");
+            args.add(filter.status());
+        }
+        if (filter.userId() != null) {
+            where.add("r.user_id = ?");
+            args.add(filter.userId());
+        }
+        if (filter.bookId() != null) {
+            where.add("r.book_id = ?");
+            args.add(filter.bookId());
+        }
+        if (filter.from() != null) {
+            where.add("r.create_date >= ?");
+            args.add(filter.from().atStartOfDay());
+        }
+        if (filter.to() != null) {
+            // inclusive end date
+            where.add("r.create_date < ?");
+            args.add(filter.to().plusDays(1).atStartOfDay());
+        }
+        StringBuilder sql = new StringBuilder(RESERVATION_SQL);
+        if (!where.isEmpty()) {
+            sql.append(" WHERE ").append(String.join(" AND ", where));
+        }
+        sql.append(" ORDER BY r.reservation_id");
+        streamingJdbc.query(sql.toString(), rowWriter(format, out), args.toArray());
+    }
+
+    ResultSetExtractor<Long> rowWriter(Format format, OutputStream out) {
+        return rs -> {
+            try {
+                return format == Format.CSV ? writeCsv(rs, out) : writeNdjson(rs, out);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        };
+    }
+
+    private long writeCsv(ResultSet rs, OutputStream out) throws SQLException, IOException {
+        Writer w = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        String[] labels = labels(rs.getMetaData());
+        CsvWriter.writeRecord(w, (Object[]) labels);
+        Object[] values = new Object[labels.length];
+        long rows = 0;
+        while (rs.next()) {
+            for (int i = 0; i < labels.length; i++) {
+                values[i] = rs.getObject(i + 1);
+            }
+            CsvWriter.writeRecord(w, values);
+            rows++;
+        }
+        w.flush();
+        return rows;
+    }
+
+    private long writeNdjson(ResultSet rs, OutputStream out) throws SQLException, IOException {
+        String[] labels = labels(rs.getMetaData());
+        long rows = 0;
+        // The generator is not closed: closing it would close the response stream
+        JsonGenerator g = objectMapper.getFactory().createGenerator(out);
+        g.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        g.setRootValueSeparator(null); // rows are separated by '\n' below, not Jackson's default space
+        while (rs.next()) {
+            g.writeStartObject();
+            for (int i = 0; i < labels.length; i++) {
+                g.writeFieldName(labels[i]);
+                writeValue(g, rs.getObject(i + 1));
+            }
+            g.writeEndObject();
+            g.writeRaw('\n');
+            rows++;
+        }
+        g.flush();
+        return rows;
+    }
+
+    private static void writeValue(JsonGenerator g, Object v) throws IOException {
+        if (v == null) {
+            g.writeNull();
+        } else if (v instanceof Integer || v instanceof Long || v instanceof Short || v instanceof Byte) {
+            g.writeNumber(((Number) v).longValue());
+        } else if (v instanceof BigDecimal d) {
+            g.writeNumber(d);
+        } else if (v instanceof Number n) {
+            g.writeNumber(n.doubleValue());
+        } else if (v instanceof Boolean b) {
+            g.writeBoolean(b);
+        } else {
+            // strings, LocalDate/LocalDateTime (ISO-8601) and anything else as text
+            g.writeString(v.toString());
+        }
+    }
+
+    private static String[] labels(ResultSetMetaData md) throws SQLException {
+        String[] labels = new String[md.getColumnCount()];
+        for (int i = 0; i < labels.length; i++) {
+            labels[i] = md.getColumnLabel(i + 1);
+        }
+        return labels;
+    }
+}
@@ -0,0 +1,178 @@
+package usyd.library_reservation_system.library_reservation_system.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Remembers which Idempotency-Keys have been used and the response each one produced.
+ *
+ * Keys live in an in-memory map until they expire (ttl-hours). With persist=true every claim is also
+ * an INSERT into idempotency_key, whose primary key decides which node runs the request; the other
+ * nodes read the stored response from there. Expired keys are swept every sweep-ms.
+ */
+@Slf4j
+@Component
+public class IdempotencyStore {
+
+    /** A finished response, replayed byte for byte for a repeated key. */
+    public record StoredResponse(int status, String contentType, byte[] body) {}
+
+    public enum State {
+        NEW,          // first use: the caller runs the request, then calls complete or release
+        IN_PROGRESS,  // the first request with this key has not finished yet
+        MISMATCH,     // the key was used for a different request body
+        REPLAY,       // finished before: answer with response()
+        UNTRACKED     // the in-memory store is full; run the request without idempotency
+    }
+
+    public record Claim(State state, StoredResponse response) {
+        static Claim of(State state) {
+            return new Claim(state, null);
+        }
+    }
+
+    static final String INSERT_SQL =
+            "INSERT INTO idempotency_key (key_hash, fingerprint, expires_at) VALUES (?, ?, ?)";
+    static final String DELETE_EXPIRED_SQL = "DELETE FROM idempotency_key WHERE key_hash = ? AND expires_at < ?";
+    static final String SELECT_SQL =
+            "SELECT fingerprint, status_code, content_type, body FROM idempotency_key WHERE key_hash = ?";
+    static final String COMPLETE_SQL =
+            "UPDATE idempotency_key SET status_code = ?, content_type = ?, body = ? WHERE key_hash = ?";
+    static final String DELETE_SQL = "DELETE FROM idempotency_key WHERE key_hash = ?";
+    static final String PURGE_SQL = "DELETE FROM idempotency_key WHERE expires_at < ?";
+
+    private static final class Entry {
+        final String fingerprint;
+        final long expiresAt;
+        volatile StoredResponse response;
+
+        Entry(String fingerprint, long expiresAt) {
+            this.fingerprint = fingerprint;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final JdbcTemplate jdbcTemplate;
+    private final long ttlMs;
+    private final int maxEntries;
+    private final boolean persist;
+
+    public IdempotencyStore(JdbcTemplate jdbcTemplate,
+                            @Value("${app.idempotency.ttl-hours:24}") long ttlHours,
+                            @Value("${app.idempotency.max-entries:100000}") int maxEntries,
+                            @Value("${app.idempotency.persist:false}") boolean persist) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.ttlMs = ttlHours * 3_600_000L;
+        this.maxEntries = maxEntries;
+        this.persist = persist;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public Claim claim(String key, String fingerprint) {
+        return claim(key, fingerprint, System.currentTimeMillis());
+    }
+
+    Claim claim(String key, String fingerprint, long nowMs) {
+        if (entries.size() >= maxEntries) {
+            sweep(nowMs);
+            if (entries.size() >= maxEntries) {
+                log.warn("Idempotency store full ({} keys); request runs untracked", entries.size());
+                return Claim.of(State.UNTRACKED);
+            }
+        }
+        Entry fresh = new Entry(fingerprint, nowMs + ttlMs);
+        Entry held = entries.compute(key, (k, cur) -> cur != null && cur.expiresAt > nowMs ? cur : fresh);
+        if (held != fresh) {
+            return judge(held.fingerprint, fingerprint, held.response);
+        }
+        if (persist && !claimInDatabase(key, fingerprint, nowMs)) {
+            // Another node owns the key: answer from its row, not from the entry we just made
+            entries.remove(key, fresh);
+            return readFromDatabase(key, fingerprint);
+        }
+        return Claim.of(State.NEW);
+    }
+
+    /** Records the response of a NEW claim for replay. */
+    public void complete(String key, StoredResponse response) {
+        Entry entry = entries.get(key);
+        if (entry != null) {
+            entry.response = response;
+        }
+        if (persist) {
+            jdbcTemplate.update(COMPLETE_SQL, response.status(), response.contentType(), response.body(), key);
+        }
+    }
+
+    /** Forgets a NEW claim whose request failed, so a retry runs it again. */
+    public void release(String key) {
+        entries.remove(key);
+        if (persist) {
+            jdbcTemplate.update(DELETE_SQL, key);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.idempotency.sweep-ms:60000}")
+    public void sweepScheduled() {
+        sweep(System.currentTimeMillis());
+    }
+
+    void sweep(long nowMs) {
+        entries.values().removeIf(e -> e.expiresAt <= nowMs);
+        if (persist) {
+            int purged = jdbcTemplate.update(PURGE_SQL, new Timestamp(nowMs));
+            if (purged > 0) {
+                log.debug("Purged {} expired idempotency keys", purged);
+            }
+        }
+    }
+
+    private boolean claimInDatabase(String key, String fingerprint, long nowMs) {
+        Timestamp expiresAt = new Timestamp(nowMs + ttlMs);
+        try {
+            jdbcTemplate.update(INSERT_SQL, key, fingerprint, expiresAt);
+            return true;
+        } catch (DuplicateKeyException taken) {
+            // An expired row not swept yet does not count; anything else belongs to another request
+            if (jdbcTemplate.update(DELETE_EXPIRED_SQL, key, new Timestamp(nowMs)) == 0) {
+                return false;
+            }
+            try {
+                jdbcTemplate.update(INSERT_SQL, key, fingerprint, expiresAt);
+                return true;
+            } catch (DuplicateKeyException lostRace) {
+                return false;
+            }
+        }
+    }
+
+    private Claim readFromDatabase(String key, String fingerprint) {
+        List<Claim> rows = jdbcTemplate.query(SELECT_SQL, (rs, i) -> {
+            int status = rs.getInt("status_code");
+            StoredResponse response = rs.wasNull() ? null
+                    : new StoredResponse(status, rs.getString("content_type"), rs.getBytes("body"));
+            return judge(rs.getString("fingerprint"), fingerprint, response);
+        }, key);
+        // Released between our INSERT and SELECT: treat as still running, the client retries
+        return rows.isEmpty() ? Claim.of(State.IN_PROGRESS) : rows.get(0);
+    }
+
+    private static Claim judge(String storedFingerprint, String fingerprint, StoredResponse response) {
+        if (!storedFingerprint.equals(fingerprint)) {
+            return Claim.of(State.MISMATCH);
+        }
+        return response == null ? Claim.of(State.IN_PROGRESS) : new Claim(State.REPLAY, response);
+    }
+}
@@ -0,0 +1,172 @@
+package usyd.library_reservation_system.library_reservation_system.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import usyd.library_reservation_system.library_reservation_system.service.OverdueNotifier.OverdueLoan;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Finds loans (status=4) that went past their due date since the last run and hands them to
+ * OverdueNotifier. Only rows with overdue_notified_at IS NULL are read, through
+ * idx_reservation_overdue_scan, so a run touches newly overdue loans only, never the whole table.
+ * Pages are walked with a (due_date, reservation_id) keyset cursor.
+ *
+ * Each page is marked notified before it is queued, with a conditional UPDATE per row, so two
+ * nodes running the job never notify the same loan twice. If the notice queue is full the page is
+ * unmarked again and picked up by the next run.
+ */
+@Slf4j
+@Service
+public class OverdueLoanJob {
+
+    /** Counters since startup plus the last run's throughput. */
+    public record Stats(long runs, long loansFound, long loansQueued, long deferred, long noticesSent,
+                        long noticesFailed, long lastRunMs, double lastRunLoansPerSecond) {}
+
+    // MySQL's smallest DATE: the cursor starts before every due date
+    static final LocalDate MIN_DUE = LocalDate.of(1000, 1, 1);
+
+    static final String SCAN_SQL =
+            "SELECT reservation_id, user_id, book_id, due_date FROM reservation " +
+            "WHERE status = 4 AND overdue_notified_at IS NULL AND due_date < ? " +
+            "AND (due_date > ? OR (due_date = ? AND reservation_id > ?)) " +
+            "ORDER BY due_date, reservation_id LIMIT ?";
+
+    static final String MARK_SQL =
+            "UPDATE reservation SET overdue_notified_at = ? " +
+            "WHERE reservation_id = ? AND status = 4 AND overdue_notified_at IS NULL";
+
+    static final String UNMARK_SQL =
+            "UPDATE reservation SET overdue_notified_at = NULL WHERE reservation_id = ? AND overdue_notified_at = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final OverdueNotifier notifier;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    private final LongAdder runs = new LongAdder();
+    private final LongAdder found = new LongAdder();
+    private final LongAdder queued = new LongAdder();
+    private final LongAdder deferred = new LongAdder();
+    private final AtomicLong lastRunMs = new AtomicLong();
+    private volatile double lastRunRate;
+
+    @Value("${app.reservations.overdue.batch-size:500}")
+    private int batchSize = 500;
+
+    public OverdueLoanJob(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate, OverdueNotifier notifier) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.notifier = notifier;
+    }
+
+    // "-" as the cron expression disables the job
+    @Scheduled(cron = "${app.reservations.overdue.cron:0 0 * * * *}")
+    public void scanScheduled() {
+        scan(LocalDate.now());
+    }
+
+    /**
+     * Queues notices for loans due before today that have not been notified yet.
+     * Returns the number of loans queued, or -1 if another run is still in progress.
+     */
+    public long scan(LocalDate today) {
+        if (!running.compareAndSet(false, true)) {
+            log.warn("Overdue scan already running, skipping");
+            return -1;
+        }
+        long start = System.currentTimeMillis();
+        long foundThisRun = 0;
+        long queuedThisRun = 0;
+        try {
+            LocalDate cursorDue = MIN_DUE;
+            int cursorId = 0;
+            int limit = Math.max(1, batchSize);
+            while (true) {
+                List<OverdueLoan> page = jdbcTemplate.query(SCAN_SQL, (rs, i) -> new OverdueLoan(
+                                rs.getInt("reservation_id"), rs.getInt("user_id"), rs.getInt("book_id"),
+                                rs.getObject("due_date", LocalDate.class)),
+                        today, cursorDue, cursorDue, cursorId, limit);
+                if (page.isEmpty()) {
+                    break;
+                }
+                foundThisRun += page.size();
+                queuedThisRun += markAndQueue(page);
+
+                OverdueLoan last = page.get(page.size() - 1);
+                cursorDue = last.dueDate();
+                cursorId = last.reservationId();
+                if (page.size() < limit) {
+                    break;
+                }
+            }
+        } finally {
+            running.set(false);
+        }
+        long elapsed = System.currentTimeMillis() - start;
+        runs.increment();
+        found.add(foundThisRun);
+        queued.add(queuedThisRun);
+        lastRunMs.set(elapsed);
+        lastRunRate = elapsed == 0 ? foundThisRun * 1000.0 : foundThisRun * 1000.0 / elapsed;
+        log.info("Overdue scan: {} loans found, {} notices queued in {} ms", foundThisRun, queuedThisRun, elapsed);
+        return queuedThisRun;
+    }
+
+    public Stats stats() {
+        return new Stats(runs.sum(), found.sum(), queued.sum(), deferred.sum(),
+                notifier.sentCount(), notifier.failedCount(), lastRunMs.get(), lastRunRate);
+    }
+
+    private int markAndQueue(List<OverdueLoan> page) {
+        LocalDateTime markedAt = LocalDateTime.now().withNano(0);
+        List<OverdueLoan> claimed = transactionTemplate.execute(status -> {
+            int[] counts = jdbcTemplate.batchUpdate(MARK_SQL, new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement ps, int i) throws SQLException {
+                    ps.setObject(1, markedAt);
+                    ps.setInt(2, page.get(i).reservationId());
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return page.size();
+                }
+            });
+            List<OverdueLoan> mine = new ArrayList<>(page.size());
+            for (int i = 0; i < counts.length; i++) {
+                // 0 = returned meanwhile or claimed by another node (drivers may report -2, "succeeded, count unknown")
+                if (counts[i] != 0) {
+                    mine.add(page.get(i));
+                }
+            }
+            return mine;
+        });
+        if (claimed == null || claimed.isEmpty()) {
+            return 0;
+        }
+        if (!notifier.submit(claimed)) {
+            jdbcTemplate.batchUpdate(UNMARK_SQL, claimed, claimed.size(), (ps, loan) -> {
+                ps.setInt(1, loan.reservationId());
+                ps.setObject(2, markedAt);
+            });
+            deferred.add(claimed.size());
+            return 0;
+        }
+        return claimed.size();
+    }
+}
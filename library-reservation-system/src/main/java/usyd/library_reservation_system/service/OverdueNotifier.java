@@ -0,0 +1,96 @@
+package usyd.library_reservation_system.library_reservation_system.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+import usyd.library_reservation_system.library_reservation_system.model.Book;
+import usyd.library_reservation_system.library_reservation_system.model.UserEntity;
+import usyd.library_reservation_system.library_reservation_system.repository.BookRepository;
+import usyd.library_reservation_system.library_reservation_system.repository.UserRepository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Sends overdue notices off the scanning thread. Each batch becomes one task on the bounded
+ * overdueNoticeExecutor, which loads the users and books of the batch in two queries and mails
+ * every borrower; the scan never waits on SMTP.
+ */
+@Slf4j
+@Service
+public class OverdueNotifier {
+
+    /** One loan that has passed its due date. */
+    public record OverdueLoan(Integer reservationId, Integer userId, Integer bookId, LocalDate dueDate) {}
+
+    private final ExecutorService executor;
+    private final EmailService emailService;
+    private final UserRepository userRepository;
+    private final BookRepository bookRepository;
+
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+
+    public OverdueNotifier(@Qualifier("overdueNoticeExecutor") ExecutorService executor,
+                           EmailService emailService,
+                           UserRepository userRepository,
+                           BookRepository bookRepository) {
+        this.executor = executor;
+        this.emailService = emailService;
+        this.userRepository = userRepository;
+        this.bookRepository = bookRepository;
+    }
+
+    /** Queues a batch for sending; false if the queue is full (nothing of the batch is sent). */
+    public boolean submit(List<OverdueLoan> batch) {
+        if (batch.isEmpty()) {
+            return true;
+        }
+        try {
+            executor.execute(() -> send(batch));
+            return true;
+        } catch (RejectedExecutionException e) {
+            log.warn("Overdue notice queue full, {} notices deferred", batch.size());
+            return false;
+        }
+    }
+
+    public long sentCount() {
+        return sent.sum();
+    }
+
+    public long failedCount() {
+        return failed.sum();
+    }
+
+    void send(List<OverdueLoan> batch) {
+        Map<Integer, UserEntity> users = userRepository.findAllById(
+                        batch.stream().map(OverdueLoan::userId).distinct().toList())
+                .stream().collect(Collectors.toMap(UserEntity::getUserId, Function.identity()));
+        Map<Integer, String> bookNames = bookRepository.findAllById(
+                        batch.stream().map(OverdueLoan::bookId).distinct().toList())
+                .stream().collect(Collectors.toMap(Book::getBookId, Book::getBookName));
+
+        for (OverdueLoan loan : batch) {
+            UserEntity user = users.get(loan.userId());
+            if (user == null || user.getEmail() == null) {
+                failed.increment();
+                continue;
+            }
+            try {
+                emailService.sendOverdueNotice(user.getEmail(),
+                        bookNames.getOrDefault(loan.bookId(), "Book #" + loan.bookId()), loan.dueDate());
+                sent.increment();
+            } catch (RuntimeException e) {
+                failed.increment();
+                log.warn("Overdue notice for reservation {} failed: {}", loan.reservationId(), e.getMessage());
+            }
+        }
+    }
+}
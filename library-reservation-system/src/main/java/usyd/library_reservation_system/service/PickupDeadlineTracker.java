@@ -0,0 +1,99 @@
+package usyd.library_reservation_system.library_reservation_system.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import usyd.library_reservation_system.library_reservation_system.model.Reservation;
+import usyd.library_reservation_system.library_reservation_system.utils.AfterCommit;
+import usyd.library_reservation_system.library_reservation_system.utils.TimingWheel;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+
+/**
+ * Pickup deadlines of held reservations (status=1) in a TimingWheel keyed by reservationId.
+ * ReservationService reports every saved transition; a hold is tracked until assign_date + window
+ * and dropped as soon as it leaves status 1. PickupExpiryJob drives the clock and expires what is due.
+ */
+@Component
+public class PickupDeadlineTracker {
+
+    // 64 slots per level, 4 levels: about 194 days of range at a one-second tick
+    private static final int WHEEL_SIZE = 64;
+    private static final int LEVELS = 4;
+
+    private final Duration window;
+    private final TimingWheel<Integer> wheel;
+
+    public PickupDeadlineTracker(@Value("${app.reservations.pickup.window-hours:72}") long windowHours,
+                                 @Value("${app.reservations.pickup.tick-ms:1000}") long tickMs) {
+        this.window = Duration.ofHours(windowHours);
+        this.wheel = new TimingWheel<>(Math.max(1, tickMs), WHEEL_SIZE, LEVELS, System.currentTimeMillis());
+    }
+
+    public Duration window() {
+        return window;
+    }
+
+    /** Holds assigned at or before this instant are past their pickup window. */
+    public LocalDateTime cutoff() {
+        return LocalDateTime.now().minus(window);
+    }
+
+    /** Schedules or cancels r's deadline once the current transaction commits. */
+    public void recordTransition(Reservation r) {
+        Integer id = r.getReservationId();
+        if (id == null) {
+            return;
+        }
+        if (r.getStatus() != null && r.getStatus() == 1) {
+            long deadline = deadlineOf(r.getAssignDate());
+            AfterCommit.run(() -> schedule(id, deadline));
+        } else {
+            AfterCommit.run(() -> cancel(id));
+        }
+    }
+
+    /**
+     * (Re)schedules every given hold. Holds from before assign_date existed have none; their window
+     * starts now rather than expiring them all at once.
+     */
+    public void track(List<Reservation> holds) {
+        synchronized (wheel) {
+            for (Reservation r : holds) {
+                wheel.schedule(r.getReservationId(), deadlineOf(r.getAssignDate()));
+            }
+        }
+    }
+
+    /** Advances the wheel to now and returns the reservations whose window has passed. */
+    public List<Integer> due() {
+        synchronized (wheel) {
+            return wheel.advance(System.currentTimeMillis());
+        }
+    }
+
+    public int size() {
+        synchronized (wheel) {
+            return wheel.size();
+        }
+    }
+
+    private void schedule(Integer id, long deadline) {
+        synchronized (wheel) {
+            wheel.schedule(id, deadline);
+        }
+    }
+
+    private void cancel(Integer id) {
+        synchronized (wheel) {
+            wheel.cancel(id);
+        }
+    }
+
+    private long deadlineOf(LocalDateTime assignDate) {
+        LocalDateTime from = assignDate != null ? assignDate : LocalDateTime.now();
+        return from.plus(window).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
@@ -0,0 +1,66 @@
+package usyd.library_reservation_system.library_reservation_system.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import usyd.library_reservation_system.library_reservation_system.dto.ReservationResponseDTO;
+import usyd.library_reservation_system.library_reservation_system.model.Reservation;
+import usyd.library_reservation_system.library_reservation_system.repository.ReservationRepository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Expires holds that were not picked up in time. The wheel is loaded from the status=1 rows at
+ * startup (an index read, not a table scan) and re-synced every resync-ms, which also picks up
+ * holds assigned by other nodes; between syncs only the timers that are due are touched.
+ */
+@Slf4j
+@Component
+public class PickupExpiryJob {
+
+    private final PickupDeadlineTracker tracker;
+    private final ReservationRepository reservationRepository;
+    private final ReservationService reservationService;
+
+    public PickupExpiryJob(PickupDeadlineTracker tracker,
+                           ReservationRepository reservationRepository,
+                           ReservationService reservationService) {
+        this.tracker = tracker;
+        this.reservationRepository = reservationRepository;
+        this.reservationService = reservationService;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        int stamped = reservationRepository.stampMissingAssignDates(LocalDateTime.now());
+        List<Reservation> holds = reservationRepository.findByStatus((byte) 1);
+        tracker.track(holds);
+        log.info("Pickup deadlines loaded for {} held reservations ({} without assign_date started now, window {})",
+                holds.size(), stamped, tracker.window());
+    }
+
+    @Scheduled(initialDelayString = "${app.reservations.pickup.resync-ms:3600000}",
+            fixedDelayString = "${app.reservations.pickup.resync-ms:3600000}")
+    public void resync() {
+        reservationRepository.stampMissingAssignDates(LocalDateTime.now());
+        tracker.track(reservationRepository.findByStatus((byte) 1));
+    }
+
+    @Scheduled(fixedDelayString = "${app.reservations.pickup.tick-ms:1000}")
+    public void tick() {
+        for (Integer reservationId : tracker.due()) {
+            try {
+                ReservationResponseDTO result = reservationService.expireHold(reservationId, tracker.cutoff());
+                if (result.getStatus() == 3) {
+                    log.info("Reservation {}: {}", reservationId, result.getMessage());
+                }
+            } catch (RuntimeException e) {
+                // Stays status=1; the next resync schedules it again
+                log.warn("Expiring reservation {} failed: {}", reservationId, e.getMessage());
+            }
+        }
+    }
+}
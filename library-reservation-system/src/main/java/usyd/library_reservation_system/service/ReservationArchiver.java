@@ -0,0 +1,127 @@
+package usyd.library_reservation_system.library_reservation_system.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Moves returned (2) and cancelled (3) reservations older than min-age-days from reservation into
+ * reservation_archive, so queue/status/user lookups on the hot table stop scanning past them.
+ * Walks the primary key in chunks; each chunk is copied and deleted in its own short transaction,
+ * so a run never holds locks on more than chunk-size rows and can be interrupted at any point.
+ */
+@Slf4j
+@Service
+public class ReservationArchiver {
+
+    static final String SELECT_CHUNK_SQL =
+            "SELECT reservation_id FROM reservation " +
+            "WHERE reservation_id > ? AND status IN (2, 3) AND create_date < ? " +
+            "ORDER BY reservation_id LIMIT ?";
+
+    // Both statements use the same range + predicate, so they touch exactly the rows selected above
+    static final String COPY_SQL =
+            "INSERT INTO reservation_archive " +
+            "(reservation_id, create_date, status, user_id, book_id, take_date, return_date, assign_date, " +
+            "due_date, overdue_notified_at, archived_at) " +
+            "SELECT reservation_id, create_date, status, user_id, book_id, take_date, return_date, assign_date, " +
+            "due_date, overdue_notified_at, ? " +
+            "FROM reservation WHERE reservation_id BETWEEN ? AND ? AND status IN (2, 3) AND create_date < ?";
+
+    static final String DELETE_SQL =
+            "DELETE FROM reservation WHERE reservation_id BETWEEN ? AND ? AND status IN (2, 3) AND create_date < ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    @Value("${app.reservations.archive.min-age-days:90}")
+    private int minAgeDays = 90;
+
+    @Value("${app.reservations.archive.chunk-size:1000}")
+    private int chunkSize = 1000;
+
+    @Value("${app.reservations.archive.pause-ms:50}")
+    private long pauseMs = 50;
+
+    public ReservationArchiver(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    // "-" as the cron expression disables the job
+    @Scheduled(cron = "${app.reservations.archive.cron:0 30 3 * * *}")
+    public void archiveScheduled() {
+        archiveOlderThan(LocalDateTime.now().minusDays(minAgeDays));
+    }
+
+    /**
+     * Archives terminal reservations created before cutoff. Returns the number of rows moved,
+     * or -1 if another run is still in progress.
+     */
+    public long archiveOlderThan(LocalDateTime cutoff) {
+        if (!running.compareAndSet(false, true)) {
+            log.warn("Reservation archival already running, skipping");
+            return -1;
+        }
+        long start = System.currentTimeMillis();
+        long moved = 0;
+        try {
+            int lastId = 0;
+            while (true) {
+                List<Integer> ids = jdbcTemplate.queryForList(SELECT_CHUNK_SQL, Integer.class,
+                        lastId, cutoff, Math.max(1, chunkSize));
+                if (ids.isEmpty()) {
+                    break;
+                }
+                int from = ids.get(0);
+                int to = ids.get(ids.size() - 1);
+                Integer n = transactionTemplate.execute(status -> moveRange(from, to, cutoff));
+                moved += n == null ? 0 : n;
+                lastId = to;
+                if (ids.size() < chunkSize) {
+                    break;
+                }
+                if (!pause()) {
+                    break;
+                }
+            }
+        } finally {
+            running.set(false);
+        }
+        log.info("Archived {} reservations created before {} in {} ms", moved, cutoff, System.currentTimeMillis() - start);
+        return moved;
+    }
+
+    private int moveRange(int from, int to, LocalDateTime cutoff) {
+        int copied = jdbcTemplate.update(COPY_SQL, LocalDateTime.now(), from, to, cutoff);
+        int deleted = jdbcTemplate.update(DELETE_SQL, from, to, cutoff);
+        if (copied != deleted) {
+            // Rolls back the chunk; the next run retries it
+            throw new IllegalStateException("archive copied " + copied + " rows but deleted " + deleted
+                    + " for reservation_id " + from + ".." + to);
+        }
+        return deleted;
+    }
+
+    // Gives foreground transactions a gap between chunks; false if the thread was interrupted
+    private boolean pause() {
+        if (pauseMs <= 0) {
+            return true;
+        }
+        try {
+            Thread.sleep(pauseMs);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package usyd.library_reservation_system.library_reservation_system.service;
+
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Component;
+import usyd.library_reservation_system.library_reservation_system.model.Reservation;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Inserts new reservations as one JDBC batch. Hibernate cannot batch inserts of IDENTITY ids
+ * (it needs each id back before the next row), so saveAll would still be one round trip per row.
+ * Runs on the caller's transaction; the generated ids are written back onto the entities.
+ * Relies on AUTO_INCREMENT, which is why the pooled-ids profile leaves Reservation on IDENTITY
+ * (see META-INF/orm-pooled-ids.xml).
+ */
+@Component
+public class ReservationBatchWriter {
+
+    static final String INSERT_SQL =
+            "INSERT INTO reservation (user_id, book_id, create_date, status, assign_date) VALUES (?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ReservationBatchWriter(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public void insertAll(List<Reservation> reservations) {
+        if (reservations.isEmpty()) {
+            return;
+        }
+        KeyHolder keys = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(con -> con.prepareStatement(INSERT_SQL, new String[]{"reservation_id"}),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        Reservation r = reservations.get(i);
+                        ps.setInt(1, r.getUserId());
+                        ps.setInt(2, r.getBookId());
+                        ps.setTimestamp(3, Timestamp.valueOf(r.getCreateDate()));
+                        ps.setByte(4, r.getStatus());
+                        ps.setTimestamp(5, r.getAssignDate() == null ? null : Timestamp.valueOf(r.getAssignDate()));
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return reservations.size();
+                    }
+                }, keys);
+
+        List<Map<String, Object>> rows = keys.getKeyList();
+        if (rows.size() != reservations.size()) {
+            throw new IllegalStateException("expected " + reservations.size() + " generated ids, got " + rows.size());
+        }
+        for (int i = 0; i < rows.size(); i++) {
+            // The key column is named GENERATED_KEY on MySQL and reservation_id elsewhere
+            reservations.get(i).setReservationId(((Number) rows.get(i).values().iterator().next()).intValue());
+        }
+    }
+}
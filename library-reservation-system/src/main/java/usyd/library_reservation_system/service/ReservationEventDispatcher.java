@@ -0,0 +1,201 @@
+package usyd.library_reservation_system.library_reservation_system.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import usyd.library_reservation_system.library_reservation_system.service.ReservationEventOutbox.ReservationEvent;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Delivers the reservation_event outbox to every ReservationEventSubscriber bean in batches.
+ * Pending rows (dispatched_at IS NULL) are read through idx_reservation_event_pending with an
+ * event_id cursor, without locks, so the request transactions inserting new events never wait on it.
+ *
+ * A page is handed to every subscriber first and only marked dispatched once all of them accepted it,
+ * so an event is never consumed unseen. If a subscriber throws, the page stays pending and the run
+ * stops there, keeping event_id order; the next run offers it again. Delivery is therefore at least
+ * once (a retried page, or two nodes reading the same page, repeat events) and subscribers dedupe on
+ * eventId. With no subscriber registered nothing is read or marked. The table stays the record of
+ * what happened until dispatched rows are purged after retention-hours; rows still undelivered after
+ * undelivered-retention-hours (a subscriber failing for days, or one that was removed) are dropped
+ * too, with a warning, so the table cannot grow without bound.
+ */
+@Slf4j
+@Service
+public class ReservationEventDispatcher {
+
+    /** Counters since startup plus how old the newest event of the last batch was when delivered. */
+    public record Stats(long runs, long dispatched, long subscriberFailures, long purged, long lastLagMs) {}
+
+    static final String PENDING_SQL =
+            "SELECT event_id, reservation_id, user_id, book_id, status, occurred_at FROM reservation_event " +
+            "WHERE dispatched_at IS NULL AND event_id > ? ORDER BY event_id LIMIT ?";
+
+    static final String MARK_SQL =
+            "UPDATE reservation_event SET dispatched_at = ? WHERE event_id = ? AND dispatched_at IS NULL";
+
+    static final String PURGE_SQL = "DELETE FROM reservation_event WHERE dispatched_at < ?";
+
+    static final String PURGE_UNDELIVERED_SQL =
+            "DELETE FROM reservation_event WHERE dispatched_at IS NULL AND occurred_at < ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectProvider<ReservationEventSubscriber> subscribers;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    private final LongAdder runs = new LongAdder();
+    private final LongAdder dispatched = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder purged = new LongAdder();
+    private final AtomicLong lastLagMs = new AtomicLong();
+
+    @Value("${app.events.batch-size:200}")
+    private int batchSize = 200;
+
+    @Value("${app.events.retention-hours:72}")
+    private int retentionHours = 72;
+
+    @Value("${app.events.undelivered-retention-hours:168}")
+    private int undeliveredRetentionHours = 168;
+
+    public ReservationEventDispatcher(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                                      ObjectProvider<ReservationEventSubscriber> subscribers) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.subscribers = subscribers;
+    }
+
+    @Scheduled(fixedDelayString = "${app.events.dispatch-ms:500}")
+    public void dispatchScheduled() {
+        dispatch();
+    }
+
+    // "-" as the cron expression disables the purge
+    @Scheduled(cron = "${app.events.purge-cron:0 15 * * * *}")
+    public void purgeScheduled() {
+        purge(LocalDateTime.now().minusHours(retentionHours));
+        purgeUndelivered(LocalDateTime.now().minusHours(undeliveredRetentionHours));
+    }
+
+    /**
+     * Delivers every event pending right now, stopping at the first page a subscriber rejects. Returns
+     * the number delivered and marked, or -1 if another run is still in progress.
+     */
+    public long dispatch() {
+        List<ReservationEventSubscriber> targets = subscribers.orderedStream().toList();
+        if (targets.isEmpty()) {
+            return 0;
+        }
+        if (!running.compareAndSet(false, true)) {
+            return -1;
+        }
+        long delivered = 0;
+        try {
+            long cursor = 0;
+            int limit = Math.max(1, batchSize);
+            while (true) {
+                List<ReservationEvent> page = jdbcTemplate.query(PENDING_SQL, (rs, i) -> new ReservationEvent(
+                                rs.getLong("event_id"), rs.getInt("reservation_id"), rs.getInt("user_id"),
+                                rs.getInt("book_id"), rs.getByte("status"),
+                                rs.getObject("occurred_at", LocalDateTime.class)),
+                        cursor, limit);
+                if (page.isEmpty()) {
+                    break;
+                }
+                if (!deliver(targets, page)) {
+                    break;
+                }
+                markDispatched(page);
+                delivered += page.size();
+
+                cursor = page.get(page.size() - 1).eventId();
+                if (page.size() < limit) {
+                    break;
+                }
+            }
+        } finally {
+            running.set(false);
+        }
+        runs.increment();
+        dispatched.add(delivered);
+        return delivered;
+    }
+
+    /** Deletes events dispatched before cutoff; returns how many. */
+    public int purge(LocalDateTime cutoff) {
+        int n = jdbcTemplate.update(PURGE_SQL, cutoff);
+        purged.add(n);
+        if (n > 0) {
+            log.info("Purged {} dispatched reservation events", n);
+        }
+        return n;
+    }
+
+    /** Deletes events that occurred before cutoff and were never delivered; returns how many. */
+    public int purgeUndelivered(LocalDateTime cutoff) {
+        int n = jdbcTemplate.update(PURGE_UNDELIVERED_SQL, cutoff);
+        purged.add(n);
+        if (n > 0) {
+            log.warn("Dropped {} reservation events that were never delivered", n);
+        }
+        return n;
+    }
+
+    public Stats stats() {
+        return new Stats(runs.sum(), dispatched.sum(), failures.sum(), purged.sum(), lastLagMs.get());
+    }
+
+    // Every subscriber gets the page even if an earlier one failed; true only if none did
+    private boolean deliver(List<ReservationEventSubscriber> targets, List<ReservationEvent> page) {
+        List<ReservationEvent> batch = List.copyOf(page);
+        boolean ok = true;
+        for (ReservationEventSubscriber subscriber : targets) {
+            try {
+                subscriber.onEvents(batch);
+            } catch (RuntimeException e) {
+                ok = false;
+                failures.increment();
+                log.warn("Reservation event subscriber {} failed on {} events, they stay pending: {}",
+                        subscriber.getClass().getSimpleName(), batch.size(), e.getMessage());
+            }
+        }
+        if (ok) {
+            LocalDateTime newest = batch.get(batch.size() - 1).occurredAt();
+            if (newest != null) {
+                lastLagMs.set(Math.max(0, Duration.between(newest, LocalDateTime.now()).toMillis()));
+            }
+        }
+        return ok;
+    }
+
+    private void markDispatched(List<ReservationEvent> page) {
+        LocalDateTime dispatchedAt = LocalDateTime.now();
+        transactionTemplate.executeWithoutResult(status ->
+                jdbcTemplate.batchUpdate(MARK_SQL, new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        ps.setObject(1, dispatchedAt);
+                        ps.setLong(2, page.get(i).eventId());
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return page.size();
+                    }
+                }));
+    }
+}
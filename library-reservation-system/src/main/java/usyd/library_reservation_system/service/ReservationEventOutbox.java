@@ -0,0 +1,91 @@
+package usyd.library_reservation_system.library_reservation_system.service;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import usyd.library_reservation_system.library_reservation_system.model.Reservation;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes reservation status transitions to the reservation_event table as part of the transaction
+ * that makes them, so an event exists exactly when its change committed. Events recorded during a
+ * transaction are buffered and inserted as one JDBC batch just before commit; a rollback drops them.
+ * Outside a transaction an event is inserted right away.
+ *
+ * Delivery to subscribers is ReservationEventDispatcher's job, off the request thread. The outbox is
+ * off by default and, when on, writes nothing while no ReservationEventSubscriber bean exists: such
+ * rows would never be delivered, only cost each transition an INSERT.
+ */
+@Component
+public class ReservationEventOutbox {
+
+    /** One transition: the reservation entered status at occurredAt. eventId is null until the row is written. */
+    public record ReservationEvent(Long eventId, Integer reservationId, Integer userId, Integer bookId,
+                                   Byte status, LocalDateTime occurredAt) {}
+
+    static final String INSERT_SQL =
+            "INSERT INTO reservation_event (reservation_id, user_id, book_id, status, occurred_at) VALUES (?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectProvider<ReservationEventSubscriber> subscribers;
+
+    @Value("${app.events.enabled:false}")
+    private boolean enabled = false;
+
+    public ReservationEventOutbox(JdbcTemplate jdbcTemplate, ObjectProvider<ReservationEventSubscriber> subscribers) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.subscribers = subscribers;
+    }
+
+    /** Records r's current status as a transition; its fields are copied now, later changes to r do not leak in. */
+    public void record(Reservation r) {
+        if (!enabled || r.getReservationId() == null || r.getStatus() == null
+                || subscribers.stream().findAny().isEmpty()) {
+            return;
+        }
+        ReservationEvent event = new ReservationEvent(null, r.getReservationId(), r.getUserId(), r.getBookId(),
+                r.getStatus(), LocalDateTime.now());
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            insert(List.of(event));
+            return;
+        }
+        @SuppressWarnings("unchecked")
+        List<ReservationEvent> pending = (List<ReservationEvent>) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            List<ReservationEvent> buffer = new ArrayList<>();
+            TransactionSynchronizationManager.bindResource(this, buffer);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    insert(buffer);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(ReservationEventOutbox.this);
+                }
+            });
+            pending = buffer;
+        }
+        pending.add(event);
+    }
+
+    private void insert(List<ReservationEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, events, events.size(), (ps, e) -> {
+            ps.setInt(1, e.reservationId());
+            ps.setInt(2, e.userId());
+            ps.setInt(3, e.bookId());
+            ps.setByte(4, e.status());
+            ps.setObject(5, e.occurredAt());
+        });
+    }
+}
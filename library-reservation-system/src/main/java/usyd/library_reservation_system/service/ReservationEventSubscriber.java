@@ -0,0 +1,17 @@
+package usyd.library_reservation_system.library_reservation_system.service;
+
+import usyd.library_reservation_system.library_reservation_system.service.ReservationEventOutbox.ReservationEvent;
+
+import java.util.List;
+
+/**
+ * Receives reservation status transitions from ReservationEventDispatcher, in batches and on the
+ * dispatcher's thread, never inside the request transaction. A batch is in event_id order.
+ * Delivery is at least once: a batch is marked dispatched only after every subscriber returned, so
+ * throwing leaves it pending and it is offered again (to every subscriber) on the next run. The same
+ * event can therefore arrive more than once; implementations dedupe on eventId.
+ */
+public interface ReservationEventSubscriber {
+
+    void onEvents(List<ReservationEvent> events);
+}
@@ -0,0 +1,182 @@
+package usyd.library_reservation_system.library_reservation_system.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import usyd.library_reservation_system.library_reservation_system.model.Reservation;
+import usyd.library_reservation_system.library_reservation_system.repository.ReservationRepository;
+import usyd.library_reservation_system.library_reservation_system.utils.AfterCommit;
+import usyd.library_reservation_system.library_reservation_system.utils.IndexedSkipList;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-book queue order and recent loan durations, for the queue position / ETA endpoint.
+ *
+ * A book's waiters (status=0) live in an IndexedSkipList ordered like claimNextQueued
+ * (create_date, reservation_id), so a position is one O(log n) rank lookup instead of loading the
+ * whole queue. Each book is loaded lazily and reloaded after refresh-seconds, which also picks up
+ * changes made by other nodes; ReservationService reports its own transitions after commit.
+ */
+@Component
+public class ReservationQueueIndex {
+
+    /** Where one reservation stands in its book's queue (position is 1-based). */
+    public record Position(int position, int queueLength) {}
+
+    private record Entry(LocalDateTime createDate, int reservationId) implements Comparable<Entry> {
+        private static final Comparator<Entry> ORDER = Comparator
+                .comparing(Entry::createDate, Comparator.nullsFirst(Comparator.<LocalDateTime>naturalOrder()))
+                .thenComparingInt(Entry::reservationId);
+
+        @Override
+        public int compareTo(Entry o) {
+            return ORDER.compare(this, o);
+        }
+    }
+
+    private static final class BookQueue {
+        final IndexedSkipList<Entry> order = new IndexedSkipList<>();
+        final Map<Integer, Entry> byId = new HashMap<>();
+        final long loadedAt = System.nanoTime();
+    }
+
+    // Rolling window of the most recent loan durations, newest first
+    private static final class LoanWindow {
+        final ArrayDeque<Integer> days = new ArrayDeque<>();
+        final long loadedAt = System.nanoTime();
+        long sum;
+    }
+
+    private final ReservationRepository reservationRepository;
+    private final ConcurrentHashMap<Integer, BookQueue> queues = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Integer, LoanWindow> loans = new ConcurrentHashMap<>();
+
+    @Value("${app.reservations.queue.refresh-seconds:60}")
+    private long refreshSeconds = 60;
+
+    @Value("${app.reservations.queue.loan-window:50}")
+    private int loanWindow = 50;
+
+    @Value("${app.reservations.queue.default-loan-days:14}")
+    private double defaultLoanDays = 14;
+
+    public ReservationQueueIndex(ReservationRepository reservationRepository) {
+        this.reservationRepository = reservationRepository;
+    }
+
+    /**
+     * Position of a queued reservation, or null if it is not in the book's queue.
+     * A miss reloads the book once, in case the reservation was queued by another node.
+     */
+    public Position position(Integer bookId, Integer reservationId) {
+        Position p = lookup(queue(bookId), reservationId);
+        if (p == null) {
+            p = lookup(queues.compute(bookId, (k, q) -> load(k)), reservationId);
+        }
+        return p;
+    }
+
+    /** Mean of the last loan-window loans (take_date to return_date) of the book, or default-loan-days. */
+    public double averageLoanDays(Integer bookId) {
+        LoanWindow w = loans.compute(bookId, (k, old) -> old == null || stale(old.loadedAt) ? loadLoans(k) : old);
+        synchronized (w) {
+            return w.days.isEmpty() ? defaultLoanDays : (double) w.sum / w.days.size();
+        }
+    }
+
+    /**
+     * Applies a saved reservation's new state to the loaded indexes once the transaction commits.
+     * Books that are not loaded are skipped; their next load reads the committed rows.
+     */
+    public void recordTransition(Reservation r) {
+        Integer bookId = r.getBookId();
+        Integer reservationId = r.getReservationId();
+        if (bookId == null || reservationId == null) {
+            return;
+        }
+        boolean queued = r.getStatus() != null && r.getStatus() == 0;
+        Entry entry = new Entry(r.getCreateDate(), reservationId);
+        Integer loanDays = r.getStatus() != null && r.getStatus() == 2 && r.getTakeDate() != null && r.getReturnDate() != null
+                ? (int) ChronoUnit.DAYS.between(r.getTakeDate(), r.getReturnDate())
+                : null;
+
+        AfterCommit.run(() -> {
+            queues.computeIfPresent(bookId, (k, q) -> {
+                synchronized (q) {
+                    Entry old = queued ? q.byId.putIfAbsent(reservationId, entry) : q.byId.remove(reservationId);
+                    if (queued && old == null) {
+                        q.order.add(entry);
+                    } else if (!queued && old != null) {
+                        q.order.remove(old);
+                    }
+                }
+                return q;
+            });
+            if (loanDays != null) {
+                loans.computeIfPresent(bookId, (k, w) -> {
+                    synchronized (w) {
+                        addLoan(w, loanDays, true);
+                    }
+                    return w;
+                });
+            }
+        });
+    }
+
+    private BookQueue queue(Integer bookId) {
+        return queues.compute(bookId, (k, q) -> q == null || stale(q.loadedAt) ? load(k) : q);
+    }
+
+    private static Position lookup(BookQueue q, Integer reservationId) {
+        synchronized (q) {
+            Entry e = q.byId.get(reservationId);
+            return e == null ? null : new Position(q.order.rank(e), q.order.size());
+        }
+    }
+
+    private BookQueue load(Integer bookId) {
+        BookQueue q = new BookQueue();
+        for (Reservation r : reservationRepository.findByBookIdAndStatusOrderByCreateDateAsc(bookId, (byte) 0)) {
+            Entry e = new Entry(r.getCreateDate(), r.getReservationId());
+            q.byId.put(r.getReservationId(), e);
+            q.order.add(e);
+        }
+        return q;
+    }
+
+    private LoanWindow loadLoans(Integer bookId) {
+        LoanWindow w = new LoanWindow();
+        List<Reservation> recent = reservationRepository.findRecentLoans(bookId, PageRequest.of(0, Math.max(1, loanWindow)));
+        for (Reservation r : recent) {
+            addLoan(w, (int) ChronoUnit.DAYS.between(r.getTakeDate(), r.getReturnDate()), false);
+        }
+        return w;
+    }
+
+    // Same-day returns count as one day, so a burst of them cannot drive the estimate to zero
+    private void addLoan(LoanWindow w, int days, boolean newest) {
+        int d = Math.max(1, days);
+        if (newest) {
+            w.days.addFirst(d);
+        } else {
+            w.days.addLast(d);
+        }
+        w.sum += d;
+        while (w.days.size() > Math.max(1, loanWindow)) {
+            w.sum -= w.days.removeLast();
+        }
+    }
+
+    private boolean stale(long loadedAt) {
+        return System.nanoTime() - loadedAt > TimeUnit.SECONDS.toNanos(refreshSeconds);
+    }
+}
@@ -1,42 +1,119 @@
 package usyd.library_reservation_system.library_reservation_system.service;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import usyd.library_reservation_system.library_reservation_system.dto.AdminReservationDTO;
+import usyd.library_reservation_system.library_reservation_system.dto.BatchReserveRequest;
+import usyd.library_reservation_system.library_reservation_system.dto.BatchReserveResult;
+import usyd.library_reservation_system.library_reservation_system.dto.BatchReturnResult;
+import usyd.library_reservation_system.library_reservation_system.dto.QueuePositionDTO;
 import usyd.library_reservation_system.library_reservation_system.dto.ReservationResponseDTO;
+import usyd.library_reservation_system.library_reservation_system.dto.RestockResultDTO;
 import usyd.library_reservation_system.library_reservation_system.model.Book;
 import usyd.library_reservation_system.library_reservation_system.model.Reservation;
+import usyd.library_reservation_system.library_reservation_system.model.ReservationArchive;
 import usyd.library_reservation_system.library_reservation_system.model.UserEntity;
 import usyd.library_reservation_system.library_reservation_system.repository.BookRepository;
+import usyd.library_reservation_system.library_reservation_system.repository.ReservationArchiveRepository;
 import usyd.library_reservation_system.library_reservation_system.repository.ReservationRepository;
 import usyd.library_reservation_system.library_reservation_system.repository.UserRepository;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
 public class ReservationService {
 
+    private static final List<Byte> ACTIVE_STATUSES = List.of((byte) 0, (byte) 1, (byte) 4);
+    private static final String DUPLICATE_MESSAGE = "You already have an active reservation for this book";
+
     private final BookRepository bookRepository;
     private final ReservationRepository reservationRepository;
     private final UserRepository userRepository;
+    private final ReservationArchiveRepository reservationArchiveRepository;
+    private final BookLockManager bookLocks;
+    private final TransactionTemplate transactionTemplate;
+    private final ReservationQueueIndex queueIndex;
+    private final PickupDeadlineTracker pickupDeadlines;
+    private final ReservationBatchWriter reservationWriter;
+    private final ActiveReservationIndex activeReservations;
+    private final ReservationEventOutbox events;
+
+    @Value("${app.reservations.loan-days:21}")
+    private int loanDays = 21;
+
+    @Value("${app.reservations.return.max-batch:200}")
+    private int maxBatchReturns = 200;
+
+    @Value("${app.reservations.reserve.max-batch:50}")
+    private int maxBatchReservations = 50;
+
+    // Active (queued, held or on loan) reservations one user may have; 0 turns the quota off
+    @Value("${app.reservations.quota.max-active:10}")
+    private int maxActivePerUser = 10;
 
     public ReservationService(BookRepository bookRepository,
                               ReservationRepository reservationRepository,
-                              UserRepository userRepository) {
+                              UserRepository userRepository,
+                              ReservationArchiveRepository reservationArchiveRepository,
+                              BookLockManager bookLocks,
+                              TransactionTemplate transactionTemplate,
+                              ReservationQueueIndex queueIndex,
+                              PickupDeadlineTracker pickupDeadlines,
+                              ReservationBatchWriter reservationWriter,
+                              ActiveReservationIndex activeReservations,
+                              ReservationEventOutbox events) {
         this.bookRepository = bookRepository;
         this.reservationRepository = reservationRepository;
         this.userRepository = userRepository;
+        this.reservationArchiveRepository = reservationArchiveRepository;
+        this.bookLocks = bookLocks;
+        this.transactionTemplate = transactionTemplate;
+        this.queueIndex = queueIndex;
+        this.pickupDeadlines = pickupDeadlines;
+        this.reservationWriter = reservationWriter;
+        this.activeReservations = activeReservations;
+        this.events = events;
     }
 
+    /*
+     * reserveBook / cancelReservation / returnBook(s) / autoAssignNextUser / restock all change the same Book row.
+     * Each takes the book's stripe in BookLockManager *before* its transaction starts, so requests for
+     * one book wait in the JVM rather than on MySQL row locks, and the transaction's first read already
+     * sees everything the previous holder committed.
+     *
+     * Every status change is also recorded in ReservationEventOutbox, which writes it in the same
+     * transaction; subscribers hear about it later from ReservationEventDispatcher.
+     */
+
     /**
      * User reserves a book
      */
-    @Transactional
     public ReservationResponseDTO reserveBook(Integer userId, Integer bookId) {
+        try {
+            return bookLocks.withLock(bookId, () -> transactionTemplate.execute(status -> doReserveBook(userId, bookId)));
+        } catch (DataIntegrityViolationException e) {
+            // uk_reservation_active_user_book: the same user reserved this book on another node just now
+            return new ReservationResponseDTO(DUPLICATE_MESSAGE, (byte) -1);
+        }
+    }
+
+    private ReservationResponseDTO doReserveBook(Integer userId, Integer bookId) {
         Optional<UserEntity> userOpt = userRepository.findById(userId);
         if (userOpt.isEmpty()) {
             return new ReservationResponseDTO("User not found", (byte) -1);
@@ -47,54 +124,200 @@ public class ReservationService {
             return new ReservationResponseDTO("Book not found", (byte) -1);
         }
 
-        Book book = bookOpt.get();
+        if (hasActiveReservation(userId, bookId)) {
+            return new ReservationResponseDTO(DUPLICATE_MESSAGE, (byte) -1);
+        }
+
+        if (claimQuota(userId, 1) < 1) {
+            return new ReservationResponseDTO(quotaMessage(), (byte) -1);
+        }
 
         Reservation reservation = new Reservation();
         reservation.setUserId(userId);
         reservation.setBookId(bookId);
         reservation.setCreateDate(LocalDateTime.now());
 
-        if (book.getQuantity() > 0) {
+        // The conditional UPDATE decides, not the quantity we just read: another request may take the last copy in between
+        if (bookRepository.tryTakeCopy(bookId) == 1) {
             // Has stock
             reservation.setStatus((byte) 1); // Assigned/Available for pickup
-            book.setQuantity(book.getQuantity() - 1);
-            book.setNumReservation(book.getNumReservation() + 1);
-            bookRepository.save(book);
+            reservation.setAssignDate(reservation.getCreateDate());
         } else {
             // No stock, queuing
             reservation.setStatus((byte) 0); // Queuing
-            book.setNumReservation(book.getNumReservation() + 1);
-            bookRepository.save(book);
         }
+        bookRepository.adjustNumReservation(bookId, 1);
 
         reservationRepository.save(reservation);
+        queueIndex.recordTransition(reservation);
+        pickupDeadlines.recordTransition(reservation);
+        activeReservations.recordTransition(reservation);
+        events.record(reservation);
 
         return new ReservationResponseDTO("Reservation successful", reservation.getStatus());
     }
 
-    @Transactional
-    public ReservationResponseDTO pickupBook(Integer reservationId) {
-        Optional<Reservation> resOpt = reservationRepository.findById(reservationId);
-        if (resOpt.isEmpty()) {
-            return new ReservationResponseDTO("Reservation not found", (byte) -1);
+    // The index answers the common "no" without a query; a "yes" is confirmed, so a stale entry never blocks anyone
+    private boolean hasActiveReservation(Integer userId, Integer bookId) {
+        if (!activeReservations.contains(userId, bookId)) {
+            return false;
+        }
+        if (reservationRepository.existsByUserIdAndBookIdAndStatusIn(userId, bookId, ACTIVE_STATUSES)) {
+            return true;
         }
+        activeReservations.forget(userId, bookId);
+        return false;
+    }
 
-        Reservation reservation = resOpt.get();
+    /*
+     * Quota slots come from the per-user counts in ActiveReservationIndex, so an allowed reservation costs
+     * no query. A claimed slot is held until the transaction completes, which keeps two concurrent requests
+     * of one user (different books, different stripes) from both taking the last slot. Only a refusal reads
+     * the user's active reservations, in case the cached count is stale, and claims again.
+     */
+    private int claimQuota(Integer userId, int wanted) {
+        if (maxActivePerUser <= 0) {
+            return wanted;
+        }
+        int granted = activeReservations.claimSlots(userId, wanted, maxActivePerUser);
+        if (granted < wanted) {
+            activeReservations.refreshUser(userId, reservationRepository.findActivePairsByUserId(userId));
+            granted += activeReservations.claimSlots(userId, wanted - granted, maxActivePerUser);
+        }
+        return granted;
+    }
+
+    private String quotaMessage() {
+        return "Reservation limit reached: at most " + maxActivePerUser + " active reservations per user";
+    }
 
-        // Only status=1 can be changed to picked up
-        if (reservation.getStatus() != 1) {
-            return new ReservationResponseDTO("Reservation is not in available for pickup state", reservation.getStatus());
+    /**
+     * Reserves a list of books for one user in one transaction: the user is checked once, all books
+     * are locked (stripes in stripe order, rows in book_id order) and read in one SELECT, stock and
+     * reservation counts change in one UPDATE, and the reservations go in as one INSERT batch.
+     * Each book is assigned if it has a copy left and queued otherwise, as in reserveBook.
+     * In ALL_OR_NOTHING mode a missing book, a duplicate or a cart past the user's quota rejects the
+     * whole cart; in BEST_EFFORT those books are skipped (books past the quota in cart order).
+     */
+    public List<BatchReserveResult> reserveBooks(Integer userId, List<Integer> bookIds, BatchReserveRequest.Mode mode) {
+        List<Integer> ids = bookIds == null ? List.of()
+                : bookIds.stream().filter(Objects::nonNull).distinct().toList();
+        if (ids.size() > maxBatchReservations) {
+            throw new IllegalArgumentException("too many books in one batch: " + ids.size() + " > " + maxBatchReservations);
+        }
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        if (userId == null || !userRepository.existsById(userId)) {
+            return ids.stream().map(id -> batchReserveFailure(id, "User not found")).toList();
         }
+        boolean allOrNothing = mode != BatchReserveRequest.Mode.BEST_EFFORT;
+        try {
+            return bookLocks.withLocks(ids, () -> transactionTemplate.execute(status -> doReserveBooks(userId, ids, allOrNothing)));
+        } catch (DataIntegrityViolationException e) {
+            // A book in the cart was reserved by the same user on another node meanwhile; nothing was kept
+            return ids.stream().map(id -> batchReserveFailure(id, "Not reserved: a concurrent reservation conflicted, please retry")).toList();
+        }
+    }
 
-        reservation.setStatus((byte) 4); // Picked up
-        reservation.setTakeDate(LocalDate.now());
-        reservationRepository.save(reservation);
+    private List<BatchReserveResult> doReserveBooks(Integer userId, List<Integer> ids, boolean allOrNothing) {
+        Map<Integer, Integer> stock = new HashMap<>();
+        for (Book book : bookRepository.lockAllById(ids)) {
+            stock.put(book.getBookId(), book.getQuantity() == null ? 0 : book.getQuantity());
+        }
+        Map<Integer, String> refused = new HashMap<>();
+        for (Integer id : ids) {
+            if (!stock.containsKey(id)) {
+                refused.put(id, "Book not found");
+            } else if (hasActiveReservation(userId, id)) {
+                refused.put(id, DUPLICATE_MESSAGE);
+            }
+        }
+        if (!allOrNothing || refused.isEmpty()) {
+            List<Integer> candidates = ids.stream().filter(id -> !refused.containsKey(id)).toList();
+            int granted = claimQuota(userId, candidates.size());
+            for (Integer id : candidates.subList(granted, candidates.size())) {
+                refused.put(id, quotaMessage());
+            }
+        }
+        if (allOrNothing && !refused.isEmpty()) {
+            return ids.stream().map(id -> batchReserveFailure(id,
+                    refused.getOrDefault(id, "Not reserved: another book in the cart was refused"))).toList();
+        }
 
-        return new ReservationResponseDTO("User has picked up the book, status updated to picked up", (byte) 4);
+        List<Integer> reservable = ids.stream().filter(id -> !refused.containsKey(id)).toList();
+        LocalDateTime now = LocalDateTime.now();
+        Map<Integer, Reservation> created = new HashMap<>();
+        for (Integer bookId : reservable) {
+            Reservation r = new Reservation();
+            r.setUserId(userId);
+            r.setBookId(bookId);
+            r.setCreateDate(now);
+            // The rows are locked, so the quantity just read is what reserveOneEach will see
+            if (stock.get(bookId) > 0) {
+                r.setStatus((byte) 1);
+                r.setAssignDate(now);
+            } else {
+                r.setStatus((byte) 0);
+            }
+            created.put(bookId, r);
+        }
+        if (!reservable.isEmpty()) {
+            bookRepository.reserveOneEach(reservable);
+            List<Reservation> batch = reservable.stream().map(created::get).toList();
+            reservationWriter.insertAll(batch);
+            for (Reservation r : batch) {
+                queueIndex.recordTransition(r);
+                pickupDeadlines.recordTransition(r);
+                activeReservations.recordTransition(r);
+                events.record(r);
+            }
+        }
+
+        return ids.stream().map(id -> {
+            Reservation r = created.get(id);
+            if (r == null) {
+                return batchReserveFailure(id, refused.get(id));
+            }
+            return BatchReserveResult.builder().bookId(id).reservationId(r.getReservationId())
+                    .success(true).status(r.getStatus()).message("Reservation successful").build();
+        }).toList();
+    }
+
+    private static BatchReserveResult batchReserveFailure(Integer bookId, String message) {
+        return BatchReserveResult.builder().bookId(bookId).success(false).status((byte) -1).message(message).build();
+    }
+
+    public ReservationResponseDTO pickupBook(Integer reservationId) {
+        return withReservationBookLock(reservationId, bookId -> doPickup(reservationId,
+                "User has picked up the book, status updated to picked up"));
+    }
+
+    /**
+     * Moves a hold to picked up under the book lock. The conditional UPDATE only matches a row still
+     * at status 1, so a hold that expireHold or a cancellation closed in the meantime (and whose copy
+     * was already released or reassigned) is reported as a failure instead of being overwritten.
+     */
+    private ReservationResponseDTO doPickup(Integer reservationId, String successMessage) {
+        LocalDate takeDate = LocalDate.now();
+        if (reservationRepository.pickUpHold(reservationId, takeDate, takeDate.plusDays(loanDays)) == 0) {
+            return reservationRepository.findById(reservationId)
+                    .map(r -> new ReservationResponseDTO("Reservation is not in available for pickup state", r.getStatus()))
+                    .orElseGet(() -> new ReservationResponseDTO("Reservation not found", (byte) -1));
+        }
+        // The conditional UPDATE cleared the persistence context, so this reads the picked-up row
+        reservationRepository.findById(reservationId).ifPresent(reservation -> {
+            pickupDeadlines.recordTransition(reservation);
+            events.record(reservation);
+        });
+        return new ReservationResponseDTO(successMessage, (byte) 4);
     }
 
-    @Transactional
     public ReservationResponseDTO cancelReservation(Integer userId, Integer reservationId) {
+        return withReservationBookLock(reservationId, bookId -> doCancelReservation(userId, reservationId));
+    }
+
+    private ReservationResponseDTO doCancelReservation(Integer userId, Integer reservationId) {
         Optional<Reservation> resOpt = reservationRepository.findById(reservationId);
         if (resOpt.isEmpty()) {
             return new ReservationResponseDTO("Reservation not found", (byte) -1);
@@ -116,19 +339,21 @@ public class ReservationService {
         Byte oldStatus = reservation.getStatus();
         reservation.setStatus((byte) 3); // 3=Cancelled
         reservationRepository.save(reservation);
+        queueIndex.recordTransition(reservation);
+        pickupDeadlines.recordTransition(reservation);
+        activeReservations.recordTransition(reservation);
+        events.record(reservation);
 
         // If previously assigned, need to return stock
         if (oldStatus == 1) {
             Optional<Book> bookOpt = bookRepository.findById(reservation.getBookId());
             if (bookOpt.isPresent()) {
-                Book book = bookOpt.get();
-                book.setQuantity(book.getQuantity() + 1);
-                book.setNumReservation(Math.max(0, book.getNumReservation() - 1));
-                bookRepository.save(book);
+                Integer bookId = bookOpt.get().getBookId();
+                bookRepository.releaseCopy(bookId);
+                bookRepository.adjustNumReservation(bookId, -1);
 
-                // TODO: Auto-assignment logic can be triggered here, assign to next queuing user
                 // Trigger auto assignment (if someone is queuing)
-                ReservationResponseDTO autoAssignResult = autoAssignNextUser(book.getBookId());
+                ReservationResponseDTO autoAssignResult = assignNext(bookId);
                 if (autoAssignResult.getStatus() == 1) {
                     return new ReservationResponseDTO(
                             "Return successful, automatically assigned to next user: " + autoAssignResult.getMessage(),
@@ -141,40 +366,125 @@ public class ReservationService {
         return new ReservationResponseDTO("Cancellation successful", reservation.getStatus());
     }
 
-    @Transactional
+    /**
+     * Hands one free copy to the head of the book's queue. Safe to run on several nodes at once:
+     * the queue head is claimed with FOR UPDATE SKIP LOCKED (two nodes never get the same waiter)
+     * and the copy is taken with a conditional UPDATE (two waiters never get the same copy).
+     */
     public ReservationResponseDTO autoAssignNextUser(Integer bookId) {
+        return bookLocks.withLock(bookId, () -> transactionTemplate.execute(status -> assignNext(bookId)));
+    }
+
+    // Caller holds the book's lock and an open transaction
+    private ReservationResponseDTO assignNext(Integer bookId) {
         Optional<Book> bookOpt = bookRepository.findById(bookId);
         if (bookOpt.isEmpty()) {
             return new ReservationResponseDTO("Book not found", (byte) -1);
         }
-        Book book = bookOpt.get();
 
-        if (book.getQuantity() <= 0) {
+        // Cheap early exit; the authoritative check is tryTakeCopy below
+        if (bookOpt.get().getQuantity() <= 0) {
             return new ReservationResponseDTO("Insufficient stock, unable to assign", (byte) -1);
         }
 
-        // Find earliest queuing user
-        List<Reservation> waitingList = reservationRepository.findByBookIdAndStatusOrderByCreateDateAsc(bookId, (byte) 0);
-
-        if (waitingList.isEmpty()) {
+        // Lock the earliest queuing reservation nobody else is assigning right now
+        Optional<Reservation> claimed = reservationRepository.claimNextQueued(bookId);
+        if (claimed.isEmpty()) {
             return new ReservationResponseDTO("No users in queue", (byte) -1);
         }
 
-        Reservation nextReservation = waitingList.get(0);
+        // Another node took the last copy after our read: leave the waiter queued (the lock ends with the transaction)
+        if (bookRepository.tryTakeCopy(bookId) == 0) {
+            return new ReservationResponseDTO("Insufficient stock, unable to assign", (byte) -1);
+        }
+
+        Reservation nextReservation = claimed.get();
 
         // Update status to assigned
         nextReservation.setStatus((byte) 1);
+        nextReservation.setAssignDate(LocalDateTime.now());
         reservationRepository.save(nextReservation);
-
-        // Decrement stock
-        book.setQuantity(book.getQuantity() - 1);
-        bookRepository.save(book);
+        queueIndex.recordTransition(nextReservation);
+        pickupDeadlines.recordTransition(nextReservation);
+        events.record(nextReservation);
 
         return new ReservationResponseDTO("Assigned to user ID: " + nextReservation.getUserId(), (byte) 1);
     }
 
-    @Transactional
+    /**
+     * Adds copies to a book and hands them to its waiters in one transaction: one locked stock read,
+     * one queue claim, one batched status UPDATE and one stock UPDATE, however many copies arrive.
+     * Copies left once the queue is empty go on the shelf. Returns null if the book does not exist.
+     */
+    public RestockResultDTO restock(Integer bookId, int copies) {
+        if (copies <= 0) {
+            throw new IllegalArgumentException("Restock needs at least one copy");
+        }
+        return bookLocks.withLock(bookId, () -> transactionTemplate.execute(status -> doRestock(bookId, copies)));
+    }
+
+    /**
+     * Sets a book's stock to target. The current stock is read under the book lock and its row lock,
+     * so no reservation, return or other restock can move it between the read and the write. Raising
+     * the stock is a restock (waiters get the new copies first); lowering it takes copies off the shelf.
+     * Returns null if the book does not exist.
+     */
+    public RestockResultDTO restockTo(Integer bookId, int target) {
+        if (target < 0) {
+            throw new IllegalArgumentException("Stock cannot be negative");
+        }
+        return bookLocks.withLock(bookId, () -> transactionTemplate.execute(status -> {
+            Integer stock = bookRepository.lockQuantity(bookId);
+            if (stock == null) {
+                return null;
+            }
+            if (target > stock) {
+                return assignNewCopies(bookId, target - stock, stock);
+            }
+            if (target < stock) {
+                bookRepository.addCopies(bookId, target - stock);
+            }
+            return new RestockResultDTO(bookId, target - stock, List.of(), target);
+        }));
+    }
+
+    private RestockResultDTO doRestock(Integer bookId, int copies) {
+        Integer stock = bookRepository.lockQuantity(bookId);
+        if (stock == null) {
+            return null;
+        }
+        return assignNewCopies(bookId, copies, stock);
+    }
+
+    // Caller holds the book lock and the row lock read stock
+    private RestockResultDTO assignNewCopies(Integer bookId, int copies, int stock) {
+        int available = Math.max(0, stock) + copies;
+
+        List<Reservation> waiters = reservationRepository.claimQueued(bookId, available);
+        List<Integer> ids = waiters.stream().map(Reservation::getReservationId).toList();
+        LocalDateTime now = LocalDateTime.now();
+        // The claimed rows are locked by this transaction, so every one of them must still be queuing
+        if (!ids.isEmpty() && reservationRepository.assignQueued(ids, now) != ids.size()) {
+            throw new IllegalStateException("Claimed waiters of book " + bookId + " changed during restock");
+        }
+        bookRepository.addCopies(bookId, copies - ids.size());
+
+        // The bulk UPDATE bypassed the entities; mirror it on the (now detached) copies for the in-memory indexes
+        for (Reservation waiter : waiters) {
+            waiter.setStatus((byte) 1);
+            waiter.setAssignDate(now);
+            queueIndex.recordTransition(waiter);
+            pickupDeadlines.recordTransition(waiter);
+            events.record(waiter);
+        }
+        return new RestockResultDTO(bookId, copies, ids, stock + copies - ids.size());
+    }
+
     public ReservationResponseDTO returnBook(Integer reservationId) {
+        return withReservationBookLock(reservationId, bookId -> doReturnBook(reservationId));
+    }
+
+    private ReservationResponseDTO doReturnBook(Integer reservationId) {
         System.out.println("🔙 ReturnBook called for reservationId: " + reservationId);
         
         Optional<Reservation> resOpt = reservationRepository.findById(reservationId);
@@ -196,17 +506,19 @@ public class ReservationService {
         reservation.setStatus((byte) 2); // Returned
         reservation.setReturnDate(LocalDate.now());
         reservationRepository.save(reservation);
+        queueIndex.recordTransition(reservation);
+        activeReservations.recordTransition(reservation);
+        events.record(reservation);
         System.out.println("🔙 Reservation status updated to 2 (returned)");
 
         // Return one copy to stock
         Optional<Book> bookOpt = bookRepository.findById(reservation.getBookId());
         if (bookOpt.isPresent()) {
-            Book book = bookOpt.get();
-            book.setQuantity(book.getQuantity() + 1);
-            bookRepository.save(book);
+            Integer bookId = bookOpt.get().getBookId();
+            bookRepository.releaseCopy(bookId);
 
             // Trigger auto assignment (if someone is queuing)
-            ReservationResponseDTO autoAssignResult = autoAssignNextUser(book.getBookId());
+            ReservationResponseDTO autoAssignResult = assignNext(bookId);
             if (autoAssignResult.getStatus() == 1) {
                 return new ReservationResponseDTO(
                         "Return successful, automatically assigned to next user: " + autoAssignResult.getMessage(),
@@ -218,6 +530,159 @@ public class ReservationService {
         return new ReservationResponseDTO("Return successful", (byte) 2);
     }
 
+    /**
+     * Returns a cart of loans at once. All affected books are locked up front (in one global order, so
+     * two batches cannot deadlock), every loan is marked returned by one UPDATE, and each book then gets
+     * its copies back and its queue drained once, exactly as a restock of that many copies.
+     * One result per requested id, in request order; unknown ids and reservations not on loan fail
+     * individually without affecting the rest.
+     */
+    public List<BatchReturnResult> returnBooks(List<Integer> reservationIds) {
+        List<Integer> ids = reservationIds == null ? List.of()
+                : reservationIds.stream().filter(Objects::nonNull).distinct().toList();
+        if (ids.size() > maxBatchReturns) {
+            throw new IllegalArgumentException("too many reservations in one batch: " + ids.size() + " > " + maxBatchReturns);
+        }
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        List<Integer> bookIds = reservationRepository.findBookIdsByReservationIds(ids);
+        return bookLocks.withLocks(bookIds, () -> transactionTemplate.execute(status -> doReturnBooks(ids)));
+    }
+
+    private List<BatchReturnResult> doReturnBooks(List<Integer> ids) {
+        Map<Integer, Reservation> found = reservationRepository.lockAllById(ids).stream()
+                .collect(Collectors.toMap(Reservation::getReservationId, r -> r));
+
+        // Loans being returned, grouped by book, in request order within each book
+        Map<Integer, List<Reservation>> loansByBook = new LinkedHashMap<>();
+        for (Integer id : ids) {
+            Reservation r = found.get(id);
+            if (r != null && r.getStatus() == 4) {
+                loansByBook.computeIfAbsent(r.getBookId(), k -> new ArrayList<>()).add(r);
+            }
+        }
+        List<Integer> returning = loansByBook.values().stream()
+                .flatMap(List::stream).map(Reservation::getReservationId).toList();
+        LocalDate today = LocalDate.now();
+        // The rows are locked by this transaction, so every one of them must still be on loan
+        if (!returning.isEmpty() && reservationRepository.returnLoans(returning, today) != returning.size()) {
+            throw new IllegalStateException("Locked loans changed during batch return");
+        }
+
+        Map<Integer, Integer> passedTo = new HashMap<>(); // returned reservation -> waiter that got its copy
+        loansByBook.forEach((bookId, loans) -> {
+            for (Reservation loan : loans) {
+                loan.setStatus((byte) 2);
+                loan.setReturnDate(today);
+                queueIndex.recordTransition(loan);
+                activeReservations.recordTransition(loan);
+                events.record(loan);
+            }
+            RestockResultDTO drained = doRestock(bookId, loans.size());
+            if (drained != null) {
+                List<Integer> waiters = drained.getAssignedReservationIds();
+                for (int i = 0; i < waiters.size() && i < loans.size(); i++) {
+                    passedTo.put(loans.get(i).getReservationId(), waiters.get(i));
+                }
+            }
+        });
+
+        Set<Integer> returned = new HashSet<>(returning);
+        return ids.stream().map(id -> {
+            Reservation r = found.get(id);
+            if (r == null) {
+                return batchReturnResult(id, null, false, (byte) -1, "Reservation not found");
+            }
+            if (!returned.contains(id)) {
+                return batchReturnResult(id, r.getBookId(), false, r.getStatus(), "Reservation is not in returnable state");
+            }
+            Integer waiter = passedTo.get(id);
+            return batchReturnResult(id, r.getBookId(), true, (byte) 2, waiter == null
+                    ? "Return successful"
+                    : "Return successful, copy assigned to reservation " + waiter);
+        }).toList();
+    }
+
+    private static BatchReturnResult batchReturnResult(Integer reservationId, Integer bookId, boolean success,
+                                                       Byte status, String message) {
+        return BatchReturnResult.builder().reservationId(reservationId).bookId(bookId)
+                .success(success).status(status).message(message).build();
+    }
+
+    // The book id never changes after insert, so reading it before taking the lock is safe
+    private ReservationResponseDTO withReservationBookLock(Integer reservationId,
+                                                           Function<Integer, ReservationResponseDTO> action) {
+        Integer bookId = reservationRepository.findBookIdByReservationId(reservationId);
+        if (bookId == null) {
+            return new ReservationResponseDTO("Reservation not found", (byte) -1);
+        }
+        return bookLocks.withLock(bookId, () -> transactionTemplate.execute(status -> action.apply(bookId)));
+    }
+
+    /**
+     * Cancels a hold whose pickup window ended (assigned at or before cutoff) and hands the copy to
+     * the next waiter. The conditional UPDATE makes this a no-op if the hold was picked up, cancelled
+     * or already expired by another node in the meantime.
+     */
+    public ReservationResponseDTO expireHold(Integer reservationId, LocalDateTime cutoff) {
+        return withReservationBookLock(reservationId, bookId -> {
+            if (reservationRepository.expireHold(reservationId, cutoff) == 0) {
+                return new ReservationResponseDTO("Reservation is not an expired hold", (byte) -1);
+            }
+            activeReservations.recordClosed(reservationId);
+            // The conditional UPDATE cleared the persistence context, so this reads the expired row
+            reservationRepository.findById(reservationId).ifPresent(events::record);
+            bookRepository.releaseCopy(bookId);
+            bookRepository.adjustNumReservation(bookId, -1);
+
+            ReservationResponseDTO autoAssignResult = assignNext(bookId);
+            if (autoAssignResult.getStatus() == 1) {
+                return new ReservationResponseDTO(
+                        "Pickup window expired, copy reassigned: " + autoAssignResult.getMessage(), (byte) 3);
+            }
+            return new ReservationResponseDTO("Pickup window expired, copy returned to stock", (byte) 3);
+        });
+    }
+
+    /**
+     * Queue position and estimated wait of one of the user's reservations; null if it is not theirs.
+     * The estimate assumes every copy currently out (assigned or picked up) serves one waiter per
+     * average loan, so the n-th waiter with c copies out waits about ceil(n / c) loans.
+     */
+    @Transactional(readOnly = true)
+    public QueuePositionDTO getQueuePosition(Integer userId, Integer reservationId) {
+        Optional<Reservation> resOpt = reservationRepository.findById(reservationId);
+        if (resOpt.isEmpty() || !resOpt.get().getUserId().equals(userId)) {
+            return null;
+        }
+        Reservation reservation = resOpt.get();
+        Integer bookId = reservation.getBookId();
+        double avgLoanDays = queueIndex.averageLoanDays(bookId);
+
+        ReservationQueueIndex.Position position = reservation.getStatus() == 0
+                ? queueIndex.position(bookId, reservationId)
+                : null;
+        if (position == null) {
+            return new QueuePositionDTO(reservationId, bookId, reservation.getStatus(),
+                    null, null, avgLoanDays, null, null);
+        }
+
+        long copiesOut = Math.max(1, reservationRepository.countByBookIdAndStatusIn(bookId, List.of((byte) 1, (byte) 4)));
+        long rounds = (position.position() + copiesOut - 1) / copiesOut;
+        int waitDays = (int) Math.ceil(rounds * avgLoanDays);
+        return new QueuePositionDTO(reservationId, bookId, reservation.getStatus(),
+                position.position(), position.queueLength(), avgLoanDays,
+                waitDays, LocalDate.now().plusDays(waitDays));
+    }
+
+    /**
+     * Contention counters of the per-book locks (admin diagnostics)
+     */
+    public BookLockManager.Stats getLockStats() {
+        return bookLocks.stats();
+    }
+
     @Transactional(readOnly = true)
     public List<AdminReservationDTO> getAllReservations(Byte status) {
         List<Reservation> reservations = reservationRepository.findAll();
@@ -250,26 +715,8 @@ public class ReservationService {
         }).collect(Collectors.toList());
     }
 
-    @Transactional
     public ReservationResponseDTO approveTakeBook(Integer reservationId) {
-        Optional<Reservation> resOpt = reservationRepository.findById(reservationId);
-        if (resOpt.isEmpty()) {
-            return new ReservationResponseDTO("Reservation not found", (byte) -1);
-        }
-
-        Reservation reservation = resOpt.get();
-
-        // Only status=1 can be changed to picked up
-        if (reservation.getStatus() != 1) {
-            return new ReservationResponseDTO("Reservation is not in available for pickup state", reservation.getStatus());
-        }
-
-        // Update status to picked up
-        reservation.setStatus((byte) 4);
-        reservation.setTakeDate(LocalDate.now());
-        reservationRepository.save(reservation);
-
-        return new ReservationResponseDTO("Pickup confirmed", (byte) 4);
+        return withReservationBookLock(reservationId, bookId -> doPickup(reservationId, "Pickup confirmed"));
     }
 
     /**
@@ -277,7 +724,27 @@ public class ReservationService {
      */
     @Transactional(readOnly = true)
     public List<AdminReservationDTO> getUserReservations(Integer userId) {
+        return getUserReservations(userId, false);
+    }
+
+    /**
+     * Get user's reservation list; includeHistory also reads reservation_archive,
+     * where ReservationArchiver moves old returned/cancelled rows
+     */
+    @Transactional(readOnly = true)
+    public List<AdminReservationDTO> getUserReservations(Integer userId, boolean includeHistory) {
         List<Reservation> reservations = reservationRepository.findByUserIdOrderByCreateDateDesc(userId);
+        if (includeHistory) {
+            List<ReservationArchive> archived = reservationArchiveRepository.findByUserIdOrderByCreateDateDesc(userId);
+            if (!archived.isEmpty()) {
+                List<Reservation> merged = new ArrayList<>(reservations.size() + archived.size());
+                merged.addAll(reservations);
+                archived.forEach(a -> merged.add(a.toReservation()));
+                merged.sort(Comparator.comparing(Reservation::getCreateDate,
+                        Comparator.nullsLast(Comparator.reverseOrder())));
+                reservations = merged;
+            }
+        }
 
         return reservations.stream().map(res -> {
             String bookName = bookRepository.findById(res.getBookId())
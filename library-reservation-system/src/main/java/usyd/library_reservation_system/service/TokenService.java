@@ -1,5 +1,7 @@
 package usyd.library_reservation_system.library_reservation_system.service;
 
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
 import jakarta.annotation.PostConstruct;
@@ -8,9 +10,11 @@ import org.springframework.stereotype.Service;
 
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
+import java.time.Clock;
 import java.time.Instant;
 import java.util.Date;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Service
 public class TokenService {
@@ -20,10 +24,25 @@ public class TokenService {
     private String secret;
     private SecretKey key;
 
+    // JwtParser is immutable and thread-safe, so one instance serves every request
+    private JwtParser parser;
+
+    // Max number of recently verified tokens to remember (0 disables the cache)
+    @Value("${app.login.verify-cache-size:1024}")
+    private int verifyCacheSize = 1024;
+
+    private final Map<String, VerifiedToken> verified = new ConcurrentHashMap<>();
+
+    // Time source for expiry checks, in the parser and in the cache; tests move it instead of sleeping
+    private Clock clock = Clock.systemUTC();
+
+    private record VerifiedToken(Claims claims, long expiresAtMillis) {}
+
     @PostConstruct
     void init() {
         // Generate HS256 key (secret must be long enough)
         this.key = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+        this.parser = Jwts.parser().verifyWith(key).clock(() -> new Date(clock.millis())).build();
     }
 
     public String sign(Map<String, Object> claims, Instant expiresAt) {
@@ -35,7 +54,34 @@ public class TokenService {
     }
 
     public Map<String, Object> verify(String jwt) {
+        // Fast path: the exact same token string was already verified and has not expired yet
+        VerifiedToken hit = jwt == null ? null : verified.get(jwt);
+        if (hit != null) {
+            if (hit.expiresAtMillis() > clock.millis()) {
+                return hit.claims();
+            }
+            verified.remove(jwt, hit);
+        }
+
         // Returns Claims (Map) on success, throws exception on failure (expired/invalid signature)
-        return Jwts.parser().verifyWith(key).build().parseSignedClaims(jwt).getPayload();
+        Claims claims = parser.parseSignedClaims(jwt).getPayload();
+        remember(jwt, claims);
+        return claims;
+    }
+
+    private void remember(String jwt, Claims claims) {
+        Date exp = claims.getExpiration();
+        if (verifyCacheSize <= 0 || exp == null) {
+            return;
+        }
+        if (verified.size() >= verifyCacheSize) {
+            long now = clock.millis();
+            verified.values().removeIf(v -> v.expiresAtMillis() <= now);
+            if (verified.size() >= verifyCacheSize) {
+                // Still full of live tokens: start over rather than track recency on the hot path
+                verified.clear();
+            }
+        }
+        verified.put(jwt, new VerifiedToken(claims, exp.getTime()));
     }
 }
@@ -0,0 +1,48 @@
+package usyd.library_reservation_system.library_reservation_system.service;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import usyd.library_reservation_system.library_reservation_system.model.UserEntity;
+import usyd.library_reservation_system.library_reservation_system.utils.AfterCommit;
+
+/**
+ * JPA callbacks for UserEntity, keeping in-memory user lookups in step with every insert/update.
+ * Hibernate resolves this through Spring, so it is a normal bean; collaborators are looked up lazily
+ * because the EntityManagerFactory is built before them. Changes are applied once the transaction
+ * commits, so a rolled-back save never shows up in search.
+ */
+@Component
+public class UserEntityListener {
+
+    private final ObjectProvider<UserUniquenessFilter> uniquenessFilter;
+    private final ObjectProvider<UserSearchIndex> searchIndex;
+
+    public UserEntityListener(ObjectProvider<UserUniquenessFilter> uniquenessFilter,
+                              ObjectProvider<UserSearchIndex> searchIndex) {
+        this.uniquenessFilter = uniquenessFilter;
+        this.searchIndex = searchIndex;
+    }
+
+    @PostPersist
+    @PostUpdate
+    public void onSaved(UserEntity user) {
+        // Values captured now: the entity may change again before the commit
+        Integer userId = user.getUserId();
+        String nickname = user.getNickname();
+        String email = user.getEmail();
+        String telephone = user.getTelephone();
+        AfterCommit.run(() -> {
+            uniquenessFilter.ifAvailable(f -> f.add(email, telephone));
+            searchIndex.ifAvailable(i -> i.put(userId, nickname, email));
+        });
+    }
+
+    @PostRemove
+    public void onRemoved(UserEntity user) {
+        Integer userId = user.getUserId();
+        AfterCommit.run(() -> searchIndex.ifAvailable(i -> i.remove(userId)));
+    }
+}
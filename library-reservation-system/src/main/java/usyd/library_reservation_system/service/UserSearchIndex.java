@@ -0,0 +1,85 @@
+package usyd.library_reservation_system.library_reservation_system.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import usyd.library_reservation_system.library_reservation_system.repository.UserRepository;
+import usyd.library_reservation_system.library_reservation_system.repository.UserSearchProjection;
+import usyd.library_reservation_system.library_reservation_system.utils.TrigramIndex;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Trigram indexes over user nickname and, separately, email for the admin user search.
+ * Built once at startup and kept current by UserEntityListener after each commit; only ids are held
+ * here, the rows themselves are always read from the database. The plain searches return userId
+ * order, the order the database fallback returns, for the unpaged lists; rankNickname keeps the
+ * trigram ranking (exact > prefix > contains, then shorter nickname) for the paged search.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class UserSearchIndex {
+
+    private final UserRepository userRepository;
+
+    private final TrigramIndex nicknames = new TrigramIndex();
+    private final TrigramIndex emails = new TrigramIndex();
+    private volatile boolean ready;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void warmUp() {
+        long start = System.currentTimeMillis();
+        try (Stream<UserSearchProjection> rows = userRepository.streamAllSearchFields()) {
+            rows.forEach(r -> put(r.getUserId(), r.getNickname(), r.getEmail()));
+        }
+        ready = true;
+        log.info("Admin user search index warmed with {} users in {} ms", nicknames.size(), System.currentTimeMillis() - start);
+    }
+
+    public void put(Integer userId, String nickname, String email) {
+        if (userId != null) {
+            nicknames.put(userId, nickname);
+            emails.put(userId, email);
+        }
+    }
+
+    public void remove(Integer userId) {
+        if (userId != null) {
+            nicknames.remove(userId);
+            emails.remove(userId);
+        }
+    }
+
+    /** Ids whose nickname contains query (case-insensitive), in userId order. */
+    public List<Integer> searchNickname(String query) {
+        return inIdOrder(nicknames.search(query));
+    }
+
+    /** The same ids as searchNickname, best match first. */
+    public List<Integer> rankNickname(String query) {
+        return nicknames.search(query);
+    }
+
+    /** Ids whose email contains query (case-insensitive), in userId order. */
+    public List<Integer> searchEmail(String query) {
+        return inIdOrder(emails.search(query));
+    }
+
+    private static List<Integer> inIdOrder(List<Integer> ids) {
+        List<Integer> sorted = new ArrayList<>(ids);
+        Collections.sort(sorted);
+        return sorted;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+}
@@ -0,0 +1,85 @@
+package usyd.library_reservation_system.library_reservation_system.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import usyd.library_reservation_system.library_reservation_system.repository.UserContactProjection;
+import usyd.library_reservation_system.library_reservation_system.repository.UserRepository;
+import usyd.library_reservation_system.library_reservation_system.utils.BloomFilter;
+
+import java.util.stream.Stream;
+
+/**
+ * In-memory pre-check for registration uniqueness.
+ * "might be taken" == false lets the caller skip the DB lookup; true means ask MySQL.
+ * Until the startup warm-up has finished every check answers true, so nothing is skipped early.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class UserUniquenessFilter {
+
+    private final UserRepository userRepository;
+
+    @Value("${app.register.bloom-expected-users:100000}")
+    private long expectedUsers = 100_000;
+
+    @Value("${app.register.bloom-false-positive-rate:0.01}")
+    private double falsePositiveRate = 0.01;
+
+    private volatile BloomFilter emails;
+    private volatile BloomFilter telephones;
+    private volatile boolean ready;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void warmUp() {
+        long start = System.currentTimeMillis();
+        // Leave headroom so the false positive rate holds while the table grows
+        long capacity = Math.max(expectedUsers, userRepository.count() * 2);
+
+        // Publish the empty filters first so inserts that race with the scan are not lost
+        emails = new BloomFilter(capacity, falsePositiveRate);
+        telephones = new BloomFilter(capacity, falsePositiveRate);
+
+        long[] loaded = {0};
+        try (Stream<UserContactProjection> rows = userRepository.streamAllContacts()) {
+            rows.forEach(r -> {
+                add(r.getEmail(), r.getTelephone());
+                loaded[0]++;
+            });
+        }
+        ready = true;
+        log.info("Registration Bloom filter warmed with {} users in {} ms", loaded[0], System.currentTimeMillis() - start);
+    }
+
+    public boolean mightHaveEmail(String email) {
+        BloomFilter f = emails;
+        return !ready || f == null || email == null || f.mightContain(normalizeEmail(email));
+    }
+
+    public boolean mightHaveTelephone(String telephone) {
+        BloomFilter f = telephones;
+        return !ready || f == null || telephone == null || f.mightContain(telephone.trim());
+    }
+
+    // Called for every inserted/updated user so new accounts are never reported as free
+    public void add(String email, String telephone) {
+        BloomFilter e = emails;
+        BloomFilter t = telephones;
+        if (e != null && email != null) e.put(normalizeEmail(email));
+        if (t != null && telephone != null) t.put(telephone.trim());
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    private static String normalizeEmail(String email) {
+        return email.trim().toLowerCase();
+    }
+}
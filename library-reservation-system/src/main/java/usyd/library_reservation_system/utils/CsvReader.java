@@ -0,0 +1,110 @@
+package usyd.library_reservation_system.library_reservation_system.utils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Minimal streaming RFC 4180 reader: one record at a time, quoted fields may contain
+ * commas, doubled quotes and line breaks. Only the current record is held in memory.
+ */
+public class CsvReader implements Closeable {
+
+    private final Reader in;
+    private final char[] buf = new char[8192];
+    private int pos;
+    private int len;
+    private long line = 1;
+    private long recordLine;
+
+    public CsvReader(Reader in) {
+        this.in = in;
+    }
+
+    /** Next record, or null at end of input. Blank lines are skipped. */
+    public List<String> next() throws IOException {
+        while (true) {
+            recordLine = line;
+            int c = read();
+            if (c < 0) return null;
+            if (c == '\n') continue;
+            if (c == '\r') {
+                skipLf();
+                continue;
+            }
+            return readRecord(c);
+        }
+    }
+
+    /** 1-based line on which the record returned by the last next() started. */
+    public long getRecordLine() {
+        return recordLine;
+    }
+
+    private List<String> readRecord(int c) throws IOException {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        boolean afterQuote = false;
+        while (true) {
+            if (quoted) {
+                if (c < 0) throw new IOException("Unterminated quoted field starting on line " + recordLine);
+                if (c == '"') {
+                    int n = read();
+                    if (n == '"') {
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                        afterQuote = true;
+                        c = n;
+                        continue;
+                    }
+                } else {
+                    field.append((char) c);
+                }
+            } else if (c < 0 || c == '\n' || c == '\r') {
+                if (c == '\r') skipLf();
+                fields.add(field.toString());
+                return fields;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+                afterQuote = false;
+            } else if (c == '"' && field.isEmpty() && !afterQuote) {
+                quoted = true;
+            } else {
+                field.append((char) c);
+            }
+            c = read();
+        }
+    }
+
+    private void skipLf() throws IOException {
+        if (peek() == '\n') read();
+    }
+
+    private int peek() throws IOException {
+        if (pos >= len && !fill()) return -1;
+        return buf[pos];
+    }
+
+    private int read() throws IOException {
+        if (pos >= len && !fill()) return -1;
+        char ch = buf[pos++];
+        if (ch == '\n') line++;
+        return ch;
+    }
+
+    private boolean fill() throws IOException {
+        len = in.read(buf, 0, buf.length);
+        pos = 0;
+        return len > 0;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
@@ -0,0 +1,39 @@
+package usyd.library_reservation_system.library_reservation_system.utils;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Writes RFC 4180 records; fields containing commas, quotes or line breaks are quoted.
+ * Counterpart of CsvReader.
+ */
+public final class CsvWriter {
+
+    private CsvWriter() {
+    }
+
+    public static void writeRecord(Writer out, Object... fields) throws IOException {
+        for (int i = 0; i < fields.length; i++) {
+            if (i > 0) out.write(',');
+            writeField(out, fields[i]);
+        }
+        out.write("\r\n");
+    }
+
+    public static void writeField(Writer out, Object value) throws IOException {
+        if (value == null) return;
+        String s = value.toString();
+        boolean quote = false;
+        for (int i = 0; i < s.length() && !quote; i++) {
+            char c = s.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            out.write(s);
+            return;
+        }
+        out.write('"');
+        out.write(s.replace("\"", "\"\""));
+        out.write('"');
+    }
+}
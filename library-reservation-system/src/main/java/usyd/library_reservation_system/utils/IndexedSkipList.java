@@ -0,0 +1,144 @@
+package usyd.library_reservation_system.library_reservation_system.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Sorted set with O(log n) rank lookup: a skip list whose forward links also record how many
+ * bottom-level nodes they jump over (the same layout as Redis sorted sets).
+ * add / remove / rank all walk one top-down path, summing link widths on the way.
+ *
+ * Not thread-safe; callers synchronize.
+ */
+public class IndexedSkipList<K extends Comparable<? super K>> {
+
+    private static final int MAX_LEVEL = 32;
+
+    private static final class Node<K> {
+        final K key;
+        final Node<K>[] next;
+        final int[] span;
+
+        @SuppressWarnings("unchecked")
+        Node(K key, int level) {
+            this.key = key;
+            this.next = (Node<K>[]) new Node[level];
+            this.span = new int[level];
+        }
+    }
+
+    private final Node<K> head = new Node<>(null, MAX_LEVEL);
+    private int level = 1;
+    private int size;
+
+    public int size() {
+        return size;
+    }
+
+    /** Inserts key; false if an equal key is already present. */
+    public boolean add(K key) {
+        @SuppressWarnings("unchecked")
+        Node<K>[] update = (Node<K>[]) new Node[MAX_LEVEL];
+        int[] rank = new int[MAX_LEVEL];
+        Node<K> x = head;
+        for (int i = level - 1; i >= 0; i--) {
+            rank[i] = i == level - 1 ? 0 : rank[i + 1];
+            while (x.next[i] != null && x.next[i].key.compareTo(key) < 0) {
+                rank[i] += x.span[i];
+                x = x.next[i];
+            }
+            update[i] = x;
+        }
+        if (x.next[0] != null && x.next[0].key.compareTo(key) == 0) {
+            return false;
+        }
+
+        int lvl = randomLevel();
+        if (lvl > level) {
+            for (int i = level; i < lvl; i++) {
+                rank[i] = 0;
+                update[i] = head;
+                head.span[i] = size;
+            }
+            level = lvl;
+        }
+        Node<K> node = new Node<>(key, lvl);
+        for (int i = 0; i < lvl; i++) {
+            node.next[i] = update[i].next[i];
+            update[i].next[i] = node;
+            // Split the predecessor's span at the insertion point
+            node.span[i] = update[i].span[i] - (rank[0] - rank[i]);
+            update[i].span[i] = rank[0] - rank[i] + 1;
+        }
+        for (int i = lvl; i < level; i++) {
+            update[i].span[i]++;
+        }
+        size++;
+        return true;
+    }
+
+    /** Removes key; false if it was not present. */
+    public boolean remove(K key) {
+        @SuppressWarnings("unchecked")
+        Node<K>[] update = (Node<K>[]) new Node[MAX_LEVEL];
+        Node<K> x = head;
+        for (int i = level - 1; i >= 0; i--) {
+            while (x.next[i] != null && x.next[i].key.compareTo(key) < 0) {
+                x = x.next[i];
+            }
+            update[i] = x;
+        }
+        x = x.next[0];
+        if (x == null || x.key.compareTo(key) != 0) {
+            return false;
+        }
+        for (int i = 0; i < level; i++) {
+            if (update[i].next[i] == x) {
+                update[i].span[i] += x.span[i] - 1;
+                update[i].next[i] = x.next[i];
+            } else {
+                update[i].span[i]--;
+            }
+        }
+        while (level > 1 && head.next[level - 1] == null) {
+            level--;
+        }
+        size--;
+        return true;
+    }
+
+    /** 1-based position of key in sort order, or 0 if it is not present. */
+    public int rank(K key) {
+        int rank = 0;
+        Node<K> x = head;
+        for (int i = level - 1; i >= 0; i--) {
+            while (x.next[i] != null && x.next[i].key.compareTo(key) <= 0) {
+                rank += x.span[i];
+                x = x.next[i];
+            }
+            if (x != head && x.key.compareTo(key) == 0) {
+                return rank;
+            }
+        }
+        return 0;
+    }
+
+    /** All keys in ascending order. */
+    public List<K> toList() {
+        List<K> out = new ArrayList<>(size);
+        for (Node<K> x = head.next[0]; x != null; x = x.next[0]) {
+            out.add(x.key);
+        }
+        return out;
+    }
+
+    // Level i+1 with probability 1/4 of level i
+    private static int randomLevel() {
+        int lvl = 1;
+        while (lvl < MAX_LEVEL && (ThreadLocalRandom.current().nextInt() & 3) == 0) {
+            lvl++;
+        }
+        return lvl;
+    }
+}
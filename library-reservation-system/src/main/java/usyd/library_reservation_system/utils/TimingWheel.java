@@ -0,0 +1,165 @@
+package usyd.library_reservation_system.library_reservation_system.utils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Hierarchical timing wheel: keyed one-shot timers with O(1) schedule / cancel, driven by advance(now).
+ *
+ * Level 0 has wheelSize slots of tickMs each; every level above covers wheelSize slots of the
+ * whole level below, so a few levels span months at one-second resolution. A timer sits in the
+ * coarsest level that can still tell its slot apart and is moved down ("cascaded") when its slot
+ * comes up, until it lands in level 0 and fires. Deadlines past the top level wait in its last
+ * slot and are re-placed each time they cascade.
+ *
+ * Timers fire at most one tick late and never early. Not thread-safe; callers synchronize.
+ */
+public class TimingWheel<K> {
+
+    private static final class Timer<K> {
+        final K key;
+        final long deadline;
+        int level;
+        int slot;
+
+        Timer(K key, long deadline) {
+            this.key = key;
+            this.deadline = deadline;
+        }
+    }
+
+    private final long tickMs;
+    private final int wheelSize;
+    private final long[] levelTick;
+    private final List<List<Set<Timer<K>>>> levels = new ArrayList<>();
+    private final Map<K, Timer<K>> timers = new HashMap<>();
+    private final List<Timer<K>> overdue = new ArrayList<>();
+    private long currentTime;
+
+    public TimingWheel(long tickMs, int wheelSize, int levelCount, long startMs) {
+        if (tickMs <= 0 || wheelSize < 2 || levelCount < 1) {
+            throw new IllegalArgumentException("tickMs > 0, wheelSize >= 2 and levelCount >= 1 required");
+        }
+        this.tickMs = tickMs;
+        this.wheelSize = wheelSize;
+        this.levelTick = new long[levelCount];
+        long t = tickMs;
+        for (int l = 0; l < levelCount; l++) {
+            levelTick[l] = t;
+            List<Set<Timer<K>>> slots = new ArrayList<>(wheelSize);
+            for (int i = 0; i < wheelSize; i++) {
+                slots.add(new HashSet<>());
+            }
+            levels.add(slots);
+            t = Math.multiplyExact(t, wheelSize);
+        }
+        this.currentTime = startMs - Math.floorMod(startMs, tickMs);
+    }
+
+    public int size() {
+        return timers.size();
+    }
+
+    public boolean contains(K key) {
+        return timers.containsKey(key);
+    }
+
+    /** Schedules (or reschedules) key to fire at deadlineMs; a deadline already passed fires on the next advance. */
+    public void schedule(K key, long deadlineMs) {
+        cancel(key);
+        Timer<K> timer = new Timer<>(key, deadlineMs);
+        timers.put(key, timer);
+        place(timer);
+    }
+
+    public boolean cancel(K key) {
+        Timer<K> timer = timers.remove(key);
+        if (timer == null) {
+            return false;
+        }
+        if (timer.level < 0) {
+            overdue.remove(timer);
+        } else {
+            levels.get(timer.level).get(timer.slot).remove(timer);
+        }
+        return true;
+    }
+
+    /** Moves the clock forward to nowMs and returns the keys whose deadline has passed, in firing order. */
+    public List<K> advance(long nowMs) {
+        List<K> fired = new ArrayList<>();
+        drainOverdue(fired);
+        while (currentTime + tickMs <= nowMs) {
+            currentTime += tickMs;
+            // Buckets of upper levels whose span starts now move down, coarsest first
+            for (int l = levelTick.length - 1; l >= 1; l--) {
+                if (currentTime % levelTick[l] == 0) {
+                    Set<Timer<K>> bucket = levels.get(l).get(slotOf(currentTime / levelTick[l]));
+                    List<Timer<K>> moving = new ArrayList<>(bucket);
+                    bucket.clear();
+                    moving.forEach(this::place);
+                }
+            }
+            // The level-0 bucket of the tick that just ended is due
+            Set<Timer<K>> bucket = levels.get(0).get(slotOf(currentTime / tickMs - 1));
+            List<Timer<K>> due = new ArrayList<>(bucket);
+            bucket.clear();
+            for (Timer<K> timer : due) {
+                if (timer.deadline < currentTime) {
+                    timers.remove(timer.key);
+                    fired.add(timer.key);
+                } else {
+                    place(timer);
+                }
+            }
+            drainOverdue(fired);
+        }
+        return fired;
+    }
+
+    private void place(Timer<K> timer) {
+        if (timer.deadline < currentTime) {
+            timer.level = -1;
+            overdue.add(timer);
+            return;
+        }
+        long abs0 = timer.deadline / tickMs;
+        if (abs0 - currentTime / tickMs < wheelSize) {
+            put(timer, 0, abs0);
+            return;
+        }
+        int top = levelTick.length - 1;
+        for (int l = 1; l <= top; l++) {
+            long abs = timer.deadline / levelTick[l];
+            long cur = currentTime / levelTick[l];
+            if (abs - cur < wheelSize) {
+                put(timer, l, abs);
+                return;
+            }
+        }
+        // Beyond the top level's range: park in its farthest slot and re-place when it cascades
+        put(timer, top, currentTime / levelTick[top] + wheelSize - 1);
+    }
+
+    private void put(Timer<K> timer, int level, long abs) {
+        timer.level = level;
+        timer.slot = slotOf(abs);
+        levels.get(level).get(timer.slot).add(timer);
+    }
+
+    private void drainOverdue(List<K> fired) {
+        for (Timer<K> timer : overdue) {
+            timers.remove(timer.key);
+            fired.add(timer.key);
+        }
+        overdue.clear();
+    }
+
+    private int slotOf(long abs) {
+        return (int) Math.floorMod(abs, (long) wheelSize);
+    }
+}
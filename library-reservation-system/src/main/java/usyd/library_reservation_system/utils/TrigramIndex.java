@@ -0,0 +1,167 @@
+package usyd.library_reservation_system.library_reservation_system.utils;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory case-insensitive substring index over a few text fields per id.
+ * Every field is split into trigrams; a query is answered by intersecting the posting lists of its
+ * trigrams and then confirming the substring, so only real matches are returned.
+ * Queries shorter than three characters fall back to scanning the (in-memory) documents.
+ *
+ * Results are ranked: earlier fields beat later ones, and within a field exact > prefix > contains.
+ * Ties are broken by shorter field value, then by id.
+ */
+public class TrigramIndex {
+
+    private static final int GRAM = 3;
+
+    private final Map<Integer, String[]> docs = new HashMap<>();
+    private final Map<String, Set<Integer>> postings = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /** Inserts or replaces the fields indexed for id (null fields are skipped). */
+    public void put(int id, String... fields) {
+        String[] normalized = new String[fields.length];
+        for (int i = 0; i < fields.length; i++) {
+            normalized[i] = normalize(fields[i]);
+        }
+        lock.writeLock().lock();
+        try {
+            String[] old = docs.put(id, normalized);
+            if (old != null) {
+                unlink(id, old);
+            }
+            for (String f : normalized) {
+                for (String g : grams(f)) {
+                    postings.computeIfAbsent(g, k -> new HashSet<>()).add(id);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(int id) {
+        lock.writeLock().lock();
+        try {
+            String[] old = docs.remove(id);
+            if (old != null) {
+                unlink(id, old);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return docs.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** All ids whose fields contain query (case-insensitive), best match first. An empty query matches everything. */
+    public List<Integer> search(String query) {
+        String q = query == null ? "" : normalize(query);
+        List<Hit> hits = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            for (int id : candidates(q)) {
+                Hit h = score(id, docs.get(id), q);
+                if (h != null) hits.add(h);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return sorted(hits);
+    }
+
+    /**
+     * Ranks values (one field per id) against query the way search does, without indexing them;
+     * for callers that already hold the matching rows and need them in the same order.
+     */
+    public static List<Integer> rank(String query, Map<Integer, String> values) {
+        String q = query == null ? "" : normalize(query);
+        List<Hit> hits = new ArrayList<>();
+        values.forEach((id, value) -> {
+            Hit h = score(id, new String[]{normalize(value)}, q);
+            if (h != null) hits.add(h);
+        });
+        return sorted(hits);
+    }
+
+    private static List<Integer> sorted(List<Hit> hits) {
+        hits.sort(Comparator.comparingInt(Hit::rank)
+                .thenComparingInt(Hit::length)
+                .thenComparingInt(Hit::id));
+        List<Integer> ids = new ArrayList<>(hits.size());
+        for (Hit h : hits) ids.add(h.id());
+        return ids;
+    }
+
+    private record Hit(int id, int rank, int length) {}
+
+    // Caller holds the read lock
+    private Collection<Integer> candidates(String q) {
+        if (q.length() < GRAM) {
+            return docs.keySet();
+        }
+        List<Set<Integer>> lists = new ArrayList<>();
+        for (String g : grams(q)) {
+            Set<Integer> p = postings.get(g);
+            if (p == null) return List.of();
+            lists.add(p);
+        }
+        lists.sort(Comparator.comparingInt(Set::size));
+        List<Integer> out = new ArrayList<>();
+        Set<Integer> smallest = lists.get(0);
+        outer:
+        for (Integer id : smallest) {
+            for (int i = 1; i < lists.size(); i++) {
+                if (!lists.get(i).contains(id)) continue outer;
+            }
+            out.add(id);
+        }
+        return out;
+    }
+
+    private static Hit score(int id, String[] fields, String q) {
+        for (int i = 0; i < fields.length; i++) {
+            String f = fields[i];
+            if (f == null) continue;
+            int pos = f.indexOf(q);
+            if (pos < 0) continue;
+            int kind = f.length() == q.length() ? 0 : pos == 0 ? 1 : 2;
+            return new Hit(id, i * 3 + kind, f.length());
+        }
+        return null;
+    }
+
+    private void unlink(int id, String[] fields) {
+        for (String f : fields) {
+            for (String g : grams(f)) {
+                Set<Integer> p = postings.get(g);
+                if (p != null && p.remove(id) && p.isEmpty()) {
+                    postings.remove(g);
+                }
+            }
+        }
+    }
+
+    private static Set<String> grams(String s) {
+        if (s == null || s.length() < GRAM) return Set.of();
+        Set<String> out = new HashSet<>();
+        for (int i = 0; i + GRAM <= s.length(); i++) {
+            out.add(s.substring(i, i + GRAM));
+        }
+        return out;
+    }
+
+    private static String normalize(String s) {
+        return s == null ? null : s.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,12 @@
+-- Append-only audit of administrator login attempts (AdminLoginAuditWriter); administrator_id is NULL
+-- when the email matched no administrator
+CREATE TABLE `admin_login_event` (
+  `event_id` bigint NOT NULL AUTO_INCREMENT,
+  `administrator_id` int NULL DEFAULT NULL,
+  `email` varchar(100) NOT NULL,
+  `success` bit(1) NOT NULL,
+  `event_time` datetime NOT NULL,
+  PRIMARY KEY (`event_id`),
+  INDEX `idx_admin_login_event_admin_time` (`administrator_id` ASC, `event_time` ASC),
+  INDEX `idx_admin_login_event_time` (`event_time` ASC)
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4 COLLATE = utf8mb4_general_ci;
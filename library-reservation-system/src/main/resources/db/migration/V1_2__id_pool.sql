@@ -0,0 +1,11 @@
+-- Id blocks for the pooled-ids profile (META-INF/orm-pooled-ids.xml): last_val is the highest id handed out.
+-- Seeded from the rows already present, so a database imported from the dump continues above its data.
+CREATE TABLE `id_pool` (
+  `seq_name` varchar(64) NOT NULL,
+  `last_val` bigint NOT NULL,
+  PRIMARY KEY (`seq_name`)
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4 COLLATE = utf8mb4_general_ci;
+
+INSERT INTO `id_pool` (`seq_name`, `last_val`) SELECT 'comment', COALESCE(MAX(`comment_id`), 0) FROM `comment`;
+INSERT INTO `id_pool` (`seq_name`, `last_val`) SELECT 'label', COALESCE(MAX(`label_id`), 0) FROM `label`;
+INSERT INTO `id_pool` (`seq_name`, `last_val`) SELECT 'admin_login_event', COALESCE(MAX(`event_id`), 0) FROM `admin_login_event`;
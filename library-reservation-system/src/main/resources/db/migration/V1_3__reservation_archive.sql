@@ -0,0 +1,17 @@
+-- Returned/cancelled reservations moved out of the hot table by ReservationArchiver
+CREATE TABLE `reservation_archive` (
+  `reservation_id` int NOT NULL,
+  `create_date` datetime NOT NULL,
+  `status` tinyint NOT NULL,
+  `user_id` int NOT NULL,
+  `book_id` int NOT NULL,
+  `take_date` date NULL DEFAULT NULL,
+  `return_date` date NULL DEFAULT NULL,
+  `archived_at` datetime NOT NULL,
+  PRIMARY KEY (`reservation_id`),
+  INDEX `idx_reservation_archive_user_create` (`user_id` ASC, `create_date` ASC),
+  INDEX `idx_reservation_archive_book` (`book_id` ASC)
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4 COLLATE = utf8mb4_0900_ai_ci;
+
+-- ReservationRepository.findByStatus and the archiver's selection of closed rows by age
+ALTER TABLE `reservation` ADD INDEX `idx_reservation_status_create` (`status`, `create_date`);
@@ -0,0 +1,88 @@
+-- Baseline: the schema of library_reservation_system.sql at the time Flyway took over, and nothing newer.
+-- Databases created from that dump are baselined at version 1 (spring.flyway.baseline-on-migrate),
+-- so this script only runs against an empty schema. Every later change gets its own V<n>__*.sql,
+-- including the tables added earlier in the series (V1_1 .. V1_3).
+-- Only the secondary index names differ from the original dump: H2 scopes index names per schema,
+-- so the repeated ones (email, book_id, user_id, ...) got table-prefixed names here and in the dump.
+
+CREATE TABLE `label` (
+  `label_id` int NOT NULL AUTO_INCREMENT,
+  `label_name` varchar(100) NOT NULL,
+  `create_date` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP,
+  PRIMARY KEY (`label_id`),
+  UNIQUE INDEX `uk_label_name` (`label_name` ASC)
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4 COLLATE = utf8mb4_0900_ai_ci;
+
+CREATE TABLE `user` (
+  `user_id` int NOT NULL AUTO_INCREMENT,
+  `nickname` varchar(50) NOT NULL,
+  `telephone` varchar(20) NOT NULL,
+  `email` varchar(100) NOT NULL,
+  `password` varchar(128) NOT NULL,
+  `is_active` bit(1) NOT NULL DEFAULT 1,
+  PRIMARY KEY (`user_id`),
+  UNIQUE INDEX `uk_user_telephone` (`telephone` ASC),
+  UNIQUE INDEX `uk_user_email` (`email` ASC)
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4 COLLATE = utf8mb4_0900_ai_ci;
+
+CREATE TABLE `book` (
+  `book_id` int NOT NULL AUTO_INCREMENT,
+  `book_name` varchar(200) NOT NULL,
+  `quantity` int NOT NULL DEFAULT 0,
+  `author` varchar(100) NOT NULL,
+  `description` text NULL,
+  `num_favorite` int NOT NULL DEFAULT 0,
+  `num_reservation` int NOT NULL DEFAULT 0,
+  `label_id` int NOT NULL,
+  `avatar` varchar(255) NULL DEFAULT NULL,
+  PRIMARY KEY (`book_id`),
+  INDEX `idx_book_label` (`label_id` ASC),
+  CONSTRAINT `book_ibfk_1` FOREIGN KEY (`label_id`) REFERENCES `label` (`label_id`) ON DELETE RESTRICT ON UPDATE RESTRICT
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4 COLLATE = utf8mb4_0900_ai_ci;
+
+CREATE TABLE `administrator` (
+  `administrator_id` int NOT NULL AUTO_INCREMENT,
+  `email` varchar(100) NOT NULL,
+  `password` varchar(128) NOT NULL,
+  `login_log` text NULL,
+  PRIMARY KEY (`administrator_id`),
+  UNIQUE INDEX `uk_administrator_email` (`email` ASC)
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4 COLLATE = utf8mb4_general_ci;
+
+CREATE TABLE `comment` (
+  `comment_id` int NOT NULL AUTO_INCREMENT,
+  `book_id` int NOT NULL,
+  `content` text NOT NULL,
+  `create_date` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP,
+  `author_id` int NOT NULL,
+  `author_type` tinyint NOT NULL,
+  `status` tinyint NOT NULL,
+  PRIMARY KEY (`comment_id`),
+  INDEX `idx_comment_book` (`book_id` ASC),
+  CONSTRAINT `comment_ibfk_1` FOREIGN KEY (`book_id`) REFERENCES `book` (`book_id`) ON DELETE RESTRICT ON UPDATE RESTRICT
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4 COLLATE = utf8mb4_0900_ai_ci;
+
+CREATE TABLE `favorite` (
+  `book_id` int NOT NULL,
+  `user_id` int NOT NULL,
+  `create_time` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP,
+  PRIMARY KEY (`book_id`, `user_id`),
+  INDEX `idx_favorite_user` (`user_id` ASC),
+  CONSTRAINT `favorite_ibfk_1` FOREIGN KEY (`book_id`) REFERENCES `book` (`book_id`) ON DELETE RESTRICT ON UPDATE RESTRICT,
+  CONSTRAINT `favorite_ibfk_2` FOREIGN KEY (`user_id`) REFERENCES `user` (`user_id`) ON DELETE RESTRICT ON UPDATE RESTRICT
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4 COLLATE = utf8mb4_0900_ai_ci;
+
+CREATE TABLE `reservation` (
+  `reservation_id` int NOT NULL AUTO_INCREMENT,
+  `create_date` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP,
+  `status` tinyint NOT NULL,
+  `user_id` int NOT NULL,
+  `book_id` int NOT NULL,
+  `take_date` date NULL DEFAULT NULL,
+  `return_date` date NULL DEFAULT NULL,
+  PRIMARY KEY (`reservation_id`),
+  INDEX `idx_reservation_user` (`user_id` ASC),
+  INDEX `idx_reservation_book` (`book_id` ASC),
+  CONSTRAINT `reservation_ibfk_1` FOREIGN KEY (`user_id`) REFERENCES `user` (`user_id`) ON DELETE RESTRICT ON UPDATE RESTRICT,
+  CONSTRAINT `reservation_ibfk_2` FOREIGN KEY (`book_id`) REFERENCES `book` (`book_id`) ON DELETE RESTRICT ON UPDATE RESTRICT
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4 COLLATE = utf8mb4_0900_ai_ci;
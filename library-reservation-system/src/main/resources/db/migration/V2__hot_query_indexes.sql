@@ -0,0 +1,18 @@
+-- Composite indexes for the hot repository finders.
+-- The single-column indexes they extend (reservation.user_id/book_id, comment.book_id, favorite.user_id)
+-- are left in place: they still back the foreign keys, their names differ between databases imported
+-- from the old dump and ones built from V1, and MySQL has no DROP INDEX IF EXISTS.
+
+-- ReservationRepository.findByBookIdAndStatusOrderByCreateDateAsc (queue head of a book):
+-- equality on book_id + status, rows come back already in create_date order
+ALTER TABLE `reservation` ADD INDEX `idx_reservation_book_status_create` (`book_id`, `status`, `create_date`);
+
+-- ReservationRepository.findByUserIdOrderByCreateDateDesc (a user's reservations, newest first)
+ALTER TABLE `reservation` ADD INDEX `idx_reservation_user_create` (`user_id`, `create_date`);
+
+-- CommentRepository.findByBookIdAndStatus / findByBookId
+ALTER TABLE `comment` ADD INDEX `idx_comment_book_status` (`book_id`, `status`);
+
+-- FavoriteRepository.findByIdUserId: InnoDB appends the (book_id, user_id) primary key, so
+-- (user_id, create_time) holds every favorite column and the lookup never reads the clustered index
+ALTER TABLE `favorite` ADD INDEX `idx_favorite_user_time` (`user_id`, `create_time`);
@@ -0,0 +1,6 @@
+-- When a reservation entered status 1 (held for pickup); the pickup window counts from here.
+-- Existing holds are stamped with the next application start (PickupExpiryJob), so they get a full window.
+ALTER TABLE `reservation` ADD COLUMN `assign_date` datetime NULL DEFAULT NULL;
+
+-- Archived rows keep it (ReservationArchiver copies every reservation column)
+ALTER TABLE `reservation_archive` ADD COLUMN `assign_date` datetime NULL DEFAULT NULL;
@@ -0,0 +1,15 @@
+-- Loan due dates and the overdue-notice marker used by OverdueLoanJob
+ALTER TABLE `reservation` ADD COLUMN `due_date` date NULL DEFAULT NULL;
+ALTER TABLE `reservation` ADD COLUMN `overdue_notified_at` datetime NULL DEFAULT NULL;
+
+-- Archived loans keep both (ReservationArchiver copies every reservation column)
+ALTER TABLE `reservation_archive` ADD COLUMN `due_date` date NULL DEFAULT NULL;
+ALTER TABLE `reservation_archive` ADD COLUMN `overdue_notified_at` datetime NULL DEFAULT NULL;
+
+-- Open loans whose notice has not gone out, in due order: the job reads only the newly overdue
+-- range of this index (InnoDB appends reservation_id, which the keyset cursor uses as tie-break)
+ALTER TABLE `reservation` ADD INDEX `idx_reservation_overdue_scan` (`status`, `overdue_notified_at`, `due_date`);
+
+-- Loans picked up before due dates existed get the default loan period (app.reservations.loan-days)
+UPDATE `reservation` SET `due_date` = `take_date` + INTERVAL '21' DAY
+WHERE `status` = 4 AND `take_date` IS NOT NULL AND `due_date` IS NULL;
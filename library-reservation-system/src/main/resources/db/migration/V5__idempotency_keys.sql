@@ -0,0 +1,12 @@
+-- Idempotency-Key records shared by all nodes (used when app.idempotency.persist=true).
+-- key_hash = SHA-256 of user + path + client key; status_code stays NULL while the first request runs.
+CREATE TABLE `idempotency_key` (
+  `key_hash` char(64) NOT NULL,
+  `fingerprint` char(64) NOT NULL,
+  `status_code` int NULL DEFAULT NULL,
+  `content_type` varchar(255) NULL DEFAULT NULL,
+  `body` mediumblob NULL,
+  `expires_at` datetime NOT NULL,
+  PRIMARY KEY (`key_hash`),
+  INDEX `idx_idempotency_key_expires` (`expires_at` ASC)
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4 COLLATE = utf8mb4_0900_ai_ci;
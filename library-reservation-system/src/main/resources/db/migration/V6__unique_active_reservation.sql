@@ -0,0 +1,46 @@
+-- One active reservation (queued 0, held 1 or on loan 4) per user and book.
+
+-- Precondition, checked before anything is changed: two open loans (status 4) of the same book by one
+-- user cannot be resolved here and must be closed by hand. MySQL commits each DDL statement, so
+-- failing later on the unique index would leave this migration half applied; instead the primary
+-- key below rejects the first such pair ("Duplicate entry '<user>-<book>'") while the reservation
+-- table is still untouched. The check table is dropped first so, after flyway repair, it can be rerun.
+DROP TABLE IF EXISTS `reservation_open_loan_check`;
+CREATE TABLE `reservation_open_loan_check` (
+    `user_id` int NOT NULL,
+    `book_id` int NOT NULL,
+    PRIMARY KEY (`user_id`, `book_id`)
+);
+INSERT INTO `reservation_open_loan_check` (`user_id`, `book_id`)
+SELECT `user_id`, `book_id` FROM `reservation` WHERE `status` = 4;
+DROP TABLE `reservation_open_loan_check`;
+
+-- Surplus duplicates from before the guard are cancelled first. Per (user, book) the most advanced
+-- row is kept (loan over hold over queue, then the oldest); cancelled holds give their copy back.
+DROP TABLE IF EXISTS `reservation_dedupe`;
+CREATE TABLE `reservation_dedupe` AS
+SELECT r.`reservation_id`, r.`book_id`, r.`status`
+FROM `reservation` r
+WHERE r.`status` IN (0, 1) AND EXISTS (
+    SELECT 1 FROM `reservation` k
+    WHERE k.`user_id` = r.`user_id` AND k.`book_id` = r.`book_id` AND k.`reservation_id` <> r.`reservation_id`
+      AND (k.`status` = 4
+           OR (k.`status` = 1 AND r.`status` = 0)
+           OR (k.`status` = r.`status` AND k.`reservation_id` < r.`reservation_id`)));
+
+UPDATE `reservation` SET `status` = 3
+WHERE `reservation_id` IN (SELECT `reservation_id` FROM `reservation_dedupe`);
+
+UPDATE `book` SET
+    `quantity` = `quantity` + (SELECT COUNT(*) FROM `reservation_dedupe` d WHERE d.`book_id` = `book`.`book_id` AND d.`status` = 1),
+    `num_reservation` = GREATEST(0, `num_reservation`
+        - (SELECT COUNT(*) FROM `reservation_dedupe` d WHERE d.`book_id` = `book`.`book_id` AND d.`status` = 1))
+WHERE `book_id` IN (SELECT `book_id` FROM `reservation_dedupe` WHERE `status` = 1);
+
+DROP TABLE `reservation_dedupe`;
+
+-- user_id while active, NULL otherwise: the unique index then only constrains active rows
+-- (a unique index admits any number of NULLs)
+ALTER TABLE `reservation` ADD COLUMN `active_user_id` int
+    GENERATED ALWAYS AS (CASE WHEN `status` IN (0, 1, 4) THEN `user_id` END);
+ALTER TABLE `reservation` ADD UNIQUE INDEX `uk_reservation_active_user_book` (`active_user_id`, `book_id`);
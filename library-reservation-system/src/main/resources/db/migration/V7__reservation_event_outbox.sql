@@ -0,0 +1,13 @@
+-- Transactional outbox of reservation status transitions, written in the transaction that makes the change.
+-- dispatched_at stays NULL until ReservationEventDispatcher has claimed the row; dispatched rows are purged later.
+CREATE TABLE `reservation_event` (
+  `event_id` bigint NOT NULL AUTO_INCREMENT,
+  `reservation_id` int NOT NULL,
+  `user_id` int NOT NULL,
+  `book_id` int NOT NULL,
+  `status` tinyint NOT NULL,
+  `occurred_at` datetime(3) NOT NULL,
+  `dispatched_at` datetime(3) NULL DEFAULT NULL,
+  PRIMARY KEY (`event_id`),
+  INDEX `idx_reservation_event_pending` (`dispatched_at` ASC, `event_id` ASC)
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4 COLLATE = utf8mb4_0900_ai_ci;
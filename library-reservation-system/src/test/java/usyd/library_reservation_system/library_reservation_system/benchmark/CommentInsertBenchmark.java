@@ -0,0 +1,83 @@
+package usyd.library_reservation_system.library_reservation_system.benchmark;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.boot.model.naming.CamelCaseToUnderscoresNamingStrategy;
+import org.hibernate.cfg.Configuration;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import usyd.library_reservation_system.library_reservation_system.model.Comment;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Comment inserts/sec through Hibernate, flushed with hibernate.jdbc.batch_size=50.
+ * - identity: the default mapping; every row is its own INSERT + generated-key read.
+ * - pooled: META-INF/orm-pooled-ids.xml (the pooled-ids profile); ids come from id_pool
+ *   50 at a time and the INSERTs go out as JDBC batches.
+ *
+ * Runs against in-memory H2 (MySQL mode), where a statement costs no network round trip, so the
+ * two modes land close together; it mainly shows the pooled mapping adds no overhead on the
+ * Hibernate side. On MySQL identity pays a round trip per row, pooled one per 50-row batch
+ * (collapsed further by rewriteBatchedStatements).
+ * Run with: mvn test-compile, then start main() from the IDE (or java -cp with the test classpath).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CommentInsertBenchmark {
+
+    private static final int ROWS_PER_TRANSACTION = 500;
+
+    @Param({"identity", "pooled"})
+    public String ids;
+
+    private SessionFactory sessionFactory;
+
+    @Setup
+    public void setup() {
+        Configuration cfg = new Configuration()
+                .setProperty("hibernate.connection.url",
+                        "jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=MySQL;DB_CLOSE_DELAY=-1")
+                .setProperty("hibernate.hbm2ddl.auto", "create-drop")
+                .setProperty("hibernate.jdbc.batch_size", "50")
+                .setProperty("hibernate.order_inserts", "true")
+                .setProperty("hibernate.id.optimizer.pooled.preferred", "pooled-lo")
+                .setPhysicalNamingStrategy(new CamelCaseToUnderscoresNamingStrategy())
+                .addAnnotatedClass(Comment.class);
+        if ("pooled".equals(ids)) {
+            cfg.addResource("META-INF/orm-pooled-ids.xml");
+        }
+        sessionFactory = cfg.buildSessionFactory();
+    }
+
+    @TearDown
+    public void tearDown() {
+        sessionFactory.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS_PER_TRANSACTION)
+    public void insertComments() {
+        sessionFactory.inTransaction(session -> {
+            for (int i = 0; i < ROWS_PER_TRANSACTION; i++) {
+                Comment c = new Comment();
+                c.setBookId(1 + i % 1000);
+                c.setAuthorId(1 + i % 100);
+                c.setContent("benchmark");
+                session.persist(c);
+            }
+        });
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(CommentInsertBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
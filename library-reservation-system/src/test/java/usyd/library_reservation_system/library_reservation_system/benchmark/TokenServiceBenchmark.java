@@ -0,0 +1,85 @@
+package usyd.library_reservation_system.library_reservation_system.benchmark;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+import usyd.library_reservation_system.library_reservation_system.service.TokenService;
+
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sign/verify throughput of TokenService.
+ * - verifyRebuiltParser: the old path (new JwtParser on every call), kept as the baseline.
+ * - verifyPrebuiltParser: shared parser, verification cache disabled.
+ * - verifyCached: shared parser + cache of recently verified tokens.
+ *
+ * Run with: mvn test-compile, then start main() from the IDE (or java -cp with the test classpath).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TokenServiceBenchmark {
+
+    private static final String SECRET =
+            "9d3f2a6c4b8e1f0d7a5c3e1b9f2d4a6b1c3d5e7f9a0b1c2d3e4f5a6b7c8d9e0f";
+
+    private TokenService cached;
+    private TokenService uncached;
+    private SecretKey key;
+    private Map<String, Object> claims;
+    private String token;
+
+    @Setup
+    public void setup() {
+        cached = newService(1024);
+        uncached = newService(0);
+        key = Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8));
+        claims = Map.of("userId", 42, "email", "bench@example.com", "codeHash", "NA");
+        token = cached.sign(claims, Instant.now().plusSeconds(3600));
+    }
+
+    private static TokenService newService(int cacheSize) {
+        TokenService service = new TokenService();
+        ReflectionTestUtils.setField(service, "secret", SECRET);
+        ReflectionTestUtils.setField(service, "verifyCacheSize", cacheSize);
+        ReflectionTestUtils.invokeMethod(service, "init");
+        return service;
+    }
+
+    @Benchmark
+    public String sign() {
+        return cached.sign(claims, Instant.now().plusSeconds(600));
+    }
+
+    @Benchmark
+    public Object verifyRebuiltParser() {
+        return Jwts.parser().verifyWith(key).build().parseSignedClaims(token).getPayload();
+    }
+
+    @Benchmark
+    public Object verifyPrebuiltParser() {
+        return uncached.verify(token);
+    }
+
+    @Benchmark
+    public Object verifyCached() {
+        return cached.verify(token);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(TokenServiceBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,167 @@
+package usyd.library_reservation_system.library_reservation_system.config;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.junit.jupiter.web.SpringJUnitWebConfig;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.util.FileSystemUtils;
+import org.springframework.web.context.WebApplicationContext;
+import org.springframework.web.servlet.config.annotation.EnableWebMvc;
+import usyd.library_reservation_system.library_reservation_system.service.CoverStorageService;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringJUnitWebConfig(CoverResourceConfigTest.TestConfig.class)
+class CoverResourceConfigTest {
+
+    // Not a @TempDir: the Spring context is built before JUnit would inject a static one
+    private static final Path coversDir = createTempDir();
+
+    @DynamicPropertySource
+    static void coverProperties(DynamicPropertyRegistry registry) {
+        registry.add("app.covers.dir", coversDir::toString);
+    }
+
+    @Configuration
+    @EnableWebMvc
+    @Import(CoverResourceConfig.class)
+    static class TestConfig {
+        @Bean
+        CoverStorageService coverStorageService() {
+            return new CoverStorageService();
+        }
+    }
+
+    private static Path createTempDir() {
+        try {
+            return Files.createTempDirectory("covers-test");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @AfterAll
+    static void cleanUp() throws IOException {
+        FileSystemUtils.deleteRecursively(coversDir);
+    }
+
+    @Autowired
+    private WebApplicationContext ctx;
+
+    @Autowired
+    private CoverStorageService storage;
+
+    private MockMvc mockMvc;
+
+    private static final byte[] CONTENT = "0123456789abcdef".getBytes(StandardCharsets.UTF_8);
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(ctx).build();
+    }
+
+    private CoverStorageService.StoredCover store() {
+        try {
+            return storage.store(new ByteArrayInputStream(CONTENT), "c.jpg");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Test
+    void contentAddressedCover_servedImmutableWithHashEtag() throws Exception {
+        CoverStorageService.StoredCover c = store();
+
+        mockMvc.perform(get(c.path()))
+                .andExpect(status().isOk())
+                .andExpect(content().bytes(CONTENT))
+                .andExpect(header().string(HttpHeaders.ETAG, "\"" + c.sha256() + "\""))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=31536000, public, immutable"))
+                .andExpect(header().doesNotExist(HttpHeaders.LAST_MODIFIED));
+    }
+
+    @Test
+    void matchingIfNoneMatch_returns304() throws Exception {
+        CoverStorageService.StoredCover c = store();
+
+        mockMvc.perform(get(c.path()).header(HttpHeaders.IF_NONE_MATCH, "\"" + c.sha256() + "\""))
+                .andExpect(status().isNotModified())
+                .andExpect(content().bytes(new byte[0]));
+    }
+
+    @Test
+    void rangeRequest_returnsPartialContent() throws Exception {
+        CoverStorageService.StoredCover c = store();
+
+        mockMvc.perform(get(c.path()).header(HttpHeaders.RANGE, "bytes=2-5"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 2-5/" + CONTENT.length))
+                .andExpect(content().bytes("2345".getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    void variantAndLegacyFiles_getDistinctEtags() throws Exception {
+        CoverStorageService.StoredCover c = store();
+        Path grid = Files.createDirectories(coversDir.resolve("grid")).resolve(c.sha256() + ".jpg");
+        Files.write(grid, CONTENT);
+        Files.write(coversDir.resolve("legacy-uuid.jpg"), CONTENT);
+
+        mockMvc.perform(get("/img/covers/grid/" + c.sha256() + ".jpg"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"grid-" + c.sha256() + "\""));
+
+        MvcResult legacy = mockMvc.perform(get("/img/covers/legacy-uuid.jpg"))
+                .andExpect(status().isOk())
+                .andReturn();
+        assertTrue(legacy.getResponse().getHeader(HttpHeaders.ETAG).startsWith("\"10-"));
+    }
+
+    @Test
+    void legacyName_getsShortMaxAgeWithRevalidation_variantOfAHashStaysImmutable() throws Exception {
+        CoverStorageService.StoredCover c = store();
+        Files.write(Files.createDirectories(coversDir.resolve("detail")).resolve(c.sha256() + ".jpg"), CONTENT);
+        Files.write(coversDir.resolve("python1.jpg"), CONTENT);
+
+        mockMvc.perform(get("/img/covers/python1.jpg"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=600, must-revalidate, public"));
+        mockMvc.perform(get("/img/covers/detail/" + c.sha256() + ".jpg"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=31536000, public, immutable"));
+    }
+
+    @Test
+    void storedCover_isReadableByOthers() throws Exception {
+        CoverStorageService.StoredCover c = store();
+        Path file = storage.getCoversDir().resolve(c.sha256() + ".jpg");
+
+        assertTrue(Files.getPosixFilePermissions(file).contains(java.nio.file.attribute.PosixFilePermission.OTHERS_READ));
+    }
+
+    @Test
+    void missingOrTraversal_is404() throws Exception {
+        mockMvc.perform(get("/img/covers/nope.jpg"))
+                .andExpect(status().isNotFound())
+                .andExpect(header().doesNotExist(HttpHeaders.CACHE_CONTROL));
+        mockMvc.perform(get("/img/covers/../secret.txt")).andExpect(status().isNotFound());
+    }
+}
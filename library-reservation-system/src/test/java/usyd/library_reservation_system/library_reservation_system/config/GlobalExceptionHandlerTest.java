@@ -10,6 +10,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
+import usyd.library_reservation_system.library_reservation_system.service.BookBusyException;
 import usyd.library_reservation_system.library_reservation_system.service.EmailOrPhoneAlreadyUsedException;
 import usyd.library_reservation_system.library_reservation_system.service.InvalidCredentialsException;
 
@@ -135,6 +136,14 @@ class GlobalExceptionHandlerTest {
         assertEquals("Phone number already registered", result.get("message"));
     }
 
+    @Test
+    void testHandleBookBusy() {
+        Map<String, Object> result = globalExceptionHandler.handleBookBusy(new BookBusyException("Book is busy, please try again"));
+
+        assertEquals("BOOK_BUSY", result.get("error"));
+        assertEquals("Book is busy, please try again", result.get("message"));
+    }
+
     @Test
     void testHandleGeneric_WithNullPointerException() {
         // Arrange
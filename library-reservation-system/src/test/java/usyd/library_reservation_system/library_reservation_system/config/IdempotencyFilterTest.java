@@ -0,0 +1,186 @@
+package usyd.library_reservation_system.library_reservation_system.config;
+
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RestController;
+import usyd.library_reservation_system.library_reservation_system.service.IdempotencyStore;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+class IdempotencyFilterTest {
+
+    @RestController
+    static class CountingController {
+        final AtomicInteger calls = new AtomicInteger();
+        int failuresLeft;
+
+        @PostMapping("/api/reservations/reserve")
+        ResponseEntity<Map<String, Object>> reserve(@RequestBody Map<String, Object> body) {
+            if (failuresLeft > 0) {
+                failuresLeft--;
+                return ResponseEntity.status(503).build();
+            }
+            return ResponseEntity.ok(Map.of("call", calls.incrementAndGet(), "bookId", body.get("bookId")));
+        }
+
+        @PostMapping("/api/books/{id}/favorite")
+        ResponseEntity<Void> favorite(@PathVariable Integer id) {
+            calls.incrementAndGet();
+            return ResponseEntity.ok().build();
+        }
+
+        @PostMapping("/api/reservations/return/{id}")
+        ResponseEntity<Void> returnBook(@PathVariable Integer id) {
+            calls.incrementAndGet();
+            return ResponseEntity.ok().build();
+        }
+    }
+
+    private final CountingController controller = new CountingController();
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        IdempotencyStore store = new IdempotencyStore(null, 24, 1000, false);
+        IdempotencyFilter filter = new IdempotencyFilter(store,
+                List.of("/api/reservations/reserve", "/api/books/*/favorite"));
+        mockMvc = MockMvcBuilders.standaloneSetup(controller).addFilters(filter).build();
+    }
+
+    @Test
+    void retryWithSameKey_replaysFirstResponseWithoutRunningAgain() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            mockMvc.perform(reserve("key-1", 7))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.call").value(1))
+                    .andExpect(jsonPath("$.bookId").value(7));
+        }
+        mockMvc.perform(reserve("key-1", 7)).andExpect(header().string(IdempotencyFilter.REPLAYED_HEADER, "true"));
+        assertEquals(1, controller.calls.get());
+    }
+
+    @Test
+    void sameKeyDifferentBody_isRejected() throws Exception {
+        mockMvc.perform(reserve("key-2", 7)).andExpect(status().isOk());
+
+        mockMvc.perform(reserve("key-2", 8))
+                .andExpect(status().is(422))
+                .andExpect(jsonPath("$.error").value("IDEMPOTENCY_KEY_REUSED"));
+        assertEquals(1, controller.calls.get());
+    }
+
+    @Test
+    void sameKeyFromAnotherUser_runsSeparately() throws Exception {
+        mockMvc.perform(post("/api/books/3/favorite").header(IdempotencyFilter.HEADER, "k").header("X-USER-ID", "1"));
+        mockMvc.perform(post("/api/books/3/favorite").header(IdempotencyFilter.HEADER, "k").header("X-USER-ID", "1"));
+        mockMvc.perform(post("/api/books/3/favorite").header(IdempotencyFilter.HEADER, "k").header("X-USER-ID", "2"));
+
+        assertEquals(2, controller.calls.get());
+    }
+
+    @Test
+    void sameKeyForAnotherUserInTheBody_runsSeparately() throws Exception {
+        mockMvc.perform(reserveAs("shared", 1, 7)).andExpect(status().isOk()).andExpect(jsonPath("$.call").value(1));
+        mockMvc.perform(reserveAs("shared", 2, 7)).andExpect(status().isOk()).andExpect(jsonPath("$.call").value(2));
+        mockMvc.perform(reserveAs("shared", 1, 7))
+                .andExpect(jsonPath("$.call").value(1))
+                .andExpect(header().string(IdempotencyFilter.REPLAYED_HEADER, "true"));
+    }
+
+    @Test
+    void bodyUserId_readsTheTopLevelFieldOnly() {
+        assertEquals("5", IdempotencyFilter.bodyUserId("{\"userId\":5,\"bookId\":1}".getBytes()));
+        assertEquals("", IdempotencyFilter.bodyUserId("{\"user\":{\"userId\":5}}".getBytes()));
+        assertEquals("", IdempotencyFilter.bodyUserId("not json".getBytes()));
+        assertEquals("", IdempotencyFilter.bodyUserId(new byte[0]));
+    }
+
+    @Test
+    void serverErrorIsNotKept_soTheRetryRunsAgain() throws Exception {
+        controller.failuresLeft = 1;
+
+        mockMvc.perform(reserve("key-3", 7)).andExpect(status().isServiceUnavailable());
+        mockMvc.perform(reserve("key-3", 7)).andExpect(status().isOk()).andExpect(jsonPath("$.call").value(1));
+    }
+
+    @Test
+    void requestsWithoutKeyOrOnOtherPaths_passThrough() throws Exception {
+        mockMvc.perform(post("/api/reservations/reserve").contentType(MediaType.APPLICATION_JSON).content("{\"bookId\":7}"));
+        mockMvc.perform(post("/api/reservations/reserve").contentType(MediaType.APPLICATION_JSON).content("{\"bookId\":7}"));
+        mockMvc.perform(post("/api/reservations/return/5").header(IdempotencyFilter.HEADER, "k"));
+        mockMvc.perform(post("/api/reservations/return/5").header(IdempotencyFilter.HEADER, "k"));
+
+        assertEquals(4, controller.calls.get());
+    }
+
+    @Test
+    void blankKey_isRejected() throws Exception {
+        mockMvc.perform(reserve(" ", 7))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("INVALID_IDEMPOTENCY_KEY"));
+        assertEquals(0, controller.calls.get());
+    }
+
+    @Test
+    void cachedBody_supportsNonBlockingReads() throws Exception {
+        byte[] body = "{\"bookId\":7}".getBytes(StandardCharsets.UTF_8);
+        ServletInputStream in = new IdempotencyFilter.CachedBodyRequest(new MockHttpServletRequest(), body).getInputStream();
+        ByteArrayOutputStream read = new ByteArrayOutputStream();
+        List<String> calls = new ArrayList<>();
+
+        in.setReadListener(new ReadListener() {
+            @Override
+            public void onDataAvailable() throws IOException {
+                calls.add("data");
+                byte[] buf = new byte[4];
+                while (in.isReady() && !in.isFinished()) {
+                    read.write(buf, 0, in.read(buf));
+                }
+            }
+
+            @Override
+            public void onAllDataRead() {
+                calls.add("done");
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                calls.add("error");
+            }
+        });
+
+        assertEquals(List.of("data", "done"), calls);
+        assertArrayEquals(body, read.toByteArray());
+    }
+
+    private static org.springframework.test.web.servlet.RequestBuilder reserve(String key, int bookId) {
+        return reserveAs(key, 1, bookId);
+    }
+
+    private static org.springframework.test.web.servlet.RequestBuilder reserveAs(String key, int userId, int bookId) {
+        return post("/api/reservations/reserve")
+                .header(IdempotencyFilter.HEADER, key)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"userId\":" + userId + ",\"bookId\":" + bookId + "}");
+    }
+}
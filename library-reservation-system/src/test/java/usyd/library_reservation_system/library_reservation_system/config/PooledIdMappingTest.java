@@ -0,0 +1,246 @@
+package usyd.library_reservation_system.library_reservation_system.config;
+
+import org.flywaydb.core.Flyway;
+import org.hibernate.SessionFactory;
+import org.hibernate.boot.model.naming.CamelCaseToUnderscoresNamingStrategy;
+import org.hibernate.cfg.Configuration;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import usyd.library_reservation_system.library_reservation_system.model.AdminLoginEvent;
+import usyd.library_reservation_system.library_reservation_system.model.Comment;
+import usyd.library_reservation_system.library_reservation_system.model.Label;
+import usyd.library_reservation_system.library_reservation_system.model.Reservation;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Loads META-INF/orm-pooled-ids.xml the same way the pooled-ids profile does and checks,
+ * against H2 in MySQL mode, that ids come from id_pool and that inserts are sent in JDBC batches.
+ */
+class PooledIdMappingTest {
+
+    private SessionFactory sessionFactory;
+
+    @BeforeEach
+    void setUp() {
+        sessionFactory = new Configuration()
+                .setProperty("hibernate.connection.url",
+                        "jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=MySQL;DB_CLOSE_DELAY=-1")
+                .setProperty("hibernate.hbm2ddl.auto", "create-drop")
+                .setProperty("hibernate.jdbc.batch_size", "50")
+                .setProperty("hibernate.order_inserts", "true")
+                .setProperty("hibernate.id.optimizer.pooled.preferred", "pooled-lo")
+                .setProperty("hibernate.generate_statistics", "true")
+                .setPhysicalNamingStrategy(new CamelCaseToUnderscoresNamingStrategy())
+                .addAnnotatedClass(Reservation.class)
+                .addAnnotatedClass(Comment.class)
+                .addAnnotatedClass(Label.class)
+                .addAnnotatedClass(AdminLoginEvent.class)
+                .addResource("META-INF/orm-pooled-ids.xml")
+                .buildSessionFactory();
+    }
+
+    @AfterEach
+    void tearDown() {
+        sessionFactory.close();
+    }
+
+    @Test
+    void commentIdsStartAtSeededValueAndAreContiguous() {
+        seed("comment", 1000);
+
+        List<Integer> ids = new ArrayList<>();
+        sessionFactory.inTransaction(session -> {
+            for (int i = 0; i < 120; i++) {
+                Comment c = newComment(i);
+                session.persist(c);
+                // Assigned at persist time, before any INSERT has been flushed
+                ids.add(c.getCommentId());
+            }
+        });
+
+        for (int i = 0; i < ids.size(); i++) {
+            assertEquals(1001 + i, ids.get(i));
+        }
+        // The row holds the last id of the highest reserved block: 1000 + 3 blocks of 50
+        assertEquals(1150L, lastVal("comment"));
+    }
+
+    @Test
+    void insertsAreBatched() {
+        sessionFactory.getStatistics().clear();
+
+        sessionFactory.inTransaction(session -> {
+            for (int i = 0; i < 120; i++) {
+                session.persist(newComment(i));
+            }
+        });
+
+        // One INSERT prepared and reused for all batches; IDENTITY would prepare and run 120 of them.
+        // id_pool is read on its own isolated connection, so it does not show up here.
+        assertEquals(120, sessionFactory.getStatistics().getEntityInsertCount());
+        assertEquals(1, sessionFactory.getStatistics().getPrepareStatementCount());
+    }
+
+    @Test
+    void eachEntityDrawsFromItsOwnRow() {
+        seed("comment", 499);
+        seed("label", 19);
+
+        Integer[] commentId = new Integer[1];
+        Integer[] labelId = new Integer[1];
+        Long[] eventId = new Long[1];
+        sessionFactory.inTransaction(session -> {
+            Comment c = new Comment();
+            c.setBookId(1);
+            c.setAuthorId(1);
+            c.setContent("ok");
+            session.persist(c);
+            commentId[0] = c.getCommentId();
+
+            Label l = new Label();
+            l.setLabelName("pooled");
+            l.setCreateDate(LocalDateTime.now());
+            session.persist(l);
+            labelId[0] = l.getLabelId();
+
+            AdminLoginEvent e = new AdminLoginEvent();
+            e.setEmail("a@b.c");
+            e.setSuccess(true);
+            e.setEventTime(LocalDateTime.now());
+            session.persist(e);
+            eventId[0] = e.getEventId();
+        });
+
+        assertEquals(500, commentId[0]);
+        assertEquals(20, labelId[0]);
+        // AdminLoginAuditWriter inserts these over JDBC with AUTO_INCREMENT ids, so they stay on IDENTITY
+        assertEquals(1L, eventId[0]);
+    }
+
+    @Test
+    void reservationStaysOnIdentity() {
+        // ReservationBatchWriter inserts reservations over JDBC with AUTO_INCREMENT ids
+        Integer[] id = new Integer[1];
+        sessionFactory.inTransaction(session -> {
+            Reservation r = newReservation(0);
+            session.persist(r);
+            id[0] = r.getReservationId();
+        });
+
+        assertEquals(1, id[0]);
+        long poolRows = sessionFactory.fromTransaction(session -> ((Number) session
+                .createNativeQuery("SELECT COUNT(*) FROM id_pool WHERE seq_name = 'reservation'", Object.class)
+                .getSingleResult()).longValue());
+        assertEquals(0, poolRows);
+    }
+
+    @Test
+    void switchingToThePoolAfterIdentityInserts_continuesAboveTheExistingRows() {
+        // Flyway schema: id_pool is seeded at migration time, then the app keeps inserting via AUTO_INCREMENT
+        String url = "jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+        DriverManagerDataSource ds = new DriverManagerDataSource(url, "sa", "");
+        Flyway.configure().dataSource(ds).locations("classpath:db/migration").load().migrate();
+        try (SessionFactory identity = flywaySessionFactory(url, false)) {
+            identity.inTransaction(session -> {
+                for (int i = 0; i < 3; i++) {
+                    session.persist(newLabel(i));
+                }
+            });
+        }
+        JdbcTemplate jdbc = new JdbcTemplate(ds);
+        assertEquals(0L, jdbc.queryForObject("SELECT last_val FROM id_pool WHERE seq_name = 'label'", Long.class));
+
+        new IdPoolAlignment(jdbc).align();
+
+        Integer[] id = new Integer[1];
+        try (SessionFactory pooled = flywaySessionFactory(url, true)) {
+            pooled.inTransaction(session -> {
+                Label l = newLabel(3);
+                session.persist(l);
+                id[0] = l.getLabelId();
+            });
+        }
+        assertEquals(4, id[0]);
+        assertEquals(4, jdbc.queryForObject("SELECT COUNT(*) FROM label", Integer.class));
+    }
+
+    @Test
+    void alignment_neverMovesThePoolBackwards() {
+        String url = "jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+        DriverManagerDataSource ds = new DriverManagerDataSource(url, "sa", "");
+        Flyway.configure().dataSource(ds).locations("classpath:db/migration").load().migrate();
+        JdbcTemplate jdbc = new JdbcTemplate(ds);
+        // An earlier pooled run reserved ids up to 100 but only used a few of them
+        jdbc.update("UPDATE id_pool SET last_val = 100 WHERE seq_name = 'label'");
+        jdbc.update("INSERT INTO label (label_id, label_name) VALUES (51, 'used')");
+
+        new IdPoolAlignment(jdbc).align();
+
+        assertEquals(100L, jdbc.queryForObject("SELECT last_val FROM id_pool WHERE seq_name = 'label'", Long.class));
+    }
+
+    // Against the Flyway schema instead of create-drop; pooled adds the profile's mapping file
+    private static SessionFactory flywaySessionFactory(String url, boolean pooled) {
+        Configuration configuration = new Configuration()
+                .setProperty("hibernate.connection.url", url)
+                .setProperty("hibernate.connection.username", "sa")
+                .setProperty("hibernate.hbm2ddl.auto", "none")
+                .setProperty("hibernate.id.optimizer.pooled.preferred", "pooled-lo")
+                .setPhysicalNamingStrategy(new CamelCaseToUnderscoresNamingStrategy())
+                .addAnnotatedClass(Label.class);
+        if (pooled) {
+            configuration.addResource("META-INF/orm-pooled-ids.xml");
+        }
+        return configuration.buildSessionFactory();
+    }
+
+    private static Label newLabel(int i) {
+        Label l = new Label();
+        l.setLabelName("label " + i);
+        l.setCreateDate(LocalDateTime.now());
+        return l;
+    }
+
+    private static Comment newComment(int i) {
+        Comment c = new Comment();
+        c.setBookId(1 + i % 7);
+        c.setAuthorId(1 + i % 5);
+        c.setContent("comment " + i);
+        return c;
+    }
+
+    private static Reservation newReservation(int i) {
+        Reservation r = new Reservation();
+        r.setCreateDate(LocalDateTime.now());
+        r.setStatus((byte) 0);
+        r.setUserId(1 + i % 5);
+        r.setBookId(1 + i % 7);
+        return r;
+    }
+
+    // Schema export already inserted one row per generator; move it as the SQL dump's seed does
+    private void seed(String name, long lastUsedId) {
+        sessionFactory.inTransaction(session -> session
+                .createNativeMutationQuery("UPDATE id_pool SET last_val = :v WHERE seq_name = :n")
+                .setParameter("n", name)
+                .setParameter("v", lastUsedId)
+                .executeUpdate());
+    }
+
+    private long lastVal(String name) {
+        return sessionFactory.fromTransaction(session -> ((Number) session
+                .createNativeQuery("SELECT last_val FROM id_pool WHERE seq_name = :n", Object.class)
+                .setParameter("n", name)
+                .getSingleResult()).longValue());
+    }
+
+}
@@ -0,0 +1,259 @@
+package usyd.library_reservation_system.library_reservation_system.config;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.sql.Statement;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the Flyway migrations against H2 in MySQL mode and EXPLAINs the hot repository queries.
+ * Any query that plans as a full table scan fails the build, so a finder added without an index
+ * (or a migration that drops one) shows up here instead of in production.
+ */
+class SchemaMigrationTest {
+
+    private static String url;
+    private static Connection connection;
+
+    @BeforeAll
+    static void migrate() throws SQLException {
+        url = "jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+        Flyway.configure()
+                .dataSource(url, "sa", "")
+                .locations("classpath:db/migration")
+                .load()
+                .migrate();
+        connection = DriverManager.getConnection(url, "sa", "");
+    }
+
+    @AfterAll
+    static void close() throws SQLException {
+        connection.close();
+    }
+
+    // One row per hot finder, written as the SQL Hibernate / the service issues for it
+    @ParameterizedTest
+    @ValueSource(strings = {
+            // ReservationRepository.findByBookIdAndStatusOrderByCreateDateAsc
+            "SELECT * FROM reservation WHERE book_id = 1 AND status = 0 ORDER BY create_date",
+            // ReservationRepository.claimQueued
+            "SELECT * FROM reservation WHERE book_id = 1 AND status = 0 "
+                    + "ORDER BY create_date, reservation_id LIMIT 10 FOR UPDATE",
+            // ReservationRepository.assignQueued
+            "UPDATE reservation SET status = 1, assign_date = CURRENT_TIMESTAMP "
+                    + "WHERE reservation_id IN (1, 2, 3) AND status = 0",
+            // ReservationRepository.lockAllById
+            "SELECT * FROM reservation WHERE reservation_id IN (1, 2, 3) FOR UPDATE",
+            // ReservationRepository.returnLoans
+            "UPDATE reservation SET status = 2, return_date = CURRENT_DATE "
+                    + "WHERE reservation_id IN (1, 2, 3) AND status = 4",
+            // ReservationRepository.findByStatus
+            "SELECT * FROM reservation WHERE status = 1",
+            // ReservationRepository.findByUserIdOrderByCreateDateDesc
+            "SELECT * FROM reservation WHERE user_id = 1 ORDER BY create_date DESC",
+            // ReservationRepository.findActivePairsByUserId
+            "SELECT reservation_id, user_id, book_id FROM reservation WHERE user_id = 1 AND status IN (0, 1, 4)",
+            // ReservationRepository.findRecentLoans
+            "SELECT * FROM reservation WHERE book_id = 1 AND status = 2 AND take_date IS NOT NULL "
+                    + "AND return_date IS NOT NULL ORDER BY return_date DESC LIMIT 50",
+            // ReservationRepository.countByBookIdAndStatusIn
+            "SELECT COUNT(*) FROM reservation WHERE book_id = 1 AND status IN (1, 4)",
+            // BookRepository.lockAllById
+            "SELECT * FROM book WHERE book_id IN (1, 2, 3) ORDER BY book_id FOR UPDATE",
+            // BookRepository.reserveOneEach
+            "UPDATE book SET quantity = CASE WHEN quantity > 0 THEN quantity - 1 ELSE quantity END, "
+                    + "num_reservation = num_reservation + 1 WHERE book_id IN (1, 2, 3)",
+            // ReservationArchiveRepository.findByUserIdOrderByCreateDateDesc
+            "SELECT * FROM reservation_archive WHERE user_id = 1 ORDER BY create_date DESC",
+            // ReservationArchiver.SELECT_CHUNK_SQL (primary key walk)
+            "SELECT reservation_id FROM reservation WHERE reservation_id > 0 AND status IN (2, 3) "
+                    + "AND create_date < CURRENT_TIMESTAMP ORDER BY reservation_id LIMIT 1000",
+            // ReservationRepository.stampMissingAssignDates
+            "UPDATE reservation SET assign_date = CURRENT_TIMESTAMP WHERE status = 1 AND assign_date IS NULL",
+            // OverdueLoanJob.SCAN_SQL (keyset walk over newly overdue loans)
+            "SELECT reservation_id, user_id, book_id, due_date FROM reservation WHERE status = 4 "
+                    + "AND overdue_notified_at IS NULL AND due_date < CURRENT_DATE "
+                    + "AND (due_date > DATE '2025-01-01' OR (due_date = DATE '2025-01-01' AND reservation_id > 0)) "
+                    + "ORDER BY due_date, reservation_id LIMIT 500",
+            // IdempotencyStore.PURGE_SQL
+            "DELETE FROM idempotency_key WHERE expires_at < CURRENT_TIMESTAMP",
+            // ReservationEventDispatcher.PENDING_SQL
+            "SELECT event_id, reservation_id, user_id, book_id, status, occurred_at FROM reservation_event "
+                    + "WHERE dispatched_at IS NULL AND event_id > 0 ORDER BY event_id LIMIT 200",
+            // ReservationEventDispatcher.PURGE_SQL
+            "DELETE FROM reservation_event WHERE dispatched_at < CURRENT_TIMESTAMP",
+            // CommentRepository.findByBookIdAndStatus
+            "SELECT * FROM comment WHERE book_id = 1 AND status = 1",
+            // CommentRepository.findByBookId
+            "SELECT * FROM comment WHERE book_id = 1",
+            // FavoriteRepository.findByIdUserId
+            "SELECT * FROM favorite WHERE user_id = 1",
+            // FavoriteRepository.findById
+            "SELECT * FROM favorite WHERE book_id = 1 AND user_id = 1",
+            // AdminLoginEventRepository.findByAdministratorIdOrderByEventTimeDesc
+            "SELECT * FROM admin_login_event WHERE administrator_id = 1 ORDER BY event_time DESC LIMIT 20",
+    })
+    void hotQueryUsesAnIndex(String sql) throws SQLException {
+        String plan = explain(sql);
+        assertFalse(plan.contains("tableScan"), () -> "full scan for: " + sql + "\n" + plan);
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+            "reservation, idx_reservation_book_status_create",
+            "reservation, idx_reservation_user_create",
+            "reservation, idx_reservation_status_create",
+            "comment, idx_comment_book_status",
+            "favorite, idx_favorite_user_time",
+            "reservation_archive, idx_reservation_archive_user_create",
+            "reservation, idx_reservation_overdue_scan",
+            "idempotency_key, idx_idempotency_key_expires",
+            "reservation_event, idx_reservation_event_pending",
+    })
+    void compositeIndexExists(String table, String index) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement(
+                "SELECT COUNT(*) FROM information_schema.indexes WHERE table_name = ? AND index_name = ?")) {
+            ps.setString(1, table);
+            ps.setString(2, index);
+            try (ResultSet rs = ps.executeQuery()) {
+                rs.next();
+                assertTrue(rs.getInt(1) > 0, () -> index + " missing on " + table);
+            }
+        }
+    }
+
+    @Test
+    void baseline_isTheDumpSchema_andLaterTablesComeFromTheirOwnMigrations() throws SQLException {
+        // A database imported from library_reservation_system.sql is baselined at V1 and only gets V1_1+
+        String freshUrl = "jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+        Flyway.configure().dataSource(freshUrl, "sa", "").locations("classpath:db/migration").target("1").load().migrate();
+        try (Connection c = DriverManager.getConnection(freshUrl, "sa", "")) {
+            assertEquals(7, countTables(c));
+
+            Flyway.configure().dataSource(freshUrl, "sa", "").locations("classpath:db/migration").load().migrate();
+
+            try (ResultSet rs = c.createStatement().executeQuery(
+                    "SELECT COUNT(*) FROM information_schema.tables WHERE table_schema = 'public' "
+                            + "AND table_name IN ('admin_login_event', 'id_pool', 'reservation_archive')")) {
+                rs.next();
+                assertEquals(3, rs.getInt(1));
+            }
+        }
+    }
+
+    @Test
+    void secondActiveReservationOfABook_isRejected() throws SQLException {
+        try (Statement st = connection.createStatement()) {
+            st.execute("SET REFERENTIAL_INTEGRITY FALSE");
+            st.executeUpdate(insert(9001, 77, 500, 2));
+            st.executeUpdate(insert(9002, 77, 500, 4));
+            // A returned or cancelled reservation does not count
+            st.executeUpdate(insert(9003, 77, 500, 3));
+            assertThrows(SQLIntegrityConstraintViolationException.class, () -> st.executeUpdate(insert(9004, 77, 500, 0)));
+            st.executeUpdate(insert(9005, 78, 500, 0));
+        }
+    }
+
+    @Test
+    void uniqueActiveMigration_cancelsSurplusDuplicatesAndReleasesHeldCopies() throws SQLException {
+        String freshUrl = "jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+        Flyway.configure().dataSource(freshUrl, "sa", "").locations("classpath:db/migration").target("5").load().migrate();
+        try (Connection c = DriverManager.getConnection(freshUrl, "sa", ""); Statement st = c.createStatement()) {
+            st.execute("SET REFERENTIAL_INTEGRITY FALSE");
+            st.executeUpdate("INSERT INTO book (book_id, book_name, author, label_id, quantity, num_reservation) VALUES (500, 'b', 'a', 1, 0, 5)");
+            st.executeUpdate(insert(1, 77, 500, 1));
+            st.executeUpdate(insert(2, 77, 500, 4)); // kept: the loan
+            st.executeUpdate(insert(3, 77, 500, 0));
+            st.executeUpdate(insert(4, 78, 500, 0)); // kept: the older queue entry
+            st.executeUpdate(insert(5, 78, 500, 0));
+
+            Flyway.configure().dataSource(freshUrl, "sa", "").locations("classpath:db/migration").load().migrate();
+
+            try (ResultSet rs = st.executeQuery("SELECT reservation_id, status FROM reservation ORDER BY reservation_id")) {
+                StringBuilder statuses = new StringBuilder();
+                while (rs.next()) {
+                    statuses.append(rs.getInt(1)).append('=').append(rs.getInt(2)).append(' ');
+                }
+                assertEquals("1=3 2=4 3=3 4=0 5=3 ", statuses.toString());
+            }
+            try (ResultSet rs = st.executeQuery("SELECT quantity, num_reservation FROM book WHERE book_id = 500")) {
+                rs.next();
+                assertEquals(1, rs.getInt(1));
+                assertEquals(4, rs.getInt(2));
+            }
+        }
+    }
+
+    @Test
+    void uniqueActiveMigration_withTwoOpenLoansOfOneBook_abortsBeforeChangingAnything() throws SQLException {
+        String freshUrl = "jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+        Flyway.configure().dataSource(freshUrl, "sa", "").locations("classpath:db/migration").target("5").load().migrate();
+        try (Connection c = DriverManager.getConnection(freshUrl, "sa", ""); Statement st = c.createStatement()) {
+            st.execute("SET REFERENTIAL_INTEGRITY FALSE");
+            st.executeUpdate(insert(1, 77, 500, 4));
+            st.executeUpdate(insert(2, 77, 500, 4));
+            st.executeUpdate(insert(3, 77, 500, 0));
+
+            Flyway flyway = Flyway.configure().dataSource(freshUrl, "sa", "").locations("classpath:db/migration").load();
+            assertThrows(Exception.class, flyway::migrate);
+
+            // Nothing cancelled and no generated column yet
+            try (ResultSet rs = st.executeQuery("SELECT COUNT(*) FROM reservation WHERE status = 3")) {
+                rs.next();
+                assertEquals(0, rs.getInt(1));
+            }
+            try (ResultSet rs = st.executeQuery("SELECT COUNT(*) FROM information_schema.columns "
+                    + "WHERE table_name = 'reservation' AND column_name = 'active_user_id'")) {
+                rs.next();
+                assertEquals(0, rs.getInt(1));
+            }
+
+            // Once the extra loan is closed by hand, repair + migrate goes through
+            st.executeUpdate("UPDATE reservation SET status = 2 WHERE reservation_id = 2");
+            flyway.repair();
+            flyway.migrate();
+            try (ResultSet rs = st.executeQuery("SELECT status FROM reservation WHERE reservation_id = 3")) {
+                rs.next();
+                assertEquals(3, rs.getInt(1));
+            }
+        }
+    }
+
+    private static int countTables(Connection c) throws SQLException {
+        try (ResultSet rs = c.createStatement().executeQuery(
+                "SELECT COUNT(*) FROM information_schema.tables WHERE table_schema = 'public' "
+                        + "AND table_name <> 'flyway_schema_history'")) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+
+    private static String insert(int id, int userId, int bookId, int status) {
+        return "INSERT INTO reservation (reservation_id, create_date, status, user_id, book_id) VALUES ("
+                + id + ", CURRENT_TIMESTAMP, " + status + ", " + userId + ", " + bookId + ")";
+    }
+
+    private static String explain(String sql) throws SQLException {
+        StringBuilder plan = new StringBuilder();
+        try (ResultSet rs = connection.createStatement().executeQuery("EXPLAIN " + sql)) {
+            while (rs.next()) {
+                plan.append(rs.getString(1)).append('\n');
+            }
+        }
+        return plan.toString();
+    }
+}
@@ -0,0 +1,63 @@
+package usyd.library_reservation_system.library_reservation_system.controller;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import usyd.library_reservation_system.library_reservation_system.service.ExportService;
+
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+class AdminExportControllerTest {
+
+    private final ExportService exportService = mock(ExportService.class);
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.standaloneSetup(new AdminExportController(exportService)).build();
+    }
+
+    @Test
+    void exportBooks_streamsCsvAttachment() throws Exception {
+        doAnswer(inv -> {
+            ((OutputStream) inv.getArgument(2)).write("bookId\r\n1\r\n".getBytes(StandardCharsets.UTF_8));
+            return null;
+        }).when(exportService).exportBooks(eq(3), eq(ExportService.Format.CSV), any());
+
+        MvcResult started = mockMvc.perform(get("/api/admin/export/books").param("format", "csv").param("labelId", "3"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Disposition", "attachment; filename=\"books.csv\""))
+                .andExpect(header().string("Content-Type", "text/csv;charset=UTF-8"))
+                .andExpect(content().string("bookId\r\n1\r\n"));
+    }
+
+    @Test
+    void exportReservations_passesFiltersAndDefaultsToNdjson() throws Exception {
+        MvcResult started = mockMvc.perform(get("/api/admin/export/reservations")
+                        .param("status", "0").param("from", "2025-01-01"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Disposition", "attachment; filename=\"reservations.ndjson\""));
+
+        verify(exportService).exportReservations(
+                eq(new ExportService.ReservationFilter((byte) 0, null, null, LocalDate.of(2025, 1, 1), null)),
+                eq(ExportService.Format.NDJSON), any());
+    }
+}
@@ -9,7 +9,10 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import usyd.library_reservation_system.library_reservation_system.dto.AdminActionResponse;
+import usyd.library_reservation_system.library_reservation_system.dto.AdminBatchResult;
+import usyd.library_reservation_system.library_reservation_system.dto.AdminBatchUserRequest;
 import usyd.library_reservation_system.library_reservation_system.dto.AdminUserSummaryDTO;
+import usyd.library_reservation_system.library_reservation_system.dto.PageResponse;
 import usyd.library_reservation_system.library_reservation_system.service.AdminUserManagementService;
 
 import java.util.Arrays;
@@ -87,6 +90,35 @@ class AdminUserManagementControllerTest {
         verify(adminUserManagementService, times(1)).searchByNickname("ali");
     }
 
+    @Test
+    void testSearchPage_ReturnsPageResponse() throws Exception {
+        when(adminUserManagementService.searchUsers("test", 1, 5))
+                .thenReturn(new PageResponse<>(List.of(testUser), 1, 5, 6));
+
+        mockMvc.perform(get("/api/admin/users/search/page")
+                        .param("q", "test")
+                        .param("page", "1")
+                        .param("size", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(1))
+                .andExpect(jsonPath("$.items[0].nickname").value("testUser"))
+                .andExpect(jsonPath("$.page").value(1))
+                .andExpect(jsonPath("$.total").value(6));
+    }
+
+    @Test
+    void testSearchByEmail_IsSeparateFromNicknameSearch() throws Exception {
+        when(adminUserManagementService.searchByEmail("example.com")).thenReturn(List.of(testUser));
+
+        mockMvc.perform(get("/api/admin/users/search/email")
+                        .param("q", "example.com"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].nickname").value("testUser"));
+
+        verify(adminUserManagementService, never()).searchByNickname(anyString());
+    }
+
     @Test
     void testSearch_WithNoMatchingUsers() throws Exception {
         // Arrange
@@ -780,5 +812,47 @@ class AdminUserManagementControllerTest {
 
         verify(adminUserManagementService, times(1)).unbanUser(999999);
     }
-}
 
+    // ==================== Batch Tests ====================
+
+    @Test
+    void testBatchBan_ReturnsPerUserResults() throws Exception {
+        when(adminUserManagementService.banUsers(any(AdminBatchUserRequest.class))).thenReturn(List.of(
+                AdminBatchResult.builder().userId(1).success(true).message("banned").build(),
+                AdminBatchResult.builder().userId(9).success(false).message("user not found").build()));
+
+        mockMvc.perform(post("/api/admin/users/batch/ban")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"userIds\":[1,9]}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].success").value(true))
+                .andExpect(jsonPath("$[1].message").value("user not found"));
+    }
+
+    @Test
+    void testBatchUnban_ByNickname() throws Exception {
+        when(adminUserManagementService.unbanUsers(any(AdminBatchUserRequest.class))).thenReturn(List.of());
+
+        mockMvc.perform(post("/api/admin/users/batch/unban")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"nickname\":\"spam\"}"))
+                .andExpect(status().isOk());
+
+        verify(adminUserManagementService).unbanUsers(argThat(r -> "spam".equals(r.getNickname())));
+    }
+
+    @Test
+    void testBatchResetPassword_UsesConfiguredDefault() throws Exception {
+        when(adminUserManagementService.resetPasswordsToDefault(any(AdminBatchUserRequest.class), anyString()))
+                .thenReturn(List.of(AdminBatchResult.builder().userId(1).success(true).build()));
+
+        mockMvc.perform(post("/api/admin/users/batch/reset-password")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"userIds\":[1]}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].userId").value(1));
+
+        verify(adminUserManagementService).resetPasswordsToDefault(any(AdminBatchUserRequest.class), eq("123456789"));
+    }
+}
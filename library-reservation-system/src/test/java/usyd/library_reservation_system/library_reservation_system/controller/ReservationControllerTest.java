@@ -9,8 +9,16 @@ import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import usyd.library_reservation_system.library_reservation_system.dto.AdminReservationDTO;
+import usyd.library_reservation_system.library_reservation_system.dto.BatchReserveRequest;
+import usyd.library_reservation_system.library_reservation_system.dto.BatchReserveResult;
+import usyd.library_reservation_system.library_reservation_system.dto.BatchReturnResult;
+import usyd.library_reservation_system.library_reservation_system.dto.QueuePositionDTO;
 import usyd.library_reservation_system.library_reservation_system.dto.ReservationDTO;
 import usyd.library_reservation_system.library_reservation_system.dto.ReservationResponseDTO;
+import usyd.library_reservation_system.library_reservation_system.dto.RestockResultDTO;
+import usyd.library_reservation_system.library_reservation_system.service.BookLockManager;
+import usyd.library_reservation_system.library_reservation_system.service.OverdueLoanJob;
+import usyd.library_reservation_system.library_reservation_system.service.ReservationEventDispatcher;
 import usyd.library_reservation_system.library_reservation_system.service.ReservationService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
@@ -30,6 +38,12 @@ public class ReservationControllerTest {
     @Mock
     private ReservationService reservationService;
 
+    @Mock
+    private OverdueLoanJob overdueLoanJob;
+
+    @Mock
+    private ReservationEventDispatcher eventDispatcher;
+
     @InjectMocks
     private ReservationController reservationController;
 
@@ -63,6 +77,135 @@ public class ReservationControllerTest {
     }
     // endregion
 
+    // region getQueuePosition()
+    @Test
+    void testGetQueuePosition_ShouldReturnPositionAndEta() throws Exception {
+        when(reservationService.getQueuePosition(1, 8)).thenReturn(
+                new QueuePositionDTO(8, 100, (byte) 0, 2, 4, 12.5, 13, null));
+
+        mockMvc.perform(get("/api/reservations/8/queue").header("X-USER-ID", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.position").value(2))
+                .andExpect(jsonPath("$.queueLength").value(4))
+                .andExpect(jsonPath("$.estimatedWaitDays").value(13));
+    }
+
+    @Test
+    void testGetQueuePosition_UnknownOrNotOwned_ShouldReturn404() throws Exception {
+        when(reservationService.getQueuePosition(1, 8)).thenReturn(null);
+
+        mockMvc.perform(get("/api/reservations/8/queue").header("X-USER-ID", "1"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void testGetQueuePosition_MissingUserHeader_ShouldReturn400() throws Exception {
+        mockMvc.perform(get("/api/reservations/8/queue"))
+                .andExpect(status().isBadRequest());
+        verify(reservationService, never()).getQueuePosition(any(), any());
+    }
+    // endregion
+
+    // region reserveBooks()
+    @Test
+    void testReserveBooks_ShouldPassModeAndReturnPerBookResults() throws Exception {
+        when(reservationService.reserveBooks(1, List.of(100, 200), BatchReserveRequest.Mode.BEST_EFFORT)).thenReturn(List.of(
+                new BatchReserveResult(100, 80, true, (byte) 1, "Reservation successful"),
+                new BatchReserveResult(200, null, false, (byte) -1, "Book not found")));
+
+        mockMvc.perform(post("/api/reservations/reserve/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"userId\":1,\"bookIds\":[100,200],\"mode\":\"BEST_EFFORT\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].reservationId").value(80))
+                .andExpect(jsonPath("$[1].success").value(false));
+        verify(reservationService, never()).reserveBook(any(), any());
+    }
+    // endregion
+
+    // region returnBooks()
+    @Test
+    void testReturnBooks_ShouldReturnPerItemResults() throws Exception {
+        when(reservationService.returnBooks(List.of(5, 6))).thenReturn(List.of(
+                new BatchReturnResult(5, 100, true, (byte) 2, "Return successful"),
+                new BatchReturnResult(6, null, false, (byte) -1, "Reservation not found")));
+
+        mockMvc.perform(post("/api/reservations/return/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"reservationIds\":[5,6]}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].success").value(true))
+                .andExpect(jsonPath("$[1].message").value("Reservation not found"));
+        verify(reservationService, never()).returnBook(any());
+    }
+    // endregion
+
+    // region restock()
+    @Test
+    void testRestock_ShouldReturnAssignedWaiters() throws Exception {
+        when(reservationService.restock(100, 5)).thenReturn(new RestockResultDTO(100, 5, List.of(11, 12), 3));
+
+        mockMvc.perform(post("/api/reservations/admin/restock/100").param("copies", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.assignedReservationIds.length()").value(2))
+                .andExpect(jsonPath("$.quantity").value(3));
+    }
+
+    @Test
+    void testRestock_UnknownBook_ShouldReturn404() throws Exception {
+        when(reservationService.restock(999, 1)).thenReturn(null);
+
+        mockMvc.perform(post("/api/reservations/admin/restock/999").param("copies", "1"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void testRestock_NonPositiveCopies_ShouldReturn400() throws Exception {
+        mockMvc.perform(post("/api/reservations/admin/restock/100").param("copies", "0"))
+                .andExpect(status().isBadRequest());
+        verify(reservationService, never()).restock(any(), anyInt());
+    }
+    // endregion
+
+    // region getOverdueStats()
+    @Test
+    void testGetOverdueStats_ShouldReturnJobCounters() throws Exception {
+        when(overdueLoanJob.stats()).thenReturn(new OverdueLoanJob.Stats(3, 120, 118, 2, 110, 8, 40, 3000.0));
+
+        mockMvc.perform(get("/api/reservations/admin/overdue-stats"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.loansFound").value(120))
+                .andExpect(jsonPath("$.noticesSent").value(110))
+                .andExpect(jsonPath("$.lastRunLoansPerSecond").value(3000.0));
+    }
+    // endregion
+
+    // region getEventStats()
+    @Test
+    void testGetEventStats_ShouldReturnDispatcherCounters() throws Exception {
+        when(eventDispatcher.stats()).thenReturn(new ReservationEventDispatcher.Stats(12, 340, 1, 200, 85));
+
+        mockMvc.perform(get("/api/reservations/admin/event-stats"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.dispatched").value(340))
+                .andExpect(jsonPath("$.subscriberFailures").value(1))
+                .andExpect(jsonPath("$.lastLagMs").value(85));
+    }
+    // endregion
+
+    // region getLockStats()
+    @Test
+    void testGetLockStats_ShouldReturnCounters() throws Exception {
+        when(reservationService.getLockStats()).thenReturn(new BookLockManager.Stats(256, 10, 3, 1, 2.5, 40.0));
+
+        mockMvc.perform(get("/api/reservations/admin/lock-stats"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.stripes").value(256))
+                .andExpect(jsonPath("$.contended").value(3))
+                .andExpect(jsonPath("$.timeouts").value(1));
+    }
+    // endregion
+
     // region cancelReservation()
     @Test
     void testCancelReservation_ShouldReturnSuccess() throws Exception {
@@ -142,7 +285,7 @@ public class ReservationControllerTest {
         AdminReservationDTO dto = new AdminReservationDTO(1, 100, "Book A", "User A",
                 null, null, null, (byte) 1);
 
-        when(reservationService.getUserReservations(1)).thenReturn(List.of(dto));
+        when(reservationService.getUserReservations(1, false)).thenReturn(List.of(dto));
 
         mockMvc.perform(get("/api/reservations")
                         .header("X-USER-ID", "1"))
@@ -150,7 +293,23 @@ public class ReservationControllerTest {
                 .andExpect(jsonPath("$[0].bookName").value("Book A"))
                 .andExpect(jsonPath("$[0].userNickname").value("User A"));
 
-        verify(reservationService).getUserReservations(1);
+        verify(reservationService).getUserReservations(1, false);
+    }
+
+    @Test
+    void testGetUserReservations_WithHistory_ShouldIncludeArchive() throws Exception {
+        AdminReservationDTO dto = new AdminReservationDTO(7, 100, "Old Book", "User A",
+                null, null, null, (byte) 2);
+
+        when(reservationService.getUserReservations(1, true)).thenReturn(List.of(dto));
+
+        mockMvc.perform(get("/api/reservations")
+                        .header("X-USER-ID", "1")
+                        .param("history", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].bookName").value("Old Book"));
+
+        verify(reservationService).getUserReservations(1, true);
     }
 
     @Test
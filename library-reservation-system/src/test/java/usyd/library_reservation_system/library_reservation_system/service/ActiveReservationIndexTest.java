@@ -0,0 +1,179 @@
+package usyd.library_reservation_system.library_reservation_system.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import usyd.library_reservation_system.library_reservation_system.model.Reservation;
+import usyd.library_reservation_system.library_reservation_system.repository.ActiveReservationProjection;
+import usyd.library_reservation_system.library_reservation_system.repository.ReservationRepository;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ActiveReservationIndexTest {
+
+    private final ReservationRepository repository = mock(ReservationRepository.class);
+    private final ActiveReservationIndex index = new ActiveReservationIndex(repository, 16);
+
+    @Test
+    void rebuild_loadsActivePairs() {
+        when(repository.findActivePairs()).thenReturn(List.of(row(1, 10, 100), row(2, 10, 200), row(3, 11, 100)));
+
+        index.rebuild();
+
+        assertEquals(3, index.size());
+        assertTrue(index.contains(10, 200));
+        assertFalse(index.contains(11, 200));
+    }
+
+    @Test
+    void transitions_addActiveAndRemoveClosedReservations() {
+        Reservation r = reservation(5, 10, 100, (byte) 0);
+        index.recordTransition(r);
+        assertTrue(index.contains(10, 100));
+
+        r.setStatus((byte) 4);
+        index.recordTransition(r);
+        assertTrue(index.contains(10, 100));
+
+        r.setStatus((byte) 2);
+        index.recordTransition(r);
+        assertFalse(index.contains(10, 100));
+
+        index.recordTransition(reservation(6, 10, 100, (byte) 1));
+        index.recordClosed(6);
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    void insideTransaction_changesWaitForCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            index.recordTransition(reservation(7, 12, 300, (byte) 0));
+            assertFalse(index.contains(12, 300));
+
+            for (TransactionSynchronization s : TransactionSynchronizationManager.getSynchronizations()) {
+                s.afterCommit();
+            }
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        assertTrue(index.contains(12, 300));
+    }
+
+    @Test
+    void forget_dropsAStaleEntry() {
+        index.recordTransition(reservation(8, 13, 400, (byte) 1));
+
+        index.forget(13, 400);
+
+        assertFalse(index.contains(13, 400));
+        // Closing the forgotten reservation later is harmless
+        index.recordClosed(8);
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    void activeCount_followsTransitionsPerUser() {
+        index.recordTransition(reservation(1, 20, 100, (byte) 0));
+        index.recordTransition(reservation(2, 20, 200, (byte) 1));
+        index.recordTransition(reservation(3, 21, 100, (byte) 4));
+        assertEquals(2, index.activeCount(20));
+
+        index.recordTransition(reservation(2, 20, 200, (byte) 4));
+        assertEquals(2, index.activeCount(20));
+        index.recordTransition(reservation(2, 20, 200, (byte) 2));
+        index.recordClosed(1);
+
+        assertEquals(0, index.activeCount(20));
+        assertEquals(1, index.activeCount(21));
+    }
+
+    @Test
+    void claimSlots_grantsUpToTheLimit() {
+        index.recordTransition(reservation(1, 30, 100, (byte) 0));
+        index.recordTransition(reservation(2, 30, 200, (byte) 0));
+
+        assertEquals(1, index.claimSlots(30, 3, 3));
+        assertEquals(0, index.claimSlots(30, 1, 2));
+        assertEquals(3, index.claimSlots(31, 3, 3));
+    }
+
+    @Test
+    void claimedSlots_areHeldUntilTheTransactionCompletes() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            assertEquals(2, index.claimSlots(40, 2, 2));
+            // A concurrent request of the same user sees the slots as taken
+            assertEquals(0, index.claimSlots(40, 1, 2));
+
+            index.recordTransition(reservation(9, 40, 100, (byte) 0));
+            for (TransactionSynchronization s : TransactionSynchronizationManager.getSynchronizations()) {
+                s.afterCommit();
+                s.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+            }
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        // One reservation committed, the unused slot went back
+        assertEquals(1, index.activeCount(40));
+        assertEquals(1, index.claimSlots(40, 2, 2));
+    }
+
+    @Test
+    void refreshUser_replacesStaleEntries() {
+        index.recordTransition(reservation(1, 50, 100, (byte) 0));
+        index.recordTransition(reservation(2, 50, 200, (byte) 1));
+        index.recordTransition(reservation(3, 51, 100, (byte) 0));
+
+        index.refreshUser(50, List.of(row(4, 50, 300)));
+
+        assertEquals(1, index.activeCount(50));
+        assertFalse(index.contains(50, 100));
+        assertTrue(index.contains(50, 300));
+        assertTrue(index.contains(51, 100));
+        assertEquals(2, index.size());
+    }
+
+    @Test
+    void resync_picksUpReservationsMadeAndClosedOnOtherNodes() {
+        when(repository.findActivePairs()).thenReturn(List.of(row(1, 70, 100), row(2, 70, 200)));
+        index.rebuild();
+
+        // Another node closed reservation 1 and took reservation 3 for the same user
+        when(repository.findActivePairs()).thenReturn(List.of(row(2, 70, 200), row(3, 70, 300)));
+        index.resync();
+
+        assertEquals(2, index.activeCount(70));
+        assertFalse(index.contains(70, 100));
+        assertTrue(index.contains(70, 300));
+        verify(repository, never()).findActivePairsByUserId(any());
+    }
+
+    private static Reservation reservation(int id, int userId, int bookId, byte status) {
+        Reservation r = new Reservation();
+        r.setReservationId(id);
+        r.setUserId(userId);
+        r.setBookId(bookId);
+        r.setStatus(status);
+        return r;
+    }
+
+    private static ActiveReservationProjection row(int id, int userId, int bookId) {
+        return new ActiveReservationProjection() {
+            public Integer getReservationId() {
+                return id;
+            }
+
+            public Integer getUserId() {
+                return userId;
+            }
+
+            public Integer getBookId() {
+                return bookId;
+            }
+        };
+    }
+}
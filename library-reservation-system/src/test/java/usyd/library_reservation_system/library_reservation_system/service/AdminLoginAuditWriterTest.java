@@ -0,0 +1,179 @@
+package usyd.library_reservation_system.library_reservation_system.service;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+import usyd.library_reservation_system.library_reservation_system.model.AdminLoginEvent;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Runs the writer against the Flyway schema on H2 (MySQL mode); the JdbcTemplate is a spy so the
+ * background flushes can be awaited with Mockito timeouts.
+ */
+class AdminLoginAuditWriterTest {
+
+    private JdbcTemplate jdbc;
+    private TransactionTemplate tx;
+    private AdminLoginAuditWriter writer;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource ds = new DriverManagerDataSource(
+                "jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1", "sa", "");
+        Flyway.configure().dataSource(ds).locations("classpath:db/migration").load().migrate();
+        jdbc = spy(new JdbcTemplate(ds));
+        tx = new TransactionTemplate(new DataSourceTransactionManager(ds));
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        if (writer != null) writer.stop();
+    }
+
+    private static AdminLoginEvent event(int i) {
+        return AdminLoginEvent.builder()
+                .administratorId(i).email("a" + i + "@x.com")
+                .success(true).eventTime(LocalDateTime.now()).build();
+    }
+
+    // Joins the worker, so a flush it already started has committed
+    private void awaitStop() {
+        try {
+            writer.stop();
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+        writer = null;
+    }
+
+    private int rows() {
+        return jdbc.queryForObject("SELECT COUNT(*) FROM admin_login_event", Integer.class);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void verifyBatchOf(int size) {
+        verify(jdbc, timeout(2000)).batchUpdate(eq(AdminLoginAuditWriter.INSERT_SQL),
+                argThat((Collection<AdminLoginEvent> b) -> b.size() == size), anyInt(),
+                any(ParameterizedPreparedStatementSetter.class));
+    }
+
+    @Test
+    void fullBatch_isWrittenWithoutWaitingForInterval() {
+        writer = new AdminLoginAuditWriter(jdbc, tx, 100, 3, 60_000);
+        writer.start();
+
+        for (int i = 0; i < 3; i++) assertTrue(writer.append(event(i)));
+
+        verifyBatchOf(3);
+        awaitStop();
+        assertEquals(3, rows());
+    }
+
+    @Test
+    void partialBatch_isWrittenAfterInterval() {
+        writer = new AdminLoginAuditWriter(jdbc, tx, 100, 50, 50);
+        writer.start();
+
+        writer.append(event(1));
+
+        verifyBatchOf(1);
+        awaitStop();
+        assertEquals(1, rows());
+    }
+
+    @Test
+    void append_whenBufferFull_dropsInsteadOfBlocking() {
+        writer = new AdminLoginAuditWriter(jdbc, tx, 2, 10, 1000);
+        // worker not started: nothing drains the queue
+
+        assertTrue(writer.append(event(1)));
+        assertTrue(writer.append(event(2)));
+        assertFalse(writer.append(event(3)));
+        assertEquals(2, writer.pending());
+    }
+
+    @Test
+    void stop_flushesQueuedEvents() throws InterruptedException {
+        writer = new AdminLoginAuditWriter(jdbc, tx, 100, 2, 60_000);
+        AdminLoginEvent unknownEmail = event(0);
+        unknownEmail.setAdministratorId(null);
+        writer.append(unknownEmail);
+        for (int i = 1; i < 5; i++) writer.append(event(i));
+
+        writer.stop();
+
+        assertEquals(0, writer.pending());
+        assertEquals(5, rows());
+        assertEquals(1, jdbc.queryForObject(
+                "SELECT COUNT(*) FROM admin_login_event WHERE administrator_id IS NULL", Integer.class));
+        writer = null;
+    }
+
+    @Test
+    void append_trimsAndCutsTheEmailToTheColumnWidth() {
+        writer = new AdminLoginAuditWriter(jdbc, tx, 100, 10, 1000);
+        AdminLoginEvent oversized = event(1);
+        oversized.setEmail("  " + "x".repeat(150) + "@x.com ");
+        AdminLoginEvent missing = event(2);
+        missing.setEmail(null);
+
+        writer.append(oversized);
+        writer.append(missing);
+
+        assertEquals("x".repeat(AdminLoginAuditWriter.EMAIL_MAX_LENGTH), oversized.getEmail());
+        assertEquals("", missing.getEmail());
+    }
+
+    @Test
+    void failedBatch_rollsBackAndIsRetriedRowByRow_soOnlyTheBadRowIsLost() throws InterruptedException {
+        writer = new AdminLoginAuditWriter(jdbc, tx, 100, 10, 60_000);
+        writer.append(event(1));
+        AdminLoginEvent bad = event(2);
+        bad.setEventTime(null);
+        writer.append(bad);
+        writer.append(event(3));
+
+        writer.stop();
+        writer = null;
+
+        // Event 1 went into the failed batch too: it is written once, not twice
+        verify(jdbc, times(3)).update(eq(AdminLoginAuditWriter.INSERT_SQL), any(PreparedStatementSetter.class));
+        assertEquals(2, rows());
+        assertEquals(0, jdbc.queryForObject(
+                "SELECT COUNT(*) FROM admin_login_event WHERE administrator_id = 2", Integer.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void databaseFailure_doesNotKillWriter() {
+        doThrow(new IllegalStateException("db down")).doCallRealMethod().when(jdbc).update(
+                eq(AdminLoginAuditWriter.INSERT_SQL), any(PreparedStatementSetter.class));
+        doThrow(new IllegalStateException("db down")).doCallRealMethod().when(jdbc).batchUpdate(
+                eq(AdminLoginAuditWriter.INSERT_SQL), anyCollection(), anyInt(), any(ParameterizedPreparedStatementSetter.class));
+        writer = new AdminLoginAuditWriter(jdbc, tx, 100, 1, 50);
+        writer.start();
+
+        writer.append(event(1));
+        verify(jdbc, timeout(2000).times(1)).update(eq(AdminLoginAuditWriter.INSERT_SQL), any(PreparedStatementSetter.class));
+        writer.append(event(2));
+        verify(jdbc, timeout(2000).times(2)).batchUpdate(eq(AdminLoginAuditWriter.INSERT_SQL), anyCollection(), anyInt(),
+                any(ParameterizedPreparedStatementSetter.class));
+
+        awaitStop();
+        assertEquals(1, rows());
+    }
+}
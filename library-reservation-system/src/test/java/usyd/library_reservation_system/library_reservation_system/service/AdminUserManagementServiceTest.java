@@ -7,8 +7,13 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
 import usyd.library_reservation_system.library_reservation_system.dto.AdminActionResponse;
+import usyd.library_reservation_system.library_reservation_system.dto.AdminBatchResult;
+import usyd.library_reservation_system.library_reservation_system.dto.AdminBatchUserRequest;
 import usyd.library_reservation_system.library_reservation_system.dto.AdminUserSummaryDTO;
+import usyd.library_reservation_system.library_reservation_system.dto.PageResponse;
 import usyd.library_reservation_system.library_reservation_system.model.UserEntity;
 import usyd.library_reservation_system.library_reservation_system.repository.UserRepository;
 
@@ -16,6 +21,9 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -30,6 +38,12 @@ class AdminUserManagementServiceTest {
     @Mock
     private PasswordEncoder passwordEncoder;
 
+    @Mock
+    private UserSearchIndex searchIndex;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
     @InjectMocks
     private AdminUserManagementService adminUserManagementService;
 
@@ -191,6 +205,101 @@ class AdminUserManagementServiceTest {
         assertFalse(result.get(1).getIsActive(), "Second user should be inactive");
     }
 
+    @Test
+    void testSearchByNickname_IndexReady_ReturnsRowsInIndexOrder() {
+        // Index returns bob first; repository returns rows in arbitrary order
+        when(searchIndex.isReady()).thenReturn(true);
+        when(searchIndex.searchNickname("example")).thenReturn(List.of(2, 1));
+        when(userRepository.findAllById(List.of(2, 1))).thenReturn(Arrays.asList(testUser, testUser2));
+
+        List<AdminUserSummaryDTO> result = adminUserManagementService.searchByNickname("example");
+
+        assertEquals(2, result.size());
+        assertEquals("bob", result.get(0).getNickname());
+        assertFalse(result.get(0).getIsActive());
+        assertEquals("alice", result.get(1).getNickname());
+        verify(userRepository, never()).findByNicknameContainingIgnoreCase(anyString());
+        verify(searchIndex, never()).searchEmail(any());
+    }
+
+    @Test
+    void testSearchByEmail_UsesTheEmailIndexOnly() {
+        when(searchIndex.isReady()).thenReturn(true);
+        when(searchIndex.searchEmail("alice@")).thenReturn(List.of(1));
+        when(userRepository.findAllById(List.of(1))).thenReturn(List.of(testUser));
+
+        List<AdminUserSummaryDTO> result = adminUserManagementService.searchByEmail("alice@");
+
+        assertEquals(1, result.size());
+        assertEquals("alice", result.get(0).getNickname());
+        verify(searchIndex, never()).searchNickname(any());
+    }
+
+    @Test
+    void testSearchByEmail_IndexNotReady_FallsBackToRepository() {
+        when(userRepository.findByEmailContainingIgnoreCase("example")).thenReturn(List.of(testUser, testUser2));
+
+        List<AdminUserSummaryDTO> result = adminUserManagementService.searchByEmail("example");
+
+        assertEquals(2, result.size());
+        verify(searchIndex, never()).searchEmail(any());
+    }
+
+    @Test
+    void testSearchUsers_IndexReady_LoadsOnlyRequestedPage() {
+        when(searchIndex.isReady()).thenReturn(true);
+        when(searchIndex.rankNickname("a")).thenReturn(List.of(0, 1, 2, 3, 4));
+        when(userRepository.findAllById(List.of(2, 3))).thenReturn(List.of(testUser2));
+
+        PageResponse<AdminUserSummaryDTO> page = adminUserManagementService.searchUsers("a", 1, 2);
+
+        // id 3 vanished from the DB after indexing: skipped, total still reflects the index
+        assertEquals(1, page.items().size());
+        assertEquals(2, page.items().get(0).getUserId());
+        assertEquals(1, page.page());
+        assertEquals(2, page.size());
+        assertEquals(5, page.total());
+    }
+
+    @Test
+    void testSearchUsers_PageBeyondEnd_ReturnsEmpty() {
+        when(searchIndex.isReady()).thenReturn(true);
+        when(searchIndex.rankNickname("a")).thenReturn(List.of(1));
+
+        PageResponse<AdminUserSummaryDTO> page = adminUserManagementService.searchUsers("a", 3, 10);
+
+        assertTrue(page.items().isEmpty());
+        assertEquals(1, page.total());
+        verify(userRepository, never()).findAllById(any());
+    }
+
+    @Test
+    void testSearchUsers_IndexNotReady_FallsBackToRepository() {
+        when(userRepository.findByNicknameContainingIgnoreCase("")).thenReturn(Arrays.asList(testUser, testUser2));
+
+        PageResponse<AdminUserSummaryDTO> page = adminUserManagementService.searchUsers(null, 0, 1000);
+
+        assertEquals(2, page.items().size());
+        assertEquals(200, page.size());
+        assertEquals(2, page.total());
+        verify(searchIndex, never()).rankNickname(any());
+    }
+
+    @Test
+    void testSearchUsers_IndexNotReady_RanksLikeTheIndex() {
+        UserEntity exact = new UserEntity();
+        exact.setUserId(7);
+        exact.setNickname("Bob");
+        when(userRepository.findByNicknameContainingIgnoreCase("bob")).thenReturn(List.of(testUser2, exact));
+        testUser2.setNickname("bobby");
+
+        PageResponse<AdminUserSummaryDTO> page = adminUserManagementService.searchUsers("bob", 0, 10);
+
+        // Exact match first even though the fallback query returns it last
+        assertEquals(List.of(7, 2), page.items().stream().map(AdminUserSummaryDTO::getUserId).toList());
+        assertEquals(2, page.total());
+    }
+
     // ==================== resetPasswordToDefault Tests ====================
 
     @Test
@@ -862,5 +971,118 @@ class AdminUserManagementServiceTest {
         assertEquals("alicia", result.get(1).getNickname());
         assertEquals("alison", result.get(2).getNickname());
     }
-}
 
+    // ==================== batch operations ====================
+
+    private AdminUserManagementService batchService(ForkJoinPool pool) {
+        AdminUserManagementService svc =
+                new AdminUserManagementService(userRepository, passwordEncoder, searchIndex, pool, transactionTemplate);
+        ReflectionTestUtils.setField(svc, "maxBatchUsers", 3);
+        return svc;
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testBanUsers_ByIds_SingleUpdateAndPerUserResults() {
+        when(userRepository.findExistingIds(List.of(1, 2, 99))).thenReturn(List.of(1, 2));
+
+        List<AdminBatchResult> results = batchService(null).banUsers(
+                AdminBatchUserRequest.builder().userIds(Arrays.asList(1, 2, 99, 1, null)).build());
+
+        assertEquals(3, results.size());
+        assertTrue(results.get(0).isSuccess());
+        assertEquals("banned", results.get(1).getMessage());
+        assertFalse(results.get(2).isSuccess());
+        assertEquals("user not found", results.get(2).getMessage());
+        verify(userRepository).updateActiveByIds(Set.of(1, 2), false);
+        verify(userRepository, never()).save(any());
+    }
+
+    @Test
+    void testUnbanUsers_ByNickname() {
+        when(userRepository.findIdsByNicknameIgnoreCase("spam")).thenReturn(List.of(4, 5));
+        when(userRepository.findExistingIds(List.of(4, 5))).thenReturn(List.of(4, 5));
+
+        List<AdminBatchResult> results = batchService(null).unbanUsers(
+                AdminBatchUserRequest.builder().nickname("  spam ").build());
+
+        assertEquals(2, results.size());
+        assertTrue(results.stream().allMatch(AdminBatchResult::isSuccess));
+        verify(userRepository).updateActiveByIds(Set.of(4, 5), true);
+    }
+
+    @Test
+    void testBanUsers_ByNickname_WildcardMatchesNobody() {
+        when(userRepository.findIdsByNicknameIgnoreCase("%")).thenReturn(List.of());
+
+        List<AdminBatchResult> results = batchService(null).banUsers(
+                AdminBatchUserRequest.builder().nickname("%").build());
+
+        assertTrue(results.isEmpty());
+        verify(userRepository).findIdsByNicknameIgnoreCase("%");
+        verify(userRepository, never()).updateActiveByIds(any(), anyBoolean());
+    }
+
+    @Test
+    void testBatch_RequiresExactlyOneSelector() {
+        AdminUserManagementService svc = batchService(null);
+
+        assertThrows(IllegalArgumentException.class, () -> svc.banUsers(new AdminBatchUserRequest()));
+        assertThrows(IllegalArgumentException.class, () -> svc.banUsers(
+                AdminBatchUserRequest.builder().userIds(List.of(1)).nickname("x").build()));
+        assertThrows(IllegalArgumentException.class, () -> svc.banUsers(null));
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    void testBatch_RejectsTooManyUsers() {
+        AdminUserManagementService svc = batchService(null);
+
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class, () -> svc.banUsers(
+                AdminBatchUserRequest.builder().userIds(List.of(1, 2, 3, 4)).build()));
+        assertTrue(ex.getMessage().contains("too many"));
+        verify(userRepository, never()).updateActiveByIds(any(), anyBoolean());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testResetPasswords_HashesInParallelPoolAndWritesOnce() {
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            when(userRepository.findExistingIds(List.of(1, 2, 3))).thenReturn(List.of(1, 2));
+            when(passwordEncoder.encode("123456789")).thenAnswer(inv -> {
+                assertTrue(Thread.currentThread().getName().startsWith("ForkJoinPool"),
+                        "hashing should run on the hash pool");
+                return "$2a$12$hash";
+            });
+            when(userRepository.findAllById(any())).thenReturn(List.of(testUser, testUser2));
+            doAnswer(inv -> {
+                ((Consumer<Object>) inv.getArgument(0)).accept(null);
+                return null;
+            }).when(transactionTemplate).executeWithoutResult(any());
+
+            List<AdminBatchResult> results = batchService(pool).resetPasswordsToDefault(
+                    AdminBatchUserRequest.builder().userIds(List.of(1, 2, 3)).build(), "123456789");
+
+            assertEquals(List.of(true, true, false), results.stream().map(AdminBatchResult::isSuccess).toList());
+            assertEquals("$2a$12$hash", testUser.getPasswordHash());
+            assertEquals("$2a$12$hash", testUser2.getPasswordHash());
+            verify(passwordEncoder, times(2)).encode("123456789");
+            verify(transactionTemplate, times(1)).executeWithoutResult(any());
+            verify(userRepository, never()).save(any());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void testResetPasswords_NoExistingUsers_SkipsHashingAndWrite() {
+        when(userRepository.findExistingIds(List.of(7))).thenReturn(List.of());
+
+        List<AdminBatchResult> results = batchService(null).resetPasswordsToDefault(
+                AdminBatchUserRequest.builder().userIds(List.of(7)).build(), "123456789");
+
+        assertFalse(results.get(0).isSuccess());
+        verifyNoInteractions(passwordEncoder, transactionTemplate);
+    }
+}
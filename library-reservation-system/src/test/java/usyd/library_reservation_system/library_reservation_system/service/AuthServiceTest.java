@@ -24,12 +24,18 @@ public class AuthServiceTest {
     @Mock
     private PasswordEncoder passwordEncoder;
 
+    @Mock
+    private UserUniquenessFilter uniquenessFilter;
+
     @InjectMocks
     private AuthService authService;
 
     @BeforeEach
     void setup() {
         MockitoAnnotations.openMocks(this);
+        // Default: the Bloom filter cannot rule anything out, so the DB is always asked
+        when(uniquenessFilter.mightHaveEmail(any())).thenReturn(true);
+        when(uniquenessFilter.mightHaveTelephone(any())).thenReturn(true);
     }
 
     @Test
@@ -52,7 +58,7 @@ public class AuthServiceTest {
                 .isActive(true)
                 .build();
 
-        when(userRepository.existsByEmailIgnoreCase("john@example.com")).thenReturn(false);
+        when(userRepository.existsByEmail("john@example.com")).thenReturn(false);
         when(userRepository.existsByTelephone("1234567890")).thenReturn(false);
         when(passwordEncoder.encode("password123")).thenReturn(encodedPassword);
         when(userRepository.save(any(UserEntity.class))).thenReturn(savedEntity);
@@ -67,7 +73,7 @@ public class AuthServiceTest {
         assertEquals("1234567890", response.telephone());
         assertEquals("john@example.com", response.email());
 
-        verify(userRepository, times(1)).existsByEmailIgnoreCase("john@example.com");
+        verify(userRepository, times(1)).existsByEmail("john@example.com");
         verify(userRepository, times(1)).existsByTelephone("1234567890");
         verify(passwordEncoder, times(1)).encode("password123");
         verify(userRepository, times(1)).save(any(UserEntity.class));
@@ -93,7 +99,7 @@ public class AuthServiceTest {
                 .isActive(true)
                 .build();
 
-        when(userRepository.existsByEmailIgnoreCase("jane@example.com")).thenReturn(false);
+        when(userRepository.existsByEmail("jane@example.com")).thenReturn(false);
         when(userRepository.existsByTelephone("0987654321")).thenReturn(false);
         when(passwordEncoder.encode("password123")).thenReturn(encodedPassword);
         when(userRepository.save(any(UserEntity.class))).thenReturn(savedEntity);
@@ -103,7 +109,7 @@ public class AuthServiceTest {
 
         // Assert
         assertEquals("jane@example.com", response.email());
-        verify(userRepository, times(1)).existsByEmailIgnoreCase("jane@example.com");
+        verify(userRepository, times(1)).existsByEmail("jane@example.com");
     }
 
     @Test
@@ -126,7 +132,7 @@ public class AuthServiceTest {
                 .isActive(true)
                 .build();
 
-        when(userRepository.existsByEmailIgnoreCase("bob@example.com")).thenReturn(false);
+        when(userRepository.existsByEmail("bob@example.com")).thenReturn(false);
         when(userRepository.existsByTelephone("5551234567")).thenReturn(false);
         when(passwordEncoder.encode("password123")).thenReturn(encodedPassword);
         when(userRepository.save(any(UserEntity.class))).thenReturn(savedEntity);
@@ -149,7 +155,7 @@ public class AuthServiceTest {
                 "password123"
         );
 
-        when(userRepository.existsByEmailIgnoreCase("existing@example.com")).thenReturn(true);
+        when(userRepository.existsByEmail("existing@example.com")).thenReturn(true);
 
         // Act & Assert
         EmailOrPhoneAlreadyUsedException exception = assertThrows(
@@ -158,7 +164,7 @@ public class AuthServiceTest {
         );
 
         assertEquals("Email already used: existing@example.com", exception.getMessage());
-        verify(userRepository, times(1)).existsByEmailIgnoreCase("existing@example.com");
+        verify(userRepository, times(1)).existsByEmail("existing@example.com");
         verify(userRepository, never()).existsByTelephone(anyString());
         verify(userRepository, never()).save(any(UserEntity.class));
     }
@@ -173,7 +179,7 @@ public class AuthServiceTest {
                 "password123"
         );
 
-        when(userRepository.existsByEmailIgnoreCase("new@example.com")).thenReturn(false);
+        when(userRepository.existsByEmail("new@example.com")).thenReturn(false);
         when(userRepository.existsByTelephone("2222222222")).thenReturn(true);
 
         // Act & Assert
@@ -183,7 +189,7 @@ public class AuthServiceTest {
         );
 
         assertEquals("Telephone already used: 2222222222", exception.getMessage());
-        verify(userRepository, times(1)).existsByEmailIgnoreCase("new@example.com");
+        verify(userRepository, times(1)).existsByEmail("new@example.com");
         verify(userRepository, times(1)).existsByTelephone("2222222222");
         verify(userRepository, never()).save(any(UserEntity.class));
     }
@@ -200,7 +206,7 @@ public class AuthServiceTest {
 
         String encodedPassword = "$2a$10$encodedPasswordHash";
 
-        when(userRepository.existsByEmailIgnoreCase("concurrent@example.com")).thenReturn(false);
+        when(userRepository.existsByEmail("concurrent@example.com")).thenReturn(false);
         when(userRepository.existsByTelephone("3333333333")).thenReturn(false);
         when(passwordEncoder.encode("password123")).thenReturn(encodedPassword);
         when(userRepository.save(any(UserEntity.class)))
@@ -236,7 +242,7 @@ public class AuthServiceTest {
                 .isActive(true)
                 .build();
 
-        when(userRepository.existsByEmailIgnoreCase("alice@example.com")).thenReturn(false);
+        when(userRepository.existsByEmail("alice@example.com")).thenReturn(false);
         when(userRepository.existsByTelephone("4444444444")).thenReturn(false);
         when(passwordEncoder.encode("password123")).thenReturn(encodedPassword);
         when(userRepository.save(any(UserEntity.class))).thenReturn(savedEntity);
@@ -247,4 +253,45 @@ public class AuthServiceTest {
         // Assert
         assertEquals("Alice Brown", response.nickname());
     }
+
+    @Test
+    void testRegister_FilterRulesOutBoth_SkipsDbLookups() {
+        // Arrange
+        RegisterRequest request = new RegisterRequest(
+                "Fresh User",
+                "5555555555",
+                "Fresh@Example.com",
+                "password123"
+        );
+        when(uniquenessFilter.mightHaveEmail("fresh@example.com")).thenReturn(false);
+        when(uniquenessFilter.mightHaveTelephone("5555555555")).thenReturn(false);
+        when(passwordEncoder.encode("password123")).thenReturn("$2a$10$hash");
+        when(userRepository.save(any(UserEntity.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        // Act
+        RegisterResponse response = authService.register(request);
+
+        // Assert - no uniqueness query was issued
+        assertEquals("fresh@example.com", response.email());
+        verify(userRepository, never()).existsByEmail(any());
+        verify(userRepository, never()).existsByTelephone(any());
+    }
+
+    @Test
+    void testRegister_FilterProbableEmailHit_QueriesDb() {
+        // Arrange - filter says "maybe" for the email only
+        RegisterRequest request = new RegisterRequest(
+                "Maybe User",
+                "6666666666",
+                "maybe@example.com",
+                "password123"
+        );
+        when(uniquenessFilter.mightHaveTelephone("6666666666")).thenReturn(false);
+        when(userRepository.existsByEmail("maybe@example.com")).thenReturn(true);
+
+        // Act & Assert
+        assertThrows(EmailOrPhoneAlreadyUsedException.class, () -> authService.register(request));
+        verify(userRepository, times(1)).existsByEmail("maybe@example.com");
+        verify(userRepository, never()).save(any());
+    }
 }
@@ -6,13 +6,20 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.*;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
 import usyd.library_reservation_system.library_reservation_system.dto.AdminPwdLoginReq;
+import usyd.library_reservation_system.library_reservation_system.dto.PageResponse;
+import usyd.library_reservation_system.library_reservation_system.dto.adminlogin.AdminLoginEventDTO;
 import usyd.library_reservation_system.library_reservation_system.dto.adminlogin.AdminLoginResp;
 import usyd.library_reservation_system.library_reservation_system.model.AdminEntity;
+import usyd.library_reservation_system.library_reservation_system.model.AdminLoginEvent;
+import usyd.library_reservation_system.library_reservation_system.repository.AdminLoginEventRepository;
 import usyd.library_reservation_system.library_reservation_system.repository.AdminRepository;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
-import java.util.regex.Pattern;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -21,8 +28,8 @@ import static org.mockito.Mockito.*;
 /**
  * High-confidence tests for AuthService_AdminLogin.
  * - All collaborators are mocked.
- * - We verify email normalization, login log updates, repository saves, and return values.
- * - Time-dependent string is asserted by shape, not exact moment (robust).
+ * - We verify email normalization, audit events handed to the async writer, and return values.
+ * - The admin row itself must never be saved by a login attempt.
  */
 @ExtendWith(MockitoExtension.class)
 class AuthService_AdminLoginTest {
@@ -30,12 +37,20 @@ class AuthService_AdminLoginTest {
     @Mock
     AdminRepository adminRepository;
 
+    @Mock
+    AdminLoginEventRepository loginEventRepository;
+
+    @Mock
+    AdminLoginAuditWriter auditWriter;
+
     @InjectMocks
     AuthService_AdminLogin service;
 
-    // Regex for "yyyy-MM-dd HH:mm:ss <message>"
-    private static final Pattern TS_LINE =
-            Pattern.compile("^\\d{4}-\\d{2}-\\d{2} \\d{2}:\\d{2}:\\d{2} (login (successful|failed))$");
+    private AdminLoginEvent capturedEvent() {
+        ArgumentCaptor<AdminLoginEvent> ev = ArgumentCaptor.forClass(AdminLoginEvent.class);
+        verify(auditWriter).append(ev.capture());
+        return ev.getValue();
+    }
 
     @Nested
     class PwdLogin {
@@ -57,12 +72,16 @@ class AuthService_AdminLoginTest {
 
             // Ensure we queried with normalized lower-case trimmed email
             verify(adminRepository).findByEmailIgnoreCase("admin@example.com");
-            // No save or logging when not found
+            // Nothing saved; the failed attempt is still audited without an admin id
             verify(adminRepository, never()).save(any());
+            AdminLoginEvent ev = capturedEvent();
+            assertNull(ev.getAdministratorId());
+            assertEquals("admin@example.com", ev.getEmail());
+            assertFalse(ev.getSuccess());
         }
 
         @Test
-        @DisplayName("pwdLogin: password mismatch -> write 'login failed' log, save, then throw IllegalArgumentException")
+        @DisplayName("pwdLogin: password mismatch -> audit failed attempt, no admin save, then throw IllegalArgumentException")
         void passwordMismatch_logsAndThrows() {
             AdminPwdLoginReq req = new AdminPwdLoginReq();
             req.setEmail("Admin@Example.com");
@@ -71,6 +90,7 @@ class AuthService_AdminLoginTest {
             // Use a MOCK AdminEntity so we can verify setLoginLog(...) argument
             AdminEntity admin = mock(AdminEntity.class);
             when(admin.getPassword()).thenReturn("Correct#123");
+            when(admin.getAdministratorId()).thenReturn(7);
             when(adminRepository.findByEmailIgnoreCase("admin@example.com"))
                     .thenReturn(Optional.of(admin));
 
@@ -79,19 +99,19 @@ class AuthService_AdminLoginTest {
                     assertThrows(IllegalArgumentException.class, () -> service.pwdLogin(req));
             assertEquals("Invalid email or password", ex.getMessage());
 
-            // Verify a "failed" log line with timestamp prefix
-            ArgumentCaptor<String> logArg = ArgumentCaptor.forClass(String.class);
-            verify(admin).setLoginLog(logArg.capture());
-            assertTrue(TS_LINE.matcher(logArg.getValue()).matches(),
-                    "loginLog line should look like 'yyyy-MM-dd HH:mm:ss login failed'");
-            assertTrue(logArg.getValue().endsWith("login failed"));
+            // Verify a failed event was queued for the admin
+            AdminLoginEvent ev = capturedEvent();
+            assertEquals(7, ev.getAdministratorId());
+            assertFalse(ev.getSuccess());
+            assertNotNull(ev.getEventTime());
 
-            // Verify save called once
-            verify(adminRepository, times(1)).save(admin);
+            // The admin row is no longer rewritten on every attempt
+            verify(admin, never()).setLoginLog(anyString());
+            verify(adminRepository, never()).save(any());
         }
 
         @Test
-        @DisplayName("pwdLogin: success -> write 'login successful' log, save, and return AdminLoginResp")
+        @DisplayName("pwdLogin: success -> audit successful attempt and return AdminLoginResp")
         void success_logsAndReturnsResp() {
             AdminPwdLoginReq req = new AdminPwdLoginReq();
             req.setEmail("Admin@Example.com");   // mixed case to validate normalization
@@ -113,18 +133,54 @@ class AuthService_AdminLoginTest {
             assertEquals(42, resp.adminId());
             assertEquals("successfully login!", resp.message());
 
-            // Verify log line
-            ArgumentCaptor<String> logArg = ArgumentCaptor.forClass(String.class);
-            verify(admin).setLoginLog(logArg.capture());
-            assertTrue(TS_LINE.matcher(logArg.getValue()).matches(),
-                    "loginLog line should look like 'yyyy-MM-dd HH:mm:ss login successful'");
-            assertTrue(logArg.getValue().endsWith("login successful"));
+            // Verify a success event was queued
+            AdminLoginEvent ev = capturedEvent();
+            assertEquals(42, ev.getAdministratorId());
+            assertEquals("admin@example.com", ev.getEmail());
+            assertTrue(ev.getSuccess());
 
-            // Saved once
-            verify(adminRepository, times(1)).save(admin);
+            // No synchronous UPDATE of the admin row
+            verify(adminRepository, never()).save(any());
 
             // Ensure lookup used normalized email
             verify(adminRepository).findByEmailIgnoreCase("admin@example.com");
         }
     }
+
+    @Nested
+    class ListLoginEvents {
+
+        @Test
+        @DisplayName("listLoginEvents: adminId given -> filtered query, mapped DTOs, page metadata")
+        void byAdmin() {
+            AdminLoginEvent e = AdminLoginEvent.builder()
+                    .eventId(5L).administratorId(3).email("a@x.com")
+                    .success(true).eventTime(LocalDateTime.of(2025, 10, 1, 9, 0)).build();
+            when(loginEventRepository.findByAdministratorIdOrderByEventTimeDesc(eq(3), any(Pageable.class)))
+                    .thenAnswer(inv -> new PageImpl<>(List.of(e), inv.getArgument(1), 41));
+
+            PageResponse<AdminLoginEventDTO> page = service.listLoginEvents(3, 2, 20);
+
+            assertEquals(1, page.items().size());
+            assertEquals(5L, page.items().get(0).eventId());
+            assertTrue(page.items().get(0).success());
+            assertEquals(2, page.page());
+            assertEquals(20, page.size());
+            assertEquals(41, page.total());
+            verify(loginEventRepository, never()).findAllByOrderByEventTimeDesc(any());
+        }
+
+        @Test
+        @DisplayName("listLoginEvents: no adminId and oversized page -> all admins, size clamped")
+        void allAdmins_clamped() {
+            when(loginEventRepository.findAllByOrderByEventTimeDesc(any(Pageable.class)))
+                    .thenAnswer(inv -> new PageImpl<>(List.of(), inv.getArgument(0), 0));
+
+            PageResponse<AdminLoginEventDTO> page = service.listLoginEvents(null, -1, 10_000);
+
+            assertEquals(0, page.page());
+            assertEquals(200, page.size());
+            assertTrue(page.items().isEmpty());
+        }
+    }
 }
@@ -0,0 +1,148 @@
+package usyd.library_reservation_system.library_reservation_system.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+import usyd.library_reservation_system.library_reservation_system.dto.BookImportSummary;
+import usyd.library_reservation_system.library_reservation_system.model.Label;
+import usyd.library_reservation_system.library_reservation_system.repository.LabelRepository;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BookImportServiceTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private LabelRepository labelRepository;
+
+    private BookImportService service;
+
+    private final List<String> errors = new ArrayList<>();
+    private final List<BookImportSummary> progress = new ArrayList<>();
+    private final BookImportService.Listener listener = new BookImportService.Listener() {
+        @Override
+        public void onRowError(long row, String message) {
+            errors.add(row + ":" + message);
+        }
+
+        @Override
+        public void onProgress(BookImportSummary soFar) {
+            progress.add(soFar);
+        }
+    };
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        service = new BookImportService(jdbcTemplate, transactionTemplate, labelRepository, new ObjectMapper());
+        ReflectionTestUtils.setField(service, "chunkSize", 2);
+        ReflectionTestUtils.setField(service, "batchSize", 2);
+        lenient().when(labelRepository.findAll()).thenReturn(List.of(
+                new Label(1, "Python", LocalDateTime.now()),
+                new Label(2, "AI", LocalDateTime.now())));
+        lenient().doAnswer(inv -> {
+            ((Consumer<Object>) inv.getArgument(0)).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Collection<Object>> capturedChunks() {
+        ArgumentCaptor<Collection<Object>> rows = ArgumentCaptor.forClass(Collection.class);
+        verify(jdbcTemplate, atLeastOnce()).batchUpdate(eq(BookImportService.INSERT_SQL), rows.capture(), eq(2),
+                any(ParameterizedPreparedStatementSetter.class));
+        return rows.getAllValues();
+    }
+
+    @Test
+    void csv_validRowsInsertedInChunks_invalidRowsReported() throws IOException {
+        String csv = """
+                book_name,author,quantity,label,description
+                Python 101,Ann,3,python,"Intro, with comma"
+                ,NoTitle,1,Python,
+                AI Now,Bob,2,AI,
+                Deep AI,Cat,x,AI,
+                Old Book,Dan,1,Poetry,
+                Last,Eve,,ai,
+                """;
+
+        BookImportSummary s = service.importCsv(new StringReader(csv), listener);
+
+        assertEquals(new BookImportSummary(6, 3, 3), s);
+        assertEquals(List.of(
+                "3:bookName is required",
+                "5:quantity is not a number: x",
+                "6:unknown label: Poetry"), errors);
+        // chunk size 2 -> one full chunk, then the remainder at the end
+        assertEquals(List.of(2, 1), capturedChunks().stream().map(Collection::size).toList());
+        verify(transactionTemplate, times(2)).executeWithoutResult(any());
+        assertEquals(2, progress.size());
+        assertEquals(new BookImportSummary(6, 3, 3), progress.get(1));
+    }
+
+    @Test
+    void ndjson_acceptsLabelIdAndReportsBadLines() throws IOException {
+        String ndjson = """
+                {"bookName":"A","author":"X","labelId":1,"quantity":4}
+                not json
+                [1,2]
+
+                {"bookName":"B","author":"Y","labelId":99}
+                """;
+
+        BookImportSummary s = service.importNdjson(new StringReader(ndjson), listener);
+
+        assertEquals(new BookImportSummary(4, 1, 3), s);
+        assertEquals(List.of("2:invalid JSON", "3:expected a JSON object", "5:unknown labelId: 99"), errors);
+        assertEquals(1, capturedChunks().get(0).size());
+    }
+
+    @Test
+    void failedChunk_isRetriedRowByRow_andOnlyTheBadRowIsReported() throws IOException {
+        when(jdbcTemplate.batchUpdate(anyString(), anyCollection(), anyInt(), any(ParameterizedPreparedStatementSetter.class)))
+                .thenThrow(new DataIntegrityViolationException("boom"))
+                .thenReturn(new int[][]{{1}});
+        when(jdbcTemplate.update(eq(BookImportService.INSERT_SQL), any(PreparedStatementSetter.class)))
+                .thenReturn(1)
+                .thenThrow(new DataIntegrityViolationException("Data too long for column 'book_name'"));
+        String csv = "bookName,author,labelId\nA,X,1\nB,X,1\nC,X,2\n";
+
+        BookImportSummary s = service.importCsv(new StringReader(csv), listener);
+
+        assertEquals(new BookImportSummary(3, 2, 1), s);
+        assertEquals(List.of("3:rejected by the database: Data too long for column 'book_name'"), errors);
+        verify(jdbcTemplate, times(2)).update(eq(BookImportService.INSERT_SQL), any(PreparedStatementSetter.class));
+    }
+
+    @Test
+    void emptyInput_importsNothing() throws IOException {
+        assertEquals(new BookImportSummary(0, 0, 0), service.importCsv(new StringReader(""), listener));
+        verifyNoInteractions(jdbcTemplate);
+    }
+}
@@ -0,0 +1,163 @@
+package usyd.library_reservation_system.library_reservation_system.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookLockManagerTest {
+
+    private final ExecutorService pool = Executors.newFixedThreadPool(8);
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    void stripeCountIsRoundedUpToAPowerOfTwo() {
+        assertEquals(16, new BookLockManager(10, 100).stats().stripes());
+        assertEquals(16, new BookLockManager(16, 100).stats().stripes());
+        assertEquals(1, new BookLockManager(1, 100).stats().stripes());
+    }
+
+    @Test
+    void sameBook_isSerialized() throws Exception {
+        BookLockManager locks = new BookLockManager(64, 5000);
+        AtomicInteger inside = new AtomicInteger();
+        AtomicInteger maxInside = new AtomicInteger();
+
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            futures.add(pool.submit(() -> {
+                for (int j = 0; j < 200; j++) {
+                    locks.withLock(42, () -> {
+                        maxInside.accumulateAndGet(inside.incrementAndGet(), Math::max);
+                        inside.decrementAndGet();
+                        return null;
+                    });
+                }
+            }));
+        }
+        for (Future<?> f : futures) {
+            f.get(10, TimeUnit.SECONDS);
+        }
+
+        assertEquals(1, maxInside.get());
+        assertEquals(1600, locks.stats().acquisitions());
+    }
+
+    @Test
+    void differentBooks_runInParallel() throws Exception {
+        BookLockManager locks = new BookLockManager(256, 5000);
+        int a = 1;
+        int b = 2;
+        while (locks.stripeOf(a) == locks.stripeOf(b)) {
+            b++;
+        }
+        int other = b;
+        CountDownLatch firstInside = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        Future<?> holder = pool.submit(() -> locks.withLock(a, () -> {
+            firstInside.countDown();
+            await(release);
+            return null;
+        }));
+        assertTrue(firstInside.await(5, TimeUnit.SECONDS));
+
+        // Completes while book a is still held
+        Future<String> second = pool.submit(() -> locks.withLock(other, () -> "done"));
+        assertEquals("done", second.get(5, TimeUnit.SECONDS));
+
+        release.countDown();
+        holder.get(5, TimeUnit.SECONDS);
+        assertEquals(0, locks.stats().contended());
+    }
+
+    @Test
+    void waitPastTimeout_throwsBookBusyAndCounts() throws Exception {
+        BookLockManager locks = new BookLockManager(16, 50);
+        CountDownLatch inside = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<?> holder = pool.submit(() -> locks.withLock(7, () -> {
+            inside.countDown();
+            await(release);
+            return null;
+        }));
+        assertTrue(inside.await(5, TimeUnit.SECONDS));
+
+        assertThrows(BookBusyException.class, () -> locks.withLock(7, () -> null));
+
+        release.countDown();
+        holder.get(5, TimeUnit.SECONDS);
+        BookLockManager.Stats stats = locks.stats();
+        assertEquals(1, stats.contended());
+        assertEquals(1, stats.timeouts());
+        assertTrue(stats.maxWaitMs() >= 40, "waited " + stats.maxWaitMs());
+        // The stripe is usable again after the timeout
+        assertEquals("ok", locks.withLock(7, () -> "ok"));
+    }
+
+    @Test
+    void multiBookLocks_takenInOneOrder_doNotDeadlock() throws Exception {
+        BookLockManager locks = new BookLockManager(256, 2000);
+        AtomicInteger done = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            // Half the threads ask for [1..5], half for [5..1]
+            List<Integer> ids = i % 2 == 0 ? List.of(1, 2, 3, 4, 5) : List.of(5, 4, 3, 2, 1);
+            futures.add(pool.submit(() -> {
+                for (int j = 0; j < 100; j++) {
+                    locks.withLocks(ids, done::incrementAndGet);
+                }
+            }));
+        }
+        for (Future<?> f : futures) {
+            f.get(10, TimeUnit.SECONDS);
+        }
+        assertEquals(800, done.get());
+        assertEquals(0, locks.stats().timeouts());
+    }
+
+    @Test
+    void insideTransaction_lockIsHeldUntilCompletion() throws Exception {
+        BookLockManager locks = new BookLockManager(16, 50);
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            locks.withLock(9, () -> null);
+
+            // Action returned, but the "transaction" has not completed yet
+            Future<?> other = pool.submit(() -> locks.withLock(9, () -> null));
+            assertInstanceOf(BookBusyException.class,
+                    assertThrows(ExecutionException.class, () -> other.get(5, TimeUnit.SECONDS)).getCause());
+
+            for (TransactionSynchronization s : TransactionSynchronizationManager.getSynchronizations()) {
+                s.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+            }
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        assertEquals("ok", pool.submit(() -> locks.withLock(9, () -> "ok")).get(5, TimeUnit.SECONDS));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -5,6 +5,7 @@ import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import usyd.library_reservation_system.library_reservation_system.dto.RestockResultDTO;
 import usyd.library_reservation_system.library_reservation_system.model.Book;
 import usyd.library_reservation_system.library_reservation_system.repository.BookRepository;
 import usyd.library_reservation_system.library_reservation_system.repository.BookSimpleProjection;
@@ -21,6 +22,9 @@ public class BookServiceTest {
     @Mock
     private BookRepository bookRepository;
 
+    @Mock
+    private ReservationService reservationService;
+
     @InjectMocks
     private BookService bookService;
 
@@ -272,28 +276,46 @@ public class BookServiceTest {
 
     @Test
     void testUpdateBookQuantity_Exists() {
-        Book existingBook = createTestBook(1, "Java Programming", "Zhang San", 5);
+        Book existingBook = createTestBook(1, "Java Programming", "Zhang San", 3);
+        when(reservationService.restockTo(1, 3)).thenReturn(new RestockResultDTO(1, -2, List.of(), 3));
+        when(bookRepository.findById(1)).thenReturn(Optional.of(existingBook));
+
+        Book result = bookService.updateBookQuantity(1, 3);
+
+        assertEquals(3, result.getQuantity());
+        verify(bookRepository, never()).save(any(Book.class));
+    }
+
+    @Test
+    void testUpdateBookQuantity_ReadsAndChangesTheStockUnderTheBookLock() {
+        Book existingBook = createTestBook(1, "Java Programming", "Zhang San", 18);
+        when(reservationService.restockTo(1, 20)).thenReturn(new RestockResultDTO(1, 15, List.of(7, 8), 18));
         when(bookRepository.findById(1)).thenReturn(Optional.of(existingBook));
-        when(bookRepository.save(any(Book.class))).thenReturn(existingBook);
 
         Book result = bookService.updateBookQuantity(1, 20);
 
-        assertNotNull(result);
-        verify(bookRepository, times(1)).findById(1);
-        verify(bookRepository, times(1)).save(any(Book.class));
+        assertEquals(18, result.getQuantity());
+        // The delta is worked out by restockTo from a locked read, never from a stale entity here
+        verify(reservationService, never()).restock(any(), anyInt());
+        verify(bookRepository, never()).save(any(Book.class));
     }
 
     @Test
     void testUpdateBookQuantity_NotExists() {
-        when(bookRepository.findById(999)).thenReturn(Optional.empty());
+        when(reservationService.restockTo(999, 20)).thenReturn(null);
 
         Book result = bookService.updateBookQuantity(999, 20);
 
         assertNull(result);
-        verify(bookRepository, times(1)).findById(999);
         verify(bookRepository, never()).save(any(Book.class));
     }
 
+    @Test
+    void testUpdateBookQuantity_Missing_IsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> bookService.updateBookQuantity(1, null));
+        verifyNoInteractions(reservationService);
+    }
+
     @Test
     void testIncrementFavoriteCount_Exists() {
         Book existingBook = createTestBook(1, "Java Programming", "Zhang San", 10);
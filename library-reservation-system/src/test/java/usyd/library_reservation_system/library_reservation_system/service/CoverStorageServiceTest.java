@@ -0,0 +1,103 @@
+package usyd.library_reservation_system.library_reservation_system.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CoverStorageServiceTest {
+
+    private static final byte[] CONTENT = "cover-bytes".getBytes(StandardCharsets.UTF_8);
+
+    @TempDir
+    Path tmp;
+
+    private CoverStorageService service;
+    private Path dir;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        dir = tmp.resolve("covers");
+        service = new CoverStorageService();
+        ReflectionTestUtils.setField(service, "configuredDir", dir.toString());
+        service.init();
+    }
+
+    private long filesInDir() throws IOException {
+        try (Stream<Path> s = Files.list(dir)) {
+            return s.count();
+        }
+    }
+
+    @Test
+    void init_createsConfiguredDirectory() {
+        assertTrue(Files.isDirectory(dir));
+        assertEquals(dir.toAbsolutePath().normalize(), service.getCoversDir());
+    }
+
+    @Test
+    void store_namesFileByContentHash() throws IOException {
+        CoverStorageService.StoredCover c = service.store(new MockMultipartFile("file", "My Cover.JPEG", "image/jpeg", CONTENT));
+
+        assertEquals(64, c.sha256().length());
+        assertEquals("/img/covers/" + c.sha256() + ".jpg", c.path());
+        assertEquals(CONTENT.length, c.size());
+        assertFalse(c.deduplicated());
+        assertArrayEquals(CONTENT, Files.readAllBytes(dir.resolve(c.sha256() + ".jpg")));
+    }
+
+    @Test
+    void store_sameContentTwice_keepsOneFile() throws IOException {
+        CoverStorageService.StoredCover first = service.store(new ByteArrayInputStream(CONTENT), "a.png");
+        CoverStorageService.StoredCover second = service.store(new ByteArrayInputStream(CONTENT), "b.png");
+
+        assertEquals(first.path(), second.path());
+        assertTrue(second.deduplicated());
+        assertEquals(1, filesInDir(), "no temp files or duplicates left behind");
+    }
+
+    @Test
+    void store_differentContent_differentPaths() throws IOException {
+        CoverStorageService.StoredCover a = service.store(new ByteArrayInputStream(CONTENT), "a.png");
+        CoverStorageService.StoredCover b = service.store(new ByteArrayInputStream("other".getBytes()), "a.png");
+
+        assertNotEquals(a.path(), b.path());
+        assertEquals(2, filesInDir());
+    }
+
+    @Test
+    void store_failingStream_leavesNoTempFile() throws IOException {
+        InputStream broken = new InputStream() {
+            private int n;
+            @Override
+            public int read() throws IOException {
+                if (n++ > 10) throw new IOException("client went away");
+                return 'x';
+            }
+        };
+
+        assertThrows(IOException.class, () -> service.store(broken, "x.jpg"));
+        assertEquals(0, filesInDir());
+    }
+
+    @Test
+    void extensionOf_dropsUnsafeOrMissingExtensions() {
+        assertEquals(".png", CoverStorageService.extensionOf("a.PNG"));
+        assertEquals(".jpg", CoverStorageService.extensionOf("a.jpeg"));
+        assertEquals("", CoverStorageService.extensionOf("noext"));
+        assertEquals("", CoverStorageService.extensionOf(null));
+        assertEquals("", CoverStorageService.extensionOf("evil.jpg/../../x"));
+        assertEquals("", CoverStorageService.extensionOf("a.toolongext"));
+    }
+}
@@ -0,0 +1,145 @@
+package usyd.library_reservation_system.library_reservation_system.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import usyd.library_reservation_system.library_reservation_system.service.CoverThumbnailService.Variant;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CoverThumbnailServiceTest {
+
+    @TempDir
+    Path tmp;
+
+    private CoverStorageService storage;
+    private ExecutorService executor;
+    private CoverThumbnailService service;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        storage = new CoverStorageService();
+        ReflectionTestUtils.setField(storage, "configuredDir", tmp.toString());
+        storage.init();
+        executor = Executors.newSingleThreadExecutor();
+        service = new CoverThumbnailService(storage, executor);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    private String storePng(int w, int h) throws IOException {
+        BufferedImage img = new BufferedImage(w, h, BufferedImage.TYPE_INT_ARGB);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ImageIO.write(img, "png", bytes);
+        return storage.store(new ByteArrayInputStream(bytes.toByteArray()), "cover.png").path();
+    }
+
+    @Test
+    void generateAsync_writesAllVariantsAsJpegWithTargetWidths() throws Exception {
+        String path = storePng(2000, 3000);
+
+        Future<?> job = service.generateAsync(path);
+        assertNotNull(job);
+        job.get(10, TimeUnit.SECONDS);
+
+        String base = CoverThumbnailService.variantName(CoverStorageService.fileNameOf(path));
+        for (Variant v : Variant.values()) {
+            BufferedImage out = ImageIO.read(tmp.resolve(v.dirName()).resolve(base).toFile());
+            assertEquals(v.getWidth(), out.getWidth(), v.name());
+            assertEquals(v.getWidth() * 3 / 2, out.getHeight(), v.name());
+        }
+        assertNull(service.generateAsync(path), "nothing left to generate");
+    }
+
+    @Test
+    void smallOriginal_isNotUpscaled() throws Exception {
+        String path = storePng(300, 400);
+
+        service.generateAsync(path).get(10, TimeUnit.SECONDS);
+
+        String base = CoverThumbnailService.variantName(CoverStorageService.fileNameOf(path));
+        assertEquals(240, ImageIO.read(tmp.resolve("grid").resolve(base).toFile()).getWidth());
+        assertEquals(300, ImageIO.read(tmp.resolve("retina").resolve(base).toFile()).getWidth());
+    }
+
+    @Test
+    void variantPath_fallsBackToOriginalUntilGenerated() throws Exception {
+        String path = storePng(1000, 1500);
+
+        // first request: variant missing -> original path, generation queued
+        assertEquals(Optional.of(path), service.variantPath(path, Variant.GRID));
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        String expected = "/img/covers/grid/" + CoverThumbnailService.variantName(CoverStorageService.fileNameOf(path));
+        assertEquals(Optional.of(expected), service.variantPath(path, Variant.GRID));
+    }
+
+    @Test
+    void variantPath_unknownOrUnsafePath_isEmpty() {
+        assertTrue(service.variantPath("/img/covers/missing.jpg", Variant.GRID).isEmpty());
+        assertTrue(service.variantPath("/img/covers/../secret.jpg", Variant.GRID).isEmpty());
+    }
+
+    @Test
+    void nonImageUpload_producesNoVariants() throws Exception {
+        String path = storage.store(new ByteArrayInputStream("not an image".getBytes()), "x.jpg").path();
+
+        service.generateAsync(path).get(10, TimeUnit.SECONDS);
+
+        assertFalse(Files.exists(tmp.resolve("grid")));
+    }
+
+    @Test
+    void failedCover_isNotQueuedAgain_andServesTheOriginal() throws Exception {
+        String path = storage.store(new ByteArrayInputStream("not an image".getBytes()), "x.jpg").path();
+        service.generateAsync(path).get(10, TimeUnit.SECONDS);
+
+        assertNull(service.generateAsync(path));
+        executor.shutdown();
+        // Nothing is submitted any more: with the executor shut down a new job would be rejected and logged
+        assertEquals(Optional.of(path), service.variantPath(path, Variant.GRID));
+        assertNull(service.generateAsync(path));
+    }
+
+    @Test
+    void originalOverThePixelLimit_isNotDecoded() throws Exception {
+        ReflectionTestUtils.setField(service, "maxPixels", 1000L * 1000);
+        String path = storePng(1001, 1000);
+
+        service.generateAsync(path).get(10, TimeUnit.SECONDS);
+
+        assertFalse(Files.exists(tmp.resolve("grid")));
+        assertEquals("/img/covers/" + CoverStorageService.fileNameOf(path),
+                service.variantPath(path, Variant.GRID).orElseThrow());
+    }
+
+    @Test
+    void variantParse_byNameOrWidth() {
+        assertEquals(Optional.of(Variant.GRID), Variant.parse("grid"));
+        assertEquals(Optional.of(Variant.DETAIL), Variant.parse("DETAIL"));
+        assertEquals(Optional.of(Variant.GRID), Variant.parse("100"));
+        assertEquals(Optional.of(Variant.DETAIL), Variant.parse("300"));
+        assertEquals(Optional.of(Variant.RETINA), Variant.parse("5000"));
+        assertTrue(Variant.parse("huge").isEmpty());
+        assertTrue(Variant.parse(null).isEmpty());
+    }
+}
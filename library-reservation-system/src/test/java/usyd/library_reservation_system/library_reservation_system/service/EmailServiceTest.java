@@ -11,6 +11,8 @@ import org.springframework.mail.SimpleMailMessage;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.test.util.ReflectionTestUtils;
 
+import java.time.LocalDate;
+
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
@@ -751,5 +753,20 @@ class EmailServiceTest {
         
         assertEquals(loginFrom, registerFrom);
     }
-}
 
+    // ==================== sendOverdueNotice Tests ====================
+
+    @Test
+    void testSendOverdueNotice_NamesBookAndDueDate() {
+        // Act
+        emailService.sendOverdueNotice("user@example.com", "Dune", LocalDate.of(2025, 9, 20));
+
+        // Assert
+        ArgumentCaptor<SimpleMailMessage> messageCaptor = ArgumentCaptor.forClass(SimpleMailMessage.class);
+        verify(mailSender).send(messageCaptor.capture());
+        SimpleMailMessage msg = messageCaptor.getValue();
+        assertEquals("Overdue: Dune", msg.getSubject());
+        assertArrayEquals(new String[]{"user@example.com"}, msg.getTo());
+        assertTrue(msg.getText().contains("2025-09-20"));
+    }
+}
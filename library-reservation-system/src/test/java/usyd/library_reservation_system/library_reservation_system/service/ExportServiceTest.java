@@ -0,0 +1,95 @@
+package usyd.library_reservation_system.library_reservation_system.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class ExportServiceTest {
+
+    private final JdbcTemplate jdbc = mock(JdbcTemplate.class);
+    private final ExportService service = new ExportService(jdbc, new ObjectMapper());
+
+    private static ResultSet twoRows() throws SQLException {
+        ResultSet rs = mock(ResultSet.class);
+        ResultSetMetaData md = mock(ResultSetMetaData.class);
+        when(rs.getMetaData()).thenReturn(md);
+        when(md.getColumnCount()).thenReturn(3);
+        when(md.getColumnLabel(1)).thenReturn("bookId");
+        when(md.getColumnLabel(2)).thenReturn("bookName");
+        when(md.getColumnLabel(3)).thenReturn("createDate");
+        when(rs.next()).thenReturn(true, true, false);
+        when(rs.getObject(1)).thenReturn(1, 2);
+        when(rs.getObject(2)).thenReturn("Plain", "Comma, \"quoted\"");
+        when(rs.getObject(3)).thenReturn(LocalDateTime.of(2025, 9, 15, 13, 23, 1), (Object) null);
+        return rs;
+    }
+
+    @Test
+    void ndjson_oneObjectPerRow() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        Long rows = service.rowWriter(ExportService.Format.NDJSON, out).extractData(twoRows());
+
+        assertEquals(2L, rows);
+        assertEquals("""
+                {"bookId":1,"bookName":"Plain","createDate":"2025-09-15T13:23:01"}
+                {"bookId":2,"bookName":"Comma, \\"quoted\\"","createDate":null}
+                """, out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void csv_headerThenEscapedRows() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        service.rowWriter(ExportService.Format.CSV, out).extractData(twoRows());
+
+        assertEquals("bookId,bookName,createDate\r\n"
+                + "1,Plain,2025-09-15T13:23:01\r\n"
+                + "2,\"Comma, \"\"quoted\"\"\",\r\n", out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void exportReservations_buildsFiltersAsBindParameters() {
+        ExportService.ReservationFilter filter = new ExportService.ReservationFilter(
+                (byte) 1, null, 7, LocalDate.of(2025, 1, 1), LocalDate.of(2025, 1, 31));
+
+        service.exportReservations(filter, ExportService.Format.CSV, new ByteArrayOutputStream());
+
+        verify(jdbc).query(
+                argThat((String sql) -> sql.contains("WHERE r.status = ? AND r.book_id = ? AND r.create_date >= ? AND r.create_date < ?")
+                        && sql.endsWith("ORDER BY r.reservation_id")
+                        && !sql.contains("r.user_id = ?")),
+                any(ResultSetExtractor.class),
+                eq((byte) 1), eq(7), eq(LocalDateTime.of(2025, 1, 1, 0, 0)), eq(LocalDateTime.of(2025, 2, 1, 0, 0)));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void exportBooks_withoutFilter_hasNoWhereClause() {
+        service.exportBooks(null, ExportService.Format.NDJSON, new ByteArrayOutputStream());
+
+        verify(jdbc).query(argThat((String sql) -> !sql.contains("WHERE") && sql.endsWith("ORDER BY b.book_id")),
+                any(ResultSetExtractor.class), any(Object[].class));
+    }
+
+    @Test
+    void format_parse() {
+        assertEquals(ExportService.Format.NDJSON, ExportService.Format.parse(null));
+        assertEquals(ExportService.Format.CSV, ExportService.Format.parse("csv"));
+        assertThrows(IllegalArgumentException.class, () -> ExportService.Format.parse("xml"));
+    }
+}
@@ -0,0 +1,89 @@
+package usyd.library_reservation_system.library_reservation_system.service;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import usyd.library_reservation_system.library_reservation_system.service.IdempotencyStore.Claim;
+import usyd.library_reservation_system.library_reservation_system.service.IdempotencyStore.State;
+import usyd.library_reservation_system.library_reservation_system.service.IdempotencyStore.StoredResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IdempotencyStoreTest {
+
+    private static final long HOUR = 3_600_000L;
+    private final StoredResponse ok = new StoredResponse(200, "application/json",
+            "{\"status\":1}".getBytes(StandardCharsets.UTF_8));
+
+    @Test
+    void firstClaimRuns_repeatWaitsThenReplays() {
+        IdempotencyStore store = new IdempotencyStore(null, 24, 100, false);
+
+        assertEquals(State.NEW, store.claim("k", "body", 0).state());
+        assertEquals(State.IN_PROGRESS, store.claim("k", "body", 1).state());
+
+        store.complete("k", ok);
+        Claim replay = store.claim("k", "body", 2);
+        assertEquals(State.REPLAY, replay.state());
+        assertSame(ok, replay.response());
+        assertEquals(State.MISMATCH, store.claim("k", "other body", 3).state());
+    }
+
+    @Test
+    void releasedOrExpiredKeys_canBeClaimedAgain() {
+        IdempotencyStore store = new IdempotencyStore(null, 1, 100, false);
+
+        store.claim("a", "body", 0);
+        store.release("a");
+        assertEquals(State.NEW, store.claim("a", "body", 1).state());
+
+        store.complete("a", ok);
+        assertEquals(State.NEW, store.claim("a", "body", 1 + HOUR).state());
+
+        store.sweep(3 * HOUR);
+        assertEquals(0, store.size());
+    }
+
+    @Test
+    void fullStore_sweepsFirstThenRunsUntracked() {
+        IdempotencyStore store = new IdempotencyStore(null, 1, 2, false);
+        store.claim("a", "body", 0);
+        store.claim("b", "body", 0);
+
+        assertEquals(State.UNTRACKED, store.claim("c", "body", 1).state());
+        // Once the first two expire there is room again
+        assertEquals(State.NEW, store.claim("c", "body", 2 * HOUR).state());
+    }
+
+    @Test
+    void persisted_secondNodeSeesTheFirstNodesClaimAndResponse() {
+        DriverManagerDataSource ds = new DriverManagerDataSource(
+                "jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1", "sa", "");
+        Flyway.configure().dataSource(ds).locations("classpath:db/migration").load().migrate();
+        JdbcTemplate jdbc = new JdbcTemplate(ds);
+        IdempotencyStore nodeA = new IdempotencyStore(jdbc, 24, 100, true);
+        IdempotencyStore nodeB = new IdempotencyStore(jdbc, 24, 100, true);
+        long now = System.currentTimeMillis();
+
+        assertEquals(State.NEW, nodeA.claim("k", "body", now).state());
+        assertEquals(State.IN_PROGRESS, nodeB.claim("k", "body", now).state());
+        assertEquals(State.MISMATCH, nodeB.claim("k", "other body", now).state());
+
+        nodeA.complete("k", ok);
+        Claim replay = nodeB.claim("k", "body", now);
+        assertEquals(State.REPLAY, replay.state());
+        assertEquals(200, replay.response().status());
+        assertArrayEquals(ok.body(), replay.response().body());
+        assertEquals(0, nodeB.size());
+
+        // An expired row that was not swept yet does not block a new claim
+        assertEquals(State.NEW, nodeB.claim("k", "body", now + 25 * HOUR).state());
+
+        nodeA.sweep(now + 50 * HOUR);
+        assertEquals(0, jdbc.queryForObject("SELECT COUNT(*) FROM idempotency_key", Integer.class));
+    }
+}
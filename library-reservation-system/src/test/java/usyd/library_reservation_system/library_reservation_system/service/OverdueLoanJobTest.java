@@ -0,0 +1,107 @@
+package usyd.library_reservation_system.library_reservation_system.service;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+import usyd.library_reservation_system.library_reservation_system.service.OverdueNotifier.OverdueLoan;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+/**
+ * Runs the job's SQL against the Flyway schema on H2 (MySQL mode), with the notifier mocked.
+ */
+@ExtendWith(MockitoExtension.class)
+class OverdueLoanJobTest {
+
+    @Mock
+    private OverdueNotifier notifier;
+
+    private JdbcTemplate jdbc;
+    private OverdueLoanJob job;
+
+    private final LocalDate today = LocalDate.of(2025, 10, 1);
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource ds = new DriverManagerDataSource(
+                "jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1", "sa", "");
+        Flyway.configure().dataSource(ds).locations("classpath:db/migration").load().migrate();
+        jdbc = new JdbcTemplate(ds);
+        jdbc.execute("SET REFERENTIAL_INTEGRITY FALSE");
+        job = new OverdueLoanJob(jdbc, new TransactionTemplate(new DataSourceTransactionManager(ds)), notifier);
+        ReflectionTestUtils.setField(job, "batchSize", 2);
+
+        loan(1, 4, today.minusDays(3));
+        loan(2, 4, today.minusDays(10));
+        loan(3, 4, today.minusDays(3));
+        loan(4, 4, today);               // due today: not overdue yet
+        loan(5, 2, today.minusDays(20)); // returned
+        loan(6, 4, today.minusDays(1));
+        loan(7, 4, today.minusDays(40));
+        jdbc.update("UPDATE reservation SET overdue_notified_at = CURRENT_TIMESTAMP WHERE reservation_id = 7");
+    }
+
+    @Test
+    void queuesNewlyOverdueLoansInDueOrder_thenNothingOnTheNextRun() {
+        when(notifier.submit(anyList())).thenReturn(true);
+
+        assertEquals(4, job.scan(today));
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<OverdueLoan>> batches = ArgumentCaptor.forClass(List.class);
+        verify(notifier, times(2)).submit(batches.capture());
+        List<Integer> ids = batches.getAllValues().stream().flatMap(List::stream).map(OverdueLoan::reservationId).toList();
+        assertEquals(List.of(2, 1, 3, 6), ids);
+        assertEquals(5, notifiedCount());
+
+        assertEquals(0, job.scan(today));
+        verify(notifier, times(2)).submit(anyList());
+        assertEquals(2, job.stats().runs());
+        assertEquals(4, job.stats().loansQueued());
+    }
+
+    @Test
+    void fullNoticeQueue_unmarksThePageForTheNextRun() {
+        when(notifier.submit(anyList())).thenReturn(false).thenReturn(true);
+
+        assertEquals(2, job.scan(today));
+        assertEquals(2, job.stats().deferred());
+        // Only the second page stayed marked
+        assertEquals(3, notifiedCount());
+
+        assertEquals(2, job.scan(today));
+        assertEquals(5, notifiedCount());
+    }
+
+    @Test
+    void tomorrowPicksUpLoansThatFellDueToday() {
+        when(notifier.submit(anyList())).thenReturn(true);
+        job.scan(today);
+
+        assertEquals(1, job.scan(today.plusDays(1)));
+    }
+
+    private void loan(int id, int status, LocalDate due) {
+        jdbc.update("INSERT INTO reservation (reservation_id, create_date, status, user_id, book_id, take_date, due_date) "
+                + "VALUES (?, CURRENT_TIMESTAMP, ?, ?, 100, ?, ?)", id, status, id, due.minusDays(21), due);
+    }
+
+    private int notifiedCount() {
+        return jdbc.queryForObject("SELECT COUNT(*) FROM reservation WHERE overdue_notified_at IS NOT NULL", Integer.class);
+    }
+}
@@ -0,0 +1,86 @@
+package usyd.library_reservation_system.library_reservation_system.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import usyd.library_reservation_system.library_reservation_system.model.Book;
+import usyd.library_reservation_system.library_reservation_system.model.UserEntity;
+import usyd.library_reservation_system.library_reservation_system.repository.BookRepository;
+import usyd.library_reservation_system.library_reservation_system.repository.UserRepository;
+import usyd.library_reservation_system.library_reservation_system.service.OverdueNotifier.OverdueLoan;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OverdueNotifierTest {
+
+    @Mock
+    private ExecutorService executor;
+    @Mock
+    private EmailService emailService;
+    @Mock
+    private UserRepository userRepository;
+    @Mock
+    private BookRepository bookRepository;
+
+    private OverdueNotifier notifier;
+
+    private final LocalDate due = LocalDate.of(2025, 9, 20);
+
+    @BeforeEach
+    void setUp() {
+        notifier = new OverdueNotifier(executor, emailService, userRepository, bookRepository);
+    }
+
+    @Test
+    void send_loadsUsersAndBooksOnceAndMailsEachBorrower() {
+        when(userRepository.findAllById(List.of(1, 2))).thenReturn(List.of(user(1, "a@x.com"), user(2, "b@x.com")));
+        Book book = new Book();
+        book.setBookId(100);
+        book.setBookName("Dune");
+        when(bookRepository.findAllById(List.of(100))).thenReturn(List.of(book));
+
+        notifier.send(List.of(new OverdueLoan(10, 1, 100, due), new OverdueLoan(11, 2, 100, due)));
+
+        verify(emailService).sendOverdueNotice("a@x.com", "Dune", due);
+        verify(emailService).sendOverdueNotice("b@x.com", "Dune", due);
+        assertEquals(2, notifier.sentCount());
+    }
+
+    @Test
+    void send_countsMissingUsersAndMailFailures() {
+        when(userRepository.findAllById(List.of(1, 3))).thenReturn(List.of(user(1, "a@x.com")));
+        when(bookRepository.findAllById(List.of(100))).thenReturn(List.of());
+        doThrow(new RuntimeException("smtp down")).when(emailService).sendOverdueNotice(any(), any(), any());
+
+        notifier.send(List.of(new OverdueLoan(10, 1, 100, due), new OverdueLoan(12, 3, 100, due)));
+
+        verify(emailService).sendOverdueNotice("a@x.com", "Book #100", due);
+        assertEquals(0, notifier.sentCount());
+        assertEquals(2, notifier.failedCount());
+    }
+
+    @Test
+    void submit_reportsAFullQueue() {
+        doThrow(new RejectedExecutionException()).when(executor).execute(any());
+
+        assertFalse(notifier.submit(List.of(new OverdueLoan(10, 1, 100, due))));
+        assertTrue(notifier.submit(List.of()));
+    }
+
+    private static UserEntity user(int id, String email) {
+        UserEntity u = new UserEntity();
+        u.setUserId(id);
+        u.setEmail(email);
+        return u;
+    }
+}
@@ -0,0 +1,107 @@
+package usyd.library_reservation_system.library_reservation_system.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import usyd.library_reservation_system.library_reservation_system.dto.ReservationResponseDTO;
+import usyd.library_reservation_system.library_reservation_system.model.Reservation;
+import usyd.library_reservation_system.library_reservation_system.repository.ReservationRepository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PickupExpiryJobTest {
+
+    @Mock
+    private ReservationRepository reservationRepository;
+    @Mock
+    private ReservationService reservationService;
+
+    // 1 hour window, 10 ms tick
+    private final PickupDeadlineTracker tracker = new PickupDeadlineTracker(1, 10);
+    private PickupExpiryJob job;
+
+    @BeforeEach
+    void setUp() {
+        job = new PickupExpiryJob(tracker, reservationRepository, reservationService);
+    }
+
+    @Test
+    void rebuild_stampsLegacyHoldsAndTracksEveryHold() {
+        when(reservationRepository.findByStatus((byte) 1))
+                .thenReturn(List.of(hold(1, LocalDateTime.now()), hold(2, null)));
+
+        job.rebuild();
+
+        verify(reservationRepository).stampMissingAssignDates(any(LocalDateTime.class));
+        assertEquals(2, tracker.size());
+    }
+
+    @Test
+    void tick_expiresOnlyHoldsPastTheirWindow() {
+        when(reservationRepository.findByStatus((byte) 1)).thenReturn(List.of(
+                hold(1, LocalDateTime.now().minusHours(2)),
+                hold(2, LocalDateTime.now().minusMinutes(30))));
+        when(reservationService.expireHold(eq(1), any()))
+                .thenReturn(new ReservationResponseDTO("Pickup window expired, copy returned to stock", (byte) 3));
+        job.rebuild();
+
+        job.tick();
+
+        verify(reservationService).expireHold(eq(1), any(LocalDateTime.class));
+        verify(reservationService, never()).expireHold(eq(2), any());
+        assertEquals(1, tracker.size());
+    }
+
+    @Test
+    void tick_failureIsLoggedAndDoesNotStopOtherExpiries() {
+        when(reservationRepository.findByStatus((byte) 1)).thenReturn(List.of(
+                hold(1, LocalDateTime.now().minusHours(3)),
+                hold(2, LocalDateTime.now().minusHours(2))));
+        when(reservationService.expireHold(eq(1), any())).thenThrow(new BookBusyException("busy"));
+        when(reservationService.expireHold(eq(2), any()))
+                .thenReturn(new ReservationResponseDTO("Reservation is not an expired hold", (byte) -1));
+        job.rebuild();
+
+        assertDoesNotThrow(job::tick);
+        verify(reservationService).expireHold(eq(2), any());
+    }
+
+    @Test
+    void tracker_pickedUpHoldIsDroppedOnlyAfterCommit() {
+        Reservation r = hold(5, LocalDateTime.now());
+        tracker.recordTransition(r);
+        assertEquals(1, tracker.size());
+
+        r.setStatus((byte) 4);
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            tracker.recordTransition(r);
+            assertEquals(1, tracker.size());
+            for (TransactionSynchronization s : TransactionSynchronizationManager.getSynchronizations()) {
+                s.afterCommit();
+            }
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        assertEquals(0, tracker.size());
+    }
+
+    private static Reservation hold(int id, LocalDateTime assignDate) {
+        Reservation r = new Reservation();
+        r.setReservationId(id);
+        r.setBookId(100);
+        r.setStatus((byte) 1);
+        r.setAssignDate(assignDate);
+        return r;
+    }
+}
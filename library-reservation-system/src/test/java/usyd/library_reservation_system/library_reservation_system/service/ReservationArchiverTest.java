@@ -0,0 +1,114 @@
+package usyd.library_reservation_system.library_reservation_system.service;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReservationArchiverTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    private ReservationArchiver archiver;
+
+    private final LocalDateTime cutoff = LocalDateTime.of(2025, 6, 1, 0, 0);
+
+    @BeforeEach
+    void setUp() {
+        archiver = new ReservationArchiver(jdbcTemplate, transactionTemplate);
+        ReflectionTestUtils.setField(archiver, "chunkSize", 3);
+        ReflectionTestUtils.setField(archiver, "pauseMs", 0L);
+        lenient().when(transactionTemplate.execute(any())).thenAnswer(inv ->
+                ((TransactionCallback<?>) inv.getArgument(0)).doInTransaction(null));
+    }
+
+    @Test
+    void movesEachChunkByIdRangeAndContinuesAfterTheLastId() {
+        when(jdbcTemplate.queryForList(ReservationArchiver.SELECT_CHUNK_SQL, Integer.class, 0, cutoff, 3))
+                .thenReturn(List.of(3, 4, 9));
+        when(jdbcTemplate.queryForList(ReservationArchiver.SELECT_CHUNK_SQL, Integer.class, 9, cutoff, 3))
+                .thenReturn(List.of(12));
+        when(jdbcTemplate.update(eq(ReservationArchiver.COPY_SQL), any(LocalDateTime.class), eq(3), eq(9), eq(cutoff)))
+                .thenReturn(3);
+        when(jdbcTemplate.update(ReservationArchiver.DELETE_SQL, 3, 9, cutoff)).thenReturn(3);
+        when(jdbcTemplate.update(eq(ReservationArchiver.COPY_SQL), any(LocalDateTime.class), eq(12), eq(12), eq(cutoff)))
+                .thenReturn(1);
+        when(jdbcTemplate.update(ReservationArchiver.DELETE_SQL, 12, 12, cutoff)).thenReturn(1);
+
+        assertEquals(4, archiver.archiveOlderThan(cutoff));
+        // Short last chunk ends the run without another SELECT
+        verify(jdbcTemplate, times(2)).queryForList(anyString(), eq(Integer.class), any(Object[].class));
+    }
+
+    @Test
+    void nothingToArchive_doesNotOpenATransaction() {
+        when(jdbcTemplate.queryForList(ReservationArchiver.SELECT_CHUNK_SQL, Integer.class, 0, cutoff, 3))
+                .thenReturn(List.of());
+
+        assertEquals(0, archiver.archiveOlderThan(cutoff));
+        verifyNoInteractions(transactionTemplate);
+    }
+
+    @Test
+    void copyDeleteMismatch_failsTheChunk() {
+        when(jdbcTemplate.queryForList(ReservationArchiver.SELECT_CHUNK_SQL, Integer.class, 0, cutoff, 3))
+                .thenReturn(List.of(1, 2));
+        when(jdbcTemplate.update(eq(ReservationArchiver.COPY_SQL), any(LocalDateTime.class), eq(1), eq(2), eq(cutoff)))
+                .thenReturn(2);
+        when(jdbcTemplate.update(ReservationArchiver.DELETE_SQL, 1, 2, cutoff)).thenReturn(1);
+
+        assertThrows(IllegalStateException.class, () -> archiver.archiveOlderThan(cutoff));
+        // The guard is released so the next scheduled run can retry
+        when(jdbcTemplate.queryForList(ReservationArchiver.SELECT_CHUNK_SQL, Integer.class, 0, cutoff, 3))
+                .thenReturn(List.of());
+        assertEquals(0, archiver.archiveOlderThan(cutoff));
+    }
+
+    @Test
+    void archivedRowsKeepEveryReservationColumn() {
+        // Real SQL on the Flyway schema (H2, MySQL mode): a column added to reservation but not to the copy shows up here
+        DriverManagerDataSource ds = new DriverManagerDataSource(
+                "jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1", "sa", "");
+        Flyway.configure().dataSource(ds).locations("classpath:db/migration").load().migrate();
+        JdbcTemplate jdbc = new JdbcTemplate(ds);
+        jdbc.execute("SET REFERENTIAL_INTEGRITY FALSE");
+        jdbc.update("INSERT INTO reservation (reservation_id, create_date, status, user_id, book_id, take_date, "
+                + "return_date, assign_date, due_date, overdue_notified_at) VALUES (5, '2025-01-10 09:00:00', 2, 7, 8, "
+                + "'2025-01-12', '2025-01-30', '2025-01-11 10:00:00', '2025-01-26', '2025-01-27 08:00:00')");
+        ReservationArchiver real = new ReservationArchiver(jdbc, new TransactionTemplate(new DataSourceTransactionManager(ds)));
+        ReflectionTestUtils.setField(real, "pauseMs", 0L);
+
+        assertEquals(1, real.archiveOlderThan(cutoff));
+
+        Map<String, Object> row = jdbc.queryForMap("SELECT * FROM reservation_archive WHERE reservation_id = 5");
+        assertEquals(LocalDateTime.of(2025, 1, 11, 10, 0), ((Timestamp) row.get("assign_date")).toLocalDateTime());
+        assertEquals(Date.valueOf("2025-01-30"), row.get("return_date"));
+        assertEquals(Date.valueOf("2025-01-26"), row.get("due_date"));
+        assertEquals(LocalDateTime.of(2025, 1, 27, 8, 0), ((Timestamp) row.get("overdue_notified_at")).toLocalDateTime());
+        assertEquals(0, jdbc.queryForObject("SELECT COUNT(*) FROM reservation", Integer.class));
+    }
+}
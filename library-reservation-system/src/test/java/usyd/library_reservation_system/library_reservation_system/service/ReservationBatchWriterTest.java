@@ -0,0 +1,69 @@
+package usyd.library_reservation_system.library_reservation_system.service;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import usyd.library_reservation_system.library_reservation_system.model.Reservation;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the batch INSERT against the Flyway schema on H2 (MySQL mode).
+ */
+class ReservationBatchWriterTest {
+
+    private JdbcTemplate jdbc;
+    private ReservationBatchWriter writer;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource ds = new DriverManagerDataSource(
+                "jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1", "sa", "");
+        Flyway.configure().dataSource(ds).locations("classpath:db/migration").load().migrate();
+        jdbc = new JdbcTemplate(ds);
+        jdbc.execute("SET REFERENTIAL_INTEGRITY FALSE");
+        writer = new ReservationBatchWriter(jdbc);
+    }
+
+    @Test
+    void insertsAllRowsAndWritesBackTheGeneratedIds() {
+        LocalDateTime now = LocalDateTime.of(2025, 10, 1, 9, 30);
+        List<Reservation> batch = List.of(reservation(10, now, (byte) 1), reservation(11, now, (byte) 0),
+                reservation(12, now, (byte) 1));
+
+        writer.insertAll(batch);
+
+        List<Map<String, Object>> rows = jdbc.queryForList(
+                "SELECT reservation_id, book_id, status, assign_date FROM reservation ORDER BY reservation_id");
+        assertEquals(3, rows.size());
+        for (int i = 0; i < 3; i++) {
+            assertEquals(((Number) rows.get(i).get("reservation_id")).intValue(), batch.get(i).getReservationId());
+            assertEquals(batch.get(i).getBookId(), ((Number) rows.get(i).get("book_id")).intValue());
+        }
+        assertNull(rows.get(1).get("assign_date"));
+    }
+
+    @Test
+    void emptyBatch_touchesNothing() {
+        writer.insertAll(List.of());
+
+        assertEquals(0, jdbc.queryForObject("SELECT COUNT(*) FROM reservation", Integer.class));
+    }
+
+    private static Reservation reservation(int bookId, LocalDateTime now, byte status) {
+        Reservation r = new Reservation();
+        r.setUserId(1);
+        r.setBookId(bookId);
+        r.setCreateDate(now);
+        r.setStatus(status);
+        r.setAssignDate(status == 1 ? now : null);
+        return r;
+    }
+}
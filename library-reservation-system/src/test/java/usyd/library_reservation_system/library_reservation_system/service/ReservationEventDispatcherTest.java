@@ -0,0 +1,150 @@
+package usyd.library_reservation_system.library_reservation_system.service;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+import usyd.library_reservation_system.library_reservation_system.service.ReservationEventOutbox.ReservationEvent;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the dispatcher's SQL against the Flyway schema on H2 (MySQL mode), with recording subscribers.
+ */
+class ReservationEventDispatcherTest {
+
+    private DriverManagerDataSource ds;
+    private JdbcTemplate jdbc;
+    private ReservationEventOutbox outbox;
+    private final List<List<ReservationEvent>> received = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        ds = new DriverManagerDataSource(
+                "jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1", "sa", "");
+        Flyway.configure().dataSource(ds).locations("classpath:db/migration").load().migrate();
+        jdbc = new JdbcTemplate(ds);
+        outbox = ReservationEventOutboxTest.enabledOutbox(jdbc, events -> { });
+        for (int i = 1; i <= 5; i++) {
+            outbox.record(ReservationEventOutboxTest.reservation(i, 10 + i, 100, (byte) 0));
+        }
+    }
+
+    @Test
+    void deliversPendingEventsInBatchesAndInOrder_thenNothingOnTheNextRun() {
+        ReservationEventDispatcher dispatcher = dispatcher(received::add);
+
+        assertEquals(5, dispatcher.dispatch());
+
+        assertEquals(List.of(2, 2, 1), received.stream().map(List::size).toList());
+        List<Integer> ids = received.stream().flatMap(List::stream).map(ReservationEvent::reservationId).toList();
+        assertEquals(List.of(1, 2, 3, 4, 5), ids);
+        assertEquals(12, received.get(0).get(1).userId());
+        assertEquals(0, jdbc.queryForObject(
+                "SELECT COUNT(*) FROM reservation_event WHERE dispatched_at IS NULL", Integer.class));
+
+        assertEquals(0, dispatcher.dispatch());
+        assertEquals(5, dispatcher.stats().dispatched());
+    }
+
+    @Test
+    void eventsDispatchedByAnotherNode_areSkipped() {
+        List<List<ReservationEvent>> other = new ArrayList<>();
+        ReservationEventDispatcher first = dispatcher(received::add);
+        ReservationEventDispatcher second = dispatcher(other::add);
+        // Another node already delivered event 1 and 2
+        jdbc.update("UPDATE reservation_event SET dispatched_at = CURRENT_TIMESTAMP WHERE reservation_id IN (1, 2)");
+
+        assertEquals(3, first.dispatch());
+        assertEquals(0, second.dispatch());
+
+        assertEquals(List.of(3, 4, 5), received.stream().flatMap(List::stream).map(ReservationEvent::reservationId).toList());
+        assertTrue(other.isEmpty());
+    }
+
+    @Test
+    void failingSubscriber_leavesTheBatchPending_andItIsOfferedAgainOnTheNextRun() {
+        AtomicBoolean down = new AtomicBoolean(true);
+        ReservationEventDispatcher dispatcher = dispatcher(events -> {
+            if (down.get()) {
+                throw new IllegalStateException("mail server down");
+            }
+        }, received::add);
+
+        // The healthy subscriber still saw the first page, but nothing is marked and the run stops there
+        assertEquals(0, dispatcher.dispatch());
+        assertEquals(List.of(2), received.stream().map(List::size).toList());
+        assertEquals(5, jdbc.queryForObject(
+                "SELECT COUNT(*) FROM reservation_event WHERE dispatched_at IS NULL", Integer.class));
+        assertEquals(1, dispatcher.stats().subscriberFailures());
+
+        down.set(false);
+        assertEquals(5, dispatcher.dispatch());
+        // At least once: events 1 and 2 reach the healthy subscriber twice, with the same event ids
+        List<Long> ids = received.stream().flatMap(List::stream).map(ReservationEvent::eventId).toList();
+        assertEquals(7, ids.size());
+        assertEquals(ids.subList(0, 2), ids.subList(2, 4));
+    }
+
+    @Test
+    void noSubscribers_leavesEveryEventPending() {
+        ReservationEventDispatcher dispatcher = dispatcher();
+
+        assertEquals(0, dispatcher.dispatch());
+
+        assertEquals(5, jdbc.queryForObject(
+                "SELECT COUNT(*) FROM reservation_event WHERE dispatched_at IS NULL", Integer.class));
+    }
+
+    @Test
+    void purge_deletesOnlyEventsDispatchedBeforeTheCutoff() {
+        ReservationEventDispatcher dispatcher = dispatcher(received::add);
+        jdbc.update("UPDATE reservation_event SET dispatched_at = ? WHERE reservation_id IN (1, 2)",
+                LocalDateTime.now().minusDays(5));
+        jdbc.update("UPDATE reservation_event SET dispatched_at = ? WHERE reservation_id = 3", LocalDateTime.now());
+
+        assertEquals(2, dispatcher.purge(LocalDateTime.now().minusDays(3)));
+
+        // Undispatched events are never purged
+        assertEquals(3, jdbc.queryForObject("SELECT COUNT(*) FROM reservation_event", Integer.class));
+        assertEquals(2, dispatcher.stats().purged());
+    }
+
+    @Test
+    void purgeUndelivered_dropsOnlyPendingEventsOlderThanTheCutoff() {
+        ReservationEventDispatcher dispatcher = dispatcher();
+        jdbc.update("UPDATE reservation_event SET occurred_at = ? WHERE reservation_id IN (1, 2, 3)",
+                LocalDateTime.now().minusDays(10));
+        // Old but delivered: left to the dispatched-row purge
+        jdbc.update("UPDATE reservation_event SET dispatched_at = ? WHERE reservation_id = 3", LocalDateTime.now());
+
+        assertEquals(2, dispatcher.purgeUndelivered(LocalDateTime.now().minusDays(7)));
+
+        assertEquals(List.of(3, 4, 5), jdbc.queryForList(
+                "SELECT reservation_id FROM reservation_event ORDER BY event_id", Integer.class));
+        assertEquals(2, dispatcher.stats().purged());
+    }
+
+    private ReservationEventDispatcher dispatcher(ReservationEventSubscriber... subscribers) {
+        StaticListableBeanFactory beans = new StaticListableBeanFactory();
+        for (int i = 0; i < subscribers.length; i++) {
+            beans.addBean("subscriber" + i, subscribers[i]);
+        }
+        ReservationEventDispatcher dispatcher = new ReservationEventDispatcher(jdbc,
+                new TransactionTemplate(new DataSourceTransactionManager(ds)),
+                beans.getBeanProvider(ReservationEventSubscriber.class));
+        ReflectionTestUtils.setField(dispatcher, "batchSize", 2);
+        return dispatcher;
+    }
+}
@@ -0,0 +1,133 @@
+package usyd.library_reservation_system.library_reservation_system.service;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+import usyd.library_reservation_system.library_reservation_system.model.Reservation;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the outbox against the Flyway schema on H2 (MySQL mode), inside real JDBC transactions.
+ */
+class ReservationEventOutboxTest {
+
+    private JdbcTemplate jdbc;
+    private TransactionTemplate tx;
+    private ReservationEventOutbox outbox;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource ds = new DriverManagerDataSource(
+                "jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1", "sa", "");
+        Flyway.configure().dataSource(ds).locations("classpath:db/migration").load().migrate();
+        jdbc = new JdbcTemplate(ds);
+        tx = new TransactionTemplate(new DataSourceTransactionManager(ds));
+        outbox = enabledOutbox(jdbc, events -> { });
+    }
+
+    @Test
+    void eventsOfATransaction_areWrittenInOneBatchAtCommit() {
+        AtomicInteger seenInside = new AtomicInteger(-1);
+        tx.executeWithoutResult(status -> {
+            Reservation r = reservation(1, 10, 100, (byte) 0);
+            outbox.record(r);
+            // The event is a snapshot: the later change is a second event, not an edit of the first
+            r.setStatus((byte) 1);
+            outbox.record(r);
+            outbox.record(reservation(2, 11, 100, (byte) 3));
+            seenInside.set(count());
+        });
+
+        assertEquals(0, seenInside.get());
+        List<Map<String, Object>> rows = jdbc.queryForList(
+                "SELECT reservation_id, user_id, status, dispatched_at FROM reservation_event ORDER BY event_id");
+        assertEquals(3, rows.size());
+        assertEquals(0, ((Number) rows.get(0).get("status")).intValue());
+        assertEquals(1, ((Number) rows.get(1).get("status")).intValue());
+        assertEquals(11, ((Number) rows.get(2).get("user_id")).intValue());
+        assertNull(rows.get(0).get("dispatched_at"));
+    }
+
+    @Test
+    void rollback_dropsTheEvents() {
+        assertThrows(IllegalStateException.class, () -> tx.executeWithoutResult(status -> {
+            outbox.record(reservation(1, 10, 100, (byte) 0));
+            throw new IllegalStateException("boom");
+        }));
+        tx.executeWithoutResult(status -> outbox.record(reservation(2, 10, 200, (byte) 0)));
+
+        assertEquals(1, count());
+        assertEquals(2, jdbc.queryForObject("SELECT reservation_id FROM reservation_event", Integer.class));
+    }
+
+    @Test
+    void outsideATransaction_theEventIsWrittenAtOnce() {
+        outbox.record(reservation(1, 10, 100, (byte) 4));
+
+        assertEquals(1, count());
+    }
+
+    @Test
+    void withoutASubscriber_nothingIsWritten() {
+        ReservationEventOutbox unsubscribed = enabledOutbox(jdbc);
+        tx.executeWithoutResult(status -> unsubscribed.record(reservation(1, 10, 100, (byte) 0)));
+        unsubscribed.record(reservation(2, 10, 100, (byte) 0));
+
+        assertEquals(0, count());
+    }
+
+    @Test
+    void disabledByDefault() {
+        StaticListableBeanFactory beans = new StaticListableBeanFactory();
+        beans.addBean("subscriber", (ReservationEventSubscriber) events -> { });
+        new ReservationEventOutbox(jdbc, beans.getBeanProvider(ReservationEventSubscriber.class))
+                .record(reservation(1, 10, 100, (byte) 0));
+
+        assertEquals(0, count());
+    }
+
+    @Test
+    void disabledOrUnsavedReservation_writesNothing() {
+        outbox.record(reservation(null, 10, 100, (byte) 0));
+        ReflectionTestUtils.setField(outbox, "enabled", false);
+        outbox.record(reservation(1, 10, 100, (byte) 0));
+
+        assertEquals(0, count());
+    }
+
+    private int count() {
+        return jdbc.queryForObject("SELECT COUNT(*) FROM reservation_event", Integer.class);
+    }
+
+    static ReservationEventOutbox enabledOutbox(JdbcTemplate jdbc, ReservationEventSubscriber... subscribers) {
+        StaticListableBeanFactory beans = new StaticListableBeanFactory();
+        for (int i = 0; i < subscribers.length; i++) {
+            beans.addBean("subscriber" + i, subscribers[i]);
+        }
+        ReservationEventOutbox outbox = new ReservationEventOutbox(jdbc,
+                beans.getBeanProvider(ReservationEventSubscriber.class));
+        ReflectionTestUtils.setField(outbox, "enabled", true);
+        return outbox;
+    }
+
+    static Reservation reservation(Integer id, int userId, int bookId, byte status) {
+        Reservation r = new Reservation();
+        r.setReservationId(id);
+        r.setUserId(userId);
+        r.setBookId(bookId);
+        r.setStatus(status);
+        return r;
+    }
+}
@@ -0,0 +1,133 @@
+package usyd.library_reservation_system.library_reservation_system.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import usyd.library_reservation_system.library_reservation_system.model.Reservation;
+import usyd.library_reservation_system.library_reservation_system.repository.ReservationRepository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReservationQueueIndexTest {
+
+    @Mock
+    private ReservationRepository reservationRepository;
+
+    private ReservationQueueIndex index;
+
+    private final LocalDateTime t0 = LocalDateTime.of(2025, 9, 1, 10, 0);
+
+    @BeforeEach
+    void setUp() {
+        index = new ReservationQueueIndex(reservationRepository);
+        ReflectionTestUtils.setField(index, "loanWindow", 3);
+    }
+
+    @Test
+    void position_followsCreateDateThenId_andLoadsOnce() {
+        when(reservationRepository.findByBookIdAndStatusOrderByCreateDateAsc(100, (byte) 0))
+                .thenReturn(List.of(queued(5, 0), queued(3, 1), queued(4, 1)));
+
+        assertEquals(new ReservationQueueIndex.Position(1, 3), index.position(100, 5));
+        // Same create_date: lower id first, as in claimNextQueued
+        assertEquals(new ReservationQueueIndex.Position(2, 3), index.position(100, 3));
+        assertEquals(new ReservationQueueIndex.Position(3, 3), index.position(100, 4));
+        verify(reservationRepository, times(1)).findByBookIdAndStatusOrderByCreateDateAsc(100, (byte) 0);
+    }
+
+    @Test
+    void transitionsOutsideATransaction_applyImmediately() {
+        when(reservationRepository.findByBookIdAndStatusOrderByCreateDateAsc(100, (byte) 0))
+                .thenReturn(List.of(queued(1, 0), queued(2, 1), queued(3, 2)));
+        index.position(100, 1);
+
+        Reservation head = queued(1, 0);
+        head.setStatus((byte) 1); // assigned
+        index.recordTransition(head);
+        index.recordTransition(queued(9, 3));
+
+        assertEquals(new ReservationQueueIndex.Position(1, 3), index.position(100, 2));
+        assertEquals(new ReservationQueueIndex.Position(3, 3), index.position(100, 9));
+    }
+
+    @Test
+    void transitionInsideATransaction_waitsForCommit_andIsDroppedOnRollback() {
+        when(reservationRepository.findByBookIdAndStatusOrderByCreateDateAsc(100, (byte) 0))
+                .thenReturn(new ArrayList<>(List.of(queued(1, 0), queued(2, 1))));
+        index.position(100, 1);
+
+        Reservation head = queued(1, 0);
+        head.setStatus((byte) 3); // cancelled, then rolled back
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            index.recordTransition(head);
+            for (TransactionSynchronization s : TransactionSynchronizationManager.getSynchronizations()) {
+                s.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+            }
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertEquals(new ReservationQueueIndex.Position(2, 2), index.position(100, 2));
+    }
+
+    @Test
+    void miss_reloadsOnceToPickUpOtherNodes() {
+        when(reservationRepository.findByBookIdAndStatusOrderByCreateDateAsc(100, (byte) 0))
+                .thenReturn(List.of(queued(1, 0)))
+                .thenReturn(List.of(queued(1, 0), queued(2, 1)));
+
+        index.position(100, 1);
+        assertEquals(new ReservationQueueIndex.Position(2, 2), index.position(100, 2));
+        assertNull(index.position(100, 77));
+    }
+
+    @Test
+    void averageLoanDays_isARollingWindow() {
+        when(reservationRepository.findRecentLoans(eq(100), any(Pageable.class)))
+                .thenReturn(List.of(loan(10, 10), loan(11, 20), loan(12, 30)));
+
+        assertEquals(20.0, index.averageLoanDays(100), 1e-9);
+
+        // Newest return pushes the oldest (30 days) out of the 3-loan window
+        index.recordTransition(loan(13, 2));
+        assertEquals((2 + 10 + 20) / 3.0, index.averageLoanDays(100), 1e-9);
+    }
+
+    @Test
+    void averageLoanDays_defaultsWithoutHistory() {
+        when(reservationRepository.findRecentLoans(eq(100), any(Pageable.class))).thenReturn(List.of());
+        assertEquals(14.0, index.averageLoanDays(100), 1e-9);
+    }
+
+    private Reservation queued(int id, int minutes) {
+        Reservation r = new Reservation();
+        r.setReservationId(id);
+        r.setBookId(100);
+        r.setStatus((byte) 0);
+        r.setCreateDate(t0.plusMinutes(minutes));
+        return r;
+    }
+
+    private Reservation loan(int id, int days) {
+        Reservation r = queued(id, 0);
+        r.setStatus((byte) 2);
+        r.setTakeDate(LocalDate.of(2025, 9, 1));
+        r.setReturnDate(LocalDate.of(2025, 9, 1).plusDays(days));
+        return r;
+    }
+}
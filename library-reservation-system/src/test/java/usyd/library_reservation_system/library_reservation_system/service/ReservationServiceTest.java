@@ -5,15 +5,28 @@ import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
 import usyd.library_reservation_system.library_reservation_system.dto.AdminReservationDTO;
+import usyd.library_reservation_system.library_reservation_system.dto.BatchReserveRequest;
+import usyd.library_reservation_system.library_reservation_system.dto.BatchReserveResult;
+import usyd.library_reservation_system.library_reservation_system.dto.BatchReturnResult;
+import usyd.library_reservation_system.library_reservation_system.dto.QueuePositionDTO;
 import usyd.library_reservation_system.library_reservation_system.dto.ReservationResponseDTO;
+import usyd.library_reservation_system.library_reservation_system.dto.RestockResultDTO;
 import usyd.library_reservation_system.library_reservation_system.model.Book;
 import usyd.library_reservation_system.library_reservation_system.model.Reservation;
+import usyd.library_reservation_system.library_reservation_system.model.ReservationArchive;
 import usyd.library_reservation_system.library_reservation_system.model.UserEntity;
 import usyd.library_reservation_system.library_reservation_system.repository.BookRepository;
+import usyd.library_reservation_system.library_reservation_system.repository.ReservationArchiveRepository;
 import usyd.library_reservation_system.library_reservation_system.repository.ReservationRepository;
 import usyd.library_reservation_system.library_reservation_system.repository.UserRepository;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.*;
 
@@ -28,6 +41,22 @@ public class ReservationServiceTest {
     private ReservationRepository reservationRepository;
     @Mock
     private UserRepository userRepository;
+    @Mock
+    private ReservationArchiveRepository reservationArchiveRepository;
+    @Mock
+    private TransactionTemplate transactionTemplate;
+    @Mock
+    private ReservationQueueIndex queueIndex;
+    @Mock
+    private PickupDeadlineTracker pickupDeadlines;
+    @Mock
+    private ReservationBatchWriter reservationWriter;
+    @Mock
+    private ActiveReservationIndex activeReservations;
+    @Mock
+    private ReservationEventOutbox events;
+    @Spy
+    private BookLockManager bookLocks = new BookLockManager(16, 1000);
 
     @InjectMocks
     private ReservationService reservationService;
@@ -38,6 +67,13 @@ public class ReservationServiceTest {
     @BeforeEach
     void setup() {
         MockitoAnnotations.openMocks(this);
+        when(transactionTemplate.execute(any())).thenAnswer(inv ->
+                ((TransactionCallback<?>) inv.getArgument(0)).doInTransaction(null));
+        // Resolve the lock key from whatever findById is stubbed with in each test
+        when(reservationRepository.findBookIdByReservationId(anyInt())).thenAnswer(inv ->
+                reservationRepository.findById(inv.getArgument(0)).map(Reservation::getBookId).orElse(null));
+        // Quota slots are granted unless a test says otherwise
+        when(activeReservations.claimSlots(anyInt(), anyInt(), anyInt())).thenAnswer(inv -> inv.getArgument(1));
         mockUser = new UserEntity();
         mockUser.setUserId(1);
         mockUser.setNickname("Alice");
@@ -58,13 +94,15 @@ public class ReservationServiceTest {
         savedRes.setReservationId(1);
         savedRes.setStatus((byte) 1);
         when(reservationRepository.save(any(Reservation.class))).thenReturn(savedRes);
-        when(bookRepository.save(any(Book.class))).thenReturn(mockBook);
+        when(bookRepository.tryTakeCopy(100)).thenReturn(1);
 
         ReservationResponseDTO result = reservationService.reserveBook(1, 100);
 
         assertEquals("Reservation successful", result.getMessage());
-//        assertEquals(1, result.getStatus());
-        verify(bookRepository, times(1)).save(any(Book.class)); // Save and update stock
+        assertEquals((byte) 1, result.getStatus());
+        verify(bookRepository, times(1)).tryTakeCopy(100); // Atomic stock decrement
+        verify(bookRepository, times(1)).adjustNumReservation(100, 1);
+        verify(bookRepository, never()).save(any(Book.class));
         verify(reservationRepository, times(1)).save(any(Reservation.class));
     }
 
@@ -74,6 +112,21 @@ public class ReservationServiceTest {
         when(userRepository.findById(1)).thenReturn(Optional.of(mockUser));
         when(bookRepository.findById(100)).thenReturn(Optional.of(mockBook));
 
+        when(bookRepository.tryTakeCopy(100)).thenReturn(0);
+
+        ReservationResponseDTO result = reservationService.reserveBook(1, 100);
+        assertEquals((byte) 0, result.getStatus());
+        verify(bookRepository).adjustNumReservation(100, 1);
+    }
+
+    @Test
+    void testReserveBook_LastCopyTakenConcurrently_ShouldQueue() {
+        // Read shows stock, but another node's UPDATE got the last copy first
+        mockBook.setQuantity(1);
+        when(userRepository.findById(1)).thenReturn(Optional.of(mockUser));
+        when(bookRepository.findById(100)).thenReturn(Optional.of(mockBook));
+        when(bookRepository.tryTakeCopy(100)).thenReturn(0);
+
         ReservationResponseDTO result = reservationService.reserveBook(1, 100);
         assertEquals((byte) 0, result.getStatus());
     }
@@ -82,11 +135,13 @@ public class ReservationServiceTest {
     void testPickupBook_InvalidStatus_ShouldFail() {
         Reservation res = new Reservation();
         res.setReservationId(1);
+        res.setBookId(100);
         res.setStatus((byte) 0); // not available
         when(reservationRepository.findById(1)).thenReturn(Optional.of(res));
 
         ReservationResponseDTO result = reservationService.pickupBook(1);
         assertTrue(result.getMessage().contains("not in available for pickup"));
+        verify(pickupDeadlines, never()).recordTransition(any());
     }
 
     @Test
@@ -103,15 +158,15 @@ public class ReservationServiceTest {
 
         ReservationResponseDTO result = reservationService.cancelReservation(1, 1);
         assertTrue(result.getMessage().contains("Cancellation successful"));
-        verify(bookRepository, atLeastOnce()).save(any(Book.class));
+        verify(bookRepository).releaseCopy(100);
+        verify(bookRepository).adjustNumReservation(100, -1);
         verify(reservationRepository, times(1)).save(any(Reservation.class));
     }
 
     @Test
     void testAutoAssignNextUser_NoQueue_ShouldFail() {
         when(bookRepository.findById(100)).thenReturn(Optional.of(mockBook));
-        when(reservationRepository.findByBookIdAndStatusOrderByCreateDateAsc(100, (byte) 0))
-                .thenReturn(Collections.emptyList());
+        when(reservationRepository.claimNextQueued(100)).thenReturn(Optional.empty());
 
         ReservationResponseDTO result = reservationService.autoAssignNextUser(100);
         assertTrue(result.getMessage().contains("No users in queue"));
@@ -169,14 +224,13 @@ public class ReservationServiceTest {
         when(bookRepository.findById(100)).thenReturn(Optional.of(mockBook));
 
         // Simulate autoAssignNextUser result
-        when(reservationRepository.findByBookIdAndStatusOrderByCreateDateAsc(100, (byte) 0))
-                .thenReturn(Collections.emptyList());
+        when(reservationRepository.claimNextQueued(100)).thenReturn(Optional.empty());
 
         ReservationResponseDTO result = reservationService.returnBook(1);
 
         assertTrue(result.getMessage().contains("Return successful"));
         assertEquals((byte) 2, result.getStatus());
-        verify(bookRepository, atLeastOnce()).save(any(Book.class));
+        verify(bookRepository).releaseCopy(100);
         verify(reservationRepository, atLeastOnce()).save(any(Reservation.class));
     }
 
@@ -185,17 +239,20 @@ public class ReservationServiceTest {
         // Case 1: Normal approval
         Reservation res1 = new Reservation();
         res1.setReservationId(1);
+        res1.setBookId(100);
         res1.setStatus((byte) 1);
         when(reservationRepository.findById(1)).thenReturn(Optional.of(res1));
+        stubPickUp(res1);
 
         ReservationResponseDTO success = reservationService.approveTakeBook(1);
         assertEquals("Pickup confirmed", success.getMessage());
         assertEquals((byte) 4, success.getStatus());
-        verify(reservationRepository, atLeastOnce()).save(any());
+        assertEquals((byte) 4, res1.getStatus());
 
         // Case 2: Status error
         Reservation res2 = new Reservation();
         res2.setReservationId(2);
+        res2.setBookId(100);
         res2.setStatus((byte) 0);
         when(reservationRepository.findById(2)).thenReturn(Optional.of(res2));
 
@@ -224,6 +281,7 @@ public class ReservationServiceTest {
         Reservation res = new Reservation();
         res.setReservationId(1);
         res.setUserId(1);
+        res.setBookId(100);
         res.setStatus((byte) 3); // Already cancelled
 
         when(reservationRepository.findById(1)).thenReturn(Optional.of(res));
@@ -283,8 +341,7 @@ public class ReservationServiceTest {
     void testAutoAssignNextUser_EmptyQueue_ShouldFail() {
         mockBook.setQuantity(5);
         when(bookRepository.findById(100)).thenReturn(Optional.of(mockBook));
-        when(reservationRepository.findByBookIdAndStatusOrderByCreateDateAsc(100, (byte) 0))
-                .thenReturn(List.of());
+        when(reservationRepository.claimNextQueued(100)).thenReturn(Optional.empty());
 
         ReservationResponseDTO result = reservationService.autoAssignNextUser(100);
 
@@ -302,18 +359,40 @@ public class ReservationServiceTest {
         waitingRes.setStatus((byte) 0);
 
         when(bookRepository.findById(100)).thenReturn(Optional.of(mockBook));
-        when(reservationRepository.findByBookIdAndStatusOrderByCreateDateAsc(100, (byte) 0))
-                .thenReturn(List.of(waitingRes));
+        when(reservationRepository.claimNextQueued(100)).thenReturn(Optional.of(waitingRes));
+        when(bookRepository.tryTakeCopy(100)).thenReturn(1);
         when(reservationRepository.save(any(Reservation.class))).thenReturn(waitingRes);
 
         ReservationResponseDTO result = reservationService.autoAssignNextUser(100);
 
         assertTrue(result.getMessage().contains("Assigned to user ID: 7"));
         assertEquals((byte) 1, result.getStatus());
-        verify(bookRepository).save(any(Book.class));
+        assertEquals((byte) 1, waitingRes.getStatus());
+        verify(bookRepository).tryTakeCopy(100);
+        verify(bookRepository, never()).save(any(Book.class));
         verify(reservationRepository).save(any(Reservation.class));
     }
 
+    @Test
+    void testAutoAssignNextUser_CopyTakenAfterClaim_ShouldLeaveWaiterQueued() {
+        mockBook.setQuantity(1);
+        Reservation waitingRes = new Reservation();
+        waitingRes.setReservationId(10);
+        waitingRes.setBookId(100);
+        waitingRes.setUserId(7);
+        waitingRes.setStatus((byte) 0);
+
+        when(bookRepository.findById(100)).thenReturn(Optional.of(mockBook));
+        when(reservationRepository.claimNextQueued(100)).thenReturn(Optional.of(waitingRes));
+        when(bookRepository.tryTakeCopy(100)).thenReturn(0);
+
+        ReservationResponseDTO result = reservationService.autoAssignNextUser(100);
+
+        assertEquals("Insufficient stock, unable to assign", result.getMessage());
+        assertEquals((byte) 0, waitingRes.getStatus());
+        verify(reservationRepository, never()).save(any(Reservation.class));
+    }
+
     @Test
     void testGetAllReservations_StatusNull_ShouldReturnAll() {
         Reservation res = new Reservation();
@@ -371,16 +450,38 @@ public class ReservationServiceTest {
     void testPickupBook_ValidStatus_ShouldSuccess() {
         Reservation res = new Reservation();
         res.setReservationId(1);
+        res.setBookId(100);
         res.setStatus((byte) 1);
 
         when(reservationRepository.findById(1)).thenReturn(Optional.of(res));
-        when(reservationRepository.save(any(Reservation.class))).thenReturn(res);
+        stubPickUp(res);
 
         ReservationResponseDTO result = reservationService.pickupBook(1);
 
         assertEquals("User has picked up the book, status updated to picked up", result.getMessage());
         assertEquals((byte) 4, result.getStatus());
-        verify(reservationRepository, times(1)).save(any(Reservation.class));
+        verify(bookLocks).withLock(eq(100), any());
+        verify(reservationRepository, never()).save(any(Reservation.class));
+    }
+
+    @Test
+    void testPickupBook_HoldExpiredMeanwhile_DoesNotOverwriteIt() {
+        // expireHold committed status 3 between the caller's read and the pickup: the UPDATE matches nothing
+        Reservation expired = new Reservation();
+        expired.setReservationId(1);
+        expired.setBookId(100);
+        expired.setStatus((byte) 3);
+        when(reservationRepository.findById(1)).thenReturn(Optional.of(expired));
+        when(reservationRepository.pickUpHold(eq(1), any(), any())).thenReturn(0);
+
+        ReservationResponseDTO result = reservationService.pickupBook(1);
+
+        assertEquals((byte) 3, result.getStatus());
+        assertTrue(result.getMessage().contains("not in available for pickup"));
+        assertEquals((byte) 3, expired.getStatus());
+        verify(reservationRepository, never()).save(any(Reservation.class));
+        verify(pickupDeadlines, never()).recordTransition(any());
+        verify(events, never()).record(any());
     }
 
     @Test
@@ -399,6 +500,7 @@ public class ReservationServiceTest {
         assertEquals("Cancellation successful", result.getMessage());
         assertEquals((byte) 3, result.getStatus());
         verify(bookRepository, never()).save(any(Book.class)); // No stock return for queuing
+        verify(bookRepository, never()).releaseCopy(anyInt());
     }
 
     @Test
@@ -423,6 +525,7 @@ public class ReservationServiceTest {
         Reservation res = new Reservation();
         res.setReservationId(1);
         res.setUserId(1);
+        res.setBookId(100);
         res.setStatus((byte) 2); // Returned
 
         when(reservationRepository.findById(1)).thenReturn(Optional.of(res));
@@ -461,9 +564,7 @@ public class ReservationServiceTest {
         when(reservationRepository.findById(1)).thenReturn(Optional.of(res));
         when(reservationRepository.save(any(Reservation.class))).thenReturn(res);
         when(bookRepository.findById(100)).thenReturn(Optional.of(mockBook));
-        when(bookRepository.save(any(Book.class))).thenReturn(mockBook);
-        when(reservationRepository.findByBookIdAndStatusOrderByCreateDateAsc(100, (byte) 0))
-                .thenReturn(List.of()); // No queue
+        when(reservationRepository.claimNextQueued(100)).thenReturn(Optional.empty()); // No queue
 
         ReservationResponseDTO result = reservationService.returnBook(1);
 
@@ -486,10 +587,9 @@ public class ReservationServiceTest {
 
         when(reservationRepository.findById(1)).thenReturn(Optional.of(res));
         when(bookRepository.findById(100)).thenReturn(Optional.of(mockBook));
-        when(reservationRepository.findByBookIdAndStatusOrderByCreateDateAsc(100, (byte) 0))
-                .thenReturn(List.of(waitingRes));
+        when(reservationRepository.claimNextQueued(100)).thenReturn(Optional.of(waitingRes));
+        when(bookRepository.tryTakeCopy(100)).thenReturn(1);
         when(reservationRepository.save(any(Reservation.class))).thenAnswer(inv -> inv.getArgument(0));
-        when(bookRepository.save(any(Book.class))).thenReturn(mockBook);
 
         ReservationResponseDTO result = reservationService.returnBook(1);
 
@@ -513,10 +613,9 @@ public class ReservationServiceTest {
 
         when(reservationRepository.findById(1)).thenReturn(Optional.of(res));
         when(bookRepository.findById(100)).thenReturn(Optional.of(mockBook));
-        when(reservationRepository.findByBookIdAndStatusOrderByCreateDateAsc(100, (byte) 0))
-                .thenReturn(List.of(waitingRes));
+        when(reservationRepository.claimNextQueued(100)).thenReturn(Optional.of(waitingRes));
+        when(bookRepository.tryTakeCopy(100)).thenReturn(1);
         when(reservationRepository.save(any(Reservation.class))).thenAnswer(inv -> inv.getArgument(0));
-        when(bookRepository.save(any(Book.class))).thenReturn(mockBook);
 
         ReservationResponseDTO result = reservationService.cancelReservation(1, 1);
 
@@ -571,6 +670,51 @@ public class ReservationServiceTest {
         assertEquals("Unknown User", result.get(0).getUserNickname());
     }
 
+    @Test
+    void testGetUserReservations_WithoutHistory_ShouldNotReadArchive() {
+        when(reservationRepository.findByUserIdOrderByCreateDateDesc(1)).thenReturn(List.of());
+
+        assertTrue(reservationService.getUserReservations(1).isEmpty());
+        verifyNoInteractions(reservationArchiveRepository);
+    }
+
+    @Test
+    void testGetUserReservations_WithHistory_ShouldMergeArchiveNewestFirst() {
+        Reservation live = new Reservation();
+        live.setReservationId(20);
+        live.setUserId(1);
+        live.setBookId(100);
+        live.setStatus((byte) 1);
+        live.setCreateDate(LocalDateTime.now().minusDays(10));
+
+        ReservationArchive newer = new ReservationArchive();
+        newer.setReservationId(15);
+        newer.setUserId(1);
+        newer.setBookId(100);
+        newer.setStatus((byte) 3);
+        newer.setCreateDate(LocalDateTime.now().minusDays(5));
+
+        ReservationArchive older = new ReservationArchive();
+        older.setReservationId(3);
+        older.setUserId(1);
+        older.setBookId(100);
+        older.setStatus((byte) 2);
+        older.setCreateDate(LocalDateTime.now().minusDays(200));
+
+        when(reservationRepository.findByUserIdOrderByCreateDateDesc(1)).thenReturn(List.of(live));
+        when(reservationArchiveRepository.findByUserIdOrderByCreateDateDesc(1)).thenReturn(List.of(newer, older));
+        when(bookRepository.findById(100)).thenReturn(Optional.of(mockBook));
+        when(userRepository.findById(1)).thenReturn(Optional.of(mockUser));
+
+        List<AdminReservationDTO> result = reservationService.getUserReservations(1, true);
+
+        assertEquals(3, result.size());
+        assertEquals(15, result.get(0).getReservationId());
+        assertEquals(20, result.get(1).getReservationId());
+        assertEquals(3, result.get(2).getReservationId());
+        assertEquals((byte) 2, result.get(2).getStatus());
+    }
+
     @Test
     void testGetAllReservations_WithUnknownBookAndUser_ShouldReturnUnknown() {
         Reservation res = new Reservation();
@@ -590,7 +734,631 @@ public class ReservationServiceTest {
         assertEquals("Unknown User", result.get(0).getUserNickname());
     }
 
+    @Test
+    void testMutations_RunUnderTheBookLockOutsideTheirTransaction() {
+        Reservation res = new Reservation();
+        res.setReservationId(7);
+        res.setUserId(1);
+        res.setBookId(100);
+        res.setStatus((byte) 4);
+        when(reservationRepository.findById(7)).thenReturn(Optional.of(res));
+        when(bookRepository.findById(100)).thenReturn(Optional.of(mockBook));
+        when(reservationRepository.claimNextQueued(100)).thenReturn(Optional.empty());
+
+        reservationService.returnBook(7);
 
+        // Lock first, then the transaction, so the first read sees the previous holder's commit
+        var order = inOrder(bookLocks, transactionTemplate);
+        order.verify(bookLocks).withLock(eq(100), any());
+        order.verify(transactionTemplate).execute(any());
+        // The auto-assign inside the return reuses the lock and transaction it already holds
+        verify(bookLocks, times(1)).withLock(any(), any());
+        verify(transactionTemplate, times(1)).execute(any());
+    }
 
-}
+    @Test
+    void testCancelReservation_UnknownId_DoesNotLockOrOpenTransaction() {
+        ReservationResponseDTO result = reservationService.cancelReservation(1, 404);
+
+        assertEquals("Reservation not found", result.getMessage());
+        verify(bookLocks, never()).withLock(any(), any());
+        verify(transactionTemplate, never()).execute(any());
+    }
+
+    @Test
+    void testGetLockStats_ReportsManagerCounters() {
+        when(userRepository.findById(1)).thenReturn(Optional.of(mockUser));
+        when(bookRepository.findById(100)).thenReturn(Optional.of(mockBook));
+
+        reservationService.reserveBook(1, 100);
+
+        assertEquals(1, reservationService.getLockStats().acquisitions());
+        assertEquals(16, reservationService.getLockStats().stripes());
+    }
+
+    @Test
+    void testReserveBook_ReportsTheNewReservationToTheQueueIndex() {
+        when(userRepository.findById(1)).thenReturn(Optional.of(mockUser));
+        when(bookRepository.findById(100)).thenReturn(Optional.of(mockBook));
+
+        reservationService.reserveBook(1, 100);
+
+        verify(queueIndex).recordTransition(argThat(r -> r.getBookId() == 100 && r.getStatus() == 0));
+    }
+
+    @Test
+    void testGetQueuePosition_EstimatesRoundsOfLoansPerCopyOut() {
+        Reservation res = new Reservation();
+        res.setReservationId(8);
+        res.setUserId(1);
+        res.setBookId(100);
+        res.setStatus((byte) 0);
+        when(reservationRepository.findById(8)).thenReturn(Optional.of(res));
+        when(queueIndex.averageLoanDays(100)).thenReturn(10.0);
+        when(queueIndex.position(100, 8)).thenReturn(new ReservationQueueIndex.Position(5, 7));
+        when(reservationRepository.countByBookIdAndStatusIn(eq(100), anyCollection())).thenReturn(2L);
+
+        QueuePositionDTO dto = reservationService.getQueuePosition(1, 8);
+
+        assertEquals(5, dto.getPosition());
+        assertEquals(7, dto.getQueueLength());
+        // 5th in line, 2 copies out: third round of loans
+        assertEquals(30, dto.getEstimatedWaitDays());
+        assertEquals(LocalDate.now().plusDays(30), dto.getEstimatedAvailableDate());
+    }
+
+    @Test
+    void testGetQueuePosition_NotQueued_HasNoPosition() {
+        Reservation res = new Reservation();
+        res.setReservationId(8);
+        res.setUserId(1);
+        res.setBookId(100);
+        res.setStatus((byte) 1);
+        when(reservationRepository.findById(8)).thenReturn(Optional.of(res));
+        when(queueIndex.averageLoanDays(100)).thenReturn(14.0);
+
+        QueuePositionDTO dto = reservationService.getQueuePosition(1, 8);
+
+        assertNull(dto.getPosition());
+        assertNull(dto.getEstimatedWaitDays());
+        verify(queueIndex, never()).position(any(), any());
+    }
+
+    @Test
+    void testGetQueuePosition_OthersReservation_ReturnsNull() {
+        Reservation res = new Reservation();
+        res.setReservationId(8);
+        res.setUserId(2);
+        res.setBookId(100);
+        res.setStatus((byte) 0);
+        when(reservationRepository.findById(8)).thenReturn(Optional.of(res));
+
+        assertNull(reservationService.getQueuePosition(1, 8));
+        assertNull(reservationService.getQueuePosition(1, 404));
+    }
+
+    @Test
+    void testAutoAssign_StampsAssignDateAndTracksTheDeadline() {
+        Reservation next = new Reservation();
+        next.setReservationId(12);
+        next.setUserId(2);
+        next.setBookId(100);
+        next.setStatus((byte) 0);
+        when(bookRepository.findById(100)).thenReturn(Optional.of(mockBook));
+        when(reservationRepository.claimNextQueued(100)).thenReturn(Optional.of(next));
+        when(bookRepository.tryTakeCopy(100)).thenReturn(1);
+
+        reservationService.autoAssignNextUser(100);
+
+        assertNotNull(next.getAssignDate());
+        verify(pickupDeadlines).recordTransition(next);
+    }
+
+    @Test
+    void testExpireHold_ReleasesCopyAndAssignsNextWaiter() {
+        Reservation held = new Reservation();
+        held.setReservationId(30);
+        held.setBookId(100);
+        Reservation next = new Reservation();
+        next.setReservationId(31);
+        next.setUserId(2);
+        next.setBookId(100);
+        next.setStatus((byte) 0);
+        LocalDateTime cutoff = LocalDateTime.now().minusHours(72);
+        when(reservationRepository.findById(30)).thenReturn(Optional.of(held));
+        when(reservationRepository.expireHold(30, cutoff)).thenReturn(1);
+        when(bookRepository.findById(100)).thenReturn(Optional.of(mockBook));
+        when(reservationRepository.claimNextQueued(100)).thenReturn(Optional.of(next));
+        when(bookRepository.tryTakeCopy(100)).thenReturn(1);
+
+        ReservationResponseDTO result = reservationService.expireHold(30, cutoff);
+
+        assertEquals((byte) 3, result.getStatus());
+        assertTrue(result.getMessage().startsWith("Pickup window expired, copy reassigned"));
+        verify(bookRepository).releaseCopy(100);
+        verify(bookRepository).adjustNumReservation(100, -1);
+        assertEquals((byte) 1, next.getStatus());
+    }
+
+    @Test
+    void testExpireHold_AlreadyPickedUp_ChangesNothing() {
+        Reservation held = new Reservation();
+        held.setReservationId(30);
+        held.setBookId(100);
+        LocalDateTime cutoff = LocalDateTime.now().minusHours(72);
+        when(reservationRepository.findById(30)).thenReturn(Optional.of(held));
+        when(reservationRepository.expireHold(30, cutoff)).thenReturn(0);
+
+        ReservationResponseDTO result = reservationService.expireHold(30, cutoff);
+
+        assertEquals((byte) -1, result.getStatus());
+        verify(bookRepository, never()).releaseCopy(any());
+        verify(reservationRepository, never()).claimNextQueued(any());
+    }
+
+    @Test
+    void testApproveTakeBook_SetsDueDateFromLoanPeriod() {
+        Reservation res = new Reservation();
+        res.setReservationId(40);
+        res.setBookId(100);
+        res.setStatus((byte) 1);
+        when(reservationRepository.findById(40)).thenReturn(Optional.of(res));
+        stubPickUp(res);
+
+        reservationService.approveTakeBook(40);
+
+        assertEquals(LocalDate.now().plusDays(21), res.getDueDate());
+        verify(pickupDeadlines).recordTransition(res);
+    }
+
+    @Test
+    void testRestock_AssignsWaitersInOneBatchAndShelvesTheRest() {
+        Reservation first = queued(50, 2);
+        Reservation second = queued(51, 3);
+        when(bookRepository.lockQuantity(100)).thenReturn(0);
+        when(reservationRepository.claimQueued(100, 5)).thenReturn(List.of(first, second));
+        when(reservationRepository.assignQueued(eq(List.of(50, 51)), any(LocalDateTime.class))).thenReturn(2);
+
+        RestockResultDTO result = reservationService.restock(100, 5);
+
+        assertEquals(List.of(50, 51), result.getAssignedReservationIds());
+        assertEquals(3, result.getQuantity());
+        verify(bookRepository).addCopies(100, 3);
+        verify(bookRepository, never()).tryTakeCopy(any());
+        verify(reservationRepository, never()).save(any());
+        assertEquals((byte) 1, first.getStatus());
+        assertNotNull(second.getAssignDate());
+        verify(queueIndex).recordTransition(first);
+        verify(pickupDeadlines).recordTransition(second);
+        verify(bookLocks).withLock(eq(100), any());
+    }
+
+    @Test
+    void testRestock_LongQueue_ClaimsOnlyAsManyWaitersAsCopies() {
+        when(bookRepository.lockQuantity(100)).thenReturn(0);
+        when(reservationRepository.claimQueued(100, 2)).thenReturn(List.of(queued(50, 2), queued(51, 3)));
+        when(reservationRepository.assignQueued(any(), any())).thenReturn(2);
+
+        RestockResultDTO result = reservationService.restock(100, 2);
+
+        assertEquals(0, result.getQuantity());
+        verify(bookRepository).addCopies(100, 0);
+    }
+
+    @Test
+    void testRestock_EmptyQueue_PutsAllCopiesOnTheShelf() {
+        when(bookRepository.lockQuantity(100)).thenReturn(1);
+        when(reservationRepository.claimQueued(100, 5)).thenReturn(List.of());
+
+        RestockResultDTO result = reservationService.restock(100, 4);
+
+        assertEquals(5, result.getQuantity());
+        assertTrue(result.getAssignedReservationIds().isEmpty());
+        verify(reservationRepository, never()).assignQueued(any(), any());
+        verify(bookRepository).addCopies(100, 4);
+    }
+
+    @Test
+    void testRestock_UnknownBookOrNoCopies() {
+        when(bookRepository.lockQuantity(999)).thenReturn(null);
+
+        assertNull(reservationService.restock(999, 3));
+        verify(reservationRepository, never()).claimQueued(any(), anyInt());
+        assertThrows(IllegalArgumentException.class, () -> reservationService.restock(100, 0));
+    }
+
+    @Test
+    void testRestockTo_Raise_AssignsTheDifferenceFromTheLockedStock() {
+        when(bookRepository.lockQuantity(100)).thenReturn(2);
+        when(reservationRepository.claimQueued(100, 5)).thenReturn(List.of(queued(50, 2)));
+        when(reservationRepository.assignQueued(eq(List.of(50)), any(LocalDateTime.class))).thenReturn(1);
+
+        RestockResultDTO result = reservationService.restockTo(100, 5);
+
+        assertEquals(3, result.getCopiesAdded());
+        assertEquals(4, result.getQuantity());
+        verify(bookRepository).addCopies(100, 2);
+        verify(bookRepository, times(1)).lockQuantity(100);
+        verify(bookLocks).withLock(eq(100), any());
+    }
+
+    @Test
+    void testRestockTo_Lower_TakesCopiesOffTheShelf() {
+        when(bookRepository.lockQuantity(100)).thenReturn(6);
+
+        RestockResultDTO result = reservationService.restockTo(100, 4);
+
+        assertEquals(4, result.getQuantity());
+        verify(bookRepository).addCopies(100, -2);
+        verify(reservationRepository, never()).claimQueued(any(), anyInt());
+    }
+
+    @Test
+    void testRestockTo_UnknownBookOrNegativeTarget() {
+        when(bookRepository.lockQuantity(999)).thenReturn(null);
+
+        assertNull(reservationService.restockTo(999, 3));
+        assertThrows(IllegalArgumentException.class, () -> reservationService.restockTo(100, -1));
+        verify(bookRepository, never()).addCopies(any(), anyInt());
+    }
+
+    @Test
+    void testReturnBooks_GroupsByBookAndAssignsEachQueueOnce() {
+        Reservation a = onLoan(60, 100);
+        Reservation b = onLoan(61, 100);
+        Reservation c = onLoan(62, 200);
+        Reservation held = onLoan(63, 100);
+        held.setStatus((byte) 1);
+        Reservation waiter = queued(70, 5);
+        List<Integer> ids = List.of(60, 61, 62, 63, 999);
+        when(reservationRepository.findBookIdsByReservationIds(ids)).thenReturn(List.of(100, 200));
+        when(reservationRepository.lockAllById(ids)).thenReturn(List.of(a, b, c, held));
+        when(reservationRepository.returnLoans(eq(List.of(60, 61, 62)), any(LocalDate.class))).thenReturn(3);
+        when(bookRepository.lockQuantity(100)).thenReturn(0);
+        when(bookRepository.lockQuantity(200)).thenReturn(0);
+        when(reservationRepository.claimQueued(100, 2)).thenReturn(List.of(waiter));
+        when(reservationRepository.claimQueued(200, 1)).thenReturn(List.of());
+        when(reservationRepository.assignQueued(eq(List.of(70)), any(LocalDateTime.class))).thenReturn(1);
+
+        List<BatchReturnResult> results = reservationService.returnBooks(List.of(60, 61, 62, 63, 999, 60));
+
+        assertEquals(ids, results.stream().map(BatchReturnResult::getReservationId).toList());
+        assertEquals("Return successful, copy assigned to reservation 70", results.get(0).getMessage());
+        assertEquals("Return successful", results.get(1).getMessage());
+        assertTrue(results.get(2).isSuccess());
+        assertFalse(results.get(3).isSuccess());
+        assertEquals((byte) 1, results.get(3).getStatus());
+        assertEquals("Reservation not found", results.get(4).getMessage());
+        verify(bookLocks).withLocks(eq(List.of(100, 200)), any());
+        verify(reservationRepository, times(1)).returnLoans(any(), any());
+        verify(bookRepository).addCopies(100, 1);
+        verify(bookRepository).addCopies(200, 1);
+        verify(reservationRepository, never()).save(any());
+        assertEquals((byte) 1, waiter.getStatus());
+        verify(queueIndex).recordTransition(a);
+    }
+
+    @Test
+    void testReturnBooks_EmptyOrOversizedBatch() {
+        assertTrue(reservationService.returnBooks(List.of()).isEmpty());
+        verifyNoInteractions(reservationRepository);
+
+        ReflectionTestUtils.setField(reservationService, "maxBatchReturns", 2);
+        assertThrows(IllegalArgumentException.class, () -> reservationService.returnBooks(List.of(1, 2, 3)));
+    }
+
+    @Test
+    void testReserveBooks_BestEffort_AssignsOrQueuesEachAndSkipsMissingBooks() {
+        Book inStock = book(100, 2);
+        Book empty = book(200, 0);
+        when(userRepository.existsById(1)).thenReturn(true);
+        when(bookRepository.lockAllById(List.of(200, 100, 999))).thenReturn(List.of(inStock, empty));
+        doAnswer(inv -> {
+            List<Reservation> batch = inv.getArgument(0);
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).setReservationId(80 + i);
+            }
+            return null;
+        }).when(reservationWriter).insertAll(anyList());
+
+        List<BatchReserveResult> results = reservationService.reserveBooks(1, List.of(200, 100, 999, 100),
+                BatchReserveRequest.Mode.BEST_EFFORT);
+
+        assertEquals(List.of(200, 100, 999), results.stream().map(BatchReserveResult::getBookId).toList());
+        assertEquals((byte) 0, results.get(0).getStatus());
+        assertEquals(80, results.get(0).getReservationId());
+        assertEquals((byte) 1, results.get(1).getStatus());
+        assertFalse(results.get(2).isSuccess());
+        verify(userRepository, times(1)).existsById(1);
+        verify(userRepository, never()).findById(any());
+        verify(bookRepository).reserveOneEach(List.of(200, 100));
+        verify(bookRepository, never()).tryTakeCopy(any());
+        verify(reservationRepository, never()).save(any());
+        verify(bookLocks).withLocks(eq(List.of(200, 100, 999)), any());
+        verify(pickupDeadlines, times(2)).recordTransition(any());
+    }
+
+    @Test
+    void testReserveBooks_AllOrNothing_MissingBookRejectsTheCart() {
+        when(userRepository.existsById(1)).thenReturn(true);
+        when(bookRepository.lockAllById(List.of(100, 999))).thenReturn(List.of(book(100, 2)));
+
+        List<BatchReserveResult> results = reservationService.reserveBooks(1, List.of(100, 999), null);
+
+        assertTrue(results.stream().noneMatch(BatchReserveResult::isSuccess));
+        assertEquals("Book not found", results.get(1).getMessage());
+        verify(bookRepository, never()).reserveOneEach(any());
+        verifyNoInteractions(reservationWriter);
+    }
+
+    @Test
+    void testReserveBooks_UnknownUser_LocksNothing() {
+        when(userRepository.existsById(9)).thenReturn(false);
+
+        List<BatchReserveResult> results = reservationService.reserveBooks(9, List.of(100, 200),
+                BatchReserveRequest.Mode.BEST_EFFORT);
+
+        assertEquals(2, results.size());
+        assertEquals("User not found", results.get(0).getMessage());
+        verify(bookLocks, never()).withLocks(any(), any());
+    }
+
+    @Test
+    void testReserveBook_ActiveDuplicate_IsRefusedWithoutTakingStock() {
+        when(userRepository.findById(1)).thenReturn(Optional.of(mockUser));
+        when(bookRepository.findById(100)).thenReturn(Optional.of(mockBook));
+        when(activeReservations.contains(1, 100)).thenReturn(true);
+        when(reservationRepository.existsByUserIdAndBookIdAndStatusIn(eq(1), eq(100), any())).thenReturn(true);
+
+        ReservationResponseDTO result = reservationService.reserveBook(1, 100);
+
+        assertEquals((byte) -1, result.getStatus());
+        assertEquals("You already have an active reservation for this book", result.getMessage());
+        verify(bookRepository, never()).tryTakeCopy(any());
+        verify(reservationRepository, never()).save(any());
+    }
+
+    @Test
+    void testReserveBook_NoIndexHit_SkipsTheDuplicateQuery() {
+        when(userRepository.findById(1)).thenReturn(Optional.of(mockUser));
+        when(bookRepository.findById(100)).thenReturn(Optional.of(mockBook));
+        when(bookRepository.tryTakeCopy(100)).thenReturn(1);
+
+        reservationService.reserveBook(1, 100);
+
+        verify(reservationRepository, never()).existsByUserIdAndBookIdAndStatusIn(any(), any(), any());
+        verify(activeReservations).recordTransition(any(Reservation.class));
+    }
+
+    @Test
+    void testReserveBook_StaleIndexHit_IsForgottenAndReservationProceeds() {
+        when(userRepository.findById(1)).thenReturn(Optional.of(mockUser));
+        when(bookRepository.findById(100)).thenReturn(Optional.of(mockBook));
+        when(activeReservations.contains(1, 100)).thenReturn(true);
+        when(bookRepository.tryTakeCopy(100)).thenReturn(1);
+
+        ReservationResponseDTO result = reservationService.reserveBook(1, 100);
+
+        assertEquals((byte) 1, result.getStatus());
+        verify(activeReservations).forget(1, 100);
+        verify(reservationRepository).save(any(Reservation.class));
+    }
+
+    @Test
+    void testReserveBook_UniqueConstraintHitFromAnotherNode_ReportsDuplicate() {
+        when(userRepository.findById(1)).thenReturn(Optional.of(mockUser));
+        when(bookRepository.findById(100)).thenReturn(Optional.of(mockBook));
+        when(bookRepository.tryTakeCopy(100)).thenReturn(0);
+        when(reservationRepository.save(any(Reservation.class)))
+                .thenThrow(new DataIntegrityViolationException("uk_reservation_active_user_book"));
+
+        ReservationResponseDTO result = reservationService.reserveBook(1, 100);
+
+        assertEquals("You already have an active reservation for this book", result.getMessage());
+    }
+
+    @Test
+    void testReserveBooks_DuplicateBookIsRefusedInBestEffortMode() {
+        when(userRepository.existsById(1)).thenReturn(true);
+        when(bookRepository.lockAllById(List.of(100, 200))).thenReturn(List.of(book(100, 1), book(200, 1)));
+        when(activeReservations.contains(1, 200)).thenReturn(true);
+        when(reservationRepository.existsByUserIdAndBookIdAndStatusIn(eq(1), eq(200), any())).thenReturn(true);
+
+        List<BatchReserveResult> results = reservationService.reserveBooks(1, List.of(100, 200),
+                BatchReserveRequest.Mode.BEST_EFFORT);
+
+        assertTrue(results.get(0).isSuccess());
+        assertEquals("You already have an active reservation for this book", results.get(1).getMessage());
+        verify(bookRepository).reserveOneEach(List.of(100));
+    }
+
+    @Test
+    void testReserveBook_WithinQuota_RunsNoCountQuery() {
+        when(userRepository.findById(1)).thenReturn(Optional.of(mockUser));
+        when(bookRepository.findById(100)).thenReturn(Optional.of(mockBook));
+        when(bookRepository.tryTakeCopy(100)).thenReturn(1);
+
+        ReservationResponseDTO result = reservationService.reserveBook(1, 100);
+
+        assertEquals((byte) 1, result.getStatus());
+        verify(activeReservations).claimSlots(1, 1, 10);
+        verify(reservationRepository, never()).findActivePairsByUserId(any());
+    }
+
+    @Test
+    void testReserveBook_QuotaReached_IsRefusedAfterRefreshingTheCount() {
+        when(userRepository.findById(1)).thenReturn(Optional.of(mockUser));
+        when(bookRepository.findById(100)).thenReturn(Optional.of(mockBook));
+        when(activeReservations.claimSlots(1, 1, 10)).thenReturn(0);
+
+        ReservationResponseDTO result = reservationService.reserveBook(1, 100);
+
+        assertEquals((byte) -1, result.getStatus());
+        assertEquals("Reservation limit reached: at most 10 active reservations per user", result.getMessage());
+        verify(activeReservations).refreshUser(eq(1), any());
+        verify(bookRepository, never()).tryTakeCopy(any());
+        verify(reservationRepository, never()).save(any());
+    }
+
+    @Test
+    void testReserveBook_StaleQuotaCount_IsCorrectedAndReservationProceeds() {
+        when(userRepository.findById(1)).thenReturn(Optional.of(mockUser));
+        when(bookRepository.findById(100)).thenReturn(Optional.of(mockBook));
+        when(bookRepository.tryTakeCopy(100)).thenReturn(1);
+        when(activeReservations.claimSlots(1, 1, 10)).thenReturn(0, 1);
+
+        ReservationResponseDTO result = reservationService.reserveBook(1, 100);
+
+        assertEquals((byte) 1, result.getStatus());
+        verify(reservationRepository).findActivePairsByUserId(1);
+        verify(reservationRepository).save(any(Reservation.class));
+    }
+
+    @Test
+    void testReserveBook_WithinQuota_ReadsNoActiveReservations() {
+        when(userRepository.findById(1)).thenReturn(Optional.of(mockUser));
+        when(bookRepository.findById(100)).thenReturn(Optional.of(mockBook));
+        when(bookRepository.tryTakeCopy(100)).thenReturn(1);
+
+        ReservationResponseDTO result = reservationService.reserveBook(1, 100);
+
+        assertEquals((byte) 1, result.getStatus());
+        verify(reservationRepository, never()).findActivePairsByUserId(any());
+        verify(activeReservations, never()).refreshUser(any(), any());
+    }
+
+    @Test
+    void testReserveBook_QuotaDisabled_SkipsTheCounter() {
+        ReflectionTestUtils.setField(reservationService, "maxActivePerUser", 0);
+        when(userRepository.findById(1)).thenReturn(Optional.of(mockUser));
+        when(bookRepository.findById(100)).thenReturn(Optional.of(mockBook));
+        when(bookRepository.tryTakeCopy(100)).thenReturn(1);
+
+        reservationService.reserveBook(1, 100);
 
+        verify(activeReservations, never()).claimSlots(anyInt(), anyInt(), anyInt());
+    }
+
+    @Test
+    void testReserveBooks_BestEffort_BooksPastTheQuotaAreRefused() {
+        when(userRepository.existsById(1)).thenReturn(true);
+        when(bookRepository.lockAllById(List.of(100, 200, 300)))
+                .thenReturn(List.of(book(100, 1), book(200, 1), book(300, 1)));
+        when(activeReservations.claimSlots(1, 3, 10)).thenReturn(2);
+        when(activeReservations.claimSlots(1, 1, 10)).thenReturn(0);
+
+        List<BatchReserveResult> results = reservationService.reserveBooks(1, List.of(100, 200, 300),
+                BatchReserveRequest.Mode.BEST_EFFORT);
+
+        assertTrue(results.get(0).isSuccess());
+        assertTrue(results.get(1).isSuccess());
+        assertFalse(results.get(2).isSuccess());
+        assertTrue(results.get(2).getMessage().startsWith("Reservation limit reached"));
+        verify(bookRepository).reserveOneEach(List.of(100, 200));
+    }
+
+    @Test
+    void testReserveBooks_AllOrNothing_CartPastTheQuotaIsRejected() {
+        when(userRepository.existsById(1)).thenReturn(true);
+        when(bookRepository.lockAllById(List.of(100, 200))).thenReturn(List.of(book(100, 1), book(200, 1)));
+        when(activeReservations.claimSlots(1, 2, 10)).thenReturn(1);
+        when(activeReservations.claimSlots(1, 1, 10)).thenReturn(0);
+
+        List<BatchReserveResult> results = reservationService.reserveBooks(1, List.of(100, 200), null);
+
+        assertEquals("Not reserved: another book in the cart was refused", results.get(0).getMessage());
+        assertTrue(results.get(1).getMessage().startsWith("Reservation limit reached"));
+        verify(bookRepository, never()).reserveOneEach(any());
+    }
+
+    @Test
+    void testReserveAndPickup_RecordTheirTransitionsInTheOutbox() {
+        when(userRepository.findById(1)).thenReturn(Optional.of(mockUser));
+        when(bookRepository.findById(100)).thenReturn(Optional.of(mockBook));
+        when(bookRepository.tryTakeCopy(100)).thenReturn(1);
+        List<Byte> recorded = new ArrayList<>();
+        doAnswer(inv -> recorded.add(inv.<Reservation>getArgument(0).getStatus())).when(events).record(any());
+
+        reservationService.reserveBook(1, 100);
+        Reservation held = new Reservation();
+        held.setReservationId(91);
+        held.setBookId(100);
+        held.setStatus((byte) 1);
+        when(reservationRepository.findById(91)).thenReturn(Optional.of(held));
+        stubPickUp(held);
+        reservationService.approveTakeBook(91);
+
+        assertEquals(List.of((byte) 1, (byte) 4), recorded);
+    }
+
+    @Test
+    void testExpireHold_RecordsTheExpiredRowInTheOutbox() {
+        Reservation expired = new Reservation();
+        expired.setReservationId(92);
+        expired.setUserId(1);
+        expired.setBookId(100);
+        expired.setStatus((byte) 3);
+        when(reservationRepository.findById(92)).thenReturn(Optional.of(expired));
+        when(bookRepository.findById(100)).thenReturn(Optional.of(mockBook));
+        LocalDateTime cutoff = LocalDateTime.now();
+        when(reservationRepository.expireHold(92, cutoff)).thenReturn(1);
+
+        reservationService.expireHold(92, cutoff);
+
+        verify(events).record(expired);
+    }
+
+    @Test
+    void testCancelAndExpire_RemoveTheReservationFromTheActiveIndex() {
+        Reservation res = new Reservation();
+        res.setReservationId(90);
+        res.setUserId(1);
+        res.setBookId(100);
+        res.setStatus((byte) 0);
+        when(reservationRepository.findById(90)).thenReturn(Optional.of(res));
+        reservationService.cancelReservation(1, 90);
+        verify(activeReservations).recordTransition(res);
+
+        LocalDateTime cutoff = LocalDateTime.now();
+        when(reservationRepository.expireHold(90, cutoff)).thenReturn(1);
+        when(bookRepository.findById(100)).thenReturn(Optional.of(mockBook));
+        reservationService.expireHold(90, cutoff);
+        verify(activeReservations).recordClosed(90);
+    }
+
+    // Mirrors the conditional pickup UPDATE on the row findById returns afterwards
+    private void stubPickUp(Reservation hold) {
+        when(reservationRepository.pickUpHold(eq(hold.getReservationId()), any(), any())).thenAnswer(inv -> {
+            hold.setStatus((byte) 4);
+            hold.setTakeDate(inv.getArgument(1));
+            hold.setDueDate(inv.getArgument(2));
+            return 1;
+        });
+    }
+
+    private static Book book(int bookId, int quantity) {
+        Book b = new Book();
+        b.setBookId(bookId);
+        b.setQuantity(quantity);
+        return b;
+    }
+
+    private static Reservation onLoan(int reservationId, int bookId) {
+        Reservation r = new Reservation();
+        r.setReservationId(reservationId);
+        r.setUserId(1);
+        r.setBookId(bookId);
+        r.setStatus((byte) 4);
+        return r;
+    }
+
+    private static Reservation queued(int reservationId, int userId) {
+        Reservation r = new Reservation();
+        r.setReservationId(reservationId);
+        r.setUserId(userId);
+        r.setBookId(100);
+        r.setStatus((byte) 0);
+        return r;
+    }
+
+}
@@ -6,6 +6,8 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.test.util.ReflectionTestUtils;
 
+import java.time.Clock;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.HashMap;
 import java.util.Map;
@@ -229,4 +231,65 @@ public class TokenServiceTest {
             tokenService.verify(token);
         });
     }
+
+    @Test
+    void testVerify_RepeatedToken_ServedFromCache() {
+        // Arrange
+        Map<String, Object> claims = new HashMap<>();
+        claims.put("userId", 500);
+        String token = tokenService.sign(claims, Instant.now().plusSeconds(3600));
+
+        // Act
+        Map<String, Object> first = tokenService.verify(token);
+        Map<String, Object> second = tokenService.verify(token);
+
+        // Assert - second call returns the remembered claims instead of re-parsing
+        assertEquals(500, second.get("userId"));
+        assertSame(first, second);
+    }
+
+    @Test
+    void testVerify_CacheDisabled_ParsesEveryTime() {
+        // Arrange
+        ReflectionTestUtils.setField(tokenService, "verifyCacheSize", 0);
+        Map<String, Object> claims = new HashMap<>();
+        claims.put("userId", 600);
+        String token = tokenService.sign(claims, Instant.now().plusSeconds(3600));
+
+        // Act
+        Map<String, Object> first = tokenService.verify(token);
+        Map<String, Object> second = tokenService.verify(token);
+
+        // Assert
+        assertEquals(first, second);
+        assertNotSame(first, second);
+    }
+
+    @Test
+    void testVerify_CachedTokenPastExpiry_ThrowsExpired() {
+        // Arrange - token that expires almost immediately
+        Map<String, Object> claims = new HashMap<>();
+        claims.put("userId", 700);
+        String token = tokenService.sign(claims, Instant.now().plusSeconds(1));
+        tokenService.verify(token);
+
+        // Act - move the service's clock past its exp
+        ReflectionTestUtils.setField(tokenService, "clock", Clock.offset(Clock.systemUTC(), Duration.ofSeconds(2)));
+
+        // Assert - the cache must not keep serving an expired token
+        assertThrows(ExpiredJwtException.class, () -> tokenService.verify(token));
+    }
+
+    @Test
+    void testVerify_CacheFull_StillVerifies() {
+        // Arrange
+        ReflectionTestUtils.setField(tokenService, "verifyCacheSize", 2);
+        Instant exp = Instant.now().plusSeconds(3600);
+
+        // Act & Assert - more distinct tokens than the cache can hold
+        for (int i = 0; i < 5; i++) {
+            String token = tokenService.sign(Map.of("userId", i), exp);
+            assertEquals(i, tokenService.verify(token).get("userId"));
+        }
+    }
 }
@@ -0,0 +1,75 @@
+package usyd.library_reservation_system.library_reservation_system.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import usyd.library_reservation_system.library_reservation_system.model.UserEntity;
+import usyd.library_reservation_system.library_reservation_system.repository.UserRepository;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class UserEntityListenerTest {
+
+    private final UserSearchIndex searchIndex = new UserSearchIndex(mock(UserRepository.class));
+    private final UserEntityListener listener;
+
+    UserEntityListenerTest() {
+        StaticListableBeanFactory beans = new StaticListableBeanFactory();
+        beans.addBean("searchIndex", searchIndex);
+        listener = new UserEntityListener(beans.getBeanProvider(UserUniquenessFilter.class),
+                beans.getBeanProvider(UserSearchIndex.class));
+    }
+
+    @Test
+    void outsideTransaction_indexIsUpdatedAtOnce() {
+        listener.onSaved(user(1, "alice"));
+
+        assertEquals(List.of(1), searchIndex.searchNickname("alice"));
+    }
+
+    @Test
+    void insideTransaction_indexWaitsForCommit_andKeepsTheValuesSavedThen() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            UserEntity user = user(2, "bob");
+            listener.onSaved(user);
+            user.setNickname("changed after flush");
+            assertTrue(searchIndex.searchNickname("bob").isEmpty());
+
+            for (TransactionSynchronization s : TransactionSynchronizationManager.getSynchronizations()) {
+                s.afterCommit();
+            }
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertEquals(List.of(2), searchIndex.searchNickname("bob"));
+    }
+
+    @Test
+    void rolledBackSave_neverReachesTheIndex() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            listener.onSaved(user(3, "carol"));
+            for (TransactionSynchronization s : TransactionSynchronizationManager.getSynchronizations()) {
+                s.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+            }
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertTrue(searchIndex.searchNickname("carol").isEmpty());
+    }
+
+    private static UserEntity user(int id, String nickname) {
+        UserEntity u = new UserEntity();
+        u.setUserId(id);
+        u.setNickname(nickname);
+        u.setEmail(nickname + "@example.com");
+        return u;
+    }
+}
@@ -0,0 +1,89 @@
+package usyd.library_reservation_system.library_reservation_system.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import usyd.library_reservation_system.library_reservation_system.repository.UserRepository;
+import usyd.library_reservation_system.library_reservation_system.repository.UserSearchProjection;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserSearchIndexTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @InjectMocks
+    private UserSearchIndex index;
+
+    private static UserSearchProjection row(int id, String nickname, String email) {
+        return new UserSearchProjection() {
+            public Integer getUserId() { return id; }
+            public String getNickname() { return nickname; }
+            public String getEmail() { return email; }
+        };
+    }
+
+    @Test
+    void warmUp_loadsAllUsersAndMarksReady() {
+        when(userRepository.streamAllSearchFields()).thenReturn(Stream.of(
+                row(1, "alice", "alice@example.com"),
+                row(2, "bob", "bob@example.com")
+        ));
+        assertFalse(index.isReady());
+
+        index.warmUp();
+
+        assertTrue(index.isReady());
+        assertEquals(List.of(1), index.searchNickname("ali"));
+        assertEquals(List.of(1, 2), index.searchEmail("example"));
+    }
+
+    @Test
+    void nicknameAndEmail_areSearchedSeparately_inUserIdOrder() {
+        index.put(9, "bob", "zed@example.com");
+        index.put(3, "bobby", "bob@example.com");
+        index.put(5, "alice", "a@bob.org");
+
+        assertEquals(List.of(3, 9), index.searchNickname("bob"));
+        assertEquals(List.of(3, 5), index.searchEmail("bob"));
+    }
+
+    @Test
+    void rankNickname_putsBestMatchesFirst() {
+        index.put(2, "xbob", "x@example.com");
+        index.put(9, "bob", "zed@example.com");
+        index.put(3, "bobby", "bob@example.com");
+
+        assertEquals(List.of(9, 3, 2), index.rankNickname("bob"));
+        assertEquals(List.of(2, 3, 9), index.searchNickname("bob"));
+    }
+
+    @Test
+    void putAndRemove_keepIndexCurrent() {
+        index.put(7, "carol", "c@x.com");
+        assertEquals(List.of(7), index.searchNickname("car"));
+
+        index.put(7, "caroline", "c@x.com");
+        assertEquals(List.of(7), index.searchNickname("line"));
+
+        index.remove(7);
+        assertTrue(index.searchNickname("car").isEmpty());
+        assertTrue(index.searchEmail("c@x").isEmpty());
+    }
+
+    @Test
+    void put_nullId_isIgnored() {
+        index.put(null, "ghost", "g@x.com");
+
+        assertTrue(index.searchNickname("ghost").isEmpty());
+        verifyNoInteractions(userRepository);
+    }
+}
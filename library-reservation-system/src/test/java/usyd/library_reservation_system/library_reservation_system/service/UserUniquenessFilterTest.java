@@ -0,0 +1,77 @@
+package usyd.library_reservation_system.library_reservation_system.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import usyd.library_reservation_system.library_reservation_system.repository.UserContactProjection;
+import usyd.library_reservation_system.library_reservation_system.repository.UserRepository;
+
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserUniquenessFilterTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @InjectMocks
+    private UserUniquenessFilter filter;
+
+    private void warmUpWithTwoUsers() {
+        when(userRepository.count()).thenReturn(2L);
+        when(userRepository.streamAllContacts()).thenReturn(Stream.of(
+                contact("alice@example.com", "0412345678"),
+                contact("bob@example.com", "0423456789")
+        ));
+        filter.warmUp();
+    }
+
+    private static UserContactProjection contact(String email, String tel) {
+        return new UserContactProjection() {
+            public String getEmail() { return email; }
+            public String getTelephone() { return tel; }
+        };
+    }
+
+    @Test
+    void testBeforeWarmUp_EverythingMightBeTaken() {
+        assertFalse(filter.isReady());
+        assertTrue(filter.mightHaveEmail("nobody@example.com"));
+        assertTrue(filter.mightHaveTelephone("0000000000"));
+    }
+
+    @Test
+    void testWarmUp_LoadsExistingUsers() {
+        warmUpWithTwoUsers();
+
+        assertTrue(filter.isReady());
+        assertTrue(filter.mightHaveEmail("alice@example.com"));
+        assertTrue(filter.mightHaveEmail("  BOB@Example.com "));   // normalized
+        assertTrue(filter.mightHaveTelephone(" 0412345678 "));
+        assertFalse(filter.mightHaveEmail("nobody@example.com"));
+        assertFalse(filter.mightHaveTelephone("0999999999"));
+    }
+
+    @Test
+    void testAdd_AfterWarmUp_NewUserReported() {
+        warmUpWithTwoUsers();
+
+        filter.add("New@Example.com", "0433333333");
+
+        assertTrue(filter.mightHaveEmail("new@example.com"));
+        assertTrue(filter.mightHaveTelephone("0433333333"));
+    }
+
+    @Test
+    void testNullInput_TreatedAsMaybe() {
+        warmUpWithTwoUsers();
+
+        assertTrue(filter.mightHaveEmail(null));
+        assertTrue(filter.mightHaveTelephone(null));
+    }
+}
@@ -0,0 +1,59 @@
+package usyd.library_reservation_system.library_reservation_system.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CsvReaderTest {
+
+    @Test
+    void readsPlainAndQuotedFields() throws IOException {
+        CsvReader r = new CsvReader(new StringReader("a,b,c\n\"x, y\",\"say \"\"hi\"\"\",\n"));
+
+        assertEquals(List.of("a", "b", "c"), r.next());
+        assertEquals(List.of("x, y", "say \"hi\"", ""), r.next());
+        assertNull(r.next());
+    }
+
+    @Test
+    void quotedFieldMaySpanLines_andLineNumbersTrackRecordStart() throws IOException {
+        CsvReader r = new CsvReader(new StringReader("h\r\n\"line1\r\nline2\"\r\nnext\r\n"));
+
+        r.next();
+        assertEquals(List.of("line1\r\nline2"), r.next());
+        assertEquals(2, r.getRecordLine());
+        assertEquals(List.of("next"), r.next());
+        assertEquals(4, r.getRecordLine());
+    }
+
+    @Test
+    void blankLinesSkipped_lastLineWithoutNewline() throws IOException {
+        CsvReader r = new CsvReader(new StringReader("\n\na,b\n\nc,d"));
+
+        assertEquals(List.of("a", "b"), r.next());
+        assertEquals(List.of("c", "d"), r.next());
+        assertNull(r.next());
+    }
+
+    @Test
+    void unterminatedQuote_throws() {
+        CsvReader r = new CsvReader(new StringReader("\"oops,1\n"));
+
+        assertThrows(IOException.class, r::next);
+    }
+
+    @Test
+    void recordsLargerThanBuffer() throws IOException {
+        String big = "x".repeat(20_000);
+        CsvReader r = new CsvReader(new StringReader(big + ",\"" + big + "\"\n"));
+
+        List<String> rec = r.next();
+        assertEquals(2, rec.size());
+        assertEquals(big, rec.get(0));
+        assertEquals(big, rec.get(1));
+    }
+}
@@ -0,0 +1,71 @@
+package usyd.library_reservation_system.library_reservation_system.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IndexedSkipListTest {
+
+    @Test
+    void rank_isOneBasedSortPosition() {
+        IndexedSkipList<Integer> list = new IndexedSkipList<>();
+        for (int k : new int[]{50, 10, 40, 20, 30}) {
+            assertTrue(list.add(k));
+        }
+        assertEquals(List.of(10, 20, 30, 40, 50), list.toList());
+        assertEquals(1, list.rank(10));
+        assertEquals(3, list.rank(30));
+        assertEquals(5, list.rank(50));
+        assertEquals(0, list.rank(35));
+    }
+
+    @Test
+    void duplicatesAndMissingKeys_areRejected() {
+        IndexedSkipList<Integer> list = new IndexedSkipList<>();
+        assertTrue(list.add(1));
+        assertFalse(list.add(1));
+        assertFalse(list.remove(2));
+        assertEquals(1, list.size());
+    }
+
+    @Test
+    void removingTheHead_shiftsEveryoneUpByOne() {
+        IndexedSkipList<Integer> list = new IndexedSkipList<>();
+        for (int i = 1; i <= 100; i++) {
+            list.add(i);
+        }
+        assertTrue(list.remove(1));
+        assertEquals(1, list.rank(2));
+        assertEquals(99, list.rank(100));
+        assertEquals(99, list.size());
+    }
+
+    // Random adds/removes checked against TreeSet.headSet as the reference rank
+    @Test
+    void randomOperations_matchTreeSetRanks() {
+        Random rnd = new Random(42);
+        IndexedSkipList<Integer> list = new IndexedSkipList<>();
+        TreeSet<Integer> ref = new TreeSet<>();
+        for (int op = 0; op < 20_000; op++) {
+            int k = rnd.nextInt(2_000);
+            if (rnd.nextInt(3) == 0) {
+                assertEquals(ref.remove(k), list.remove(k));
+            } else {
+                assertEquals(ref.add(k), list.add(k));
+            }
+        }
+        assertEquals(ref.size(), list.size());
+        List<Integer> keys = new ArrayList<>(ref);
+        Collections.shuffle(keys, rnd);
+        for (int k : keys) {
+            assertEquals(ref.headSet(k, true).size(), list.rank(k));
+        }
+        assertEquals(new ArrayList<>(ref), list.toList());
+    }
+}
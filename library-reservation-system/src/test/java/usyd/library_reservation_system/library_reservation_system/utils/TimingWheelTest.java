@@ -0,0 +1,97 @@
+package usyd.library_reservation_system.library_reservation_system.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimingWheelTest {
+
+    private static final long START = 1_000_000L;
+
+    @Test
+    void firesAfterTheDeadline_neverBefore() {
+        TimingWheel<String> wheel = new TimingWheel<>(10, 8, 3, START);
+        wheel.schedule("a", START + 35);
+
+        assertTrue(wheel.advance(START + 30).isEmpty());
+        assertEquals(List.of(), wheel.advance(START + 35));
+        assertEquals(List.of("a"), wheel.advance(START + 40));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void cascadesDownFromUpperLevels() {
+        // Level 0 spans 80 ms, level 1 640 ms, level 2 5120 ms
+        TimingWheel<String> wheel = new TimingWheel<>(10, 8, 3, START);
+        wheel.schedule("far", START + 3_005);
+        wheel.schedule("mid", START + 500);
+
+        assertTrue(wheel.advance(START + 500).isEmpty());
+        assertEquals(List.of("mid"), wheel.advance(START + 510));
+        assertTrue(wheel.advance(START + 3_000).isEmpty());
+        assertEquals(List.of("far"), wheel.advance(START + 3_010));
+    }
+
+    @Test
+    void beyondTheTopLevel_isParkedAndStillFiresOnTime() {
+        TimingWheel<String> wheel = new TimingWheel<>(10, 4, 2, START); // range 160 ms
+        wheel.schedule("x", START + 1_000);
+
+        assertTrue(wheel.advance(START + 1_000).isEmpty());
+        assertEquals(List.of("x"), wheel.advance(START + 1_010));
+    }
+
+    @Test
+    void cancelAndReschedule() {
+        TimingWheel<String> wheel = new TimingWheel<>(10, 8, 3, START);
+        wheel.schedule("a", START + 50);
+        wheel.schedule("b", START + 50);
+        assertTrue(wheel.cancel("a"));
+        assertFalse(wheel.cancel("a"));
+        wheel.schedule("b", START + 900); // moves, does not duplicate
+
+        assertTrue(wheel.advance(START + 100).isEmpty());
+        assertEquals(List.of("b"), wheel.advance(START + 910));
+    }
+
+    @Test
+    void pastDeadline_firesOnNextAdvance() {
+        TimingWheel<String> wheel = new TimingWheel<>(10, 8, 3, START);
+        wheel.schedule("late", START - 5_000);
+        assertEquals(List.of("late"), wheel.advance(START));
+    }
+
+    // Random deadlines/cancels against a map; every timer fires within one tick after its deadline
+    @Test
+    void randomSchedule_firesEachOnceWithinOneTick() {
+        Random rnd = new Random(7);
+        long tick = 10;
+        TimingWheel<Integer> wheel = new TimingWheel<>(tick, 16, 3, START);
+        Map<Integer, Long> pending = new HashMap<>();
+        for (int i = 0; i < 2_000; i++) {
+            long deadline = START + rnd.nextInt(100_000);
+            wheel.schedule(i, deadline);
+            pending.put(i, deadline);
+        }
+        for (int i = 0; i < 2_000; i += 5) {
+            assertTrue(wheel.cancel(i));
+            pending.remove(i);
+        }
+
+        for (long now = START; now <= START + 100_020; now += 1 + rnd.nextInt(37)) {
+            for (int key : wheel.advance(now)) {
+                Long deadline = pending.remove(key);
+                assertNotNull(deadline, "fired twice or after cancel: " + key);
+                assertTrue(deadline < now, "early: " + key);
+                assertTrue(now - deadline <= tick + 37, "late: " + key);
+            }
+        }
+        assertTrue(pending.isEmpty());
+        assertEquals(0, wheel.size());
+    }
+}
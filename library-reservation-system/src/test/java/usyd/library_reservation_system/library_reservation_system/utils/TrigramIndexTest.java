@@ -0,0 +1,90 @@
+package usyd.library_reservation_system.library_reservation_system.utils;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TrigramIndexTest {
+
+    private TrigramIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new TrigramIndex();
+        index.put(1, "Alice", "alice@example.com");
+        index.put(2, "Malice", "m@example.com");
+        index.put(3, "Bob", "bob.alice@uni.edu");
+        index.put(4, "alice", "other@example.com");
+    }
+
+    @Test
+    void search_ranksExactThenPrefixThenContainsThenEmail() {
+        // exact nickname (1 and 4, tie broken by id), nickname contains (2), email only (3)
+        assertEquals(List.of(1, 4, 2, 3), index.search("ALICE"));
+    }
+
+    @Test
+    void search_prefixBeatsContains() {
+        index.put(5, "Alicetta", "z@z.com");
+        List<Integer> ids = index.search("alice");
+        assertTrue(ids.indexOf(5) < ids.indexOf(2));
+    }
+
+    @Test
+    void rank_ordersValuesLikeSearch_withoutIndexingThem() {
+        // exact (4), prefix (5), contains (2); 3 does not match
+        assertEquals(List.of(4, 5, 2), TrigramIndex.rank("Alice",
+                Map.of(2, "Malice", 3, "Bob", 4, "alice", 5, "Alicetta")));
+        assertEquals(List.of(1, 2), TrigramIndex.rank(null, Map.of(2, "b", 1, "a")));
+    }
+
+    @Test
+    void search_confirmsSubstring_notJustSharedTrigrams() {
+        // "ali" and "ice" both occur in "alice", but "aliice" does not
+        assertTrue(index.search("aliice").isEmpty());
+    }
+
+    @Test
+    void search_unknownTrigram_returnsEmpty() {
+        assertTrue(index.search("zzz").isEmpty());
+    }
+
+    @Test
+    void search_shortQuery_scansDocuments() {
+        assertEquals(List.of(3), index.search("bo"));
+    }
+
+    @Test
+    void search_emptyOrNullQuery_matchesEverything() {
+        assertEquals(4, index.search("").size());
+        assertEquals(4, index.search(null).size());
+    }
+
+    @Test
+    void put_replacesOldValues() {
+        index.put(2, "Zed", "zed@example.com");
+
+        assertFalse(index.search("malice").contains(2));
+        assertEquals(List.of(2), index.search("zed"));
+        assertEquals(4, index.size());
+    }
+
+    @Test
+    void remove_dropsDocument() {
+        index.remove(1);
+
+        assertFalse(index.search("alice").contains(1));
+        assertEquals(3, index.size());
+    }
+
+    @Test
+    void put_nullFieldsAreIgnored() {
+        index.put(9, null, "solo@x.com");
+
+        assertEquals(List.of(9), index.search("solo"));
+    }
+}